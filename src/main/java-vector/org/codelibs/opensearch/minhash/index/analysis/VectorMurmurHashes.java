@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.index.analysis;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Computes the hash values of as many seeds as there are lanes in a
+ * vector at once. Only this class refers to {@code jdk.incubator.vector},
+ * so that it is loaded only when the module is available.
+ */
+final class VectorMurmurHashes extends MurmurHashes {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    VectorMurmurHashes(final long[] seeds) {
+        super(seeds);
+    }
+
+    static int lanes() {
+        return SPECIES.length();
+    }
+
+    @Override
+    void compute(final long[] values, final boolean min) {
+        final int bound = SPECIES.loopBound(seeds.length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            LongVector h1 = LongVector.fromArray(SPECIES, seeds, i);
+            LongVector h2 = h1;
+            for (int b = 0; b < numOfBlocks; b++) {
+                h1 = h1.lanewise(VectorOperators.XOR, k1s[b])
+                        .lanewise(VectorOperators.ROL, 27).add(h2).mul(5)
+                        .add(0x52dce729);
+                h2 = h2.lanewise(VectorOperators.XOR, k2s[b])
+                        .lanewise(VectorOperators.ROL, 31).add(h1).mul(5)
+                        .add(0x38495ab5);
+            }
+            h1 = h1.lanewise(VectorOperators.XOR, tailK1 ^ length);
+            h2 = h2.lanewise(VectorOperators.XOR, tailK2 ^ length);
+            h1 = h1.add(h2);
+            h2 = h2.add(h1);
+            LongVector value = fmix64(h1).add(fmix64(h2));
+            if (min) {
+                value = value.min(LongVector.fromArray(SPECIES, values, i));
+            }
+            value.intoArray(values, i);
+        }
+        for (; i < seeds.length; i++) {
+            final long value = hashOne(seeds[i]);
+            if (!min || value < values[i]) {
+                values[i] = value;
+            }
+        }
+    }
+
+    private static LongVector fmix64(LongVector k) {
+        k = k.lanewise(VectorOperators.XOR,
+                k.lanewise(VectorOperators.LSHR, 33));
+        k = k.mul(0xff51afd7ed558ccdL);
+        k = k.lanewise(VectorOperators.XOR,
+                k.lanewise(VectorOperators.LSHR, 33));
+        k = k.mul(0xc4ceb9fe1a85ec53L);
+        return k.lanewise(VectorOperators.XOR,
+                k.lanewise(VectorOperators.LSHR, 33));
+    }
+}
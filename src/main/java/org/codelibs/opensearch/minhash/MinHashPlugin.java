@@ -15,30 +15,216 @@
  */
 package org.codelibs.opensearch.minhash;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
+import org.codelibs.opensearch.minhash.action.MinHashCacheStatsAction;
+import org.codelibs.opensearch.minhash.action.MinHashExistsAction;
+import org.codelibs.opensearch.minhash.action.MinHashJoinAction;
+import org.codelibs.opensearch.minhash.action.MinHashRegisterAction;
+import org.codelibs.opensearch.minhash.action.MinHashResignAction;
+import org.codelibs.opensearch.minhash.action.TransportMinHashCacheStatsAction;
+import org.codelibs.opensearch.minhash.action.TransportMinHashExistsAction;
+import org.codelibs.opensearch.minhash.action.TransportMinHashJoinAction;
+import org.codelibs.opensearch.minhash.action.TransportMinHashRegisterAction;
+import org.codelibs.opensearch.minhash.action.TransportMinHashResignAction;
+import org.codelibs.opensearch.minhash.index.cache.FingerprintFilterCache;
+import org.codelibs.opensearch.minhash.index.cache.SignatureColumnCache;
 import org.codelibs.opensearch.minhash.index.analysis.MinHashTokenFilterFactory;
+import org.codelibs.opensearch.minhash.index.analysis.SimHashTokenFilterFactory;
 import org.codelibs.opensearch.minhash.index.mapper.MinHashFieldMapper;
+import org.codelibs.opensearch.minhash.index.mapper.SimHashFieldMapper;
+import org.codelibs.opensearch.minhash.index.query.MinHashCascadeQueryBuilder;
+import org.codelibs.opensearch.minhash.index.query.MinHashWithinQueryBuilder;
+import org.codelibs.opensearch.minhash.index.query.SimHashWithinQueryBuilder;
+import org.codelibs.opensearch.minhash.ingest.MinHashDuplicateProcessor;
+import org.codelibs.opensearch.minhash.ingest.MinHashReferenceProcessor;
+import org.codelibs.opensearch.minhash.ingest.MinHashRoutingProcessor;
+import org.codelibs.opensearch.minhash.reference.MinHashReferenceService;
+import org.codelibs.opensearch.minhash.rest.RestMinHashCacheStatsAction;
+import org.codelibs.opensearch.minhash.rest.RestMinHashExistsAction;
+import org.codelibs.opensearch.minhash.rest.RestMinHashJoinAction;
+import org.codelibs.opensearch.minhash.rest.RestMinHashRegisterAction;
+import org.codelibs.opensearch.minhash.rest.RestMinHashResignAction;
+import org.codelibs.opensearch.minhash.search.MinHashDiversifyActionFilter;
+import org.codelibs.opensearch.minhash.search.MinHashDiversifyExtBuilder;
+import org.codelibs.opensearch.minhash.search.aggregations.InternalMinHashClusters;
+import org.codelibs.opensearch.minhash.search.aggregations.MinHashClustersAggregationBuilder;
+import org.opensearch.action.ActionRequest;
+import org.opensearch.action.support.ActionFilter;
+import org.opensearch.cluster.metadata.IndexNameExpressionResolver;
+import org.opensearch.cluster.node.DiscoveryNodes;
+import org.opensearch.cluster.service.ClusterService;
+import org.opensearch.common.settings.ClusterSettings;
+import org.opensearch.common.settings.IndexScopedSettings;
+import org.opensearch.common.settings.Setting;
+import org.opensearch.common.settings.Setting.Property;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.settings.SettingsFilter;
+import org.opensearch.core.action.ActionResponse;
+import org.opensearch.core.common.breaker.CircuitBreaker;
+import org.opensearch.core.common.io.stream.NamedWriteableRegistry;
+import org.opensearch.core.common.unit.ByteSizeUnit;
+import org.opensearch.core.common.unit.ByteSizeValue;
+import org.opensearch.core.xcontent.NamedXContentRegistry;
+import org.opensearch.env.Environment;
+import org.opensearch.env.NodeEnvironment;
 import org.opensearch.index.analysis.TokenFilterFactory;
 import org.opensearch.index.mapper.Mapper;
+import org.opensearch.indices.breaker.BreakerSettings;
+import org.opensearch.indices.SystemIndexDescriptor;
 import org.opensearch.indices.analysis.AnalysisModule.AnalysisProvider;
+import org.opensearch.ingest.Processor;
+import org.opensearch.plugins.ActionPlugin;
 import org.opensearch.plugins.AnalysisPlugin;
+import org.opensearch.plugins.CircuitBreakerPlugin;
+import org.opensearch.plugins.IngestPlugin;
 import org.opensearch.plugins.MapperPlugin;
 import org.opensearch.plugins.Plugin;
+import org.opensearch.plugins.SearchPlugin;
+import org.opensearch.plugins.SystemIndexPlugin;
+import org.opensearch.repositories.RepositoriesService;
+import org.opensearch.rest.RestController;
+import org.opensearch.rest.RestHandler;
+import org.opensearch.script.ScriptService;
+import org.opensearch.threadpool.ThreadPool;
+import org.opensearch.transport.client.Client;
+import org.opensearch.watcher.ResourceWatcherService;
 
-public class MinHashPlugin extends Plugin implements MapperPlugin, AnalysisPlugin {
+public class MinHashPlugin extends Plugin
+        implements MapperPlugin, AnalysisPlugin, SearchPlugin, ActionPlugin, IngestPlugin, CircuitBreakerPlugin, SystemIndexPlugin {
+
+    public static final String BREAKER_NAME = "minhash";
+
+    public static final Setting<ByteSizeValue> BREAKER_LIMIT_SETTING =
+            Setting.memorySizeSetting("indices.breaker.minhash.limit", "10%", Property.NodeScope);
+
+    public static final Setting<ByteSizeValue> FINGERPRINT_FILTER_CACHE_SIZE_SETTING =
+            Setting.memorySizeSetting("minhash.fingerprint_filter_cache.size", "1%", Property.NodeScope);
+
+    public static final Setting<ByteSizeValue> SIGNATURE_CACHE_SIZE_SETTING =
+            Setting.byteSizeSetting("minhash.signature_cache.size", new ByteSizeValue(256, ByteSizeUnit.MB), Property.NodeScope);
+
+    private volatile FingerprintFilterCache fingerprintFilterCache;
+
+    private volatile SignatureColumnCache signatureColumnCache;
+
+    private volatile CircuitBreaker circuitBreaker;
+
+    private volatile MinHashReferenceService referenceService;
+
+    @Override
+    public Collection<Object> createComponents(final Client client, final ClusterService clusterService, final ThreadPool threadPool,
+            final ResourceWatcherService resourceWatcherService, final ScriptService scriptService,
+            final NamedXContentRegistry xContentRegistry, final Environment environment, final NodeEnvironment nodeEnvironment,
+            final NamedWriteableRegistry namedWriteableRegistry, final IndexNameExpressionResolver indexNameExpressionResolver,
+            final Supplier<RepositoriesService> repositoriesServiceSupplier) {
+        fingerprintFilterCache = new FingerprintFilterCache(FINGERPRINT_FILTER_CACHE_SIZE_SETTING.get(environment.settings()).getBytes(),
+                () -> circuitBreaker);
+        signatureColumnCache = new SignatureColumnCache(SIGNATURE_CACHE_SIZE_SETTING.get(environment.settings()).getBytes());
+        referenceService = new MinHashReferenceService(client, clusterService, threadPool,
+                nodeEnvironment.nodeDataPaths()[0].resolve("minhash").resolve("references"));
+        return Arrays.asList(fingerprintFilterCache, signatureColumnCache, referenceService);
+    }
 
     @Override
     public Map<String, AnalysisProvider<TokenFilterFactory>> getTokenFilters() {
         final Map<String, AnalysisProvider<TokenFilterFactory>> extra = new HashMap<>();
         extra.put("minhash", MinHashTokenFilterFactory::new);
+        extra.put("simhash", SimHashTokenFilterFactory::new);
         return extra;
     }
 
     @Override
     public Map<String, Mapper.TypeParser> getMappers() {
-        return Collections.<String, Mapper.TypeParser> singletonMap(MinHashFieldMapper.CONTENT_TYPE, new MinHashFieldMapper.TypeParser());
+        final Map<String, Mapper.TypeParser> mappers = new HashMap<>();
+        mappers.put(MinHashFieldMapper.CONTENT_TYPE, new MinHashFieldMapper.TypeParser(() -> circuitBreaker, () -> signatureColumnCache));
+        mappers.put(SimHashFieldMapper.CONTENT_TYPE, SimHashFieldMapper.PARSER);
+        return mappers;
+    }
+
+    @Override
+    public List<QuerySpec<?>> getQueries() {
+        return Arrays.asList(
+                new QuerySpec<>(MinHashWithinQueryBuilder.NAME, MinHashWithinQueryBuilder::new,
+                        MinHashWithinQueryBuilder::fromXContent),
+                new QuerySpec<>(MinHashCascadeQueryBuilder.NAME, MinHashCascadeQueryBuilder::new,
+                        MinHashCascadeQueryBuilder::fromXContent),
+                new QuerySpec<>(SimHashWithinQueryBuilder.NAME, SimHashWithinQueryBuilder::new,
+                        SimHashWithinQueryBuilder::fromXContent));
+    }
+
+    @Override
+    public List<SearchExtSpec<?>> getSearchExts() {
+        return Collections.singletonList(new SearchExtSpec<>(MinHashDiversifyExtBuilder.NAME, MinHashDiversifyExtBuilder::new,
+                MinHashDiversifyExtBuilder::fromXContent));
+    }
+
+    @Override
+    public List<AggregationSpec> getAggregations() {
+        return Collections.singletonList(new AggregationSpec(MinHashClustersAggregationBuilder.NAME,
+                MinHashClustersAggregationBuilder::new, MinHashClustersAggregationBuilder::parse)
+                        .addResultReader(InternalMinHashClusters::new));
+    }
+
+    @Override
+    public List<ActionFilter> getActionFilters() {
+        return Collections.singletonList(new MinHashDiversifyActionFilter());
+    }
+
+    @Override
+    public Map<String, Processor.Factory> getProcessors(final Processor.Parameters parameters) {
+        final Map<String, Processor.Factory> processors = new HashMap<>();
+        processors.put(MinHashDuplicateProcessor.TYPE,
+                new MinHashDuplicateProcessor.Factory(parameters.analysisRegistry, parameters.relativeTimeSupplier));
+        processors.put(MinHashReferenceProcessor.TYPE,
+                new MinHashReferenceProcessor.Factory(parameters.analysisRegistry, () -> referenceService));
+        processors.put(MinHashRoutingProcessor.TYPE,
+                new MinHashRoutingProcessor.Factory(parameters.analysisRegistry));
+        return processors;
+    }
+
+    @Override
+    public List<ActionHandler<? extends ActionRequest, ? extends ActionResponse>> getActions() {
+        return Arrays.asList(new ActionHandler<>(MinHashExistsAction.INSTANCE, TransportMinHashExistsAction.class),
+                new ActionHandler<>(MinHashResignAction.INSTANCE, TransportMinHashResignAction.class),
+                new ActionHandler<>(MinHashJoinAction.INSTANCE, TransportMinHashJoinAction.class),
+                new ActionHandler<>(MinHashRegisterAction.INSTANCE, TransportMinHashRegisterAction.class),
+                new ActionHandler<>(MinHashCacheStatsAction.INSTANCE, TransportMinHashCacheStatsAction.class));
+    }
+
+    @Override
+    public List<RestHandler> getRestHandlers(final Settings settings, final RestController restController,
+            final ClusterSettings clusterSettings, final IndexScopedSettings indexScopedSettings, final SettingsFilter settingsFilter,
+            final IndexNameExpressionResolver indexNameExpressionResolver, final Supplier<DiscoveryNodes> nodesInCluster) {
+        return Arrays.asList(new RestMinHashExistsAction(), new RestMinHashResignAction(), new RestMinHashJoinAction(),
+                new RestMinHashRegisterAction(), new RestMinHashCacheStatsAction());
+    }
+
+    @Override
+    public Collection<SystemIndexDescriptor> getSystemIndexDescriptors(final Settings settings) {
+        return Collections.singletonList(
+                new SystemIndexDescriptor(MinHashReferenceService.INDEX_NAME, "Reference signatures of the minhash_reference processor"));
+    }
+
+    @Override
+    public List<Setting<?>> getSettings() {
+        return Arrays.asList(BREAKER_LIMIT_SETTING, FINGERPRINT_FILTER_CACHE_SIZE_SETTING, SIGNATURE_CACHE_SIZE_SETTING);
+    }
+
+    @Override
+    public BreakerSettings getCircuitBreaker(final Settings settings) {
+        return new BreakerSettings(BREAKER_NAME, BREAKER_LIMIT_SETTING.get(settings).getBytes(), 1.0, CircuitBreaker.Type.MEMORY,
+                CircuitBreaker.Durability.TRANSIENT);
+    }
+
+    @Override
+    public void setCircuitBreaker(final CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
     }
 }
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.action;
+
+import java.io.IOException;
+
+import org.codelibs.opensearch.minhash.index.cache.CacheStats;
+import org.opensearch.action.support.nodes.BaseNodeResponse;
+import org.opensearch.cluster.node.DiscoveryNode;
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.core.common.io.stream.StreamOutput;
+
+public class MinHashCacheStatsNodeResponse extends BaseNodeResponse {
+
+    private final CacheStats signatureCacheStats;
+
+    private final CacheStats fingerprintFilterCacheStats;
+
+    public MinHashCacheStatsNodeResponse(final DiscoveryNode node,
+            final CacheStats signatureCacheStats,
+            final CacheStats fingerprintFilterCacheStats) {
+        super(node);
+        this.signatureCacheStats = signatureCacheStats;
+        this.fingerprintFilterCacheStats = fingerprintFilterCacheStats;
+    }
+
+    public MinHashCacheStatsNodeResponse(final StreamInput in)
+            throws IOException {
+        super(in);
+        signatureCacheStats = new CacheStats(in);
+        fingerprintFilterCacheStats = new CacheStats(in);
+    }
+
+    @Override
+    public void writeTo(final StreamOutput out) throws IOException {
+        super.writeTo(out);
+        signatureCacheStats.writeTo(out);
+        fingerprintFilterCacheStats.writeTo(out);
+    }
+
+    public CacheStats getSignatureCacheStats() {
+        return signatureCacheStats;
+    }
+
+    public CacheStats getFingerprintFilterCacheStats() {
+        return fingerprintFilterCacheStats;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.action;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.opensearch.action.FailedNodeException;
+import org.opensearch.action.support.nodes.BaseNodesResponse;
+import org.opensearch.cluster.ClusterName;
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.core.common.io.stream.StreamOutput;
+import org.opensearch.core.xcontent.ToXContentFragment;
+import org.opensearch.core.xcontent.XContentBuilder;
+
+public class MinHashCacheStatsResponse extends BaseNodesResponse<MinHashCacheStatsNodeResponse>
+        implements ToXContentFragment {
+
+    public MinHashCacheStatsResponse(final ClusterName clusterName,
+            final List<MinHashCacheStatsNodeResponse> nodes,
+            final List<FailedNodeException> failures) {
+        super(clusterName, nodes, failures);
+    }
+
+    public MinHashCacheStatsResponse(final StreamInput in) throws IOException {
+        super(in);
+    }
+
+    @Override
+    protected List<MinHashCacheStatsNodeResponse> readNodesFrom(
+            final StreamInput in) throws IOException {
+        return in.readList(MinHashCacheStatsNodeResponse::new);
+    }
+
+    @Override
+    protected void writeNodesTo(final StreamOutput out,
+            final List<MinHashCacheStatsNodeResponse> nodes)
+            throws IOException {
+        out.writeList(nodes);
+    }
+
+    @Override
+    public XContentBuilder toXContent(final XContentBuilder builder,
+            final Params params) throws IOException {
+        builder.startObject("nodes");
+        for (final MinHashCacheStatsNodeResponse node : getNodes()) {
+            builder.startObject(node.getNode().getId());
+            builder.field("name", node.getNode().getName());
+            builder.startObject("signature_cache");
+            node.getSignatureCacheStats().toXContent(builder, params);
+            builder.endObject();
+            builder.startObject("fingerprint_filter_cache");
+            node.getFingerprintFilterCacheStats().toXContent(builder, params);
+            builder.endObject();
+            builder.endObject();
+        }
+        builder.endObject();
+        return builder;
+    }
+}
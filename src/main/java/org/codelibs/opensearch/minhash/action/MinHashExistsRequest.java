@@ -0,0 +1,101 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.action;
+
+import static org.opensearch.action.ValidateActions.addValidationError;
+
+import java.io.IOException;
+
+import org.opensearch.action.ActionRequestValidationException;
+import org.opensearch.action.support.broadcast.BroadcastRequest;
+import org.opensearch.core.common.Strings;
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.core.common.io.stream.StreamOutput;
+
+/**
+ * Asks whether documents with the given signatures or fingerprints exist
+ * in a minhash field with {@code fingerprint} enabled.
+ */
+public class MinHashExistsRequest extends BroadcastRequest<MinHashExistsRequest> {
+
+    private String field;
+
+    private String[] values = Strings.EMPTY_ARRAY;
+
+    private long[] fingerprints = new long[0];
+
+    public MinHashExistsRequest(final String... indices) {
+        super(indices);
+    }
+
+    public MinHashExistsRequest(final StreamInput in) throws IOException {
+        super(in);
+        field = in.readString();
+        values = in.readStringArray();
+        fingerprints = in.readLongArray();
+    }
+
+    @Override
+    public void writeTo(final StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeString(field);
+        out.writeStringArray(values);
+        out.writeLongArray(fingerprints);
+    }
+
+    @Override
+    public ActionRequestValidationException validate() {
+        ActionRequestValidationException validationException = super.validate();
+        if (field == null) {
+            validationException = addValidationError("field is missing",
+                    validationException);
+        }
+        return validationException;
+    }
+
+    public String field() {
+        return field;
+    }
+
+    public MinHashExistsRequest field(final String field) {
+        this.field = field;
+        return this;
+    }
+
+    public String[] values() {
+        return values;
+    }
+
+    /**
+     * Sets the encoded signatures to check.
+     */
+    public MinHashExistsRequest values(final String... values) {
+        this.values = values;
+        return this;
+    }
+
+    public long[] fingerprints() {
+        return fingerprints;
+    }
+
+    /**
+     * Sets the fingerprints to check. They are answered after the values.
+     */
+    public MinHashExistsRequest fingerprints(final long... fingerprints) {
+        this.fingerprints = fingerprints;
+        return this;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.action;
+
+import java.io.IOException;
+
+import org.opensearch.action.support.broadcast.BroadcastShardRequest;
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.core.common.io.stream.StreamOutput;
+import org.opensearch.core.index.shard.ShardId;
+
+public class MinHashExistsShardRequest extends BroadcastShardRequest {
+
+    private final String field;
+
+    private final String[] values;
+
+    private final long[] fingerprints;
+
+    public MinHashExistsShardRequest(final ShardId shardId,
+            final MinHashExistsRequest request) {
+        super(shardId, request);
+        this.field = request.field();
+        this.values = request.values();
+        this.fingerprints = request.fingerprints();
+    }
+
+    public MinHashExistsShardRequest(final StreamInput in) throws IOException {
+        super(in);
+        field = in.readString();
+        values = in.readStringArray();
+        fingerprints = in.readLongArray();
+    }
+
+    @Override
+    public void writeTo(final StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeString(field);
+        out.writeStringArray(values);
+        out.writeLongArray(fingerprints);
+    }
+
+    public String field() {
+        return field;
+    }
+
+    public String[] values() {
+        return values;
+    }
+
+    public long[] fingerprints() {
+        return fingerprints;
+    }
+}
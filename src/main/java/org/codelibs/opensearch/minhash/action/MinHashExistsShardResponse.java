@@ -0,0 +1,55 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.action;
+
+import java.io.IOException;
+
+import org.opensearch.action.support.broadcast.BroadcastShardResponse;
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.core.common.io.stream.StreamOutput;
+import org.opensearch.core.index.shard.ShardId;
+
+public class MinHashExistsShardResponse extends BroadcastShardResponse {
+
+    private final boolean[] exists;
+
+    public MinHashExistsShardResponse(final ShardId shardId,
+            final boolean[] exists) {
+        super(shardId);
+        this.exists = exists;
+    }
+
+    public MinHashExistsShardResponse(final StreamInput in) throws IOException {
+        super(in);
+        exists = new boolean[in.readVInt()];
+        for (int i = 0; i < exists.length; i++) {
+            exists[i] = in.readBoolean();
+        }
+    }
+
+    @Override
+    public void writeTo(final StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeVInt(exists.length);
+        for (final boolean value : exists) {
+            out.writeBoolean(value);
+        }
+    }
+
+    public boolean[] exists() {
+        return exists;
+    }
+}
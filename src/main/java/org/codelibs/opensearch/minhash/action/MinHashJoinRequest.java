@@ -0,0 +1,225 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.action;
+
+import static org.opensearch.action.ValidateActions.addValidationError;
+
+import java.io.IOException;
+
+import org.opensearch.action.ActionRequest;
+import org.opensearch.action.ActionRequestValidationException;
+import org.opensearch.action.IndicesRequest;
+import org.opensearch.action.support.IndicesOptions;
+import org.opensearch.common.unit.TimeValue;
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.core.common.io.stream.StreamOutput;
+
+/**
+ * Finds the pairs of documents in two indices whose signatures in a minhash
+ * field are at least {@code threshold} similar. The smaller index is read
+ * in batches of {@code batch_size} documents, and each response holds the
+ * pairs of one batch and a cursor for the next.
+ */
+public class MinHashJoinRequest extends ActionRequest
+        implements IndicesRequest {
+
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    public static final int DEFAULT_MAX_MATCHES = 10;
+
+    public static final TimeValue DEFAULT_KEEP_ALIVE = TimeValue
+            .timeValueMinutes(5);
+
+    private String left;
+
+    private String right;
+
+    private String field;
+
+    private float threshold = 0.9f;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    private int maxMatches = DEFAULT_MAX_MATCHES;
+
+    private TimeValue keepAlive = DEFAULT_KEEP_ALIVE;
+
+    private String cursor;
+
+    public MinHashJoinRequest() {
+    }
+
+    public MinHashJoinRequest(final StreamInput in) throws IOException {
+        super(in);
+        left = in.readOptionalString();
+        right = in.readOptionalString();
+        field = in.readOptionalString();
+        threshold = in.readFloat();
+        batchSize = in.readVInt();
+        maxMatches = in.readVInt();
+        keepAlive = in.readTimeValue();
+        cursor = in.readOptionalString();
+    }
+
+    @Override
+    public void writeTo(final StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeOptionalString(left);
+        out.writeOptionalString(right);
+        out.writeOptionalString(field);
+        out.writeFloat(threshold);
+        out.writeVInt(batchSize);
+        out.writeVInt(maxMatches);
+        out.writeTimeValue(keepAlive);
+        out.writeOptionalString(cursor);
+    }
+
+    @Override
+    public ActionRequestValidationException validate() {
+        ActionRequestValidationException validationException = null;
+        if (left == null) {
+            validationException = addValidationError("left is missing",
+                    validationException);
+        }
+        if (right == null) {
+            validationException = addValidationError("right is missing",
+                    validationException);
+        }
+        if (field == null) {
+            validationException = addValidationError("field is missing",
+                    validationException);
+        }
+        if (threshold < 0.0f || threshold > 1.0f) {
+            validationException = addValidationError(
+                    "threshold must be between 0 and 1: " + threshold,
+                    validationException);
+        }
+        if (batchSize <= 0) {
+            validationException = addValidationError(
+                    "batch_size must be positive: " + batchSize,
+                    validationException);
+        }
+        if (maxMatches <= 0) {
+            validationException = addValidationError(
+                    "max_matches must be positive: " + maxMatches,
+                    validationException);
+        }
+        return validationException;
+    }
+
+    @Override
+    public String[] indices() {
+        return new String[] { left, right };
+    }
+
+    @Override
+    public IndicesOptions indicesOptions() {
+        return IndicesOptions.strictSingleIndexNoExpandForbidClosed();
+    }
+
+    public String left() {
+        return left;
+    }
+
+    public MinHashJoinRequest left(final String left) {
+        this.left = left;
+        return this;
+    }
+
+    public String right() {
+        return right;
+    }
+
+    public MinHashJoinRequest right(final String right) {
+        this.right = right;
+        return this;
+    }
+
+    public String field() {
+        return field;
+    }
+
+    public MinHashJoinRequest field(final String field) {
+        this.field = field;
+        return this;
+    }
+
+    public float threshold() {
+        return threshold;
+    }
+
+    /**
+     * Sets the minimum fraction of equal signature bits of a pair.
+     */
+    public MinHashJoinRequest threshold(final float threshold) {
+        this.threshold = threshold;
+        return this;
+    }
+
+    public int batchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets the number of documents of the smaller index per response.
+     */
+    public MinHashJoinRequest batchSize(final int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public int maxMatches() {
+        return maxMatches;
+    }
+
+    /**
+     * Sets the maximum number of documents of the larger index that are
+     * paired with one document of the smaller index.
+     */
+    public MinHashJoinRequest maxMatches(final int maxMatches) {
+        this.maxMatches = maxMatches;
+        return this;
+    }
+
+    public TimeValue keepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * Sets how long the cursor stays valid between requests.
+     */
+    public MinHashJoinRequest keepAlive(final TimeValue keepAlive) {
+        this.keepAlive = keepAlive;
+        return this;
+    }
+
+    public String cursor() {
+        return cursor;
+    }
+
+    /**
+     * Sets the cursor of the previous response to get the next batch.
+     */
+    public MinHashJoinRequest cursor(final String cursor) {
+        this.cursor = cursor;
+        return this;
+    }
+
+    @Override
+    public String getDescription() {
+        return "minhash join [" + left + "][" + right + "][" + field + "]";
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.action;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.opensearch.core.action.ActionResponse;
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.core.common.io.stream.StreamOutput;
+import org.opensearch.core.common.io.stream.Writeable;
+import org.opensearch.core.xcontent.ToXContentObject;
+import org.opensearch.core.xcontent.XContentBuilder;
+
+public class MinHashJoinResponse extends ActionResponse
+        implements ToXContentObject {
+
+    private final long tookInMillis;
+
+    private final int numOfDocs;
+
+    private final List<Pair> pairs;
+
+    private final List<Truncated> truncated;
+
+    private final String cursor;
+
+    public MinHashJoinResponse(final long tookInMillis, final int numOfDocs,
+            final List<Pair> pairs, final List<Truncated> truncated,
+            final String cursor) {
+        this.tookInMillis = tookInMillis;
+        this.numOfDocs = numOfDocs;
+        this.pairs = pairs;
+        this.truncated = truncated;
+        this.cursor = cursor;
+    }
+
+    public MinHashJoinResponse(final StreamInput in) throws IOException {
+        super(in);
+        tookInMillis = in.readVLong();
+        numOfDocs = in.readVInt();
+        pairs = in.readList(Pair::new);
+        truncated = in.readList(Truncated::new);
+        cursor = in.readOptionalString();
+    }
+
+    @Override
+    public void writeTo(final StreamOutput out) throws IOException {
+        out.writeVLong(tookInMillis);
+        out.writeVInt(numOfDocs);
+        out.writeList(pairs);
+        out.writeList(truncated);
+        out.writeOptionalString(cursor);
+    }
+
+    public long getTookInMillis() {
+        return tookInMillis;
+    }
+
+    /**
+     * Returns the number of documents of the smaller index in this batch.
+     */
+    public int getNumOfDocs() {
+        return numOfDocs;
+    }
+
+    public List<Pair> getPairs() {
+        return pairs;
+    }
+
+    /**
+     * Returns the documents of the smaller index with more matches than
+     * {@code max_matches}, whose pairs are an arbitrary subset of them.
+     */
+    public List<Truncated> getTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Returns the cursor of the next batch, or null after the last one.
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    @Override
+    public XContentBuilder toXContent(final XContentBuilder builder,
+            final Params params) throws IOException {
+        builder.startObject();
+        builder.field("took", tookInMillis);
+        builder.field("docs", numOfDocs);
+        builder.startArray("pairs");
+        for (final Pair pair : pairs) {
+            pair.toXContent(builder, params);
+        }
+        builder.endArray();
+        if (!truncated.isEmpty()) {
+            builder.startArray("truncated");
+            for (final Truncated doc : truncated) {
+                doc.toXContent(builder, params);
+            }
+            builder.endArray();
+        }
+        if (cursor != null) {
+            builder.field("cursor", cursor);
+        }
+        builder.endObject();
+        return builder;
+    }
+
+    /**
+     * A document of the left index and a similar document of the right
+     * index.
+     */
+    public static class Pair implements Writeable, ToXContentObject {
+
+        private final String leftIndex;
+
+        private final String leftId;
+
+        private final String rightIndex;
+
+        private final String rightId;
+
+        private final float similarity;
+
+        public Pair(final String leftIndex, final String leftId,
+                final String rightIndex, final String rightId,
+                final float similarity) {
+            this.leftIndex = leftIndex;
+            this.leftId = leftId;
+            this.rightIndex = rightIndex;
+            this.rightId = rightId;
+            this.similarity = similarity;
+        }
+
+        public Pair(final StreamInput in) throws IOException {
+            leftIndex = in.readString();
+            leftId = in.readString();
+            rightIndex = in.readString();
+            rightId = in.readString();
+            similarity = in.readFloat();
+        }
+
+        @Override
+        public void writeTo(final StreamOutput out) throws IOException {
+            out.writeString(leftIndex);
+            out.writeString(leftId);
+            out.writeString(rightIndex);
+            out.writeString(rightId);
+            out.writeFloat(similarity);
+        }
+
+        public String getLeftIndex() {
+            return leftIndex;
+        }
+
+        public String getLeftId() {
+            return leftId;
+        }
+
+        public String getRightIndex() {
+            return rightIndex;
+        }
+
+        public String getRightId() {
+            return rightId;
+        }
+
+        /**
+         * Returns the fraction of equal signature bits.
+         */
+        public float getSimilarity() {
+            return similarity;
+        }
+
+        @Override
+        public XContentBuilder toXContent(final XContentBuilder builder,
+                final Params params) throws IOException {
+            builder.startObject();
+            builder.startObject("left");
+            builder.field("_index", leftIndex);
+            builder.field("_id", leftId);
+            builder.endObject();
+            builder.startObject("right");
+            builder.field("_index", rightIndex);
+            builder.field("_id", rightId);
+            builder.endObject();
+            builder.field("similarity", similarity);
+            builder.endObject();
+            return builder;
+        }
+    }
+
+    /**
+     * A document of the smaller index with more matches than were paired.
+     */
+    public static class Truncated implements Writeable, ToXContentObject {
+
+        private final String index;
+
+        private final String id;
+
+        private final long numOfMatches;
+
+        public Truncated(final String index, final String id,
+                final long numOfMatches) {
+            this.index = index;
+            this.id = id;
+            this.numOfMatches = numOfMatches;
+        }
+
+        public Truncated(final StreamInput in) throws IOException {
+            index = in.readString();
+            id = in.readString();
+            numOfMatches = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(final StreamOutput out) throws IOException {
+            out.writeString(index);
+            out.writeString(id);
+            out.writeVLong(numOfMatches);
+        }
+
+        public String getIndex() {
+            return index;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * Returns the number of documents within the radius, counted up to
+         * the total hits tracked by the search.
+         */
+        public long getNumOfMatches() {
+            return numOfMatches;
+        }
+
+        @Override
+        public XContentBuilder toXContent(final XContentBuilder builder,
+                final Params params) throws IOException {
+            builder.startObject();
+            builder.field("_index", index);
+            builder.field("_id", id);
+            builder.field("matches", numOfMatches);
+            builder.endObject();
+            return builder;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.action;
+
+import static org.opensearch.action.ValidateActions.addValidationError;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.opensearch.action.ActionRequest;
+import org.opensearch.action.ActionRequestValidationException;
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.core.common.io.stream.StreamOutput;
+
+/**
+ * Adds reference signatures, keyed by id, to a reference set. A reference
+ * with the id of an existing one replaces it.
+ */
+public class MinHashRegisterRequest extends ActionRequest {
+
+    public static final int DEFAULT_BANDS = 16;
+
+    private static final Pattern SET_PATTERN = Pattern
+            .compile("[a-z0-9][a-z0-9_\\-]{0,127}");
+
+    private String set;
+
+    private int bands = DEFAULT_BANDS;
+
+    private boolean bitString;
+
+    private Map<String, String> references = new LinkedHashMap<>();
+
+    public MinHashRegisterRequest(final String set) {
+        this.set = set;
+    }
+
+    public MinHashRegisterRequest(final StreamInput in) throws IOException {
+        super(in);
+        set = in.readString();
+        bands = in.readVInt();
+        bitString = in.readBoolean();
+        references = in.readMap(StreamInput::readString,
+                StreamInput::readString);
+    }
+
+    @Override
+    public void writeTo(final StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeString(set);
+        out.writeVInt(bands);
+        out.writeBoolean(bitString);
+        out.writeMap(references, StreamOutput::writeString,
+                StreamOutput::writeString);
+    }
+
+    @Override
+    public ActionRequestValidationException validate() {
+        ActionRequestValidationException validationException = null;
+        if (set == null || !SET_PATTERN.matcher(set).matches()) {
+            validationException = addValidationError(
+                    "set must be lowercase letters, digits, '_' or '-': "
+                            + set,
+                    validationException);
+        }
+        if (bands <= 0) {
+            validationException = addValidationError(
+                    "bands must be positive: " + bands, validationException);
+        }
+        if (references.isEmpty()) {
+            validationException = addValidationError("references are missing",
+                    validationException);
+        }
+        return validationException;
+    }
+
+    public String set() {
+        return set;
+    }
+
+    public int bands() {
+        return bands;
+    }
+
+    /**
+     * Sets the number of LSH bands of the set. More bands find references
+     * at larger distances at the cost of more lookups.
+     */
+    public MinHashRegisterRequest bands(final int bands) {
+        this.bands = bands;
+        return this;
+    }
+
+    public boolean bitString() {
+        return bitString;
+    }
+
+    public MinHashRegisterRequest bitString(final boolean bitString) {
+        this.bitString = bitString;
+        return this;
+    }
+
+    public Map<String, String> references() {
+        return references;
+    }
+
+    /**
+     * Adds a reference with an encoded signature, as stored by a minhash
+     * field.
+     */
+    public MinHashRegisterRequest reference(final String id,
+            final String signature) {
+        references.put(id, signature);
+        return this;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.action;
+
+import java.io.IOException;
+
+import org.opensearch.core.action.ActionResponse;
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.core.common.io.stream.StreamOutput;
+import org.opensearch.core.xcontent.ToXContentObject;
+import org.opensearch.core.xcontent.XContentBuilder;
+
+public class MinHashRegisterResponse extends ActionResponse
+        implements ToXContentObject {
+
+    private final String set;
+
+    private final String version;
+
+    private final int registered;
+
+    public MinHashRegisterResponse(final String set, final String version,
+            final int registered) {
+        this.set = set;
+        this.version = version;
+        this.registered = registered;
+    }
+
+    public MinHashRegisterResponse(final StreamInput in) throws IOException {
+        super(in);
+        set = in.readString();
+        version = in.readString();
+        registered = in.readVInt();
+    }
+
+    @Override
+    public void writeTo(final StreamOutput out) throws IOException {
+        out.writeString(set);
+        out.writeString(version);
+        out.writeVInt(registered);
+    }
+
+    public String set() {
+        return set;
+    }
+
+    /**
+     * Returns the version of the set that the nodes load.
+     */
+    public String version() {
+        return version;
+    }
+
+    public int registered() {
+        return registered;
+    }
+
+    @Override
+    public XContentBuilder toXContent(final XContentBuilder builder,
+            final Params params) throws IOException {
+        builder.startObject();
+        builder.field("set", set);
+        builder.field("version", version);
+        builder.field("registered", registered);
+        builder.endObject();
+        return builder;
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.action;
+
+import static org.opensearch.action.ValidateActions.addValidationError;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.opensearch.action.ActionRequest;
+import org.opensearch.action.ActionRequestValidationException;
+import org.opensearch.action.IndicesRequest;
+import org.opensearch.action.support.IndicesOptions;
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.core.common.io.stream.StreamOutput;
+import org.opensearch.core.tasks.TaskId;
+import org.opensearch.index.reindex.AbstractBulkByScrollRequest;
+import org.opensearch.tasks.Task;
+
+/**
+ * Adds a minhash sub-field with new parameters to a text field, or a
+ * signature variant with a new {@code size}, {@code bit} or {@code seed} to
+ * a minhash field, and computes it for the existing documents from
+ * {@code _source}.
+ */
+public class MinHashResignRequest extends ActionRequest
+        implements IndicesRequest.Replaceable {
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private String[] indices;
+
+    private IndicesOptions indicesOptions = IndicesOptions.strictSingleIndexNoExpandForbidClosed();
+
+    private String field;
+
+    private String target;
+
+    private String minhashAnalyzer;
+
+    private boolean bitString;
+
+    private Integer size;
+
+    private Integer bit;
+
+    private Integer seed;
+
+    private int slices = 1;
+
+    private float requestsPerSecond = Float.POSITIVE_INFINITY;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    private boolean shouldStoreResult;
+
+    public MinHashResignRequest(final String... indices) {
+        this.indices = indices;
+    }
+
+    public MinHashResignRequest(final StreamInput in) throws IOException {
+        super(in);
+        indices = in.readStringArray();
+        indicesOptions = IndicesOptions.readIndicesOptions(in);
+        field = in.readString();
+        target = in.readString();
+        minhashAnalyzer = in.readOptionalString();
+        bitString = in.readBoolean();
+        size = readOptionalInt(in);
+        bit = readOptionalInt(in);
+        seed = readOptionalInt(in);
+        slices = in.readVInt();
+        requestsPerSecond = in.readFloat();
+        batchSize = in.readVInt();
+        shouldStoreResult = in.readBoolean();
+    }
+
+    @Override
+    public void writeTo(final StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeStringArray(indices);
+        indicesOptions.writeIndicesOptions(out);
+        out.writeString(field);
+        out.writeString(target);
+        out.writeOptionalString(minhashAnalyzer);
+        out.writeBoolean(bitString);
+        writeOptionalInt(out, size);
+        writeOptionalInt(out, bit);
+        writeOptionalInt(out, seed);
+        out.writeVInt(slices);
+        out.writeFloat(requestsPerSecond);
+        out.writeVInt(batchSize);
+        out.writeBoolean(shouldStoreResult);
+    }
+
+    @Override
+    public ActionRequestValidationException validate() {
+        ActionRequestValidationException validationException = null;
+        if (indices == null || indices.length == 0) {
+            validationException = addValidationError("index is missing",
+                    validationException);
+        }
+        if (field == null) {
+            validationException = addValidationError("field is missing",
+                    validationException);
+        }
+        if (target == null) {
+            validationException = addValidationError("target is missing",
+                    validationException);
+        } else if (target.contains(".")) {
+            validationException = addValidationError(
+                    "target must not contain '.': " + target,
+                    validationException);
+        }
+        if (minhashAnalyzer == null && !isVariant()) {
+            validationException = addValidationError(
+                    "minhash_analyzer, or size, bit or seed is missing",
+                    validationException);
+        } else if (minhashAnalyzer != null && isVariant()) {
+            validationException = addValidationError(
+                    "minhash_analyzer cannot be used with size, bit or seed",
+                    validationException);
+        }
+        if (size != null && size <= 0) {
+            validationException = addValidationError(
+                    "size must be positive: " + size, validationException);
+        }
+        if (bit != null && bit <= 0) {
+            validationException = addValidationError(
+                    "bit must be positive: " + bit, validationException);
+        }
+        if (slices < 0) {
+            validationException = addValidationError(
+                    "slices must be positive or 0 for auto: " + slices,
+                    validationException);
+        }
+        if (!(requestsPerSecond > 0)) {
+            validationException = addValidationError(
+                    "requests_per_second must be positive: "
+                            + requestsPerSecond,
+                    validationException);
+        }
+        if (batchSize <= 0) {
+            validationException = addValidationError(
+                    "batch_size must be positive: " + batchSize,
+                    validationException);
+        }
+        return validationException;
+    }
+
+    @Override
+    public String[] indices() {
+        return indices;
+    }
+
+    @Override
+    public MinHashResignRequest indices(final String... indices) {
+        this.indices = indices;
+        return this;
+    }
+
+    @Override
+    public IndicesOptions indicesOptions() {
+        return indicesOptions;
+    }
+
+    public String field() {
+        return field;
+    }
+
+    /**
+     * Sets the text field that the sub-field is added to, or the minhash
+     * field that the variant is added to.
+     */
+    public MinHashResignRequest field(final String field) {
+        this.field = field;
+        return this;
+    }
+
+    public String target() {
+        return target;
+    }
+
+    /**
+     * Sets the name of the new sub-field.
+     */
+    public MinHashResignRequest target(final String target) {
+        this.target = target;
+        return this;
+    }
+
+    public String minhashAnalyzer() {
+        return minhashAnalyzer;
+    }
+
+    public MinHashResignRequest minhashAnalyzer(final String minhashAnalyzer) {
+        this.minhashAnalyzer = minhashAnalyzer;
+        return this;
+    }
+
+    public boolean bitString() {
+        return bitString;
+    }
+
+    public MinHashResignRequest bitString(final boolean bitString) {
+        this.bitString = bitString;
+        return this;
+    }
+
+    public Integer size() {
+        return size;
+    }
+
+    public MinHashResignRequest size(final Integer size) {
+        this.size = size;
+        return this;
+    }
+
+    public Integer bit() {
+        return bit;
+    }
+
+    public MinHashResignRequest bit(final Integer bit) {
+        this.bit = bit;
+        return this;
+    }
+
+    public Integer seed() {
+        return seed;
+    }
+
+    public MinHashResignRequest seed(final Integer seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Returns whether the target is a signature variant of a minhash field,
+     * computed with new parameters from the tokens of its analyzer.
+     */
+    public boolean isVariant() {
+        return size != null || bit != null || seed != null;
+    }
+
+    public int slices() {
+        return slices;
+    }
+
+    /**
+     * Sets the number of slices processed in parallel, or
+     * {@link AbstractBulkByScrollRequest#AUTO_SLICES} for one per shard.
+     */
+    public MinHashResignRequest slices(final int slices) {
+        this.slices = slices;
+        return this;
+    }
+
+    public float requestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    /**
+     * Sets the budget of documents per second over all slices.
+     */
+    public MinHashResignRequest requestsPerSecond(
+            final float requestsPerSecond) {
+        this.requestsPerSecond = requestsPerSecond;
+        return this;
+    }
+
+    public int batchSize() {
+        return batchSize;
+    }
+
+    public MinHashResignRequest batchSize(final int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public MinHashResignRequest setShouldStoreResult(
+            final boolean shouldStoreResult) {
+        this.shouldStoreResult = shouldStoreResult;
+        return this;
+    }
+
+    @Override
+    public boolean getShouldStoreResult() {
+        return shouldStoreResult;
+    }
+
+    @Override
+    public String getDescription() {
+        return "minhash resign [" + String.join(",", indices) + "][" + field
+                + "." + target + "]";
+    }
+
+    private static Integer readOptionalInt(final StreamInput in)
+            throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    private static void writeOptionalInt(final StreamOutput out,
+            final Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    @Override
+    public Task createTask(final long id, final String type,
+            final String action, final TaskId parentTaskId,
+            final Map<String, String> headers) {
+        return new MinHashResignTask(id, type, action, getDescription(),
+                parentTaskId, headers);
+    }
+}
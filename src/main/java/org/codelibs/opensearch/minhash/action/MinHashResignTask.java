@@ -0,0 +1,52 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.action;
+
+import java.util.Map;
+
+import org.opensearch.core.tasks.TaskId;
+import org.opensearch.tasks.CancellableTask;
+import org.opensearch.tasks.Task;
+
+/**
+ * The task of a {@link MinHashResignRequest}. Its status is the progress of
+ * the update by query that recomputes the documents.
+ */
+public class MinHashResignTask extends CancellableTask {
+
+    private volatile Task updateTask;
+
+    public MinHashResignTask(final long id, final String type,
+            final String action, final String description,
+            final TaskId parentTaskId, final Map<String, String> headers) {
+        super(id, type, action, description, parentTaskId, headers);
+    }
+
+    void setUpdateTask(final Task updateTask) {
+        this.updateTask = updateTask;
+    }
+
+    @Override
+    public Status getStatus() {
+        final Task task = updateTask;
+        return task == null ? null : task.getStatus();
+    }
+
+    @Override
+    public boolean shouldCancelChildrenOnCancellation() {
+        return true;
+    }
+}
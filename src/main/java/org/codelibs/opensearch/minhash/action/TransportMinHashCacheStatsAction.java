@@ -0,0 +1,85 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.action;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.codelibs.opensearch.minhash.index.cache.FingerprintFilterCache;
+import org.codelibs.opensearch.minhash.index.cache.SignatureColumnCache;
+import org.opensearch.action.FailedNodeException;
+import org.opensearch.action.support.ActionFilters;
+import org.opensearch.action.support.nodes.TransportNodesAction;
+import org.opensearch.cluster.service.ClusterService;
+import org.opensearch.common.inject.Inject;
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.threadpool.ThreadPool;
+import org.opensearch.transport.TransportService;
+
+/**
+ * Collects the usage of the signature column cache and the fingerprint
+ * filter cache of each node.
+ */
+public class TransportMinHashCacheStatsAction extends
+        TransportNodesAction<MinHashCacheStatsRequest, MinHashCacheStatsResponse, MinHashCacheStatsNodeRequest, MinHashCacheStatsNodeResponse> {
+
+    private final SignatureColumnCache signatureCache;
+
+    private final FingerprintFilterCache filterCache;
+
+    @Inject
+    public TransportMinHashCacheStatsAction(final ThreadPool threadPool,
+            final ClusterService clusterService,
+            final TransportService transportService,
+            final ActionFilters actionFilters,
+            final SignatureColumnCache signatureCache,
+            final FingerprintFilterCache filterCache) {
+        super(MinHashCacheStatsAction.NAME, threadPool, clusterService,
+                transportService, actionFilters, MinHashCacheStatsRequest::new,
+                MinHashCacheStatsNodeRequest::new, ThreadPool.Names.MANAGEMENT,
+                MinHashCacheStatsNodeResponse.class);
+        this.signatureCache = signatureCache;
+        this.filterCache = filterCache;
+    }
+
+    @Override
+    protected MinHashCacheStatsResponse newResponse(
+            final MinHashCacheStatsRequest request,
+            final List<MinHashCacheStatsNodeResponse> responses,
+            final List<FailedNodeException> failures) {
+        return new MinHashCacheStatsResponse(clusterService.getClusterName(),
+                responses, failures);
+    }
+
+    @Override
+    protected MinHashCacheStatsNodeRequest newNodeRequest(
+            final MinHashCacheStatsRequest request) {
+        return new MinHashCacheStatsNodeRequest();
+    }
+
+    @Override
+    protected MinHashCacheStatsNodeResponse newNodeResponse(
+            final StreamInput in) throws IOException {
+        return new MinHashCacheStatsNodeResponse(in);
+    }
+
+    @Override
+    protected MinHashCacheStatsNodeResponse nodeOperation(
+            final MinHashCacheStatsNodeRequest request) {
+        return new MinHashCacheStatsNodeResponse(clusterService.localNode(),
+                signatureCache.stats(), filterCache.stats());
+    }
+}
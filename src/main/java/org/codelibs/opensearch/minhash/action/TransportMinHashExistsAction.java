@@ -0,0 +1,254 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.action;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.index.PointValues.IntersectVisitor;
+import org.apache.lucene.index.PointValues.Relation;
+import org.apache.lucene.util.Bits;
+import org.codelibs.opensearch.minhash.index.cache.FingerprintFilterCache;
+import org.codelibs.opensearch.minhash.index.mapper.MinHashFieldMapper;
+import org.codelibs.opensearch.minhash.index.mapper.MinHashFieldMapper.MinHashFieldType;
+import org.codelibs.opensearch.minhash.util.LongBloomFilter;
+import org.codelibs.opensearch.minhash.util.MinHashSignatures;
+import org.opensearch.action.support.ActionFilters;
+import org.opensearch.action.support.broadcast.BroadcastShardOperationFailedException;
+import org.opensearch.action.support.broadcast.TransportBroadcastAction;
+import org.opensearch.cluster.ClusterState;
+import org.opensearch.cluster.block.ClusterBlockException;
+import org.opensearch.cluster.block.ClusterBlockLevel;
+import org.opensearch.cluster.metadata.IndexNameExpressionResolver;
+import org.opensearch.cluster.routing.GroupShardsIterator;
+import org.opensearch.cluster.routing.ShardIterator;
+import org.opensearch.cluster.routing.ShardRouting;
+import org.opensearch.cluster.service.ClusterService;
+import org.opensearch.common.inject.Inject;
+import org.opensearch.core.action.support.DefaultShardOperationFailedException;
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.index.IndexService;
+import org.opensearch.index.engine.Engine;
+import org.opensearch.index.mapper.MappedFieldType;
+import org.opensearch.index.shard.IndexShard;
+import org.opensearch.indices.IndicesService;
+import org.opensearch.tasks.Task;
+import org.opensearch.threadpool.ThreadPool;
+import org.opensearch.transport.TransportService;
+
+/**
+ * Checks the fingerprints against the Bloom filter of each segment and
+ * confirms the positives with the points of the fingerprint field, without
+ * running a search.
+ */
+public class TransportMinHashExistsAction extends
+        TransportBroadcastAction<MinHashExistsRequest, MinHashExistsResponse, MinHashExistsShardRequest, MinHashExistsShardResponse> {
+
+    private final IndicesService indicesService;
+
+    private final FingerprintFilterCache filterCache;
+
+    @Inject
+    public TransportMinHashExistsAction(final ClusterService clusterService,
+            final TransportService transportService,
+            final IndicesService indicesService,
+            final ActionFilters actionFilters,
+            final IndexNameExpressionResolver indexNameExpressionResolver,
+            final FingerprintFilterCache filterCache) {
+        super(MinHashExistsAction.NAME, clusterService, transportService,
+                actionFilters, indexNameExpressionResolver,
+                MinHashExistsRequest::new, MinHashExistsShardRequest::new,
+                ThreadPool.Names.SEARCH);
+        this.indicesService = indicesService;
+        this.filterCache = filterCache;
+    }
+
+    @Override
+    protected MinHashExistsResponse newResponse(
+            final MinHashExistsRequest request,
+            final AtomicReferenceArray shardsResponses,
+            final ClusterState clusterState) {
+        final boolean[] exists = new boolean[request.values().length
+                + request.fingerprints().length];
+        int successfulShards = 0;
+        int failedShards = 0;
+        List<DefaultShardOperationFailedException> shardFailures = null;
+        for (int i = 0; i < shardsResponses.length(); i++) {
+            final Object shardResponse = shardsResponses.get(i);
+            if (shardResponse == null) {
+                // a non active shard, ignore
+            } else if (shardResponse instanceof BroadcastShardOperationFailedException) {
+                failedShards++;
+                if (shardFailures == null) {
+                    shardFailures = new ArrayList<>();
+                }
+                shardFailures.add(new DefaultShardOperationFailedException(
+                        (BroadcastShardOperationFailedException) shardResponse));
+            } else {
+                successfulShards++;
+                final boolean[] shardExists = ((MinHashExistsShardResponse) shardResponse)
+                        .exists();
+                for (int j = 0; j < exists.length; j++) {
+                    exists[j] |= shardExists[j];
+                }
+            }
+        }
+        return new MinHashExistsResponse(exists, shardsResponses.length(),
+                successfulShards, failedShards, shardFailures);
+    }
+
+    @Override
+    protected MinHashExistsShardRequest newShardRequest(final int numShards,
+            final ShardRouting shard, final MinHashExistsRequest request) {
+        return new MinHashExistsShardRequest(shard.shardId(), request);
+    }
+
+    @Override
+    protected MinHashExistsShardResponse readShardResponse(
+            final StreamInput in) throws IOException {
+        return new MinHashExistsShardResponse(in);
+    }
+
+    @Override
+    protected MinHashExistsShardResponse shardOperation(
+            final MinHashExistsShardRequest request, final Task task)
+            throws IOException {
+        final IndexService indexService = indicesService
+                .indexServiceSafe(request.shardId().getIndex());
+        final MappedFieldType fieldType = indexService.mapperService()
+                .fieldType(request.field());
+        if (!(fieldType instanceof MinHashFieldType)) {
+            throw new IllegalArgumentException(
+                    "[" + request.field() + "] is not a minhash field");
+        }
+        final MinHashFieldType minhashFieldType = (MinHashFieldType) fieldType;
+        final String fingerprintField = minhashFieldType
+                .fingerprintFieldName();
+        if (indexService.mapperService()
+                .fieldType(fingerprintField) == null) {
+            throw new IllegalArgumentException("[" + request.field()
+                    + "] requires [fingerprint] to be enabled");
+        }
+
+        final long[] fingerprints = fingerprints(request, minhashFieldType);
+        final boolean[] exists = new boolean[fingerprints.length];
+        final IndexShard indexShard = indexService
+                .getShard(request.shardId().id());
+        try (Engine.Searcher searcher = indexShard
+                .acquireSearcher("minhash_exists")) {
+            for (final LeafReaderContext context : searcher.getIndexReader()
+                    .leaves()) {
+                final LongBloomFilter filter = filterCache
+                        .get(context.reader(), fingerprintField);
+                if (filter == null) {
+                    continue;
+                }
+                final PointValues points = context.reader()
+                        .getPointValues(fingerprintField);
+                final Bits liveDocs = context.reader().getLiveDocs();
+                for (int i = 0; i < fingerprints.length; i++) {
+                    if (!exists[i] && filter.mightContain(fingerprints[i])) {
+                        exists[i] = points == null
+                                || containsLiveDoc(points, liveDocs,
+                                        fingerprints[i]);
+                    }
+                }
+            }
+        }
+        return new MinHashExistsShardResponse(request.shardId(), exists);
+    }
+
+    private static long[] fingerprints(final MinHashExistsShardRequest request,
+            final MinHashFieldType fieldType) {
+        final String[] values = request.values();
+        final long[] fingerprints = new long[values.length
+                + request.fingerprints().length];
+        for (int i = 0; i < values.length; i++) {
+            fingerprints[i] = MinHashFieldMapper.fingerprint(MinHashSignatures
+                    .decode(values[i], fieldType.isBitString()));
+        }
+        System.arraycopy(request.fingerprints(), 0, fingerprints,
+                values.length, request.fingerprints().length);
+        return fingerprints;
+    }
+
+    private static boolean containsLiveDoc(final PointValues points,
+            final Bits liveDocs, final long fingerprint) throws IOException {
+        final byte[] target = new byte[Long.BYTES];
+        LongPoint.encodeDimension(fingerprint, target, 0);
+        final boolean[] found = new boolean[1];
+        points.intersect(new IntersectVisitor() {
+            @Override
+            public void visit(final int docID) {
+                if (liveDocs == null || liveDocs.get(docID)) {
+                    found[0] = true;
+                }
+            }
+
+            @Override
+            public void visit(final int docID, final byte[] packedValue) {
+                if (Arrays.equals(packedValue, target)) {
+                    visit(docID);
+                }
+            }
+
+            @Override
+            public Relation compare(final byte[] minPackedValue,
+                    final byte[] maxPackedValue) {
+                if (found[0]
+                        || Arrays.compareUnsigned(minPackedValue, target) > 0
+                        || Arrays.compareUnsigned(maxPackedValue,
+                                target) < 0) {
+                    return Relation.CELL_OUTSIDE_QUERY;
+                }
+                if (Arrays.equals(minPackedValue, maxPackedValue)) {
+                    return Relation.CELL_INSIDE_QUERY;
+                }
+                return Relation.CELL_CROSSES_QUERY;
+            }
+        });
+        return found[0];
+    }
+
+    @Override
+    protected GroupShardsIterator<ShardIterator> shards(
+            final ClusterState clusterState,
+            final MinHashExistsRequest request,
+            final String[] concreteIndices) {
+        return clusterService.operationRouting().searchShards(clusterState,
+                concreteIndices, null, "_local");
+    }
+
+    @Override
+    protected ClusterBlockException checkGlobalBlock(final ClusterState state,
+            final MinHashExistsRequest request) {
+        return state.blocks().globalBlockedException(ClusterBlockLevel.READ);
+    }
+
+    @Override
+    protected ClusterBlockException checkRequestBlock(
+            final ClusterState state, final MinHashExistsRequest request,
+            final String[] concreteIndices) {
+        return state.blocks().indicesBlockedException(ClusterBlockLevel.READ,
+                concreteIndices);
+    }
+}
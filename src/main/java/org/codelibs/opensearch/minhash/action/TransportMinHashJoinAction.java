@@ -0,0 +1,426 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.action;
+
+import static org.opensearch.index.query.QueryBuilders.boolQuery;
+import static org.opensearch.index.query.QueryBuilders.existsQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.codelibs.opensearch.minhash.index.mapper.MinHashFieldMapper;
+import org.codelibs.opensearch.minhash.index.query.MinHashWithinQueryBuilder;
+import org.codelibs.opensearch.minhash.util.MinHashSignatures;
+import org.opensearch.action.admin.indices.mapping.get.GetFieldMappingsRequest;
+import org.opensearch.action.admin.indices.mapping.get.GetFieldMappingsResponse.FieldMappingMetadata;
+import org.opensearch.action.search.ClearScrollRequest;
+import org.opensearch.action.search.MultiSearchRequest;
+import org.opensearch.action.search.MultiSearchResponse;
+import org.opensearch.action.search.SearchRequest;
+import org.opensearch.action.search.SearchResponse;
+import org.opensearch.action.search.SearchScrollRequest;
+import org.opensearch.action.support.ActionFilters;
+import org.opensearch.action.support.HandledTransportAction;
+import org.opensearch.common.document.DocumentField;
+import org.opensearch.common.inject.Inject;
+import org.opensearch.common.xcontent.support.XContentMapValues;
+import org.opensearch.core.action.ActionListener;
+import org.opensearch.index.query.BoolQueryBuilder;
+import org.opensearch.index.query.QueryBuilder;
+import org.opensearch.search.SearchHit;
+import org.opensearch.search.SearchHits;
+import org.opensearch.search.builder.SearchSourceBuilder;
+import org.opensearch.search.sort.SortOrder;
+import org.opensearch.tasks.Task;
+import org.opensearch.transport.TransportService;
+import org.opensearch.transport.client.node.NodeClient;
+
+/**
+ * Reads one index in batches with a scroll and probes the other with one
+ * {@code minhash_within} query per document of a batch, which matches any
+ * value of the document, so all windows of a {@code window} field are
+ * joined. The queries of a batch run as one multi search over the shards in
+ * parallel. The larger index is probed unless only the smaller one has
+ * {@code mih_substrings} on the field, and the join is rejected if neither
+ * has, since each probe would scan the doc values of the probed index. The
+ * encoding of the signatures is read from the mapping of each index.
+ */
+public class TransportMinHashJoinAction
+        extends HandledTransportAction<MinHashJoinRequest, MinHashJoinResponse> {
+
+    private static final Logger logger = LogManager
+            .getLogger(TransportMinHashJoinAction.class);
+
+    private static final String LEFT_CURSOR_PREFIX = "l:";
+
+    private static final String RIGHT_CURSOR_PREFIX = "r:";
+
+    private final NodeClient client;
+
+    @Inject
+    public TransportMinHashJoinAction(final TransportService transportService,
+            final ActionFilters actionFilters, final NodeClient client) {
+        super(MinHashJoinAction.NAME, transportService, actionFilters,
+                MinHashJoinRequest::new);
+        this.client = client;
+    }
+
+    @Override
+    protected void doExecute(final Task task, final MinHashJoinRequest request,
+            final ActionListener<MinHashJoinResponse> listener) {
+        final long startTime = System.nanoTime();
+        joinField(request.left(), request.field(), ActionListener.wrap(
+                left -> joinField(request.right(), request.field(),
+                        ActionListener.wrap(
+                                right -> execute(request, left, right,
+                                        startTime, listener),
+                                listener::onFailure)),
+                listener::onFailure));
+    }
+
+    private void execute(final MinHashJoinRequest request,
+            final JoinField left, final JoinField right, final long startTime,
+            final ActionListener<MinHashJoinResponse> listener) {
+        final String cursor = request.cursor();
+        if (cursor != null) {
+            final boolean swapped;
+            if (cursor.startsWith(LEFT_CURSOR_PREFIX)) {
+                swapped = false;
+            } else if (cursor.startsWith(RIGHT_CURSOR_PREFIX)) {
+                swapped = true;
+            } else {
+                listener.onFailure(new IllegalArgumentException(
+                        "invalid cursor [" + cursor + "]"));
+                return;
+            }
+            client.searchScroll(
+                    new SearchScrollRequest(cursor.substring(2))
+                            .scroll(request.keepAlive()),
+                    ActionListener.wrap(batch -> probe(request,
+                            swapped ? right : left, swapped ? left : right,
+                            swapped, batch, startTime, listener),
+                            listener::onFailure));
+            return;
+        }
+
+        count(request.left(), request.field(), ActionListener.wrap(
+                leftCount -> count(request.right(), request.field(),
+                        ActionListener.wrap(rightCount -> {
+                            final boolean swapped = probesLeft(request,
+                                    leftCount, rightCount, left, right);
+                            final SearchRequest searchRequest = new SearchRequest(
+                                    swapped ? request.right() : request.left())
+                                    .scroll(request.keepAlive())
+                                    .source(new SearchSourceBuilder()
+                                            .query(existsQuery(request.field()))
+                                            .size(request.batchSize())
+                                            .fetchSource(false)
+                                            .docValueField(request.field())
+                                            .sort("_doc", SortOrder.ASC));
+                            client.search(searchRequest, ActionListener.wrap(
+                                    batch -> probe(request,
+                                            swapped ? right : left,
+                                            swapped ? left : right, swapped,
+                                            batch, startTime, listener),
+                                    listener::onFailure));
+                        }, listener::onFailure)),
+                listener::onFailure));
+    }
+
+    /**
+     * Returns whether the left index is probed and the right one read. The
+     * larger index is probed unless only the smaller one has a substring
+     * index on the field.
+     */
+    private static boolean probesLeft(final MinHashJoinRequest request,
+            final long leftCount, final long rightCount, final JoinField left,
+            final JoinField right) {
+        final boolean leftLarger = rightCount < leftCount;
+        if ((leftLarger ? left : right).mihSubstrings > 0) {
+            return leftLarger;
+        }
+        if ((leftLarger ? right : left).mihSubstrings > 0) {
+            return !leftLarger;
+        }
+        throw new IllegalArgumentException("[" + request.field()
+                + "] has no [mih_substrings] in [" + request.left()
+                + "] or [" + request.right()
+                + "], so each probe would scan all documents of the probed index."
+                + " Set [mih_substrings] on the field of the larger index.");
+    }
+
+    /**
+     * Reads the encoding and the substring index of the field from the
+     * mappings of the indices of an expression, which must all encode the
+     * field the same way.
+     */
+    private void joinField(final String index, final String field,
+            final ActionListener<JoinField> listener) {
+        client.admin().indices().getFieldMappings(
+                new GetFieldMappingsRequest().indices(index).fields(field)
+                        .includeDefaults(true),
+                ActionListener.map(listener, response -> {
+                    final String leafName = field
+                            .substring(field.lastIndexOf('.') + 1);
+                    JoinField joinField = null;
+                    for (final Map.Entry<String, Map<String, FieldMappingMetadata>> entry : response
+                            .mappings().entrySet()) {
+                        final FieldMappingMetadata metadata = entry.getValue()
+                                .get(field);
+                        if (metadata == null) {
+                            continue;
+                        }
+                        @SuppressWarnings("unchecked")
+                        final Map<String, Object> mapping = (Map<String, Object>) metadata
+                                .sourceAsMap().get(leafName);
+                        if (mapping == null || !MinHashFieldMapper.CONTENT_TYPE
+                                .equals(mapping.get("type"))) {
+                            throw new IllegalArgumentException("[" + field
+                                    + "] is not a minhash field in ["
+                                    + entry.getKey() + "]");
+                        }
+                        final boolean bitString = XContentMapValues
+                                .nodeBooleanValue(mapping.get("bit_string"),
+                                        false);
+                        final int mihSubstrings = XContentMapValues
+                                .nodeIntegerValue(
+                                        mapping.get("mih_substrings"), 0);
+                        if (joinField == null) {
+                            joinField = new JoinField(bitString,
+                                    mihSubstrings);
+                        } else if (joinField.bitString != bitString) {
+                            throw new IllegalArgumentException("[" + field
+                                    + "] must have the same [bit_string] in all indices of ["
+                                    + index + "]");
+                        } else {
+                            // the probes scan the indices without substrings
+                            joinField = new JoinField(bitString, Math.min(
+                                    joinField.mihSubstrings, mihSubstrings));
+                        }
+                    }
+                    if (joinField == null) {
+                        throw new IllegalArgumentException("[" + field
+                                + "] is not mapped in [" + index + "]");
+                    }
+                    return joinField;
+                }));
+    }
+
+    private void count(final String index, final String field,
+            final ActionListener<Long> listener) {
+        client.search(
+                new SearchRequest(index).source(new SearchSourceBuilder()
+                        .query(existsQuery(field)).size(0)
+                        .trackTotalHits(true)),
+                ActionListener.map(listener,
+                        response -> response.getHits().getTotalHits().value()));
+    }
+
+    private void probe(final MinHashJoinRequest request,
+            final JoinField readField, final JoinField probedField,
+            final boolean swapped, final SearchResponse batch,
+            final long startTime,
+            final ActionListener<MinHashJoinResponse> listener) {
+        final SearchHit[] hits = batch.getHits().getHits();
+        final String cursor;
+        if (hits.length < request.batchSize()) {
+            clearScroll(batch.getScrollId());
+            cursor = null;
+        } else {
+            cursor = (swapped ? RIGHT_CURSOR_PREFIX : LEFT_CURSOR_PREFIX)
+                    + batch.getScrollId();
+        }
+
+        final String probedIndex = swapped ? request.left() : request.right();
+        final List<SearchHit> probeHits = new ArrayList<>(hits.length);
+        final List<List<byte[]>> signatures = new ArrayList<>(hits.length);
+        final MultiSearchRequest multiSearchRequest = new MultiSearchRequest();
+        for (final SearchHit hit : hits) {
+            final List<byte[]> values = signatures(hit, request.field(),
+                    readField.bitString);
+            if (values.isEmpty()) {
+                continue;
+            }
+            // a document matches if any of its values is close to any value
+            // of the probe, such as a shared window
+            QueryBuilder query = null;
+            for (final byte[] signature : values) {
+                final int radius = (int) Math.floor(
+                        (1.0f - request.threshold()) * signature.length * 8);
+                final QueryBuilder withinQuery = new MinHashWithinQueryBuilder(
+                        request.field(), MinHashSignatures.encode(signature,
+                                probedField.bitString),
+                        radius);
+                if (query == null) {
+                    query = withinQuery;
+                } else if (query instanceof BoolQueryBuilder) {
+                    ((BoolQueryBuilder) query).should(withinQuery);
+                } else {
+                    query = boolQuery().should(query).should(withinQuery);
+                }
+            }
+            probeHits.add(hit);
+            signatures.add(values);
+            multiSearchRequest.add(new SearchRequest(probedIndex)
+                    .source(new SearchSourceBuilder().query(query)
+                            .size(request.maxMatches()).fetchSource(false)
+                            .docValueField(request.field())));
+        }
+
+        if (probeHits.isEmpty()) {
+            listener.onResponse(new MinHashJoinResponse(took(startTime),
+                    hits.length, new ArrayList<>(), new ArrayList<>(),
+                    cursor));
+            return;
+        }
+
+        client.multiSearch(multiSearchRequest, ActionListener.wrap(response -> {
+            final MultiSearchResponse.Item[] items = response.getResponses();
+            final List<MinHashJoinResponse.Pair> pairs = new ArrayList<>();
+            final List<MinHashJoinResponse.Truncated> truncated = new ArrayList<>();
+            for (int i = 0; i < items.length; i++) {
+                if (items[i].isFailure()) {
+                    if (cursor != null) {
+                        clearScroll(batch.getScrollId());
+                    }
+                    listener.onFailure(items[i].getFailure());
+                    return;
+                }
+                final SearchHit probeHit = probeHits.get(i);
+                final List<byte[]> probeSignatures = signatures.get(i);
+                // minhash_within scores every match the same, so the hits
+                // kept by max_matches are not the closest ones
+                final SearchHits matches = items[i].getResponse().getHits();
+                if (matches.getTotalHits() != null && matches.getTotalHits()
+                        .value() > matches.getHits().length) {
+                    truncated.add(new MinHashJoinResponse.Truncated(
+                            probeHit.getIndex(), probeHit.getId(),
+                            matches.getTotalHits().value()));
+                }
+                for (final SearchHit match : matches.getHits()) {
+                    if (match.getIndex().equals(probeHit.getIndex())
+                            && match.getId().equals(probeHit.getId())) {
+                        continue;
+                    }
+                    final float similarity = similarity(probeSignatures,
+                            signatures(match, request.field(),
+                                    probedField.bitString));
+                    if (similarity < request.threshold()) {
+                        continue;
+                    }
+                    pairs.add(swapped
+                            ? new MinHashJoinResponse.Pair(match.getIndex(),
+                                    match.getId(), probeHit.getIndex(),
+                                    probeHit.getId(), similarity)
+                            : new MinHashJoinResponse.Pair(
+                                    probeHit.getIndex(), probeHit.getId(),
+                                    match.getIndex(), match.getId(),
+                                    similarity));
+                }
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("Joined {} documents into {} pairs.",
+                        hits.length, pairs.size());
+            }
+            listener.onResponse(new MinHashJoinResponse(took(startTime),
+                    hits.length, pairs, truncated, cursor));
+        }, e -> {
+            if (cursor != null) {
+                clearScroll(batch.getScrollId());
+            }
+            listener.onFailure(e);
+        }));
+    }
+
+    private void clearScroll(final String scrollId) {
+        if (scrollId == null) {
+            return;
+        }
+        final ClearScrollRequest clearScrollRequest = new ClearScrollRequest();
+        clearScrollRequest.addScrollId(scrollId);
+        client.clearScroll(clearScrollRequest, ActionListener.wrap(
+                response -> {}, e -> logger.warn(
+                        "Failed to clear scroll [" + scrollId + "]", e)));
+    }
+
+    /**
+     * Returns the signatures of all values of the field of a hit, skipping
+     * malformed ones.
+     */
+    private static List<byte[]> signatures(final SearchHit hit,
+            final String field, final boolean bitString) {
+        final DocumentField documentField = hit.field(field);
+        if (documentField == null) {
+            return new ArrayList<>();
+        }
+        final List<byte[]> signatures = new ArrayList<>(
+                documentField.getValues().size());
+        for (final Object value : documentField.getValues()) {
+            try {
+                signatures.add(
+                        MinHashSignatures.decode(value.toString(), bitString));
+            } catch (final IllegalArgumentException e) {
+                // not a signature
+            }
+        }
+        return signatures;
+    }
+
+    /**
+     * Returns the highest similarity between the values of two documents.
+     */
+    private static float similarity(final List<byte[]> signatures,
+            final List<byte[]> others) {
+        float similarity = 0.0f;
+        for (final byte[] signature : signatures) {
+            for (final byte[] other : others) {
+                if (other.length != signature.length) {
+                    continue;
+                }
+                similarity = Math.max(similarity, 1.0f
+                        - (float) MinHashSignatures.hammingDistance(signature,
+                                other, signature.length)
+                                / (signature.length * 8));
+            }
+        }
+        return similarity;
+    }
+
+    /**
+     * The encoding and the substring index of the field in one side of the
+     * join.
+     */
+    private static final class JoinField {
+
+        final boolean bitString;
+
+        final int mihSubstrings;
+
+        JoinField(final boolean bitString, final int mihSubstrings) {
+            this.bitString = bitString;
+            this.mihSubstrings = mihSubstrings;
+        }
+    }
+
+    private static long took(final long startTime) {
+        return TimeUnit.NANOSECONDS
+                .toMillis(System.nanoTime() - startTime);
+    }
+}
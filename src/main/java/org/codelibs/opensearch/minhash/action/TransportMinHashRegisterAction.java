@@ -0,0 +1,91 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.action;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.codelibs.opensearch.minhash.reference.MinHashReferenceService;
+import org.codelibs.opensearch.minhash.util.MinHashSignatures;
+import org.opensearch.action.support.ActionFilters;
+import org.opensearch.action.support.HandledTransportAction;
+import org.opensearch.common.inject.Inject;
+import org.opensearch.core.action.ActionListener;
+import org.opensearch.tasks.Task;
+import org.opensearch.transport.TransportService;
+
+/**
+ * Decodes the signatures of the request and writes them to the reference
+ * system index. The nodes load the new version of the set when they see it
+ * in the cluster state.
+ */
+public class TransportMinHashRegisterAction
+        extends HandledTransportAction<MinHashRegisterRequest, MinHashRegisterResponse> {
+
+    private final MinHashReferenceService referenceService;
+
+    @Inject
+    public TransportMinHashRegisterAction(
+            final TransportService transportService,
+            final ActionFilters actionFilters,
+            final MinHashReferenceService referenceService) {
+        super(MinHashRegisterAction.NAME, transportService, actionFilters,
+                MinHashRegisterRequest::new);
+        this.referenceService = referenceService;
+    }
+
+    @Override
+    protected void doExecute(final Task task,
+            final MinHashRegisterRequest request,
+            final ActionListener<MinHashRegisterResponse> listener) {
+        final Map<String, byte[]> references = new LinkedHashMap<>();
+        try {
+            // the bits of an existing set are checked when it is written
+            int numOfBits = 0;
+            for (final Map.Entry<String, String> entry : request.references()
+                    .entrySet()) {
+                final byte[] signature = MinHashSignatures
+                        .decode(entry.getValue(), request.bitString());
+                if (numOfBits == 0) {
+                    numOfBits = signature.length * 8;
+                } else if (signature.length * 8 != numOfBits) {
+                    throw new IllegalArgumentException("signature of ["
+                            + entry.getKey() + "] has "
+                            + signature.length * 8 + " bits, the others have "
+                            + numOfBits);
+                }
+                references.put(entry.getKey(), signature);
+            }
+            if (request.bands() > numOfBits
+                    || (numOfBits + request.bands() - 1)
+                            / request.bands() > 64) {
+                throw new IllegalArgumentException("bands must be between "
+                        + (numOfBits + 63) / 64 + " and " + numOfBits + ": "
+                        + request.bands());
+            }
+        } catch (final IllegalArgumentException e) {
+            listener.onFailure(e);
+            return;
+        }
+
+        referenceService.register(request.set(), request.bands(), references,
+                ActionListener.wrap(
+                        version -> listener.onResponse(
+                                new MinHashRegisterResponse(request.set(),
+                                        version, references.size())),
+                        listener::onFailure));
+    }
+}
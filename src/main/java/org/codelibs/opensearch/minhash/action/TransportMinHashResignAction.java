@@ -0,0 +1,252 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.action;
+
+import static org.opensearch.index.query.QueryBuilders.boolQuery;
+import static org.opensearch.index.query.QueryBuilders.existsQuery;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.codelibs.opensearch.minhash.index.mapper.MinHashFieldMapper;
+import org.opensearch.action.admin.indices.mapping.put.PutMappingRequest;
+import org.opensearch.action.support.ActionFilters;
+import org.opensearch.action.support.HandledTransportAction;
+import org.opensearch.cluster.metadata.IndexNameExpressionResolver;
+import org.opensearch.cluster.metadata.MappingMetadata;
+import org.opensearch.cluster.service.ClusterService;
+import org.opensearch.common.inject.Inject;
+import org.opensearch.core.action.ActionListener;
+import org.opensearch.core.tasks.TaskCancelledException;
+import org.opensearch.index.reindex.BulkByScrollResponse;
+import org.opensearch.index.reindex.UpdateByQueryAction;
+import org.opensearch.index.reindex.UpdateByQueryRequest;
+import org.opensearch.tasks.Task;
+import org.opensearch.transport.TransportService;
+import org.opensearch.transport.client.node.NodeClient;
+
+/**
+ * Adds the new minhash sub-field, or the new signature variant of a minhash
+ * field, to the mapping and runs an update by query over the documents that
+ * do not have it yet. A variant uses the analyzer of its minhash field, so
+ * new parameters need neither a new analyzer nor a closed index. New and
+ * updated documents get the sub-field from the mapping, so the index stays
+ * live, and a cancelled or failed run can be resumed by running it again.
+ */
+public class TransportMinHashResignAction
+        extends HandledTransportAction<MinHashResignRequest, BulkByScrollResponse> {
+
+    private final ClusterService clusterService;
+
+    private final IndexNameExpressionResolver indexNameExpressionResolver;
+
+    private final NodeClient client;
+
+    @Inject
+    public TransportMinHashResignAction(final TransportService transportService,
+            final ActionFilters actionFilters,
+            final ClusterService clusterService,
+            final IndexNameExpressionResolver indexNameExpressionResolver,
+            final NodeClient client) {
+        super(MinHashResignAction.NAME, transportService, actionFilters,
+                MinHashResignRequest::new);
+        this.clusterService = clusterService;
+        this.indexNameExpressionResolver = indexNameExpressionResolver;
+        this.client = client;
+    }
+
+    @Override
+    protected void doExecute(final Task task,
+            final MinHashResignRequest request,
+            final ActionListener<BulkByScrollResponse> listener) {
+        final String index;
+        final Map<String, Object> mapping;
+        try {
+            final String[] indices = indexNameExpressionResolver
+                    .concreteIndexNames(clusterService.state(), request);
+            if (indices.length != 1) {
+                throw new IllegalArgumentException(
+                        "[" + String.join(",", request.indices())
+                                + "] must resolve to a single index, but resolved to "
+                                + Arrays.toString(indices));
+            }
+            index = indices[0];
+            mapping = request.isVariant() ? variantMapping(index, request)
+                    : subFieldMapping(index, request);
+        } catch (final Exception e) {
+            listener.onFailure(e);
+            return;
+        }
+
+        if (mapping == null) {
+            updateByQuery(task, index, request, listener);
+            return;
+        }
+        client.admin().indices().putMapping(
+                new PutMappingRequest(index).source(mapping),
+                ActionListener.wrap(
+                        response -> updateByQuery(task, index, request,
+                                listener),
+                        listener::onFailure));
+    }
+
+    /**
+     * Returns the mapping that adds the sub-field, or null if the sub-field
+     * already exists.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> subFieldMapping(final String index,
+            final MinHashResignRequest request) {
+        final Map<String, Object> fieldMapping = fieldMapping(index, request);
+        final Map<String, Object> fields = fieldMapping.get("fields") == null
+                ? new HashMap<>()
+                : new HashMap<>((Map<String, Object>) fieldMapping.get("fields"));
+        final Map<String, Object> existing = (Map<String, Object>) fields
+                .get(request.target());
+        if (existing != null) {
+            if (!MinHashFieldMapper.CONTENT_TYPE.equals(existing.get("type"))) {
+                throw new IllegalArgumentException("[" + request.field() + "."
+                        + request.target() + "] is not a minhash field");
+            }
+            return null;
+        }
+
+        final Map<String, Object> subField = new HashMap<>();
+        subField.put("type", MinHashFieldMapper.CONTENT_TYPE);
+        subField.put("minhash_analyzer", request.minhashAnalyzer());
+        subField.put("bit_string", request.bitString());
+        fields.put(request.target(), subField);
+        final Map<String, Object> source = new HashMap<>(fieldMapping);
+        source.put("fields", fields);
+        return wrap(request.field(), source);
+    }
+
+    /**
+     * Returns the mapping that adds the variant, or null if the variant
+     * already exists with the same parameters.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> variantMapping(final String index,
+            final MinHashResignRequest request) {
+        final Map<String, Object> fieldMapping = fieldMapping(index, request);
+        if (!MinHashFieldMapper.CONTENT_TYPE.equals(fieldMapping.get("type"))) {
+            throw new IllegalArgumentException("[size], [bit] and [seed] require ["
+                    + request.field() + "] to be a minhash field");
+        }
+
+        final Map<String, Object> variant = new LinkedHashMap<>();
+        if (request.size() != null) {
+            variant.put("size", request.size());
+        }
+        if (request.bit() != null) {
+            variant.put("bit", request.bit());
+        }
+        if (request.seed() != null) {
+            variant.put("seed", request.seed());
+        }
+        final Object current = fieldMapping
+                .get(MinHashFieldMapper.VARIANTS_FIELD_NAME);
+        final Map<String, Object> variants = current == null
+                ? new LinkedHashMap<>()
+                : new LinkedHashMap<>((Map<String, Object>) current);
+        final Object existing = variants.get(request.target());
+        if (existing != null) {
+            if (!variant.equals(existing)) {
+                throw new IllegalArgumentException("[" + request.field() + "."
+                        + request.target()
+                        + "] already exists with other parameters: "
+                        + existing);
+            }
+            return null;
+        }
+
+        variants.put(request.target(), variant);
+        final Map<String, Object> source = new HashMap<>(fieldMapping);
+        source.put(MinHashFieldMapper.VARIANTS_FIELD_NAME, variants);
+        return wrap(request.field(), source);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> fieldMapping(final String index,
+            final MinHashResignRequest request) {
+        final MappingMetadata mappingMetadata = clusterService.state()
+                .metadata().index(index).mapping();
+        if (mappingMetadata == null) {
+            throw new IllegalArgumentException(
+                    "index [" + index + "] has no mapping");
+        }
+
+        Map<String, Object> properties = mappingMetadata.sourceAsMap();
+        Map<String, Object> fieldMapping = null;
+        for (final String name : request.field().split("\\.")) {
+            properties = (Map<String, Object>) (fieldMapping == null
+                    ? properties
+                    : fieldMapping).get("properties");
+            fieldMapping = properties == null ? null
+                    : (Map<String, Object>) properties.get(name);
+            if (fieldMapping == null) {
+                throw new IllegalArgumentException("field [" + request.field()
+                        + "] is not mapped in [" + index + "]");
+            }
+        }
+        return fieldMapping;
+    }
+
+    private static Map<String, Object> wrap(final String field,
+            final Map<String, Object> fieldMapping) {
+        final String[] path = field.split("\\.");
+        Map<String, Object> source = fieldMapping;
+        for (int i = path.length - 1; i >= 0; i--) {
+            final Map<String, Object> parent = new HashMap<>();
+            parent.put("properties", Map.of(path[i], source));
+            source = parent;
+        }
+        return source;
+    }
+
+    private void updateByQuery(final Task task, final String index,
+            final MinHashResignRequest request,
+            final ActionListener<BulkByScrollResponse> listener) {
+        final MinHashResignTask resignTask = (MinHashResignTask) task;
+        if (resignTask.isCancelled()) {
+            listener.onFailure(new TaskCancelledException(
+                    "task cancelled [" + resignTask.getReasonCancelled()
+                            + "]"));
+            return;
+        }
+
+        final UpdateByQueryRequest updateRequest = new UpdateByQueryRequest(
+                index);
+        updateRequest.setQuery(boolQuery().filter(existsQuery(request.field()))
+                .mustNot(existsQuery(
+                        request.field() + "." + request.target())));
+        updateRequest.setSlices(request.slices());
+        updateRequest.setRequestsPerSecond(request.requestsPerSecond());
+        updateRequest.setBatchSize(request.batchSize());
+        // documents written meanwhile already have the sub-field
+        updateRequest.setAbortOnVersionConflict(false);
+        updateRequest.setParentTask(clusterService.localNode().getId(),
+                task.getId());
+        try {
+            resignTask.setUpdateTask(client.executeLocally(
+                    UpdateByQueryAction.INSTANCE, updateRequest, listener));
+        } catch (final Exception e) {
+            listener.onFailure(e);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.index.analysis;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.google.common.hash.HashFunction;
+
+/**
+ * Keeps the per-function minimum hash values of a b-bit minhash signature
+ * so that tokens can be folded in incrementally, e.g. across several values
+ * of one document. The hashing and the bit layout follow
+ * {@link org.codelibs.minhash.analysis.MinHashTokenFilter}. An accumulator
+ * can also keep several signatures of the same tokens, computing each
+ * distinct hash function once per token. Murmur3 functions are computed
+ * together by {@link MurmurHashes}, with vectors when they are available.
+ */
+public class MinHashAccumulator {
+
+    private final HashFunction[] hashFunctions;
+
+    private final MurmurHashes hashes;
+
+    private final long[] values;
+
+    private final int[][] slots;
+
+    private final int[] hashBits;
+
+    private final long[] minHashValues;
+
+    private long[] sampledMinHashValues;
+
+    private long sampleThreshold;
+
+    private boolean samplingOnly;
+
+    private long count;
+
+    public MinHashAccumulator(final HashFunction[] hashFunctions,
+            final int hashBit) {
+        this(hashFunctions, MurmurHashes.seeds(hashFunctions), hashBit);
+    }
+
+    /**
+     * Creates an accumulator with the seeds of the hash functions, as
+     * returned by {@link MurmurHashes#seeds(HashFunction[])}.
+     */
+    public MinHashAccumulator(final HashFunction[] hashFunctions,
+            final long[] seeds, final int hashBit) {
+        this(hashFunctions, seeds,
+                new int[][] { identity(hashFunctions.length) },
+                new int[] { hashBit });
+    }
+
+    private MinHashAccumulator(final HashFunction[] hashFunctions,
+            final long[] seeds, final int[][] slots, final int[] hashBits) {
+        this.hashFunctions = hashFunctions;
+        this.hashes = seeds == null ? null : MurmurHashes.create(seeds);
+        this.values = seeds == null ? null : new long[seeds.length];
+        this.slots = slots;
+        this.hashBits = hashBits;
+        this.minHashValues = new long[hashFunctions.length];
+        reset();
+    }
+
+    /**
+     * Returns an accumulator of one signature per pair of hash functions and
+     * bits. Hash functions that are equal, such as the ones of signatures
+     * with the same seed, are computed once per token, and the sampling of
+     * the first signature is used for all of them.
+     */
+    public static MinHashAccumulator of(final HashFunction[][] hashFunctions,
+            final int[] hashBits) {
+        final Map<HashFunction, Integer> indexes = new LinkedHashMap<>();
+        final int[][] slots = new int[hashFunctions.length][];
+        for (int i = 0; i < hashFunctions.length; i++) {
+            slots[i] = new int[hashFunctions[i].length];
+            for (int j = 0; j < hashFunctions[i].length; j++) {
+                Integer index = indexes.get(hashFunctions[i][j]);
+                if (index == null) {
+                    index = indexes.size();
+                    indexes.put(hashFunctions[i][j], index);
+                }
+                slots[i][j] = index;
+            }
+        }
+        final HashFunction[] functions = indexes.keySet()
+                .toArray(new HashFunction[indexes.size()]);
+        return new MinHashAccumulator(functions,
+                MurmurHashes.seeds(functions), slots, hashBits);
+    }
+
+    private static int[] identity(final int length) {
+        final int[] slots = new int[length];
+        for (int i = 0; i < length; i++) {
+            slots[i] = i;
+        }
+        return slots;
+    }
+
+    /**
+     * Returns the number of signatures.
+     */
+    public int getNumOfSignatures() {
+        return slots.length;
+    }
+
+    public void reset() {
+        Arrays.fill(minHashValues, Long.MAX_VALUE);
+        if (sampledMinHashValues != null) {
+            Arrays.fill(sampledMinHashValues, Long.MAX_VALUE);
+        }
+        samplingOnly = false;
+        count = 0;
+    }
+
+    /**
+     * Also keeps the minimum hash values of the sampled tokens, whose first
+     * hash value is less than the threshold for the given rate, so that
+     * {@link #sampleOnly()} can switch to them later. Call it before the
+     * first token.
+     */
+    public void enableSampling(final double rate) {
+        if (rate <= 0.0 || rate > 1.0) {
+            throw new IllegalArgumentException(
+                    "sample rate must be in (0, 1]: " + rate);
+        }
+        sampledMinHashValues = new long[hashFunctions.length];
+        Arrays.fill(sampledMinHashValues, Long.MAX_VALUE);
+        // hash values are uniform over the signed longs
+        sampleThreshold = rate >= 1.0 ? Long.MAX_VALUE
+                : (long) ((rate - 0.5) * 0x1p64);
+    }
+
+    /**
+     * Hashes only the sampled tokens from now on. {@link #toByteArray()}
+     * then returns the signature of the sampled tokens of all values, which
+     * is consistent across documents since whether a token is sampled does
+     * not depend on the document. It is not comparable with a signature of
+     * all tokens, so the mapper indexes it in a separate sub-field.
+     */
+    public void sampleOnly() {
+        if (sampledMinHashValues == null) {
+            throw new IllegalStateException("sampling is not enabled");
+        }
+        samplingOnly = true;
+    }
+
+    public boolean isSamplingOnly() {
+        return samplingOnly;
+    }
+
+    /**
+     * Returns the number of tokens added since the last reset.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public void add(final CharSequence term) {
+        count++;
+        if (hashes != null && sampledMinHashValues == null) {
+            hashes.min(term, minHashValues);
+            return;
+        }
+        final long first = hashes != null ? hashes.first(term)
+                : hashFunctions[0].hashUnencodedChars(term).asLong();
+        final boolean sampled = sampledMinHashValues != null
+                && first < sampleThreshold;
+        if (samplingOnly && !sampled) {
+            return;
+        }
+        if (hashes != null) {
+            hashes.values(values);
+            for (int i = 0; i < values.length; i++) {
+                update(i, values[i], sampled);
+            }
+            return;
+        }
+        update(0, first, sampled);
+        for (int i = 1; i < hashFunctions.length; i++) {
+            update(i, hashFunctions[i].hashUnencodedChars(term).asLong(),
+                    sampled);
+        }
+    }
+
+    private void update(final int i, final long value, final boolean sampled) {
+        if (value < minHashValues[i]) {
+            minHashValues[i] = value;
+        }
+        if (sampled && value < sampledMinHashValues[i]) {
+            sampledMinHashValues[i] = value;
+        }
+    }
+
+    public long ramBytesUsed() {
+        return 64 + (long) minHashValues.length * Long.BYTES
+                * ((sampledMinHashValues == null ? 1 : 2)
+                        + (values == null ? 0 : 1));
+    }
+
+    public byte[] toByteArray() {
+        return toByteArray(0);
+    }
+
+    /**
+     * Returns the i-th signature.
+     */
+    public byte[] toByteArray(final int i) {
+        return toByteArray(i, samplingOnly ? sampledMinHashValues
+                : this.minHashValues);
+    }
+
+    /**
+     * Returns the current minimum hash values, indexed by hash function.
+     */
+    long[] minHashValues() {
+        return samplingOnly ? sampledMinHashValues : minHashValues;
+    }
+
+    /**
+     * Returns the i-th signature of the given minimum hash values.
+     */
+    byte[] toByteArray(final int i, final long[] minHashValues) {
+        final int hashBit = hashBits[i];
+        final int nbits = slots[i].length * hashBit;
+        final byte[] bytes = new byte[(nbits + 7) / 8];
+        int pos = 0;
+        for (final int slot : slots[i]) {
+            long value = minHashValues[slot];
+            for (int j = 0; j < hashBit; j++) {
+                if ((value & 1L) == 1L) {
+                    bytes[pos / 8] |= (byte) (1 << (pos % 8));
+                }
+                pos++;
+                value >>>= 1;
+            }
+        }
+        return bytes;
+    }
+}
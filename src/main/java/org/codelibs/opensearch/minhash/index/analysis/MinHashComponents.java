@@ -0,0 +1,286 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.index.analysis;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.codelibs.minhash.MinHash;
+import org.opensearch.index.analysis.AnalyzerComponents;
+import org.opensearch.index.analysis.AnalyzerComponentsProvider;
+import org.opensearch.index.analysis.CharFilterFactory;
+import org.opensearch.index.analysis.NamedAnalyzer;
+import org.opensearch.index.analysis.TokenFilterFactory;
+import org.opensearch.index.analysis.TokenizerFactory;
+
+import com.google.common.hash.HashFunction;
+
+/**
+ * Splits a minhash analyzer into the analysis chain that produces the terms
+ * and the trailing minhash filter, so that the terms can be hashed by the
+ * plugin itself.
+ */
+public class MinHashComponents {
+
+    private final Analyzer termAnalyzer;
+
+    private final MinHashTokenFilterFactory minHashFilterFactory;
+
+    private final HashFunction[] hashFunctions;
+
+    private final long[] seeds;
+
+    private final int hashBit;
+
+    private MinHashComponents(final Analyzer termAnalyzer,
+            final MinHashTokenFilterFactory minHashFilterFactory,
+            final HashFunction[] hashFunctions, final int hashBit) {
+        this.termAnalyzer = termAnalyzer;
+        this.minHashFilterFactory = minHashFilterFactory;
+        this.hashFunctions = hashFunctions;
+        this.seeds = MurmurHashes.seeds(hashFunctions);
+        this.hashBit = hashBit;
+    }
+
+    /**
+     * Returns the components of the given analyzer, or null if it is not a
+     * custom analyzer whose last filter is a minhash filter.
+     */
+    public static MinHashComponents of(final Analyzer analyzer) {
+        Analyzer target = analyzer;
+        if (target instanceof NamedAnalyzer) {
+            target = ((NamedAnalyzer) target).analyzer();
+        }
+        if (!(target instanceof AnalyzerComponentsProvider)) {
+            return null;
+        }
+
+        final AnalyzerComponents components = ((AnalyzerComponentsProvider) target)
+                .getComponents();
+        final TokenFilterFactory[] tokenFilters = components.getTokenFilters();
+        if (tokenFilters.length == 0
+                || !(tokenFilters[tokenFilters.length
+                        - 1] instanceof MinHashTokenFilterFactory)) {
+            return null;
+        }
+
+        final TermAnalyzer termAnalyzer = new TermAnalyzer(
+                components.getTokenizerFactory(), components.getCharFilters(),
+                Arrays.copyOf(tokenFilters, tokenFilters.length - 1));
+        final MinHashTokenFilterFactory minHashFilterFactory = (MinHashTokenFilterFactory) tokenFilters[tokenFilters.length
+                - 1];
+        return new MinHashComponents(termAnalyzer, minHashFilterFactory,
+                minHashFilterFactory.getHashFunctions(),
+                minHashFilterFactory.getHashBit());
+    }
+
+    /**
+     * Returns the components with the same terms and another signature
+     * size, bit and seed.
+     */
+    public MinHashComponents withSignature(final int size, final int bit,
+            final int seed) {
+        return new MinHashComponents(termAnalyzer, minHashFilterFactory,
+                MinHash.createHashFunctions(seed, size), bit);
+    }
+
+    public Analyzer getTermAnalyzer() {
+        return termAnalyzer;
+    }
+
+    public MinHashTokenFilterFactory getMinHashFilterFactory() {
+        return minHashFilterFactory;
+    }
+
+    public HashFunction[] getHashFunctions() {
+        return hashFunctions;
+    }
+
+    public int getHashBit() {
+        return hashBit;
+    }
+
+    /**
+     * Returns the length of a signature in bytes.
+     */
+    public int getSignatureLength() {
+        return (hashFunctions.length * hashBit + 7) / 8;
+    }
+
+    /**
+     * Returns an upper bound of the memory of an accumulator of these
+     * components, as returned by {@link MinHashAccumulator#ramBytesUsed()}.
+     */
+    public long accumulatorRamBytes(final MinHashLimits limits) {
+        return 64 + (long) hashFunctions.length * Long.BYTES
+                * (limits != null && limits.isSample() ? 3 : 2);
+    }
+
+    public MinHashAccumulator newAccumulator() {
+        return new MinHashAccumulator(hashFunctions, seeds, hashBit);
+    }
+
+    public MinHashAccumulator newAccumulator(final MinHashLimits limits) {
+        final MinHashAccumulator accumulator = newAccumulator();
+        if (limits != null && limits.isSample()) {
+            accumulator.enableSampling(limits.getSampleRate());
+        }
+        return accumulator;
+    }
+
+    /**
+     * Returns an accumulator of the signature of these components followed
+     * by the signatures of the others, which must have the same terms, so
+     * that all of them are computed from one pass over the terms.
+     */
+    public MinHashAccumulator newAccumulator(final MinHashLimits limits,
+            final MinHashComponents... others) {
+        if (others.length == 0) {
+            return newAccumulator(limits);
+        }
+        final HashFunction[][] functions = new HashFunction[others.length
+                + 1][];
+        final int[] bits = new int[others.length + 1];
+        functions[0] = hashFunctions;
+        bits[0] = hashBit;
+        for (int i = 0; i < others.length; i++) {
+            if (others[i].termAnalyzer != termAnalyzer) {
+                throw new IllegalArgumentException(
+                        "signatures must share the analysis chain");
+            }
+            functions[i + 1] = others[i].hashFunctions;
+            bits[i + 1] = others[i].hashBit;
+        }
+        final MinHashAccumulator accumulator = MinHashAccumulator
+                .of(functions, bits);
+        if (limits != null && limits.isSample()) {
+            accumulator.enableSampling(limits.getSampleRate());
+        }
+        return accumulator;
+    }
+
+    /**
+     * Adds the terms of the reader to the accumulator and returns the
+     * number of terms.
+     */
+    public long accumulate(final String fieldName, final Reader reader,
+            final MinHashAccumulator accumulator) throws IOException {
+        return accumulate(fieldName, reader, accumulator, null);
+    }
+
+    /**
+     * Adds the terms of the reader to the accumulator within the limits and
+     * returns the number of terms.
+     */
+    public long accumulate(final String fieldName, final Reader reader,
+            final MinHashAccumulator accumulator, final MinHashLimits limits)
+            throws IOException {
+        final long startTime = limits == null ? 0 : System.nanoTime();
+        long count = 0;
+        try (TokenStream stream = termAnalyzer.tokenStream(fieldName,
+                reader)) {
+            final CharTermAttribute termAtt = stream
+                    .addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                accumulator.add(termAtt);
+                count++;
+                if (limits != null) {
+                    limits.checkToken(fieldName, startTime, count,
+                            accumulator);
+                }
+            }
+            stream.end();
+        }
+        return count;
+    }
+
+    public MinHashWindowAccumulator newWindowAccumulator(final int window,
+            final int stride) {
+        return new MinHashWindowAccumulator(hashFunctions, seeds, hashBit,
+                window, stride);
+    }
+
+    /**
+     * Adds the terms of the reader to the window accumulator within the
+     * limits and returns the number of terms.
+     */
+    public long accumulate(final String fieldName, final Reader reader,
+            final MinHashWindowAccumulator accumulator,
+            final MinHashLimits limits) throws IOException {
+        final long startTime = limits == null ? 0 : System.nanoTime();
+        long count = 0;
+        try (TokenStream stream = termAnalyzer.tokenStream(fieldName,
+                reader)) {
+            final CharTermAttribute termAtt = stream
+                    .addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                accumulator.add(termAtt);
+                count++;
+                if (limits != null) {
+                    limits.checkToken(fieldName, startTime, count, count,
+                            null);
+                }
+            }
+            stream.end();
+        }
+        return count;
+    }
+
+    private static class TermAnalyzer extends Analyzer {
+
+        private final TokenizerFactory tokenizerFactory;
+
+        private final CharFilterFactory[] charFilters;
+
+        private final TokenFilterFactory[] tokenFilters;
+
+        TermAnalyzer(final TokenizerFactory tokenizerFactory,
+                final CharFilterFactory[] charFilters,
+                final TokenFilterFactory[] tokenFilters) {
+            this.tokenizerFactory = tokenizerFactory;
+            this.charFilters = charFilters;
+            this.tokenFilters = tokenFilters;
+        }
+
+        @Override
+        protected TokenStreamComponents createComponents(
+                final String fieldName) {
+            final Tokenizer tokenizer = tokenizerFactory.create();
+            TokenStream tokenStream = tokenizer;
+            for (final TokenFilterFactory tokenFilter : tokenFilters) {
+                tokenStream = tokenFilter.create(tokenStream);
+            }
+            return new TokenStreamComponents(tokenizer, tokenStream);
+        }
+
+        @Override
+        protected Reader initReader(final String fieldName,
+                final Reader reader) {
+            Reader result = reader;
+            for (final CharFilterFactory charFilter : charFilters) {
+                result = charFilter.create(result);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.index.analysis;
+
+/**
+ * Limits on the work of computing a signature. When a limit is exceeded,
+ * the value is rejected, or only the consistently sampled tokens are
+ * hashed from then on.
+ */
+public class MinHashLimits {
+
+    public static final String ON_LIMIT_REJECT = "reject";
+
+    public static final String ON_LIMIT_SAMPLE = "sample";
+
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    private final long maxTokens;
+
+    private final long maxInputLength;
+
+    private final long timeBudgetNanos;
+
+    private final boolean sample;
+
+    private final double sampleRate;
+
+    public MinHashLimits(final long maxTokens, final long maxInputLength,
+            final long timeBudgetNanos, final boolean sample,
+            final double sampleRate) {
+        this.maxTokens = maxTokens;
+        this.maxInputLength = maxInputLength;
+        this.timeBudgetNanos = timeBudgetNanos;
+        this.sample = sample;
+        this.sampleRate = sampleRate;
+    }
+
+    public boolean isEnabled() {
+        return maxTokens > 0 || maxInputLength > 0 || timeBudgetNanos > 0;
+    }
+
+    public long getMaxTokens() {
+        return maxTokens;
+    }
+
+    public boolean isSample() {
+        return sample;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Checks the length of a value before it is analyzed. The accumulator
+     * is null for values that cannot be sampled.
+     */
+    public void checkInputLength(final String fieldName, final long length,
+            final MinHashAccumulator accumulator) {
+        if (maxInputLength > 0 && length > maxInputLength
+                && (accumulator == null || !accumulator.isSamplingOnly())) {
+            exceeded(fieldName, "[max_input_length] of " + maxInputLength
+                    + " with " + length + " characters", accumulator);
+        }
+    }
+
+    void checkToken(final String fieldName, final long startTime,
+            final long count, final MinHashAccumulator accumulator) {
+        if (accumulator.isSamplingOnly()) {
+            return;
+        }
+        checkToken(fieldName, startTime, accumulator.getCount(), count,
+                accumulator);
+    }
+
+    void checkToken(final String fieldName, final long startTime,
+            final long tokens, final long count,
+            final MinHashAccumulator accumulator) {
+        if (maxTokens > 0 && tokens > maxTokens) {
+            exceeded(fieldName, "[max_tokens] of " + maxTokens, accumulator);
+        } else if (timeBudgetNanos > 0 && count % TIME_CHECK_INTERVAL == 0
+                && System.nanoTime() - startTime > timeBudgetNanos) {
+            exceeded(fieldName, "[time_budget] of " + timeBudgetNanos / 1000000
+                    + "ms after " + count + " tokens", accumulator);
+        }
+    }
+
+    private void exceeded(final String fieldName, final String reason,
+            final MinHashAccumulator accumulator) {
+        if (sample && accumulator != null) {
+            accumulator.sampleOnly();
+            return;
+        }
+        throw new IllegalArgumentException(
+                "[" + fieldName + "] exceeds " + reason);
+    }
+}
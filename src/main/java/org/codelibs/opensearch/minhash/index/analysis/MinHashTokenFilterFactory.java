@@ -31,12 +31,14 @@ public class MinHashTokenFilterFactory extends AbstractTokenFilterFactory {
 
     private final HashFunction[] hashFunctions;
 
+    private final int seed;
+
     public MinHashTokenFilterFactory(final IndexSettings indexSettings, final Environment environment, final String name, final Settings settings) {
         super(indexSettings, name, settings);
 
         hashBit = settings.getAsInt("bit", 1);
         final int numOfHash = settings.getAsInt("size", 128);
-        final int seed = settings.getAsInt("seed", 0);
+        seed = settings.getAsInt("seed", 0);
 
         hashFunctions = MinHash.createHashFunctions(seed, numOfHash);
 
@@ -49,4 +51,20 @@ public class MinHashTokenFilterFactory extends AbstractTokenFilterFactory {
     public TokenStream create(final TokenStream tokenStream) {
         return new MinHashTokenFilter(tokenStream, hashFunctions, hashBit);
     }
+
+    public int getHashBit() {
+        return hashBit;
+    }
+
+    public int getSize() {
+        return hashFunctions.length;
+    }
+
+    public int getSeed() {
+        return seed;
+    }
+
+    public HashFunction[] getHashFunctions() {
+        return hashFunctions;
+    }
 }
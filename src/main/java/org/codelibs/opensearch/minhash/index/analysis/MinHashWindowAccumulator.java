@@ -0,0 +1,120 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.index.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.common.hash.HashFunction;
+
+/**
+ * Computes one signature per window of {@code window} consecutive tokens,
+ * starting every {@code stride} tokens, in one pass. The tokens are hashed
+ * once into blocks of {@code stride} tokens, and the minimum hash values of
+ * a window are the minima of its blocks. A value shorter than a window gets
+ * one signature of all of its tokens, and the tokens after the last full
+ * stride get a last window.
+ */
+public class MinHashWindowAccumulator {
+
+    private final MinHashAccumulator[] blocks;
+
+    private final int stride;
+
+    private final long[] windowValues;
+
+    private final List<byte[]> signatures = new ArrayList<>();
+
+    private int current;
+
+    private int tokensInBlock;
+
+    private long numOfBlocks;
+
+    private long count;
+
+    public MinHashWindowAccumulator(final HashFunction[] hashFunctions,
+            final int hashBit, final int window, final int stride) {
+        this(hashFunctions, MurmurHashes.seeds(hashFunctions), hashBit,
+                window, stride);
+    }
+
+    MinHashWindowAccumulator(final HashFunction[] hashFunctions,
+            final long[] seeds, final int hashBit, final int window,
+            final int stride) {
+        if (stride <= 0 || window % stride != 0) {
+            throw new IllegalArgumentException("stride " + stride
+                    + " must be a positive divisor of window " + window);
+        }
+        this.blocks = new MinHashAccumulator[window / stride];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = new MinHashAccumulator(hashFunctions, seeds,
+                    hashBit);
+        }
+        this.stride = stride;
+        this.windowValues = new long[hashFunctions.length];
+    }
+
+    /**
+     * Returns the number of tokens added.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public void add(final CharSequence term) {
+        blocks[current].add(term);
+        count++;
+        if (++tokensInBlock == stride) {
+            numOfBlocks++;
+            if (numOfBlocks >= blocks.length) {
+                emit();
+            }
+            current = (current + 1) % blocks.length;
+            blocks[current].reset();
+            tokensInBlock = 0;
+        }
+    }
+
+    /**
+     * Returns the signatures of the windows, without repeating the
+     * signature of the previous window.
+     */
+    public List<byte[]> finish() {
+        if (count > 0 && (numOfBlocks < blocks.length || tokensInBlock > 0)) {
+            emit();
+        }
+        return signatures;
+    }
+
+    private void emit() {
+        Arrays.fill(windowValues, Long.MAX_VALUE);
+        for (final MinHashAccumulator block : blocks) {
+            final long[] values = block.minHashValues();
+            for (int i = 0; i < windowValues.length; i++) {
+                if (values[i] < windowValues[i]) {
+                    windowValues[i] = values[i];
+                }
+            }
+        }
+        final byte[] signature = blocks[0].toByteArray(0, windowValues);
+        if (signatures.isEmpty() || !Arrays.equals(signature,
+                signatures.get(signatures.size() - 1))) {
+            signatures.add(signature);
+        }
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.index.analysis;
+
+import java.lang.reflect.Constructor;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * Computes the murmur3_128 hash values of a term for many seeds at once,
+ * equal to {@code Hashing.murmur3_128(seed).hashUnencodedChars(term).asLong()}
+ * for each seed. The blocks of the term are mixed once per term, and only
+ * the two state words of each seed are updated per seed, from the seeds in
+ * a primitive array. The seeds are processed in SIMD lanes when the plugin
+ * is built with the {@code vector} profile and the
+ * {@code jdk.incubator.vector} module is available, otherwise in a scalar
+ * loop. An instance keeps the blocks of the last term and is not thread
+ * safe.
+ */
+public abstract class MurmurHashes {
+
+    private static final Logger logger = LogManager
+            .getLogger(MurmurHashes.class);
+
+    static final long C1 = 0x87c37b91114253d5L;
+
+    static final long C2 = 0x4cf5ad432745937fL;
+
+    private static final String VECTOR_CLASS_NAME = MurmurHashes.class
+            .getPackageName() + ".VectorMurmurHashes";
+
+    private static final Constructor<? extends MurmurHashes> VECTOR_CONSTRUCTOR = vectorConstructor();
+
+    final long[] seeds;
+
+    /** The mixed first and second words of each 16-byte block. */
+    long[] k1s = new long[8];
+
+    long[] k2s = new long[8];
+
+    int numOfBlocks;
+
+    long tailK1;
+
+    long tailK2;
+
+    long length;
+
+    MurmurHashes(final long[] seeds) {
+        this.seeds = seeds;
+    }
+
+    /**
+     * Returns the seeds of the given hash functions, or null if one of them
+     * is not a murmur3_128 function.
+     */
+    public static long[] seeds(final HashFunction[] hashFunctions) {
+        final long[] seeds = new long[hashFunctions.length];
+        for (int i = 0; i < hashFunctions.length; i++) {
+            final String name = hashFunctions[i].toString();
+            if (!name.startsWith("Hashing.murmur3_128(")
+                    || !name.endsWith(")")) {
+                return null;
+            }
+            final int seed;
+            try {
+                seed = Integer.parseInt(
+                        name.substring(20, name.length() - 1));
+            } catch (final NumberFormatException e) {
+                return null;
+            }
+            if (!hashFunctions[i].equals(Hashing.murmur3_128(seed))) {
+                return null;
+            }
+            seeds[i] = seed;
+        }
+        return seeds;
+    }
+
+    /**
+     * Returns the hashes of the given seeds, computed with vectors if they
+     * are available.
+     */
+    public static MurmurHashes create(final long[] seeds) {
+        return create(seeds, VECTOR_CONSTRUCTOR != null);
+    }
+
+    public static MurmurHashes create(final long[] seeds,
+            final boolean vector) {
+        if (!vector) {
+            return new ScalarMurmurHashes(seeds);
+        }
+        if (VECTOR_CONSTRUCTOR == null) {
+            throw new IllegalStateException(
+                    "the vector path is not available, build with -Pvector and run with --add-modules jdk.incubator.vector");
+        }
+        try {
+            return VECTOR_CONSTRUCTOR.newInstance((Object) seeds);
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalStateException(
+                    "failed to create " + VECTOR_CLASS_NAME, e);
+        }
+    }
+
+    public static boolean isVectorEnabled() {
+        return VECTOR_CONSTRUCTOR != null;
+    }
+
+    /**
+     * Returns the constructor of the vector path, or null if it is not
+     * compiled in or the module is missing. The class is loaded by name, so
+     * the plugin builds without the incubating module.
+     */
+    private static Constructor<? extends MurmurHashes> vectorConstructor() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector")
+                .isEmpty()) {
+            logger.debug(
+                    "jdk.incubator.vector is not available, minhash values are computed by the scalar loop.");
+            return null;
+        }
+        try {
+            final Class<? extends MurmurHashes> vectorClass = Class
+                    .forName(VECTOR_CLASS_NAME)
+                    .asSubclass(MurmurHashes.class);
+            final int lanes = (Integer) vectorClass
+                    .getDeclaredMethod("lanes").invoke(null);
+            if (lanes < 2) {
+                return null;
+            }
+            logger.info("Minhash values are computed in {} vector lanes.",
+                    lanes);
+            return vectorClass.getDeclaredConstructor(long[].class);
+        } catch (final ClassNotFoundException e) {
+            logger.debug(
+                    "The plugin is built without the vector profile, minhash values are computed by the scalar loop.");
+            return null;
+        } catch (final ReflectiveOperationException | LinkageError e) {
+            logger.debug("Vector API is not usable.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Sets {@code values[i]} to the hash value of the term for seed
+     * {@code i}.
+     */
+    public final void hash(final CharSequence term, final long[] values) {
+        mixBlocks(term);
+        compute(values, false);
+    }
+
+    /**
+     * Returns the hash value of the term for the first seed. The values of
+     * the other seeds can then be computed by {@link #values(long[])}.
+     */
+    public final long first(final CharSequence term) {
+        mixBlocks(term);
+        return hashOne(seeds[0]);
+    }
+
+    /**
+     * Sets {@code values[i]} to the hash value for seed {@code i} of the
+     * term of the last {@link #first(CharSequence)}.
+     */
+    public final void values(final long[] values) {
+        compute(values, false);
+    }
+
+    /**
+     * Lowers {@code minValues[i]} to the hash value of the term for seed
+     * {@code i} if it is smaller.
+     */
+    public final void min(final CharSequence term, final long[] minValues) {
+        mixBlocks(term);
+        compute(minValues, true);
+    }
+
+    abstract void compute(long[] values, boolean min);
+
+    /**
+     * Mixes the UTF-16LE bytes of the term in blocks of 8 chars, as the
+     * streaming murmur3_128 hasher of Guava does.
+     */
+    private void mixBlocks(final CharSequence term) {
+        final int len = term.length();
+        numOfBlocks = len >>> 3;
+        if (numOfBlocks > k1s.length) {
+            k1s = new long[Math.max(numOfBlocks, k1s.length * 2)];
+            k2s = new long[k1s.length];
+        }
+        for (int b = 0; b < numOfBlocks; b++) {
+            final int off = b << 3;
+            k1s[b] = mixK1(chars(term, off, 4));
+            k2s[b] = mixK2(chars(term, off + 4, 4));
+        }
+        final int off = numOfBlocks << 3;
+        final int remaining = len - off;
+        tailK1 = mixK1(chars(term, off, Math.min(remaining, 4)));
+        tailK2 = remaining > 4 ? mixK2(chars(term, off + 4, remaining - 4))
+                : 0;
+        length = 2L * len;
+    }
+
+    private static long chars(final CharSequence term, final int off,
+            final int n) {
+        long value = 0;
+        for (int i = 0; i < n; i++) {
+            value |= (long) term.charAt(off + i) << (i << 4);
+        }
+        return value;
+    }
+
+    static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        return k1;
+    }
+
+    static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        k2 *= C1;
+        return k2;
+    }
+
+    static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    /**
+     * Returns the hash value of the mixed term for one seed.
+     */
+    final long hashOne(final long seed) {
+        long h1 = seed;
+        long h2 = seed;
+        for (int b = 0; b < numOfBlocks; b++) {
+            h1 ^= k1s[b];
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+            h2 ^= k2s[b];
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+        h1 ^= tailK1 ^ length;
+        h2 ^= tailK2 ^ length;
+        h1 += h2;
+        h2 += h1;
+        return fmix64(h1) + fmix64(h2);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.index.analysis;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.lucene.analysis.TokenFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.PayloadAttribute;
+import org.apache.lucene.util.BytesRef;
+
+import com.google.common.hash.HashFunction;
+
+/**
+ * Folds all tokens of the stream into one token holding the 64-bit simhash
+ * of the tokens as a decimal long. Each token votes for the bits of its
+ * hash with the weight given by a 4-byte float payload, or 1; repeated
+ * tokens vote once per occurrence.
+ */
+public final class SimHashTokenFilter extends TokenFilter {
+
+    private final HashFunction hashFunction;
+
+    private final CharTermAttribute termAtt = addAttribute(
+            CharTermAttribute.class);
+
+    private final PayloadAttribute payloadAtt = addAttribute(
+            PayloadAttribute.class);
+
+    private final double[] weights = new double[Long.SIZE];
+
+    private boolean finished;
+
+    public SimHashTokenFilter(final TokenStream input,
+            final HashFunction hashFunction) {
+        super(input);
+        this.hashFunction = hashFunction;
+    }
+
+    @Override
+    public boolean incrementToken() throws IOException {
+        if (finished) {
+            return false;
+        }
+        finished = true;
+
+        Arrays.fill(weights, 0);
+        boolean hasTokens = false;
+        while (input.incrementToken()) {
+            final long hash = hashFunction.hashUnencodedChars(termAtt)
+                    .asLong();
+            final float weight = weight(payloadAtt.getPayload());
+            for (int i = 0; i < Long.SIZE; i++) {
+                weights[i] += (hash >>> i & 1) == 1 ? weight : -weight;
+            }
+            hasTokens = true;
+        }
+        if (!hasTokens) {
+            return false;
+        }
+
+        clearAttributes();
+        termAtt.setEmpty().append(Long.toString(fingerprint(weights)));
+        return true;
+    }
+
+    @Override
+    public void reset() throws IOException {
+        super.reset();
+        finished = false;
+    }
+
+    static long fingerprint(final double[] weights) {
+        long fingerprint = 0;
+        for (int i = 0; i < Long.SIZE; i++) {
+            if (weights[i] > 0) {
+                fingerprint |= 1L << i;
+            }
+        }
+        return fingerprint;
+    }
+
+    private static float weight(final BytesRef payload) {
+        if (payload == null || payload.length != Float.BYTES) {
+            return 1.0f;
+        }
+        // the big-endian float written by delimited_payload
+        final byte[] bytes = payload.bytes;
+        final int offset = payload.offset;
+        return Float.intBitsToFloat((bytes[offset] & 0xff) << 24
+                | (bytes[offset + 1] & 0xff) << 16
+                | (bytes[offset + 2] & 0xff) << 8
+                | bytes[offset + 3] & 0xff);
+    }
+}
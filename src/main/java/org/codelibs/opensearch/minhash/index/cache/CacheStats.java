@@ -0,0 +1,128 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.index.cache;
+
+import java.io.IOException;
+
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.core.common.io.stream.StreamOutput;
+import org.opensearch.core.common.io.stream.Writeable;
+import org.opensearch.core.common.unit.ByteSizeValue;
+import org.opensearch.core.xcontent.ToXContentFragment;
+import org.opensearch.core.xcontent.XContentBuilder;
+
+/**
+ * The usage of a per-segment cache of a node.
+ */
+public class CacheStats implements Writeable, ToXContentFragment {
+
+    private final long memorySize;
+
+    private final long limit;
+
+    private final long entries;
+
+    private final long hits;
+
+    private final long misses;
+
+    private final long evictions;
+
+    private final long rejections;
+
+    public CacheStats(final long memorySize, final long limit,
+            final long entries, final long hits, final long misses,
+            final long evictions, final long rejections) {
+        this.memorySize = memorySize;
+        this.limit = limit;
+        this.entries = entries;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.rejections = rejections;
+    }
+
+    public CacheStats(final StreamInput in) throws IOException {
+        memorySize = in.readVLong();
+        limit = in.readVLong();
+        entries = in.readVLong();
+        hits = in.readVLong();
+        misses = in.readVLong();
+        evictions = in.readVLong();
+        rejections = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(final StreamOutput out) throws IOException {
+        out.writeVLong(memorySize);
+        out.writeVLong(limit);
+        out.writeVLong(entries);
+        out.writeVLong(hits);
+        out.writeVLong(misses);
+        out.writeVLong(evictions);
+        out.writeVLong(rejections);
+    }
+
+    public long getMemorySize() {
+        return memorySize;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    /**
+     * Returns the number of cached segment entries.
+     */
+    public long getEntries() {
+        return entries;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of entries that were not cached because they
+     * would not fit in the cache.
+     */
+    public long getRejections() {
+        return rejections;
+    }
+
+    @Override
+    public XContentBuilder toXContent(final XContentBuilder builder,
+            final Params params) throws IOException {
+        builder.humanReadableField("memory_size_in_bytes", "memory_size",
+                new ByteSizeValue(memorySize));
+        builder.humanReadableField("limit_size_in_bytes", "limit_size",
+                new ByteSizeValue(limit));
+        builder.field("entries", entries);
+        builder.field("hit_count", hits);
+        builder.field("miss_count", misses);
+        builder.field("evictions", evictions);
+        builder.field("rejections", rejections);
+        return builder;
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.index.cache;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.codelibs.opensearch.minhash.util.LongBloomFilter;
+import org.opensearch.core.common.breaker.CircuitBreaker;
+import org.opensearch.core.common.breaker.CircuitBreakingException;
+
+/**
+ * Caches a Bloom filter of the fingerprints of each segment. A filter is
+ * built from the doc values the first time a segment is checked and is
+ * removed when the segment is closed. Segments are immutable, so new
+ * documents are covered by the filters of the segments that refreshes and
+ * merges create, and deleted documents only cause false positives.
+ *
+ * <p>
+ * The filters are charged to the circuit breaker while they are cached, and
+ * the least recently used filters are evicted to stay within the size
+ * limit. A segment whose filter does not fit gets a filter that contains
+ * every value, so its fingerprints are checked against the points.
+ */
+public class FingerprintFilterCache {
+
+    private static final Logger logger = LogManager
+            .getLogger(FingerprintFilterCache.class);
+
+    public static final double FPP = 0.01;
+
+    private static final String BREAKER_LABEL = "minhash:fingerprint_filter";
+
+    private static final LongBloomFilter MATCH_ALL = LongBloomFilter
+            .matchAll();
+
+    private final Map<IndexReader.CacheKey, Map<String, Entry>> cache = new ConcurrentHashMap<>();
+
+    private final long limit;
+
+    private final Supplier<CircuitBreaker> breakerSupplier;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder rejections = new LongAdder();
+
+    private long memorySize;
+
+    public FingerprintFilterCache(final long limit,
+            final Supplier<CircuitBreaker> breakerSupplier) {
+        this.limit = limit;
+        this.breakerSupplier = breakerSupplier;
+    }
+
+    /**
+     * Returns the filter of the fingerprint field of a segment, or null if
+     * the segment has no fingerprints.
+     */
+    public LongBloomFilter get(final LeafReader reader, final String field)
+            throws IOException {
+        if (reader.getFieldInfos().fieldInfo(field) == null) {
+            return null;
+        }
+        final IndexReader.CacheHelper cacheHelper = reader
+                .getCoreCacheHelper();
+        if (cacheHelper == null) {
+            return build(reader, field);
+        }
+
+        final IndexReader.CacheKey key = cacheHelper.getKey();
+        final Map<String, Entry> filters = cache.computeIfAbsent(key, k -> {
+            cacheHelper.addClosedListener(this::release);
+            return new ConcurrentHashMap<>();
+        });
+        Entry entry = filters.get(field);
+        if (entry != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            final long size = LongBloomFilter.ramBytesUsed(reader.maxDoc(),
+                    FPP);
+            if (!reserve(size)) {
+                rejections.increment();
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Could not cache the fingerprint filter of {} for {} docs in {} bytes.",
+                            field, reader.maxDoc(), size);
+                }
+                return MATCH_ALL;
+            }
+            boolean success = false;
+            try {
+                entry = put(key, filters, field,
+                        new Entry(build(reader, field), size));
+                success = true;
+            } finally {
+                if (!success) {
+                    free(size);
+                }
+            }
+        }
+        entry.lastAccess = clock.incrementAndGet();
+        return entry.filter;
+    }
+
+    private LongBloomFilter build(final LeafReader reader, final String field)
+            throws IOException {
+        final SortedNumericDocValues docValues = DocValues
+                .getSortedNumeric(reader, field);
+        final long startTime = System.nanoTime();
+        final LongBloomFilter filter = new LongBloomFilter(reader.maxDoc(),
+                FPP);
+        while (docValues.nextDoc() != DocIdSetIterator.NO_MORE_DOCS) {
+            for (int i = 0; i < docValues.docValueCount(); i++) {
+                filter.add(docValues.nextValue());
+            }
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Built a fingerprint filter of {} for {} docs in {}ms.",
+                    field, reader.maxDoc(),
+                    (System.nanoTime() - startTime) / 1000000);
+        }
+        return filter;
+    }
+
+    private synchronized boolean reserve(final long size) {
+        if (size > limit) {
+            return false;
+        }
+        while (memorySize + size > limit) {
+            if (!evict()) {
+                return false;
+            }
+        }
+        final CircuitBreaker breaker = breakerSupplier == null ? null
+                : breakerSupplier.get();
+        if (breaker != null) {
+            try {
+                breaker.addEstimateBytesAndMaybeBreak(size, BREAKER_LABEL);
+            } catch (final CircuitBreakingException e) {
+                return false;
+            }
+        }
+        memorySize += size;
+        return true;
+    }
+
+    private synchronized void free(final long size) {
+        memorySize -= size;
+        final CircuitBreaker breaker = breakerSupplier == null ? null
+                : breakerSupplier.get();
+        if (breaker != null) {
+            breaker.addWithoutBreaking(-size);
+        }
+    }
+
+    private synchronized Entry put(final IndexReader.CacheKey key,
+            final Map<String, Entry> filters, final String field,
+            final Entry entry) {
+        final Entry existing = filters.get(field);
+        if (existing == null && cache.get(key) == filters) {
+            filters.put(field, entry);
+            return entry;
+        }
+        // another check built the filter first, or the segment was closed
+        free(entry.size);
+        return existing == null ? entry : existing;
+    }
+
+    private synchronized boolean evict() {
+        Map<String, Entry> evictedFilters = null;
+        String evictedField = null;
+        Entry evicted = null;
+        for (final Map<String, Entry> filters : cache.values()) {
+            for (final Map.Entry<String, Entry> entry : filters.entrySet()) {
+                if (evicted == null
+                        || entry.getValue().lastAccess < evicted.lastAccess) {
+                    evictedFilters = filters;
+                    evictedField = entry.getKey();
+                    evicted = entry.getValue();
+                }
+            }
+        }
+        if (evicted == null) {
+            return false;
+        }
+        evictedFilters.remove(evictedField);
+        free(evicted.size);
+        evictions.increment();
+        return true;
+    }
+
+    private synchronized void release(final IndexReader.CacheKey key) {
+        final Map<String, Entry> filters = cache.remove(key);
+        if (filters != null) {
+            for (final Entry entry : filters.values()) {
+                free(entry.size);
+            }
+        }
+    }
+
+    public synchronized long ramBytesUsed() {
+        return memorySize;
+    }
+
+    public synchronized CacheStats stats() {
+        long count = 0;
+        for (final Map<String, Entry> filters : cache.values()) {
+            count += filters.size();
+        }
+        return new CacheStats(memorySize, limit, count, hits.sum(),
+                misses.sum(), evictions.sum(), rejections.sum());
+    }
+
+    private static final class Entry {
+
+        private final LongBloomFilter filter;
+
+        private final long size;
+
+        private volatile long lastAccess;
+
+        Entry(final LongBloomFilter filter, final long size) {
+            this.filter = filter;
+            this.size = size;
+        }
+    }
+}
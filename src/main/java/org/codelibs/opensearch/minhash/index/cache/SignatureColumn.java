@@ -0,0 +1,161 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.index.cache;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.Reference;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.util.FixedBitSet;
+
+/**
+ * The signatures of a field in a segment laid out one after another in a
+ * direct buffer, each padded to whole longs as packed by
+ * {@link org.codelibs.opensearch.minhash.util.MinHashSignatures#toLongs(byte[])},
+ * so that a scan compares them without decoding doc values.
+ */
+public final class SignatureColumn {
+
+    private static final Logger logger = LogManager
+            .getLogger(SignatureColumn.class);
+
+    private static final MethodHandle INVOKE_CLEANER = invokeCleaner();
+
+    private final ByteBuffer buffer;
+
+    private final FixedBitSet docsWithValue;
+
+    private final int length;
+
+    private final int words;
+
+    private volatile long lastAccess;
+
+    SignatureColumn(final int maxDoc, final int length) {
+        this.length = length;
+        this.words = (length + 7) / 8;
+        this.buffer = ByteBuffer.allocateDirect(maxDoc * words * Long.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        this.docsWithValue = new FixedBitSet(maxDoc);
+    }
+
+    /**
+     * Returns the number of bytes of the column of a segment, or -1 if its
+     * signatures would not fit in a single direct buffer.
+     */
+    static long ramBytesUsed(final int maxDoc, final int length) {
+        final long size = (long) maxDoc * ((length + 7) / 8) * Long.BYTES;
+        if (size > Integer.MAX_VALUE) {
+            return -1;
+        }
+        return size + (long) FixedBitSet.bits2words(maxDoc) * Long.BYTES;
+    }
+
+    void set(final int doc, final byte[] signature) {
+        final int base = doc * words * Long.BYTES;
+        for (int i = 0; i < length; i++) {
+            buffer.put(base + i, signature[i]);
+        }
+        docsWithValue.set(doc);
+    }
+
+    /**
+     * Returns the number of bytes of the signatures of the column.
+     */
+    public int length() {
+        return length;
+    }
+
+    public boolean exists(final int doc) {
+        return docsWithValue.get(doc);
+    }
+
+    /**
+     * Returns the Hamming distance between the signature of a document and
+     * a signature packed into longs of the same length.
+     */
+    public int hammingDistance(final int doc, final long[] signature) {
+        final int base = doc * words * Long.BYTES;
+        int distance = 0;
+        try {
+            for (int i = 0; i < words; i++) {
+                distance += Long.bitCount(
+                        buffer.getLong(base + i * Long.BYTES) ^ signature[i]);
+            }
+        } finally {
+            // the buffer of a dropped column is freed once it is unreachable
+            Reference.reachabilityFence(this);
+        }
+        return distance;
+    }
+
+    long lastAccess() {
+        return lastAccess;
+    }
+
+    void lastAccess(final long lastAccess) {
+        this.lastAccess = lastAccess;
+    }
+
+    long ramBytesUsed() {
+        return ramBytesUsed(docsWithValue.length(), length);
+    }
+
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Frees a direct buffer now instead of when it is garbage collected.
+     * Nothing may read the buffer afterwards, so it is only called once no
+     * search holds its column. Without access to the cleaner, the buffer is
+     * left to the garbage collector.
+     */
+    static void free(final ByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invokeExact(buffer);
+        } catch (final Throwable t) {
+            logger.debug("Failed to free a signature column.", t);
+        }
+    }
+
+    private static MethodHandle invokeCleaner() {
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner",
+                            MethodType.methodType(void.class,
+                                    ByteBuffer.class))
+                    .bindTo(field.get(null));
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            logger.debug(
+                    "Signature columns are freed by the garbage collector.",
+                    e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.index.cache;
+
+import java.io.IOException;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.BytesRef;
+import org.codelibs.opensearch.minhash.util.MinHashSignatures;
+
+/**
+ * Caches the signatures of each segment as a {@link SignatureColumn} off
+ * the heap. A column is loaded from the doc values the first time a
+ * segment is scanned and is removed when the segment is closed, so the
+ * segments that merges replace are dropped with them. The least recently
+ * used columns are evicted to stay within the size limit. Segments whose
+ * documents have several signatures, or signatures of different lengths,
+ * are not cached, and segments that do not fit yet are loaded again by a
+ * later scan.
+ *
+ * <p>
+ * Searches that are still running may read an evicted column, so it counts
+ * against the limit until it is unreachable and its buffer is freed. The
+ * columns of a closed segment are freed at once.
+ */
+public class SignatureColumnCache {
+
+    private static final Logger logger = LogManager
+            .getLogger(SignatureColumnCache.class);
+
+    private static final SignatureColumn NONE = new SignatureColumn(0, 0);
+
+    private final Map<IndexReader.CacheKey, Map<String, SignatureColumn>> cache = new ConcurrentHashMap<>();
+
+    private final ReferenceQueue<SignatureColumn> queue = new ReferenceQueue<>();
+
+    private final Set<DroppedColumn> dropped = new HashSet<>();
+
+    private final long limit;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder rejections = new LongAdder();
+
+    private long memorySize;
+
+    private long droppedSize;
+
+    public SignatureColumnCache(final long limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Returns the column of a field of a segment, or null if the signatures
+     * of the segment are not cached.
+     */
+    public SignatureColumn get(final LeafReader reader, final String field,
+            final boolean bitString) throws IOException {
+        final IndexReader.CacheHelper cacheHelper = reader
+                .getCoreCacheHelper();
+        if (cacheHelper == null || limit <= 0) {
+            return null;
+        }
+
+        drain();
+        final IndexReader.CacheKey key = cacheHelper.getKey();
+        final Map<String, SignatureColumn> columns = cache.computeIfAbsent(key,
+                k -> {
+                    cacheHelper.addClosedListener(this::release);
+                    return new ConcurrentHashMap<>();
+                });
+        SignatureColumn column = columns.get(field);
+        if (column == null) {
+            misses.increment();
+            final SignatureColumn built = build(reader, field, bitString);
+            if (built == null) {
+                return null;
+            }
+            column = put(key, columns, field, built);
+        } else if (column != NONE) {
+            hits.increment();
+        }
+        if (column == NONE) {
+            return null;
+        }
+        column.lastAccess(clock.incrementAndGet());
+        return column;
+    }
+
+    /**
+     * Loads the column of a field of a segment. Returns {@link #NONE} if the
+     * segment cannot be cached, or null if it does not fit for now.
+     */
+    private SignatureColumn build(final LeafReader reader, final String field,
+            final boolean bitString) throws IOException {
+        final FieldInfo fieldInfo = reader.getFieldInfos().fieldInfo(field);
+        if (fieldInfo == null
+                || fieldInfo.getDocValuesType() != DocValuesType.SORTED_SET) {
+            return NONE;
+        }
+        final SortedSetDocValues docValues = DocValues.getSortedSet(reader,
+                field);
+        int doc = docValues.nextDoc();
+        if (doc == DocIdSetIterator.NO_MORE_DOCS
+                || docValues.docValueCount() != 1) {
+            return NONE;
+        }
+        final BytesRef first = docValues.lookupOrd(docValues.nextOrd());
+        final byte[] buffer = new byte[first.length + 1];
+        final int length = MinHashSignatures.decode(first, bitString, buffer);
+        if (length <= 0) {
+            return NONE;
+        }
+
+        final long startTime = System.nanoTime();
+        final long size = SignatureColumn.ramBytesUsed(reader.maxDoc(), length);
+        if (size < 0 || size > limit) {
+            rejections.increment();
+            if (logger.isDebugEnabled()) {
+                logger.debug("Could not cache the signatures of {} for {} docs in {} bytes.",
+                        field, reader.maxDoc(), size);
+            }
+            return NONE;
+        }
+        if (!reserve(size)) {
+            rejections.increment();
+            if (logger.isDebugEnabled()) {
+                logger.debug("Could not cache the signatures of {} for {} docs in {} bytes yet.",
+                        field, reader.maxDoc(), size);
+            }
+            return null;
+        }
+        SignatureColumn column = null;
+        boolean success = false;
+        try {
+            column = new SignatureColumn(reader.maxDoc(), length);
+            column.set(doc, buffer);
+            while ((doc = docValues.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+                if (docValues.docValueCount() != 1 || MinHashSignatures.decode(
+                        docValues.lookupOrd(docValues.nextOrd()), bitString,
+                        buffer) != length) {
+                    return NONE;
+                }
+                column.set(doc, buffer);
+            }
+            success = true;
+            if (logger.isDebugEnabled()) {
+                logger.debug("Cached the signatures of {} for {} docs in {} bytes in {}ms.",
+                        field, reader.maxDoc(), size,
+                        (System.nanoTime() - startTime) / 1000000);
+            }
+            return column;
+        } finally {
+            if (!success) {
+                if (column != null) {
+                    SignatureColumn.free(column.buffer());
+                }
+                synchronized (this) {
+                    memorySize -= size;
+                }
+            }
+        }
+    }
+
+    private synchronized boolean reserve(final long size) {
+        drain();
+        // dropped columns are freed once no search holds them, so evict
+        // only until they make room
+        while (memorySize - droppedSize + size > limit) {
+            if (!evict()) {
+                break;
+            }
+        }
+        if (memorySize + size > limit) {
+            return false;
+        }
+        memorySize += size;
+        return true;
+    }
+
+    private synchronized SignatureColumn put(final IndexReader.CacheKey key,
+            final Map<String, SignatureColumn> columns, final String field,
+            final SignatureColumn column) {
+        final SignatureColumn existing = columns.get(field);
+        if (existing == null && cache.get(key) == columns) {
+            columns.put(field, column);
+            return column;
+        }
+        // another search loaded the column first, or the segment was closed
+        if (column != NONE) {
+            memorySize -= column.ramBytesUsed();
+            SignatureColumn.free(column.buffer());
+        }
+        return existing == null ? column : existing;
+    }
+
+    private synchronized boolean evict() {
+        IndexReader.CacheKey evictedKey = null;
+        String evictedField = null;
+        SignatureColumn evicted = null;
+        for (final Map.Entry<IndexReader.CacheKey, Map<String, SignatureColumn>> columns : cache
+                .entrySet()) {
+            for (final Map.Entry<String, SignatureColumn> entry : columns
+                    .getValue().entrySet()) {
+                final SignatureColumn column = entry.getValue();
+                if (column != NONE && (evicted == null
+                        || column.lastAccess() < evicted.lastAccess())) {
+                    evictedKey = columns.getKey();
+                    evictedField = entry.getKey();
+                    evicted = column;
+                }
+            }
+        }
+        if (evicted == null) {
+            return false;
+        }
+        cache.get(evictedKey).remove(evictedField);
+        final DroppedColumn droppedColumn = new DroppedColumn(evicted,
+                queue, evictedKey);
+        dropped.add(droppedColumn);
+        droppedSize += droppedColumn.size;
+        evictions.increment();
+        return true;
+    }
+
+    /**
+     * Frees the dropped columns that no search holds any more.
+     */
+    private void drain() {
+        Reference<? extends SignatureColumn> reference;
+        while ((reference = queue.poll()) != null) {
+            free((DroppedColumn) reference);
+        }
+    }
+
+    private synchronized void free(final DroppedColumn droppedColumn) {
+        if (dropped.remove(droppedColumn)) {
+            dispose(droppedColumn);
+        }
+    }
+
+    private synchronized void dispose(final DroppedColumn droppedColumn) {
+        droppedColumn.clear();
+        SignatureColumn.free(droppedColumn.buffer);
+        memorySize -= droppedColumn.size;
+        droppedSize -= droppedColumn.size;
+    }
+
+    private synchronized void release(final IndexReader.CacheKey key) {
+        // no search reads a closed segment, so its columns are freed now
+        final Map<String, SignatureColumn> columns = cache.remove(key);
+        if (columns != null) {
+            for (final SignatureColumn column : columns.values()) {
+                if (column != NONE) {
+                    memorySize -= column.ramBytesUsed();
+                    SignatureColumn.free(column.buffer());
+                }
+            }
+        }
+        final Iterator<DroppedColumn> iterator = dropped.iterator();
+        while (iterator.hasNext()) {
+            final DroppedColumn droppedColumn = iterator.next();
+            if (droppedColumn.key == key) {
+                iterator.remove();
+                dispose(droppedColumn);
+            }
+        }
+    }
+
+    public synchronized CacheStats stats() {
+        drain();
+        long count = 0;
+        for (final Map<String, SignatureColumn> columns : cache.values()) {
+            for (final SignatureColumn column : columns.values()) {
+                if (column != NONE) {
+                    count++;
+                }
+            }
+        }
+        return new CacheStats(memorySize, limit, count,
+                hits.sum(), misses.sum(), evictions.sum(), rejections.sum());
+    }
+
+    /**
+     * An evicted column, whose buffer is freed once the column is
+     * unreachable.
+     */
+    private static final class DroppedColumn
+            extends PhantomReference<SignatureColumn> {
+
+        private final IndexReader.CacheKey key;
+
+        private final ByteBuffer buffer;
+
+        private final long size;
+
+        DroppedColumn(final SignatureColumn column,
+                final ReferenceQueue<SignatureColumn> queue,
+                final IndexReader.CacheKey key) {
+            super(column, queue);
+            this.key = key;
+            this.buffer = column.buffer();
+            this.size = column.ramBytesUsed();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.index.fielddata;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.opensearch.index.fielddata.ScriptDocValues;
+
+/**
+ * Script doc values of a minhash field. Besides the string values, the
+ * encoded signatures are exposed as {@link BytesRef}s of the doc values,
+ * so that scripts can compare them without creating strings.
+ */
+public final class MinHashScriptDocValues extends ScriptDocValues<String> {
+
+    private final SortedSetDocValues in;
+
+    private final boolean bitString;
+
+    private long[] ords = new long[0];
+
+    private int count;
+
+    public MinHashScriptDocValues(final SortedSetDocValues in,
+            final boolean bitString) {
+        this.in = in;
+        this.bitString = bitString;
+    }
+
+    @Override
+    public void setNextDocId(final int docId) throws IOException {
+        count = 0;
+        if (in.advanceExact(docId)) {
+            final int numOfValues = in.docValueCount();
+            ords = ArrayUtil.grow(ords, numOfValues);
+            for (int i = 0; i < numOfValues; i++) {
+                ords[count++] = in.nextOrd();
+            }
+        }
+    }
+
+    public boolean isBitString() {
+        return bitString;
+    }
+
+    public String getValue() {
+        return get(0);
+    }
+
+    @Override
+    public String get(final int index) {
+        return getBytesRef(index).utf8ToString();
+    }
+
+    /**
+     * Returns the encoded signature at the index. The returned instance is
+     * only valid until the next call.
+     */
+    public BytesRef getBytesRef(final int index) {
+        if (count == 0) {
+            // the same failure as the other script doc values
+            throw new IllegalStateException(
+                    "A document doesn't have a value for a field! "
+                            + "Use doc[<field>].size()==0 to check if a document is missing a field!");
+        }
+        if (index >= count) {
+            throw new IndexOutOfBoundsException(
+                    "index " + index + " out of " + count + " values");
+        }
+        try {
+            return in.lookupOrd(ords[index]);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+}
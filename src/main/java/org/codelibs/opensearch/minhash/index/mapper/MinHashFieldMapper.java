@@ -16,39 +16,99 @@
 package org.codelibs.opensearch.minhash.index.mapper;
 
 import static org.opensearch.common.xcontent.support.XContentMapValues.isArray;
+import static org.opensearch.common.xcontent.support.XContentMapValues.nodeIntegerValue;
 import static org.opensearch.common.xcontent.support.XContentMapValues.nodeStringValue;
 
+import java.io.CharArrayReader;
+import java.io.FilterReader;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.index.DocValuesType;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.search.Query;
 import org.apache.lucene.util.BytesRef;
-import org.codelibs.minhash.MinHash;
+import org.codelibs.opensearch.minhash.index.analysis.MinHashAccumulator;
+import org.codelibs.opensearch.minhash.index.analysis.MinHashComponents;
+import org.codelibs.opensearch.minhash.index.analysis.MinHashLimits;
+import org.codelibs.opensearch.minhash.index.analysis.MinHashTokenFilterFactory;
+import org.codelibs.opensearch.minhash.index.analysis.MinHashWindowAccumulator;
+import org.codelibs.opensearch.minhash.index.cache.SignatureColumnCache;
+import org.codelibs.opensearch.minhash.index.fielddata.MinHashScriptDocValues;
+import org.codelibs.opensearch.minhash.util.MinHashSignatures;
 import org.opensearch.common.lucene.Lucene;
+import org.opensearch.common.unit.TimeValue;
+import org.opensearch.core.common.breaker.CircuitBreaker;
 import org.opensearch.core.xcontent.XContentParser;
 import org.opensearch.index.analysis.NamedAnalyzer;
+import org.opensearch.index.fielddata.IndexFieldData;
+import org.opensearch.index.fielddata.plain.SortedSetOrdinalsIndexFieldData;
 import org.opensearch.index.mapper.FieldMapper;
 import org.opensearch.index.mapper.KeywordFieldMapper;
 import org.opensearch.index.mapper.MappedFieldType;
 import org.opensearch.index.mapper.Mapper;
 import org.opensearch.index.mapper.Mapper.TypeParser.ParserContext;
 import org.opensearch.index.mapper.MapperParsingException;
+import org.opensearch.index.mapper.NumberFieldMapper;
 import org.opensearch.index.mapper.ParametrizedFieldMapper;
 import org.opensearch.index.mapper.ParseContext;
+import org.opensearch.index.query.QueryShardContext;
+import org.opensearch.search.aggregations.support.CoreValuesSourceType;
+import org.opensearch.search.lookup.SearchLookup;
+
+import com.google.common.collect.Iterators;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
 
 public class MinHashFieldMapper extends ParametrizedFieldMapper {
 
     public static final String CONTENT_TYPE = "minhash";
 
+    public static final String MULTI_VALUE_PER_VALUE = "per_value";
+
+    public static final String MULTI_VALUE_UNION = "union";
+
+    public static final String QUERY_VALUE_SIGNATURE = "signature";
+
+    public static final String QUERY_VALUE_TEXT = "text";
+
+    public static final String MIH_FIELD_SUFFIX = "._mih";
+
+    public static final String PREFIX_FIELD_SUFFIX = "._prefix";
+
+    public static final String FINGERPRINT_FIELD_NAME = "fingerprint";
+
+    public static final String SORT_KEY_FIELD_NAME = "sort_key";
+
+    public static final String VARIANTS_FIELD_NAME = "variants";
+
+    public static final String SIGNATURE_CACHE_FIELD_NAME = "signature_cache";
+
+    public static final String SAMPLED_FIELD_NAME = "sampled";
+
+    private static final HashFunction FINGERPRINT_HASH_FUNCTION = Hashing
+            .murmur3_128();
+
     public static class Defaults {
         public static final FieldType FIELD_TYPE = new FieldType();
 
@@ -58,6 +118,15 @@ public class MinHashFieldMapper extends ParametrizedFieldMapper {
             FIELD_TYPE.setIndexOptions(IndexOptions.DOCS);
             FIELD_TYPE.freeze();
         }
+
+        public static final FieldType MIH_FIELD_TYPE = new FieldType();
+
+        static {
+            MIH_FIELD_TYPE.setTokenized(false);
+            MIH_FIELD_TYPE.setOmitNorms(true);
+            MIH_FIELD_TYPE.setIndexOptions(IndexOptions.DOCS);
+            MIH_FIELD_TYPE.freeze();
+        }
     }
 
     public static class MinHashField extends Field {
@@ -67,6 +136,189 @@ public class MinHashFieldMapper extends ParametrizedFieldMapper {
         }
     }
 
+    private static final class UnionMinHashField extends MinHashField {
+        private final MinHashAccumulator accumulator;
+
+        private Field[] substringFields;
+
+        private Field[] fingerprintFields;
+
+        private Field[] sortKeyFields;
+
+        private Field[] variantFields;
+
+        private Field prefixField;
+
+        UnionMinHashField(final String field, final BytesRef term,
+                final FieldType ft, final MinHashAccumulator accumulator) {
+            super(field, term, ft);
+            this.accumulator = accumulator;
+        }
+    }
+
+    public static final class MinHashFieldType
+            extends KeywordFieldMapper.KeywordFieldType {
+
+        private final boolean bitString;
+
+        private final int mihSubstrings;
+
+        private final int prefixSize;
+
+        private final NamedAnalyzer minhashAnalyzer;
+
+        private final MinHashComponents minhashComponents;
+
+        private final Supplier<SignatureColumnCache> signatureCache;
+
+        private final boolean textQueryValue;
+
+        private final double sampleRate;
+
+        public MinHashFieldType(final String name, final FieldType fieldType,
+                final NamedAnalyzer normalizer,
+                final NamedAnalyzer searchAnalyzer,
+                final KeywordFieldMapper.Builder builder,
+                final boolean bitString, final int mihSubstrings,
+                final int prefixSize, final NamedAnalyzer minhashAnalyzer,
+                final MinHashComponents minhashComponents,
+                final Supplier<SignatureColumnCache> signatureCache,
+                final boolean textQueryValue, final double sampleRate) {
+            super(name, fieldType, normalizer, searchAnalyzer, builder);
+            this.bitString = bitString;
+            this.mihSubstrings = mihSubstrings;
+            this.prefixSize = prefixSize;
+            this.minhashAnalyzer = minhashAnalyzer;
+            this.minhashComponents = minhashComponents;
+            this.signatureCache = signatureCache;
+            this.textQueryValue = textQueryValue;
+            this.sampleRate = sampleRate;
+        }
+
+        public boolean isBitString() {
+            return bitString;
+        }
+
+        public int getMihSubstrings() {
+            return mihSubstrings;
+        }
+
+        /**
+         * Returns the rate of the sampled tokens whose signatures are the
+         * values of this field, or 0 if the values are signatures of all
+         * tokens.
+         */
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        /**
+         * Returns the cache of the signature columns that scans of this
+         * field read, or null if the field is not cached.
+         */
+        public SignatureColumnCache getSignatureCache() {
+            return signatureCache == null ? null : signatureCache.get();
+        }
+
+        public String mihFieldName() {
+            return name() + MIH_FIELD_SUFFIX;
+        }
+
+        public int getPrefixSize() {
+            return prefixSize;
+        }
+
+        /**
+         * Returns the number of bits of the prefix signature, or 0 if the
+         * field has no prefix.
+         */
+        public int getPrefixBits() {
+            if (prefixSize == 0 || minhashComponents == null) {
+                return 0;
+            }
+            return prefixSize * minhashComponents.getHashBit();
+        }
+
+        public String prefixFieldName() {
+            return name() + PREFIX_FIELD_SUFFIX;
+        }
+
+        public String fingerprintFieldName() {
+            return name() + "." + FINGERPRINT_FIELD_NAME;
+        }
+
+        /**
+         * Accepts an encoded signature, or with {@code query_value: text}, a
+         * text whose signature is computed with the field's minhash
+         * analyzer.
+         */
+        @Override
+        public Query termQuery(final Object value,
+                final QueryShardContext context) {
+            return super.termQuery(signatureTerm(value), context);
+        }
+
+        @Override
+        public Query termsQuery(final List<?> values,
+                final QueryShardContext context) {
+            final List<BytesRef> terms = new ArrayList<>(values.size());
+            for (final Object value : values) {
+                terms.add(signatureTerm(value));
+            }
+            return super.termsQuery(terms, context);
+        }
+
+        private BytesRef signatureTerm(final Object value) {
+            final String text = value instanceof BytesRef
+                    ? ((BytesRef) value).utf8ToString()
+                    : value.toString();
+            if (!textQueryValue || minhashAnalyzer == null) {
+                return new BytesRef(text);
+            }
+            try {
+                final byte[] signature = signature(text);
+                if (signature == null) {
+                    return new BytesRef(text);
+                }
+                return new BytesRef(encode(signature, bitString));
+            } catch (final IOException e) {
+                throw new UncheckedIOException(
+                        "failed to compute the signature of [" + name() + "]",
+                        e);
+            }
+        }
+
+        /**
+         * Returns the signature of a text with the field's minhash analyzer,
+         * of the sampled tokens if the values of the field are sampled.
+         */
+        public byte[] signature(final String text) throws IOException {
+            if (minhashComponents != null) {
+                final MinHashAccumulator accumulator = minhashComponents
+                        .newAccumulator();
+                if (sampleRate > 0) {
+                    accumulator.enableSampling(sampleRate);
+                    accumulator.sampleOnly();
+                }
+                if (minhashComponents.accumulate(name(),
+                        new StringReader(text), accumulator) > 0) {
+                    return accumulator.toByteArray();
+                }
+            }
+            return analyze(minhashAnalyzer, name(), new StringReader(text));
+        }
+
+        @Override
+        public IndexFieldData.Builder fielddataBuilder(
+                final String fullyQualifiedIndexName,
+                final Supplier<SearchLookup> searchLookup) {
+            failIfNoDocValues();
+            return new SortedSetOrdinalsIndexFieldData.Builder(name(),
+                    in -> new MinHashScriptDocValues(in, bitString),
+                    CoreValuesSourceType.BYTES);
+        }
+    }
+
     private static MinHashFieldMapper toType(final FieldMapper in) {
         return (MinHashFieldMapper) in;
     }
@@ -88,6 +340,117 @@ public class MinHashFieldMapper extends ParametrizedFieldMapper {
         private final Parameter<Boolean> bitString = Parameter.boolParam(
                 "bit_string", false, m -> toType(m).bitString, false);
 
+        private final Parameter<String> multiValue = Parameter
+                .restrictedStringParam("multi_value", false,
+                        m -> toType(m).multiValue, MULTI_VALUE_PER_VALUE,
+                        MULTI_VALUE_UNION);
+
+        private final Parameter<String> queryValue = Parameter
+                .restrictedStringParam("query_value", true,
+                        m -> toType(m).queryValue, QUERY_VALUE_SIGNATURE,
+                        QUERY_VALUE_TEXT);
+
+        private final Parameter<Integer> mihSubstrings = Parameter
+                .intParam("mih_substrings", false,
+                        m -> toType(m).mihSubstrings, 0)
+                .setValidator(v -> {
+                    if (v < 0 || v > 127) {
+                        throw new IllegalArgumentException(
+                                "[mih_substrings] must be between 0 and 127: "
+                                        + v);
+                    }
+                });
+
+        private final Parameter<Integer> prefixSize = Parameter
+                .intParam("prefix_size", false, m -> toType(m).prefixSize, 0)
+                .setValidator(v -> {
+                    if (v < 0) {
+                        throw new IllegalArgumentException(
+                                "[prefix_size] must not be negative: " + v);
+                    }
+                });
+
+        private final Parameter<Integer> window = Parameter
+                .intParam("window", false, m -> toType(m).window, 0)
+                .setValidator(v -> {
+                    if (v < 0) {
+                        throw new IllegalArgumentException(
+                                "[window] must not be negative: " + v);
+                    }
+                });
+
+        private final Parameter<Integer> windowStride = Parameter
+                .intParam("window_stride", false,
+                        m -> toType(m).windowStride, 0)
+                .setValidator(v -> {
+                    if (v < 0) {
+                        throw new IllegalArgumentException(
+                                "[window_stride] must not be negative: " + v);
+                    }
+                });
+
+        private final Parameter<Boolean> fingerprint = Parameter.boolParam(
+                FINGERPRINT_FIELD_NAME, false, m -> toType(m).fingerprint,
+                false);
+
+        private final Parameter<Boolean> sortKey = Parameter.boolParam(
+                SORT_KEY_FIELD_NAME, false, m -> toType(m).sortKey, false);
+
+        private final Parameter<Boolean> signatureCache = Parameter.boolParam(
+                SIGNATURE_CACHE_FIELD_NAME, true,
+                m -> toType(m).signatureCache, false);
+
+        private final Parameter<Integer> maxTokens = Parameter
+                .intParam("max_tokens", true, m -> toType(m).maxTokens, 0)
+                .setValidator(v -> {
+                    if (v < 0) {
+                        throw new IllegalArgumentException(
+                                "[max_tokens] must not be negative: " + v);
+                    }
+                });
+
+        private final Parameter<Integer> maxInputLength = Parameter
+                .intParam("max_input_length", true,
+                        m -> toType(m).maxInputLength, 0)
+                .setValidator(v -> {
+                    if (v < 0) {
+                        throw new IllegalArgumentException(
+                                "[max_input_length] must not be negative: "
+                                        + v);
+                    }
+                });
+
+        private final Parameter<String> timeBudget = Parameter
+                .stringParam("time_budget", true, m -> toType(m).timeBudget,
+                        null)
+                .setValidator(v -> {
+                    if (v != null) {
+                        TimeValue.parseTimeValue(v, "time_budget");
+                    }
+                });
+
+        private final Parameter<String> onLimit = Parameter
+                .restrictedStringParam("on_limit", true,
+                        m -> toType(m).onLimit, MinHashLimits.ON_LIMIT_REJECT,
+                        MinHashLimits.ON_LIMIT_SAMPLE);
+
+        private final Parameter<Float> sampleRate = Parameter
+                .floatParam("sample_rate", false, m -> toType(m).sampleRate,
+                        0.01f)
+                .setValidator(v -> {
+                    if (v <= 0.0f || v > 1.0f) {
+                        throw new IllegalArgumentException(
+                                "[sample_rate] must be in (0, 1]: " + v);
+                    }
+                });
+
+        private final Parameter<Map<String, Object>> variants = new Parameter<>(
+                VARIANTS_FIELD_NAME, true, Collections::emptyMap,
+                (n, c, o) -> parseVariants(n, o), m -> toType(m).variants)
+                        // variants can be added, but not changed or removed
+                        .setMergeValidator((previous, current) -> current
+                                .entrySet().containsAll(previous.entrySet()));
+
         private final Parameter<Map<String, String>> meta = Parameter
                 .metaParam();
 
@@ -112,17 +475,38 @@ public class MinHashFieldMapper extends ParametrizedFieldMapper {
 
         private KeywordFieldMapper.Builder keywordFieldBuilder;
 
+        private Supplier<CircuitBreaker> breakerSupplier;
+
+        private Supplier<SignatureColumnCache> cacheSupplier;
+
+        private MinHashComponents signatureComponents;
+
+        // set for the sub-field of the sampled signatures
+        private double valueSampleRate;
+
         public Builder(final String name,
                 final ParserContext parserContext, final KeywordFieldMapper.Builder keywordFieldBuilder) {
+            this(name, parserContext, keywordFieldBuilder, null, null);
+        }
+
+        public Builder(final String name, final ParserContext parserContext,
+                final KeywordFieldMapper.Builder keywordFieldBuilder,
+                final Supplier<CircuitBreaker> breakerSupplier,
+                final Supplier<SignatureColumnCache> cacheSupplier) {
             super(name);
             this.parserContext = parserContext;
             this.keywordFieldBuilder = keywordFieldBuilder;
+            this.breakerSupplier = breakerSupplier;
+            this.cacheSupplier = cacheSupplier;
         }
 
         @Override
         public List<Parameter<?>> getParameters() {
             return Arrays.asList(meta, indexed, stored, hasDocValues, nullValue,
-                    bitString, minhashAnalyzer, copyBitsTo);
+                    bitString, minhashAnalyzer, copyBitsTo, multiValue,
+                    queryValue, mihSubstrings, fingerprint, sortKey, signatureCache, maxTokens, maxInputLength,
+                    timeBudget, onLimit, sampleRate, variants, prefixSize,
+                    window, windowStride);
         }
 
         @Override
@@ -134,8 +518,27 @@ public class MinHashFieldMapper extends ParametrizedFieldMapper {
                 this.hasDocValues.setValue(mapper.hasDocValues);
                 this.nullValue.setValue(mapper.nullValue);
                 this.bitString.setValue(mapper.bitString);
+                this.multiValue.setValue(mapper.multiValue);
+                this.queryValue.setValue(mapper.queryValue);
+                this.mihSubstrings.setValue(mapper.mihSubstrings);
+                this.prefixSize.setValue(mapper.prefixSize);
+                this.window.setValue(mapper.window);
+                this.windowStride.setValue(mapper.windowStride);
+                this.fingerprint.setValue(mapper.fingerprint);
+                this.sortKey.setValue(mapper.sortKey);
+                this.signatureCache.setValue(mapper.signatureCache);
+                this.maxTokens.setValue(mapper.maxTokens);
+                this.maxInputLength.setValue(mapper.maxInputLength);
+                this.timeBudget.setValue(mapper.timeBudget);
+                this.onLimit.setValue(mapper.onLimit);
+                this.sampleRate.setValue(mapper.sampleRate);
+                this.variants.setValue(mapper.variants);
+                this.signatureComponents = mapper.signatureComponents;
+                this.valueSampleRate = mapper.fieldType().getSampleRate();
                 this.mergedAnalyzer = mapper.minhashAnalyzer;
                 this.keywordFieldBuilder = mapper.keywordFieldBuilder;
+                this.breakerSupplier = mapper.breakerSupplier;
+                this.cacheSupplier = mapper.cacheSupplier;
             }
             return this;
         }
@@ -156,13 +559,27 @@ public class MinHashFieldMapper extends ParametrizedFieldMapper {
             return null;
         }
 
-        private KeywordFieldMapper.KeywordFieldType buildFieldType(
+        private MinHashComponents minhashComponents(
+                final NamedAnalyzer analyzer) {
+            if (signatureComponents != null) {
+                return signatureComponents;
+            }
+            return MinHashComponents.of(analyzer);
+        }
+
+        private MinHashFieldType buildFieldType(
                 final BuilderContext context, final FieldType fieldType) {
             final NamedAnalyzer normalizer = Lucene.KEYWORD_ANALYZER;
             final NamedAnalyzer searchAnalyzer = Lucene.KEYWORD_ANALYZER;
-            return new KeywordFieldMapper.KeywordFieldType(
-                    buildFullName(context), fieldType, normalizer,
-                    searchAnalyzer, keywordFieldBuilder);
+            final NamedAnalyzer analyzer = minhashAnalyzer();
+            return new MinHashFieldType(buildFullName(context), fieldType,
+                    normalizer, searchAnalyzer, keywordFieldBuilder,
+                    bitString.getValue(), mihSubstrings.getValue(),
+                    prefixSize.getValue(), analyzer,
+                    minhashComponents(analyzer),
+                    signatureCache.getValue() ? cacheSupplier : null,
+                    QUERY_VALUE_TEXT.equals(queryValue.getValue()),
+                    valueSampleRate);
         }
 
         @Override
@@ -172,14 +589,204 @@ public class MinHashFieldMapper extends ParametrizedFieldMapper {
             fieldtype.setIndexOptions(
                     indexed.getValue() ? IndexOptions.DOCS : IndexOptions.NONE);
             fieldtype.setStored(this.stored.getValue());
+            final NamedAnalyzer analyzer = minhashAnalyzer();
+            if (MULTI_VALUE_UNION.equals(multiValue.getValue())
+                    && MinHashComponents.of(analyzer) == null) {
+                throw new MapperParsingException("[multi_value] " + MULTI_VALUE_UNION
+                        + " requires [minhash_analyzer] to be a custom analyzer ending with a minhash filter: "
+                        + name);
+            }
+            final MinHashLimits limits = buildLimits();
+            if (limits != null && MinHashComponents.of(analyzer) == null) {
+                throw new MapperParsingException(
+                        "[max_tokens], [max_input_length] and [time_budget] require [minhash_analyzer] to be a custom analyzer ending with a minhash filter: "
+                                + name);
+            }
+            if (window.getValue() > 0) {
+                validateWindow(analyzer, limits);
+            }
+            if (limits != null && limits.isSample()
+                    && MULTI_VALUE_UNION.equals(multiValue.getValue())) {
+                throw new MapperParsingException("[multi_value] "
+                        + MULTI_VALUE_UNION + " cannot be used with [on_limit] "
+                        + MinHashLimits.ON_LIMIT_SAMPLE + ": " + name);
+            }
+            if (prefixSize.getValue() > 0) {
+                final MinHashComponents components = minhashComponents(
+                        analyzer);
+                if (components == null) {
+                    throw new MapperParsingException(
+                            "[prefix_size] requires [minhash_analyzer] to be a custom analyzer ending with a minhash filter: "
+                                    + name);
+                }
+                if (prefixSize.getValue() >= components
+                        .getHashFunctions().length) {
+                    throw new MapperParsingException("[prefix_size] "
+                            + prefixSize.getValue()
+                            + " must be less than the signature size "
+                            + components.getHashFunctions().length + ": "
+                            + name);
+                }
+            }
             return new MinHashFieldMapper(name, fieldtype,
                     buildFieldType(context, fieldtype),
                     multiFieldsBuilder.build(this, context), copyTo.build(),
-                    this, minhashAnalyzer(), keywordFieldBuilder);
+                    this, analyzer, keywordFieldBuilder,
+                    buildLongMapper(context, fingerprint.getValue(),
+                            FINGERPRINT_FIELD_NAME),
+                    buildLongMapper(context, sortKey.getValue(),
+                            SORT_KEY_FIELD_NAME),
+                    limits,
+                    buildVariantMappers(context, analyzer),
+                    buildSampledMapper(context, analyzer, limits));
+        }
+
+        /**
+         * Returns the sub-field of the signatures of the values that were
+         * sampled, so that they are compared only with each other, or null
+         * if the field does not sample.
+         */
+        private MinHashFieldMapper buildSampledMapper(
+                final BuilderContext context, final NamedAnalyzer analyzer,
+                final MinHashLimits limits) {
+            if (limits == null || !limits.isSample()) {
+                return null;
+            }
+            final Builder builder = new Builder(SAMPLED_FIELD_NAME, null,
+                    keywordFieldBuilder);
+            builder.indexed.setValue(indexed.getValue());
+            builder.stored.setValue(stored.getValue());
+            builder.hasDocValues.setValue(hasDocValues.getValue());
+            builder.bitString.setValue(bitString.getValue());
+            builder.queryValue.setValue(queryValue.getValue());
+            builder.mihSubstrings.setValue(mihSubstrings.getValue());
+            builder.prefixSize.setValue(prefixSize.getValue());
+            builder.signatureCache.setValue(signatureCache.getValue());
+            builder.cacheSupplier = cacheSupplier;
+            builder.mergedAnalyzer = analyzer;
+            builder.signatureComponents = minhashComponents(analyzer);
+            builder.valueSampleRate = limits.getSampleRate();
+            context.path().add(name);
+            final MinHashFieldMapper mapper = builder.build(context);
+            context.path().remove();
+            return mapper;
+        }
+
+        private MinHashFieldMapper[] buildVariantMappers(
+                final BuilderContext context, final NamedAnalyzer analyzer) {
+            final Map<String, Object> values = variants.getValue();
+            if (values.isEmpty()) {
+                return new MinHashFieldMapper[0];
+            }
+            final MinHashComponents components = minhashComponents(analyzer);
+            if (components == null) {
+                throw new MapperParsingException("[" + VARIANTS_FIELD_NAME
+                        + "] requires [minhash_analyzer] to be a custom analyzer ending with a minhash filter: "
+                        + name);
+            }
+            final MinHashTokenFilterFactory factory = components
+                    .getMinHashFilterFactory();
+            final MinHashFieldMapper[] mappers = new MinHashFieldMapper[values
+                    .size()];
+            context.path().add(name);
+            int i = 0;
+            for (final Map.Entry<String, Object> entry : values.entrySet()) {
+                @SuppressWarnings("unchecked")
+                final Map<String, Object> variant = (Map<String, Object>) entry
+                        .getValue();
+                final Builder builder = new Builder(entry.getKey(), null,
+                        keywordFieldBuilder);
+                builder.indexed.setValue(indexed.getValue());
+                builder.stored.setValue(stored.getValue());
+                builder.hasDocValues.setValue(hasDocValues.getValue());
+                builder.bitString.setValue(bitString.getValue());
+                builder.signatureCache.setValue(signatureCache.getValue());
+                builder.cacheSupplier = cacheSupplier;
+                builder.mergedAnalyzer = analyzer;
+                // the variant shares the terms of this field, only the hash
+                // functions and bits of its signature differ
+                builder.signatureComponents = components.withSignature(
+                        (Integer) variant.getOrDefault("size",
+                                factory.getSize()),
+                        (Integer) variant.getOrDefault("bit",
+                                factory.getHashBit()),
+                        (Integer) variant.getOrDefault("seed",
+                                factory.getSeed()));
+                mappers[i++] = builder.build(context);
+            }
+            context.path().remove();
+            return mappers;
+        }
+
+        private void validateWindow(final NamedAnalyzer analyzer,
+                final MinHashLimits limits) {
+            if (minhashComponents(analyzer) == null) {
+                throw new MapperParsingException(
+                        "[window] requires [minhash_analyzer] to be a custom analyzer ending with a minhash filter: "
+                                + name);
+            }
+            final int stride = windowStride.getValue() == 0
+                    ? window.getValue()
+                    : windowStride.getValue();
+            if (window.getValue() % stride != 0) {
+                throw new MapperParsingException("[window_stride] " + stride
+                        + " must divide [window] " + window.getValue() + ": "
+                        + name);
+            }
+            if (MULTI_VALUE_UNION.equals(multiValue.getValue())) {
+                throw new MapperParsingException("[window] cannot be used with [multi_value] "
+                        + MULTI_VALUE_UNION + ": " + name);
+            }
+            if (!variants.getValue().isEmpty()) {
+                throw new MapperParsingException("[window] cannot be used with ["
+                        + VARIANTS_FIELD_NAME + "]: " + name);
+            }
+            if (limits != null && limits.isSample()) {
+                throw new MapperParsingException(
+                        "[window] cannot be used with [on_limit] "
+                                + MinHashLimits.ON_LIMIT_SAMPLE + ": " + name);
+            }
+        }
+
+        private MinHashLimits buildLimits() {
+            final long timeBudgetNanos = timeBudget.getValue() == null ? 0
+                    : TimeValue.parseTimeValue(timeBudget.getValue(),
+                            "time_budget").nanos();
+            final MinHashLimits limits = new MinHashLimits(
+                    maxTokens.getValue(), maxInputLength.getValue(),
+                    timeBudgetNanos,
+                    MinHashLimits.ON_LIMIT_SAMPLE.equals(onLimit.getValue()),
+                    sampleRate.getValue());
+            return limits.isEnabled() ? limits : null;
+        }
+
+        private NumberFieldMapper buildLongMapper(
+                final BuilderContext context, final boolean enabled,
+                final String subFieldName) {
+            if (!enabled) {
+                return null;
+            }
+            context.path().add(name);
+            final NumberFieldMapper mapper = new NumberFieldMapper.Builder(
+                    subFieldName, NumberFieldMapper.NumberType.LONG, false,
+                    false).build(context);
+            context.path().remove();
+            return mapper;
         }
     }
 
     public static class TypeParser implements Mapper.TypeParser {
+
+        private final Supplier<CircuitBreaker> breakerSupplier;
+
+        private final Supplier<SignatureColumnCache> cacheSupplier;
+
+        public TypeParser(final Supplier<CircuitBreaker> breakerSupplier,
+                final Supplier<SignatureColumnCache> cacheSupplier) {
+            this.breakerSupplier = breakerSupplier;
+            this.cacheSupplier = cacheSupplier;
+        }
+
         @Override
         public MinHashFieldMapper.Builder parse(final String name,
                 final Map<String, Object> node,
@@ -189,11 +796,26 @@ public class MinHashFieldMapper extends ParametrizedFieldMapper {
             keywordNode.remove("minhash_analyzer");
             keywordNode.remove("copy_bits_to");
             keywordNode.remove("bit_string");
+            keywordNode.remove("multi_value");
+            keywordNode.remove("mih_substrings");
+            keywordNode.remove(FINGERPRINT_FIELD_NAME);
+            keywordNode.remove(SORT_KEY_FIELD_NAME);
+            keywordNode.remove(SIGNATURE_CACHE_FIELD_NAME);
+            keywordNode.remove("max_tokens");
+            keywordNode.remove("max_input_length");
+            keywordNode.remove("time_budget");
+            keywordNode.remove("on_limit");
+            keywordNode.remove("sample_rate");
+            keywordNode.remove(VARIANTS_FIELD_NAME);
+            keywordNode.remove("prefix_size");
+            keywordNode.remove("window");
+            keywordNode.remove("window_stride");
             final KeywordFieldMapper.Builder keywordFieldBuilder = (KeywordFieldMapper.Builder) KeywordFieldMapper.PARSER
                     .parse(name, keywordNode, parserContext);
 
             final MinHashFieldMapper.Builder builder = new MinHashFieldMapper.Builder(
-                    name, parserContext, keywordFieldBuilder);
+                    name, parserContext, keywordFieldBuilder, breakerSupplier,
+                    cacheSupplier);
             builder.parse(name, parserContext, node);
             return builder;
         }
@@ -210,6 +832,56 @@ public class MinHashFieldMapper extends ParametrizedFieldMapper {
         return new String[] { nodeStringValue(propNode, null) };
     }
 
+    /**
+     * Parses the signature variants of a field, which map a sub-field name
+     * to its {@code size}, {@code bit} and {@code seed}.
+     */
+    static Map<String, Object> parseVariants(final String name,
+            final Object node) {
+        if (!(node instanceof Map)) {
+            throw new MapperParsingException("[" + VARIANTS_FIELD_NAME
+                    + "] must be an object: " + name);
+        }
+        final Map<String, Object> variants = new LinkedHashMap<>();
+        for (final Map.Entry<?, ?> entry : ((Map<?, ?>) node).entrySet()) {
+            final String variantName = entry.getKey().toString();
+            if (variantName.isEmpty() || variantName.contains(".")
+                    || variantName.startsWith("_")
+                    || FINGERPRINT_FIELD_NAME.equals(variantName)
+                    || SORT_KEY_FIELD_NAME.equals(variantName)
+                    || SAMPLED_FIELD_NAME.equals(variantName)) {
+                throw new MapperParsingException("[" + VARIANTS_FIELD_NAME
+                        + "] invalid name [" + variantName + "]: " + name);
+            }
+            if (!(entry.getValue() instanceof Map)) {
+                throw new MapperParsingException("[" + VARIANTS_FIELD_NAME
+                        + "] [" + variantName + "] must be an object: "
+                        + name);
+            }
+            final Map<String, Object> variant = new LinkedHashMap<>();
+            for (final Map.Entry<?, ?> setting : ((Map<?, ?>) entry
+                    .getValue()).entrySet()) {
+                final String key = setting.getKey().toString();
+                final int value = nodeIntegerValue(setting.getValue());
+                if ("size".equals(key) && value <= 0
+                        || "bit".equals(key) && (value < 1 || value > 64)) {
+                    throw new MapperParsingException("[" + VARIANTS_FIELD_NAME
+                            + "] [" + variantName + "] invalid [" + key
+                            + "] " + value + ": " + name);
+                }
+                if (!"size".equals(key) && !"bit".equals(key)
+                        && !"seed".equals(key)) {
+                    throw new MapperParsingException("[" + VARIANTS_FIELD_NAME
+                            + "] [" + variantName + "] does not support ["
+                            + key + "]: " + name);
+                }
+                variant.put(key, value);
+            }
+            variants.put(variantName, variant);
+        }
+        return variants;
+    }
+
     private final boolean indexed;
 
     private final boolean stored;
@@ -220,26 +892,115 @@ public class MinHashFieldMapper extends ParametrizedFieldMapper {
 
     private final boolean bitString;
 
+    private final String multiValue;
+
+    private final String queryValue;
+
+    private final int mihSubstrings;
+
+    private final int prefixSize;
+
+    private final int window;
+
+    private final int windowStride;
+
+    private final boolean fingerprint;
+
+    private final boolean sortKey;
+
+    private final boolean signatureCache;
+
+    private final int maxTokens;
+
+    private final int maxInputLength;
+
+    private final String timeBudget;
+
+    private final String onLimit;
+
+    private final float sampleRate;
+
+    private final Map<String, Object> variants;
+
+    private final MinHashLimits limits;
+
+    private final Supplier<CircuitBreaker> breakerSupplier;
+
+    private final Supplier<SignatureColumnCache> cacheSupplier;
+
     private final NamedAnalyzer minhashAnalyzer;
 
+    private final MinHashComponents signatureComponents;
+
+    private final MinHashComponents minhashComponents;
+
+    private final MinHashFieldMapper[] variantMappers;
+
+    private final MinHashComponents[] variantComponents;
+
+    private final MinHashFieldMapper sampledMapper;
+
     private final FieldType fieldType;
 
+    private final FieldType unionFieldType;
+
     private final KeywordFieldMapper.Builder keywordFieldBuilder;
 
+    private final NumberFieldMapper fingerprintMapper;
+
+    private final NumberFieldMapper sortKeyMapper;
+
     protected MinHashFieldMapper(final String simpleName,
             final FieldType fieldType, final MappedFieldType mappedFieldType,
             final MultiFields multiFields, final CopyTo copyTo,
             final Builder builder, final NamedAnalyzer minhashAnalyzer,
-            final KeywordFieldMapper.Builder keywordFieldBuilder) {
+            final KeywordFieldMapper.Builder keywordFieldBuilder,
+            final NumberFieldMapper fingerprintMapper,
+            final NumberFieldMapper sortKeyMapper, final MinHashLimits limits,
+            final MinHashFieldMapper[] variantMappers,
+            final MinHashFieldMapper sampledMapper) {
         super(simpleName, mappedFieldType, multiFields, copyTo);
         this.indexed = builder.indexed.getValue();
         this.stored = builder.stored.getValue();
         this.hasDocValues = builder.hasDocValues.getValue();
         this.nullValue = builder.nullValue.getValue();
         this.bitString = builder.bitString.getValue();
+        this.multiValue = builder.multiValue.getValue();
+        this.queryValue = builder.queryValue.getValue();
+        this.mihSubstrings = builder.mihSubstrings.getValue();
+        this.prefixSize = builder.prefixSize.getValue();
+        this.window = builder.window.getValue();
+        this.windowStride = builder.windowStride.getValue();
+        this.fingerprint = builder.fingerprint.getValue();
+        this.sortKey = builder.sortKey.getValue();
+        this.signatureCache = builder.signatureCache.getValue();
+        this.maxTokens = builder.maxTokens.getValue();
+        this.maxInputLength = builder.maxInputLength.getValue();
+        this.timeBudget = builder.timeBudget.getValue();
+        this.onLimit = builder.onLimit.getValue();
+        this.sampleRate = builder.sampleRate.getValue();
+        this.variants = builder.variants.getValue();
+        this.limits = limits;
+        this.breakerSupplier = builder.breakerSupplier;
+        this.cacheSupplier = builder.cacheSupplier;
         this.minhashAnalyzer = minhashAnalyzer;
+        this.signatureComponents = builder.signatureComponents;
+        this.minhashComponents = builder.minhashComponents(minhashAnalyzer);
+        this.variantMappers = variantMappers;
+        this.variantComponents = new MinHashComponents[variantMappers.length];
+        for (int i = 0; i < variantMappers.length; i++) {
+            this.variantComponents[i] = variantMappers[i].minhashComponents;
+        }
+        this.sampledMapper = sampledMapper;
         this.fieldType = fieldType;
+        this.unionFieldType = new FieldType(fieldType);
+        if (hasDocValues) {
+            this.unionFieldType.setDocValuesType(DocValuesType.SORTED_SET);
+        }
+        this.unionFieldType.freeze();
         this.keywordFieldBuilder = keywordFieldBuilder;
+        this.fingerprintMapper = fingerprintMapper;
+        this.sortKeyMapper = sortKeyMapper;
     }
 
     @Override
@@ -249,27 +1010,103 @@ public class MinHashFieldMapper extends ParametrizedFieldMapper {
             return;
         }
 
-        String value;
-        final XContentParser parser = context.parser();
-        if (parser.currentToken() == XContentParser.Token.VALUE_NULL) {
-            value = nullValue;
-        } else {
-            value = parser.textOrNull();
+        Reader value = valueReader(context.parser());
+        if (value == null) {
+            return;
         }
 
-        if (value == null) {
+        final long inputLength = inputLength(context.parser());
+        // only bounded work is charged, since the value itself is already
+        // held by the request
+        final CircuitBreaker breaker = breakerSupplier == null
+                || limits == null ? null : breakerSupplier.get();
+        final long bytes = breaker == null ? 0
+                : signatureRamBytes(inputLength);
+        if (breaker != null) {
+            breaker.addEstimateBytesAndMaybeBreak(bytes,
+                    "minhash:" + fieldType().name());
+        }
+        try {
+            parseCreateField(context, value, inputLength);
+        } finally {
+            if (breaker != null) {
+                breaker.addWithoutBreaking(-bytes);
+            }
+        }
+    }
+
+    /**
+     * Returns the memory held while the signatures of a value are computed:
+     * the accumulators and, with {@code window}, one signature per stride of
+     * tokens, assuming at most one token per character.
+     */
+    private long signatureRamBytes(final long inputLength) {
+        long bytes = minhashComponents.accumulatorRamBytes(limits);
+        for (final MinHashComponents components : variantComponents) {
+            bytes += components.accumulatorRamBytes(limits);
+        }
+        if (window > 0) {
+            final int stride = windowStride == 0 ? window : windowStride;
+            final long tokens = limits.getMaxTokens() > 0
+                    ? Math.min(limits.getMaxTokens(), inputLength)
+                    : inputLength;
+            bytes = bytes * (window / stride) + (tokens / stride + 1)
+                    * (minhashComponents.getSignatureLength() + 24);
+        }
+        return bytes;
+    }
+
+    private void parseCreateField(final ParseContext context, Reader value,
+            final long inputLength) throws IOException {
+
+        final MinHashSignatureEvent event = new MinHashSignatureEvent();
+        final CountingReader countingReader = event.isEnabled()
+                ? new CountingReader(value)
+                : null;
+        if (countingReader != null) {
+            value = countingReader;
+        }
+        event.begin();
+
+        if (MULTI_VALUE_UNION.equals(multiValue)) {
+            parseUnionField(context, value, inputLength, event);
+            commit(event, countingReader);
             return;
         }
 
-        final byte[] minhashValue = MinHash.calculate(minhashAnalyzer, value);
-        final String stringValue;
-        if (bitString) {
-            stringValue = MinHash.toBinaryString(minhashValue);
+        if (window > 0) {
+            parseWindowField(context, value, inputLength, event);
+            commit(event, countingReader);
+            return;
+        }
+
+        final byte[][] signatures = calculate(value, inputLength, event);
+        if (signatures == null) {
+            return;
+        }
+        final byte[] minhashValue = signatures[0];
+        final long encodingStart = countingReader == null ? 0
+                : System.nanoTime();
+        final String stringValue = encode(minhashValue);
+        if (countingReader != null) {
+            event.encodingDuration = System.nanoTime() - encodingStart;
+            event.signatureSize = minhashValue.length;
+        }
+
+        if (event.sampled) {
+            // a sampled signature is not comparable with the others, so it
+            // is indexed only in the sampled sub-field, without variants
+            sampledMapper.addSignatureFields(context, minhashValue,
+                    stringValue);
         } else {
-            stringValue = new String(Base64.getEncoder().encode(minhashValue),
-                    StandardCharsets.UTF_8);
+            addSignatureFields(context, minhashValue, stringValue);
+            addVariantFields(context, signatures);
         }
+        commit(event, countingReader);
+    }
 
+    private void addSignatureFields(final ParseContext context,
+            final byte[] minhashValue, final String stringValue) {
         if (indexed || stored) {
             final IndexableField field = new MinHashField(fieldType().name(),
                     new BytesRef(stringValue), fieldType);
@@ -285,6 +1122,378 @@ public class MinHashFieldMapper extends ParametrizedFieldMapper {
             context.doc().add(new SortedSetDocValuesField(fieldType().name(),
                     binaryValue));
         }
+
+        addSubstringFields(context, stringValue);
+        addPrefixField(context, minhashValue);
+        addFingerprintFields(context, minhashValue);
+        addSortKeyFields(context, minhashValue);
+    }
+
+    /**
+     * Adds one signature per window of the value's tokens as values of the
+     * field, computed in one pass over the tokens.
+     */
+    private void parseWindowField(final ParseContext context,
+            final Reader value, final long inputLength,
+            final MinHashSignatureEvent event) throws IOException {
+        final MinHashWindowAccumulator accumulator = minhashComponents
+                .newWindowAccumulator(window,
+                        windowStride == 0 ? window : windowStride);
+        if (limits != null) {
+            limits.checkInputLength(fieldType().name(), inputLength, null);
+        }
+        event.tokens = minhashComponents.accumulate(fieldType().name(), value,
+                accumulator, limits);
+        List<byte[]> signatures = accumulator.finish();
+        if (signatures.isEmpty()) {
+            // a value without tokens is left to the minhash filter
+            final byte[] minhashValue = calculate(new StringReader(""));
+            if (minhashValue == null) {
+                return;
+            }
+            signatures = Collections.singletonList(minhashValue);
+        }
+        for (final byte[] minhashValue : signatures) {
+            addSignatureFields(context, minhashValue, encode(minhashValue));
+        }
+        event.signatureSize = signatures.get(0).length;
+    }
+
+    private void addVariantFields(final ParseContext context,
+            final byte[][] signatures) {
+        for (int i = 0; i < variantMappers.length; i++) {
+            final String name = variantMappers[i].name();
+            final BytesRef value = new BytesRef(encode(signatures[i + 1]));
+            if (indexed || stored) {
+                context.doc().add(new MinHashField(name, value, fieldType));
+            }
+            if (hasDocValues) {
+                context.doc().add(new SortedSetDocValuesField(name, value));
+            }
+        }
+    }
+
+    private void commit(final MinHashSignatureEvent event,
+            final CountingReader countingReader) {
+        if (countingReader == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.field = fieldType().name();
+            event.mode = multiValue;
+            event.inputLength = countingReader.count;
+            event.commit();
+        }
+    }
+
+    private Field[] addFingerprintFields(final ParseContext context,
+            final byte[] minhashValue) {
+        if (fingerprintMapper == null) {
+            return null;
+        }
+        return addLongFields(context, fingerprintMapper.name(),
+                fingerprint(minhashValue));
+    }
+
+    private Field[] addSortKeyFields(final ParseContext context,
+            final byte[] minhashValue) {
+        if (sortKeyMapper == null) {
+            return null;
+        }
+        return addLongFields(context, sortKeyMapper.name(),
+                MinHashSignatures.sortKey(minhashValue));
+    }
+
+    private static Field[] addLongFields(final ParseContext context,
+            final String name, final long value) {
+        final Field[] fields = new Field[] { new LongPoint(name, value),
+                new SortedNumericDocValuesField(name, value) };
+        for (final Field field : fields) {
+            context.doc().add(field);
+        }
+        return fields;
+    }
+
+    /**
+     * Returns the 64-bit hash of a signature, which is indexed in the
+     * fingerprint sub-field.
+     */
+    public static long fingerprint(final byte[] minhashValue) {
+        return FINGERPRINT_HASH_FUNCTION.hashBytes(minhashValue).asLong();
+    }
+
+    private Field addPrefixField(final ParseContext context,
+            final byte[] minhashValue) {
+        final int prefixBits = fieldType().getPrefixBits();
+        if (prefixBits == 0) {
+            return null;
+        }
+        final Field field = new Field(fieldType().prefixFieldName(),
+                MinHashSignatures.prefixTerm(minhashValue, prefixBits),
+                Defaults.MIH_FIELD_TYPE);
+        context.doc().add(field);
+        return field;
+    }
+
+    private Field[] addSubstringFields(final ParseContext context,
+            final String stringValue) {
+        if (mihSubstrings == 0) {
+            return null;
+        }
+        final BytesRef[] terms = MinHashSignatures.substringTerms(
+                MinHashSignatures.decode(stringValue, bitString),
+                mihSubstrings);
+        final Field[] fields = new Field[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            fields[i] = new Field(fieldType().name() + MIH_FIELD_SUFFIX,
+                    terms[i], Defaults.MIH_FIELD_TYPE);
+            context.doc().add(fields[i]);
+        }
+        return fields;
+    }
+
+    private Reader valueReader(final XContentParser parser)
+            throws IOException {
+        final XContentParser.Token token = parser.currentToken();
+        if (token == XContentParser.Token.VALUE_NULL) {
+            return nullValue == null ? null : new StringReader(nullValue);
+        }
+        if (token == XContentParser.Token.VALUE_STRING) {
+            // read the value from the parser's buffer instead of
+            // materializing it as a String
+            return new CharArrayReader(parser.textCharacters(),
+                    parser.textOffset(), parser.textLength());
+        }
+        final String value = parser.textOrNull();
+        return value == null ? null : new StringReader(value);
+    }
+
+    private static long inputLength(final XContentParser parser)
+            throws IOException {
+        final XContentParser.Token token = parser.currentToken();
+        if (token == XContentParser.Token.VALUE_STRING) {
+            return parser.textLength();
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the signature of the value followed by the signatures of the
+     * variants, all computed from one pass over the terms. Without limits
+     * and variants, the value is left to the minhash filter unless
+     * {@link MinHashSignatureEvent} is recorded, which needs the number of
+     * terms; both paths compute the same signature.
+     */
+    private byte[][] calculate(final Reader value, final long inputLength,
+            final MinHashSignatureEvent event) throws IOException {
+        if (minhashComponents != null && (limits != null
+                || variantComponents.length > 0 || event.isEnabled())) {
+            final MinHashAccumulator accumulator = minhashComponents
+                    .newAccumulator(limits, variantComponents);
+            if (limits != null) {
+                limits.checkInputLength(fieldType().name(), inputLength,
+                        accumulator);
+            }
+            event.tokens = minhashComponents.accumulate(fieldType().name(),
+                    value, accumulator, limits);
+            event.sampled = accumulator.isSamplingOnly();
+            final byte[][] signatures = toByteArrays(accumulator);
+            if (event.tokens == 0) {
+                // a value without tokens is left to the minhash filter
+                signatures[0] = calculate(new StringReader(""));
+                event.sampled = false;
+                if (signatures[0] == null) {
+                    return null;
+                }
+            }
+            return signatures;
+        }
+        final byte[] minhashValue = calculate(value);
+        return minhashValue == null ? null : new byte[][] { minhashValue };
+    }
+
+    private static byte[][] toByteArrays(
+            final MinHashAccumulator accumulator) {
+        final byte[][] signatures = new byte[accumulator
+                .getNumOfSignatures()][];
+        for (int i = 0; i < signatures.length; i++) {
+            signatures[i] = accumulator.toByteArray(i);
+        }
+        return signatures;
+    }
+
+    private byte[] calculate(final Reader value) throws IOException {
+        return analyze(minhashAnalyzer, fieldType().name(), value);
+    }
+
+    private static byte[] analyze(final NamedAnalyzer minhashAnalyzer,
+            final String name, final Reader value) throws IOException {
+        byte[] minhashValue = null;
+        try (TokenStream stream = minhashAnalyzer.tokenStream(name, value)) {
+            final CharTermAttribute termAtt = stream
+                    .addAttribute(CharTermAttribute.class);
+            stream.reset();
+            if (stream.incrementToken()) {
+                minhashValue = Base64.getDecoder().decode(termAtt.toString());
+            }
+            stream.end();
+        }
+        return minhashValue;
+    }
+
+    private void parseUnionField(final ParseContext context,
+            final Reader value, final long inputLength,
+            final MinHashSignatureEvent event) throws IOException {
+        final String key = fieldType().name() + "#" + MULTI_VALUE_UNION;
+        final IndexableField keyedField = context.doc().getByKey(key);
+        if (keyedField instanceof UnionMinHashField) {
+            // fold the tokens of this value into the signature of the
+            // values already seen for the document
+            final UnionMinHashField field = (UnionMinHashField) keyedField;
+            if (limits != null) {
+                limits.checkInputLength(fieldType().name(), inputLength,
+                        field.accumulator);
+            }
+            event.tokens = minhashComponents.accumulate(fieldType().name(),
+                    value, field.accumulator, limits);
+            final byte[] minhashValue = field.accumulator.toByteArray();
+            final String stringValue = encode(minhashValue);
+            event.signatureSize = minhashValue.length;
+            field.setBytesValue(new BytesRef(stringValue));
+            if (field.substringFields != null) {
+                final BytesRef[] terms = MinHashSignatures.substringTerms(
+                        MinHashSignatures.decode(stringValue, bitString),
+                        mihSubstrings);
+                for (int i = 0; i < terms.length; i++) {
+                    field.substringFields[i].setBytesValue(terms[i]);
+                }
+            }
+            if (field.prefixField != null) {
+                field.prefixField.setBytesValue(MinHashSignatures.prefixTerm(
+                        minhashValue, fieldType().getPrefixBits()));
+            }
+            if (field.fingerprintFields != null) {
+                final long hash = fingerprint(minhashValue);
+                for (final Field fingerprintField : field.fingerprintFields) {
+                    fingerprintField.setLongValue(hash);
+                }
+            }
+            if (field.sortKeyFields != null) {
+                final long key = MinHashSignatures.sortKey(minhashValue);
+                for (final Field sortKeyField : field.sortKeyFields) {
+                    sortKeyField.setLongValue(key);
+                }
+            }
+            for (int i = 0; i < field.variantFields.length; i++) {
+                field.variantFields[i].setBytesValue(new BytesRef(
+                        encode(field.accumulator.toByteArray(i + 1))));
+            }
+            return;
+        }
+
+        final MinHashAccumulator accumulator = minhashComponents
+                .newAccumulator(limits, variantComponents);
+        if (limits != null) {
+            limits.checkInputLength(fieldType().name(), inputLength,
+                    accumulator);
+        }
+        event.tokens = minhashComponents.accumulate(fieldType().name(), value,
+                accumulator, limits);
+        final byte[] minhashValue = accumulator.toByteArray();
+        final String stringValue = encode(minhashValue);
+        event.signatureSize = minhashValue.length;
+        final UnionMinHashField field = new UnionMinHashField(
+                fieldType().name(), new BytesRef(stringValue), unionFieldType,
+                accumulator);
+        context.doc().addWithKey(key, field);
+        field.substringFields = addSubstringFields(context, stringValue);
+        field.prefixField = addPrefixField(context, minhashValue);
+        field.fingerprintFields = addFingerprintFields(context, minhashValue);
+        field.sortKeyFields = addSortKeyFields(context, minhashValue);
+        field.variantFields = new Field[variantMappers.length];
+        for (int i = 0; i < variantMappers.length; i++) {
+            field.variantFields[i] = new MinHashField(
+                    variantMappers[i].name(),
+                    new BytesRef(encode(accumulator.toByteArray(i + 1))),
+                    unionFieldType);
+            context.doc().add(field.variantFields[i]);
+        }
+
+        if (!hasDocValues) {
+            createFieldNamesField(context);
+        }
+    }
+
+    /**
+     * Counts the characters read from a value for
+     * {@link MinHashSignatureEvent}.
+     */
+    private static final class CountingReader extends FilterReader {
+
+        private long count;
+
+        CountingReader(final Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int c = super.read();
+            if (c >= 0) {
+                count++;
+            }
+            return c;
+        }
+
+        @Override
+        public int read(final char[] cbuf, final int off, final int len)
+                throws IOException {
+            final int n = super.read(cbuf, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+
+    private String encode(final byte[] minhashValue) {
+        return encode(minhashValue, bitString);
+    }
+
+    private static String encode(final byte[] minhashValue,
+            final boolean bitString) {
+        return MinHashSignatures.encode(minhashValue, bitString);
+    }
+
+    @Override
+    public Iterator<Mapper> iterator() {
+        if (fingerprintMapper == null && sortKeyMapper == null
+                && variantMappers.length == 0 && sampledMapper == null) {
+            return super.iterator();
+        }
+        // registers the fingerprint and sort key sub-fields like
+        // multi-fields, so that they can be searched, sorted, collapsed and
+        // aggregated as longs and used in index.sort.field, and the variants
+        // and sampled signatures as minhash fields
+        final List<Mapper> mappers = new ArrayList<>(
+                variantMappers.length + 3);
+        if (fingerprintMapper != null) {
+            mappers.add(fingerprintMapper);
+        }
+        if (sortKeyMapper != null) {
+            mappers.add(sortKeyMapper);
+        }
+        mappers.addAll(Arrays.asList(variantMappers));
+        if (sampledMapper != null) {
+            mappers.add(sampledMapper);
+        }
+        return Iterators.concat(super.iterator(), mappers.iterator());
+    }
+
+    @Override
+    public MinHashFieldType fieldType() {
+        return (MinHashFieldType) super.fieldType();
     }
 
     @Override
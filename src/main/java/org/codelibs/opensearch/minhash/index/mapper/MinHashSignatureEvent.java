@@ -0,0 +1,67 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.index.mapper;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * A JDK Flight Recorder event for the computation of the signature of a
+ * minhash field value. Only computations that take longer than the
+ * threshold are recorded; override it with
+ * {@code org.codelibs.opensearch.minhash.Signature#threshold}.
+ */
+@Name("org.codelibs.opensearch.minhash.Signature")
+@Label("MinHash Signature")
+@Category({ "OpenSearch", "MinHash" })
+@Description("Analysis, hashing and encoding of a minhash field value")
+@Threshold("1 ms")
+@StackTrace(false)
+public final class MinHashSignatureEvent extends Event {
+
+    @Label("Field")
+    public String field;
+
+    @Label("Multi Value Mode")
+    public String mode;
+
+    @Label("Tokens")
+    @Description("Number of hashed tokens, 0 if the analyzer does not expose them")
+    public long tokens;
+
+    @Label("Input Length")
+    @Description("Number of characters read from the value")
+    public long inputLength;
+
+    @Label("Sampled")
+    @Description("Whether a limit switched the signature to the sampled tokens")
+    public boolean sampled;
+
+    @Label("Signature Size")
+    @DataAmount
+    public long signatureSize;
+
+    @Label("Encoding Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    public long encodingDuration;
+}
@@ -0,0 +1,359 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.index.mapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.BytesRef;
+import org.codelibs.opensearch.minhash.index.analysis.SimHashTokenFilterFactory;
+import org.codelibs.opensearch.minhash.util.MinHashSignatures;
+import org.opensearch.core.xcontent.XContentParser;
+import org.opensearch.index.analysis.AnalyzerComponents;
+import org.opensearch.index.analysis.AnalyzerComponentsProvider;
+import org.opensearch.index.analysis.IndexAnalyzers;
+import org.opensearch.index.analysis.NamedAnalyzer;
+import org.opensearch.index.analysis.TokenFilterFactory;
+import org.opensearch.index.mapper.FieldMapper;
+import org.opensearch.index.mapper.MapperParsingException;
+import org.opensearch.index.mapper.NumberFieldMapper;
+import org.opensearch.index.mapper.ParametrizedFieldMapper;
+import org.opensearch.index.mapper.ParseContext;
+import org.opensearch.index.mapper.SourceValueFetcher;
+import org.opensearch.index.mapper.ValueFetcher;
+import org.opensearch.index.query.QueryShardContext;
+import org.opensearch.search.lookup.SearchLookup;
+
+/**
+ * A 64-bit simhash of a text, computed with an analyzer ending with a
+ * simhash filter and stored as a long. The fingerprint is also split into
+ * {@code blocks} terms, so that {@code simhash_within} finds the
+ * fingerprints within a Hamming distance in a few term lookups.
+ */
+public class SimHashFieldMapper extends ParametrizedFieldMapper {
+
+    public static final String CONTENT_TYPE = "simhash";
+
+    public static final String BLOCKS_FIELD_SUFFIX = "._blocks";
+
+    public static final int DEFAULT_BLOCKS = 4;
+
+    public static class Defaults {
+        public static final FieldType BLOCKS_FIELD_TYPE = new FieldType();
+
+        static {
+            BLOCKS_FIELD_TYPE.setTokenized(false);
+            BLOCKS_FIELD_TYPE.setOmitNorms(true);
+            BLOCKS_FIELD_TYPE.setIndexOptions(IndexOptions.DOCS);
+            BLOCKS_FIELD_TYPE.freeze();
+        }
+    }
+
+    public static final class SimHashFieldType
+            extends NumberFieldMapper.NumberFieldType {
+
+        private final int blocks;
+
+        private final NamedAnalyzer simhashAnalyzer;
+
+        public SimHashFieldType(final String name, final boolean isSearchable,
+                final boolean isStored, final boolean hasDocValues,
+                final int blocks, final NamedAnalyzer simhashAnalyzer,
+                final Map<String, String> meta) {
+            super(name, NumberFieldMapper.NumberType.LONG, isSearchable,
+                    isStored, hasDocValues, false, null, meta);
+            this.blocks = blocks;
+            this.simhashAnalyzer = simhashAnalyzer;
+        }
+
+        @Override
+        public String typeName() {
+            return CONTENT_TYPE;
+        }
+
+        public int getBlocks() {
+            return blocks;
+        }
+
+        public String blocksFieldName() {
+            return name() + BLOCKS_FIELD_SUFFIX;
+        }
+
+        /**
+         * Accepts a fingerprint as a number, or a text whose fingerprint is
+         * computed with the field's simhash analyzer.
+         */
+        @Override
+        public Query termQuery(final Object value,
+                final QueryShardContext context) {
+            return super.termQuery(toFingerprint(value), context);
+        }
+
+        @Override
+        public Query termsQuery(final List<?> values,
+                final QueryShardContext context) {
+            final List<Long> fingerprints = new ArrayList<>(values.size());
+            for (final Object value : values) {
+                fingerprints.add(toFingerprint(value));
+            }
+            return super.termsQuery(fingerprints, context);
+        }
+
+        @Override
+        public ValueFetcher valueFetcher(final QueryShardContext context,
+                final SearchLookup searchLookup, final String format) {
+            if (format != null) {
+                throw new IllegalArgumentException("Field [" + name()
+                        + "] of type [" + typeName()
+                        + "] doesn't support formats.");
+            }
+            return new SourceValueFetcher(name(), context) {
+                @Override
+                protected Object parseSourceValue(final Object value) {
+                    return toFingerprint(value);
+                }
+            };
+        }
+
+        /**
+         * Returns the fingerprint of a value: a number is taken as is and
+         * any text is analyzed, as when the value is indexed.
+         */
+        public long toFingerprint(final Object value) {
+            if (value instanceof Number) {
+                return ((Number) value).longValue();
+            }
+            final String text = value instanceof BytesRef
+                    ? ((BytesRef) value).utf8ToString()
+                    : value.toString();
+            try {
+                final Long fingerprint = fingerprint(text);
+                if (fingerprint == null) {
+                    throw new IllegalArgumentException("[" + name()
+                            + "] no tokens in [" + text + "]");
+                }
+                return fingerprint;
+            } catch (final IOException e) {
+                throw new UncheckedIOException(
+                        "failed to compute the simhash of [" + name() + "]",
+                        e);
+            }
+        }
+
+        /**
+         * Returns the fingerprint of a text with the field's simhash
+         * analyzer, or null if the text has no tokens.
+         */
+        public Long fingerprint(final String text) throws IOException {
+            try (TokenStream stream = simhashAnalyzer.tokenStream(name(),
+                    text)) {
+                final CharTermAttribute termAtt = stream
+                        .addAttribute(CharTermAttribute.class);
+                stream.reset();
+                Long fingerprint = null;
+                if (stream.incrementToken()) {
+                    fingerprint = Long.parseLong(termAtt.toString());
+                }
+                stream.end();
+                return fingerprint;
+            }
+        }
+    }
+
+    private static SimHashFieldMapper toType(final FieldMapper in) {
+        return (SimHashFieldMapper) in;
+    }
+
+    public static class Builder extends ParametrizedFieldMapper.Builder {
+
+        private final Parameter<Boolean> indexed = Parameter
+                .indexParam(m -> toType(m).indexed, true);
+
+        private final Parameter<Boolean> hasDocValues = Parameter
+                .docValuesParam(m -> toType(m).hasDocValues, true);
+
+        private final Parameter<Boolean> stored = Parameter
+                .storeParam(m -> toType(m).stored, false);
+
+        private final Parameter<Integer> blocks = Parameter
+                .intParam("blocks", false, m -> toType(m).blocks,
+                        DEFAULT_BLOCKS)
+                .setValidator(v -> {
+                    if (v < 0 || v > Long.SIZE) {
+                        throw new IllegalArgumentException(
+                                "[blocks] must be between 0 and 64: " + v);
+                    }
+                });
+
+        private final Parameter<String> simhashAnalyzer = Parameter
+                .stringParam("simhash_analyzer", false,
+                        m -> toType(m).simhashAnalyzer.name(), null);
+
+        private final Parameter<Map<String, String>> meta = Parameter
+                .metaParam();
+
+        private final IndexAnalyzers indexAnalyzers;
+
+        public Builder(final String name,
+                final IndexAnalyzers indexAnalyzers) {
+            super(name);
+            this.indexAnalyzers = indexAnalyzers;
+        }
+
+        @Override
+        public List<Parameter<?>> getParameters() {
+            return Arrays.asList(indexed, hasDocValues, stored, blocks,
+                    simhashAnalyzer, meta);
+        }
+
+        @Override
+        public SimHashFieldMapper build(final BuilderContext context) {
+            if (simhashAnalyzer.getValue() == null) {
+                throw new MapperParsingException(
+                        "[simhash_analyzer] is required: " + name);
+            }
+            final NamedAnalyzer analyzer = indexAnalyzers
+                    .get(simhashAnalyzer.getValue());
+            if (analyzer == null) {
+                throw new MapperParsingException("analyzer ["
+                        + simhashAnalyzer.getValue()
+                        + "] has not been configured in mappings: " + name);
+            }
+            if (!isSimHashAnalyzer(analyzer)) {
+                throw new MapperParsingException(
+                        "[simhash_analyzer] must be a custom analyzer ending with a simhash filter: "
+                                + name);
+            }
+            return new SimHashFieldMapper(name,
+                    new SimHashFieldType(buildFullName(context),
+                            indexed.getValue(), stored.getValue(),
+                            hasDocValues.getValue(), blocks.getValue(),
+                            analyzer, meta.getValue()),
+                    multiFieldsBuilder.build(this, context), copyTo.build(),
+                    this, analyzer);
+        }
+
+        private static boolean isSimHashAnalyzer(final NamedAnalyzer analyzer) {
+            final Analyzer target = analyzer.analyzer();
+            if (!(target instanceof AnalyzerComponentsProvider)) {
+                return false;
+            }
+            final AnalyzerComponents components = ((AnalyzerComponentsProvider) target)
+                    .getComponents();
+            final TokenFilterFactory[] tokenFilters = components
+                    .getTokenFilters();
+            return tokenFilters.length > 0
+                    && tokenFilters[tokenFilters.length
+                            - 1] instanceof SimHashTokenFilterFactory;
+        }
+    }
+
+    public static final TypeParser PARSER = new TypeParser(
+            (n, c) -> new Builder(n, c.getIndexAnalyzers()));
+
+    private final boolean indexed;
+
+    private final boolean hasDocValues;
+
+    private final boolean stored;
+
+    private final int blocks;
+
+    private final NamedAnalyzer simhashAnalyzer;
+
+    private final IndexAnalyzers indexAnalyzers;
+
+    protected SimHashFieldMapper(final String simpleName,
+            final SimHashFieldType mappedFieldType,
+            final MultiFields multiFields, final CopyTo copyTo,
+            final Builder builder, final NamedAnalyzer simhashAnalyzer) {
+        super(simpleName, mappedFieldType, multiFields, copyTo);
+        this.indexed = builder.indexed.getValue();
+        this.hasDocValues = builder.hasDocValues.getValue();
+        this.stored = builder.stored.getValue();
+        this.blocks = builder.blocks.getValue();
+        this.simhashAnalyzer = simhashAnalyzer;
+        this.indexAnalyzers = builder.indexAnalyzers;
+    }
+
+    @Override
+    protected void parseCreateField(final ParseContext context)
+            throws IOException {
+        final XContentParser parser = context.parser();
+        final long fingerprint;
+        if (parser.currentToken() == XContentParser.Token.VALUE_NULL) {
+            return;
+        } else if (parser.currentToken() == XContentParser.Token.VALUE_NUMBER) {
+            fingerprint = parser.longValue();
+        } else {
+            final Long value = fieldType().fingerprint(parser.text());
+            if (value == null) {
+                return;
+            }
+            fingerprint = value;
+        }
+
+        final String name = fieldType().name();
+        if (indexed) {
+            context.doc().add(new LongPoint(name, fingerprint));
+        }
+        if (hasDocValues) {
+            context.doc()
+                    .add(new SortedNumericDocValuesField(name, fingerprint));
+        } else if (stored || indexed) {
+            createFieldNamesField(context);
+        }
+        if (stored) {
+            context.doc().add(new StoredField(name, fingerprint));
+        }
+        if (blocks > 0) {
+            for (final BytesRef term : MinHashSignatures.substringTerms(
+                    MinHashSignatures.toBytes(fingerprint), blocks)) {
+                context.doc().add(new Field(fieldType().blocksFieldName(),
+                        term, Defaults.BLOCKS_FIELD_TYPE));
+            }
+        }
+    }
+
+    @Override
+    public SimHashFieldType fieldType() {
+        return (SimHashFieldType) super.fieldType();
+    }
+
+    @Override
+    public ParametrizedFieldMapper.Builder getMergeBuilder() {
+        return new Builder(simpleName(), indexAnalyzers).init(this);
+    }
+
+    @Override
+    protected String contentType() {
+        return CONTENT_TYPE;
+    }
+}
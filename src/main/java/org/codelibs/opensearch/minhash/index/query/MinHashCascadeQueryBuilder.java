@@ -0,0 +1,275 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.index.query;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TermQuery;
+import org.codelibs.opensearch.minhash.index.mapper.MinHashFieldMapper.MinHashFieldType;
+import org.codelibs.opensearch.minhash.util.MinHashSignatures;
+import org.opensearch.core.ParseField;
+import org.opensearch.core.common.ParsingException;
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.core.common.io.stream.StreamOutput;
+import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.core.xcontent.XContentParser;
+import org.opensearch.index.IndexSettings;
+import org.opensearch.index.mapper.MappedFieldType;
+import org.opensearch.index.query.AbstractQueryBuilder;
+import org.opensearch.index.query.QueryShardContext;
+import org.opensearch.index.query.QueryShardException;
+
+/**
+ * Finds documents in two stages on a field with {@code prefix_size}: the
+ * candidates are the documents whose prefix signature differs from the
+ * prefix of the given one in at most {@code prefix_radius} bits, and only
+ * their full signatures are read from doc values to keep the ones within
+ * {@code radius} bits.
+ */
+public class MinHashCascadeQueryBuilder
+        extends AbstractQueryBuilder<MinHashCascadeQueryBuilder> {
+
+    public static final String NAME = "minhash_cascade";
+
+    private static final ParseField FIELD_FIELD = new ParseField("field");
+
+    private static final ParseField VALUE_FIELD = new ParseField("value");
+
+    private static final ParseField PREFIX_RADIUS_FIELD = new ParseField(
+            "prefix_radius");
+
+    private static final ParseField RADIUS_FIELD = new ParseField("radius");
+
+    private final String fieldName;
+
+    private final String value;
+
+    private final int prefixRadius;
+
+    private final int radius;
+
+    public MinHashCascadeQueryBuilder(final String fieldName,
+            final String value, final int prefixRadius, final int radius) {
+        if (fieldName == null) {
+            throw new IllegalArgumentException(
+                    "[" + NAME + "] requires a field");
+        }
+        if (value == null) {
+            throw new IllegalArgumentException(
+                    "[" + NAME + "] requires a value");
+        }
+        if (prefixRadius < 0) {
+            throw new IllegalArgumentException("[" + NAME
+                    + "] prefix_radius must not be negative: " + prefixRadius);
+        }
+        if (radius < 0) {
+            throw new IllegalArgumentException(
+                    "[" + NAME + "] radius must not be negative: " + radius);
+        }
+        this.fieldName = fieldName;
+        this.value = value;
+        this.prefixRadius = prefixRadius;
+        this.radius = radius;
+    }
+
+    public MinHashCascadeQueryBuilder(final StreamInput in)
+            throws IOException {
+        super(in);
+        fieldName = in.readString();
+        value = in.readString();
+        prefixRadius = in.readVInt();
+        radius = in.readVInt();
+    }
+
+    @Override
+    protected void doWriteTo(final StreamOutput out) throws IOException {
+        out.writeString(fieldName);
+        out.writeString(value);
+        out.writeVInt(prefixRadius);
+        out.writeVInt(radius);
+    }
+
+    public String fieldName() {
+        return fieldName;
+    }
+
+    public String value() {
+        return value;
+    }
+
+    public int prefixRadius() {
+        return prefixRadius;
+    }
+
+    public int radius() {
+        return radius;
+    }
+
+    @Override
+    protected void doXContent(final XContentBuilder builder,
+            final Params params) throws IOException {
+        builder.startObject(NAME);
+        builder.field(FIELD_FIELD.getPreferredName(), fieldName);
+        builder.field(VALUE_FIELD.getPreferredName(), value);
+        builder.field(PREFIX_RADIUS_FIELD.getPreferredName(), prefixRadius);
+        builder.field(RADIUS_FIELD.getPreferredName(), radius);
+        printBoostAndQueryName(builder);
+        builder.endObject();
+    }
+
+    public static MinHashCascadeQueryBuilder fromXContent(
+            final XContentParser parser) throws IOException {
+        String fieldName = null;
+        String value = null;
+        int prefixRadius = 0;
+        int radius = 0;
+        float boost = AbstractQueryBuilder.DEFAULT_BOOST;
+        String queryName = null;
+
+        String currentFieldName = null;
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                currentFieldName = parser.currentName();
+            } else if (token.isValue()) {
+                if (FIELD_FIELD.match(currentFieldName,
+                        parser.getDeprecationHandler())) {
+                    fieldName = parser.text();
+                } else if (VALUE_FIELD.match(currentFieldName,
+                        parser.getDeprecationHandler())) {
+                    value = parser.text();
+                } else if (PREFIX_RADIUS_FIELD.match(currentFieldName,
+                        parser.getDeprecationHandler())) {
+                    prefixRadius = parser.intValue();
+                } else if (RADIUS_FIELD.match(currentFieldName,
+                        parser.getDeprecationHandler())) {
+                    radius = parser.intValue();
+                } else if (AbstractQueryBuilder.BOOST_FIELD.match(
+                        currentFieldName, parser.getDeprecationHandler())) {
+                    boost = parser.floatValue();
+                } else if (AbstractQueryBuilder.NAME_FIELD.match(
+                        currentFieldName, parser.getDeprecationHandler())) {
+                    queryName = parser.text();
+                } else {
+                    throw new ParsingException(parser.getTokenLocation(),
+                            "[" + NAME + "] query does not support ["
+                                    + currentFieldName + "]");
+                }
+            } else {
+                throw new ParsingException(parser.getTokenLocation(),
+                        "[" + NAME + "] unknown token [" + token
+                                + "] after [" + currentFieldName + "]");
+            }
+        }
+
+        try {
+            return new MinHashCascadeQueryBuilder(fieldName, value,
+                    prefixRadius, radius).boost(boost).queryName(queryName);
+        } catch (final IllegalArgumentException e) {
+            throw new ParsingException(parser.getTokenLocation(),
+                    e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected Query doToQuery(final QueryShardContext context)
+            throws IOException {
+        final MappedFieldType fieldType = context.fieldMapper(fieldName);
+        if (fieldType == null) {
+            return new MatchNoDocsQuery(
+                    "unmapped field [" + fieldName + "]");
+        }
+        if (!(fieldType instanceof MinHashFieldType)) {
+            throw new QueryShardException(context,
+                    "[" + NAME + "] field [" + fieldName
+                            + "] is not a minhash field");
+        }
+        final MinHashFieldType minhashFieldType = (MinHashFieldType) fieldType;
+        if (!minhashFieldType.hasDocValues()) {
+            throw new QueryShardException(context, "[" + NAME
+                    + "] field [" + fieldName + "] requires doc_values");
+        }
+        final int prefixBits = minhashFieldType.getPrefixBits();
+        if (prefixBits == 0) {
+            throw new QueryShardException(context, "[" + NAME + "] field ["
+                    + fieldName + "] requires [prefix_size]");
+        }
+
+        final byte[] signature;
+        try {
+            signature = MinHashSignatures.decode(value,
+                    minhashFieldType.isBitString());
+        } catch (final IllegalArgumentException e) {
+            throw new QueryShardException(context,
+                    "[" + NAME + "] invalid signature [" + value + "]", e);
+        }
+        if (signature.length * 8 < prefixBits) {
+            throw new QueryShardException(context,
+                    "[" + NAME + "] invalid signature [" + value + "]");
+        }
+
+        final Query candidateQuery;
+        if (prefixRadius == 0) {
+            candidateQuery = new TermQuery(
+                    new Term(minhashFieldType.prefixFieldName(),
+                            MinHashSignatures.prefixTerm(signature,
+                                    prefixBits)));
+        } else {
+            final long numOfTerms = MinHashSignatures
+                    .countVariants(prefixBits, prefixRadius);
+            final int maxTermsCount = context.getIndexSettings()
+                    .getMaxTermsCount();
+            if (numOfTerms > maxTermsCount) {
+                throw new QueryShardException(context, "[" + NAME
+                        + "] prefix_radius [" + prefixRadius + "] needs "
+                        + numOfTerms + " prefix terms, more than the limit of "
+                        + maxTermsCount + " set by ["
+                        + IndexSettings.MAX_TERMS_COUNT_SETTING.getKey()
+                        + "]");
+            }
+            candidateQuery = new TermInSetQuery(
+                    minhashFieldType.prefixFieldName(),
+                    MinHashSignatures.prefixVariantTerms(signature,
+                            prefixBits, prefixRadius));
+        }
+        return new MinHashDistanceQuery(candidateQuery,
+                minhashFieldType.name(), minhashFieldType.isBitString(),
+                signature, radius, minhashFieldType.getSignatureCache());
+    }
+
+    @Override
+    protected boolean doEquals(final MinHashCascadeQueryBuilder other) {
+        return Objects.equals(fieldName, other.fieldName)
+                && Objects.equals(value, other.value)
+                && prefixRadius == other.prefixRadius
+                && radius == other.radius;
+    }
+
+    @Override
+    protected int doHashCode() {
+        return Objects.hash(fieldName, value, prefixRadius, radius);
+    }
+
+    @Override
+    public String getWriteableName() {
+        return NAME;
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.index.query;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.ConstantScoreScorer;
+import org.apache.lucene.search.ConstantScoreWeight;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.ScorerSupplier;
+import org.apache.lucene.search.TwoPhaseIterator;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.BytesRef;
+import org.codelibs.opensearch.minhash.index.cache.SignatureColumn;
+import org.codelibs.opensearch.minhash.index.cache.SignatureColumnCache;
+import org.codelibs.opensearch.minhash.util.MinHashSignatures;
+
+/**
+ * Matches the candidates of a query whose signature in doc values is
+ * within a Hamming distance of the given signature. With a
+ * {@link SignatureColumnCache}, the signatures are read from the cached
+ * column of each segment instead.
+ */
+public class MinHashDistanceQuery extends Query {
+
+    private final Query candidateQuery;
+
+    private final String field;
+
+    private final boolean bitString;
+
+    private final byte[] signature;
+
+    private final int maxDistance;
+
+    private final SignatureColumnCache signatureCache;
+
+    public MinHashDistanceQuery(final Query candidateQuery, final String field,
+            final boolean bitString, final byte[] signature,
+            final int maxDistance) {
+        this(candidateQuery, field, bitString, signature, maxDistance, null);
+    }
+
+    public MinHashDistanceQuery(final Query candidateQuery, final String field,
+            final boolean bitString, final byte[] signature,
+            final int maxDistance, final SignatureColumnCache signatureCache) {
+        this.candidateQuery = candidateQuery;
+        this.field = field;
+        this.bitString = bitString;
+        this.signature = signature;
+        this.maxDistance = maxDistance;
+        this.signatureCache = signatureCache;
+    }
+
+    public Query getCandidateQuery() {
+        return candidateQuery;
+    }
+
+    @Override
+    public Query rewrite(final IndexSearcher searcher) throws IOException {
+        final Query rewritten = candidateQuery.rewrite(searcher);
+        if (rewritten != candidateQuery) {
+            return new MinHashDistanceQuery(rewritten, field, bitString,
+                    signature, maxDistance, signatureCache);
+        }
+        return super.rewrite(searcher);
+    }
+
+    @Override
+    public Weight createWeight(final IndexSearcher searcher,
+            final ScoreMode scoreMode, final float boost) throws IOException {
+        final Weight candidateWeight = searcher.createWeight(candidateQuery,
+                ScoreMode.COMPLETE_NO_SCORES, 1f);
+        final long[] words = MinHashSignatures.toLongs(signature);
+        return new ConstantScoreWeight(this, boost) {
+            @Override
+            public ScorerSupplier scorerSupplier(
+                    final LeafReaderContext context) throws IOException {
+                final ScorerSupplier candidates = candidateWeight
+                        .scorerSupplier(context);
+                if (candidates == null) {
+                    return null;
+                }
+                final SignatureColumn column = signatureCache == null ? null
+                        : signatureCache.get(context.reader(), field,
+                                bitString);
+                final SortedSetDocValues docValues = column != null ? null
+                        : DocValues.getSortedSet(context.reader(), field);
+                final float score = score();
+                return new ScorerSupplier() {
+                    @Override
+                    public Scorer get(final long leadCost) throws IOException {
+                        final DocIdSetIterator approximation = candidates
+                                .get(leadCost).iterator();
+                        if (column != null) {
+                            return new ConstantScoreScorer(score, scoreMode,
+                                    new ColumnTwoPhaseIterator(approximation,
+                                            column, words));
+                        }
+                        return new ConstantScoreScorer(score, scoreMode,
+                                new DistanceTwoPhaseIterator(approximation,
+                                        docValues));
+                    }
+
+                    @Override
+                    public long cost() {
+                        return candidates.cost();
+                    }
+                };
+            }
+
+            @Override
+            public boolean isCacheable(final LeafReaderContext ctx) {
+                return DocValues.isCacheable(ctx, field)
+                        && candidateWeight.isCacheable(ctx);
+            }
+        };
+    }
+
+    private class DistanceTwoPhaseIterator extends TwoPhaseIterator {
+
+        private final SortedSetDocValues docValues;
+
+        private final byte[] buffer = new byte[signature.length + 1];
+
+        DistanceTwoPhaseIterator(final DocIdSetIterator approximation,
+                final SortedSetDocValues docValues) {
+            super(approximation);
+            this.docValues = docValues;
+        }
+
+        @Override
+        public boolean matches() throws IOException {
+            if (!docValues.advanceExact(approximation.docID())) {
+                return false;
+            }
+            for (int i = 0; i < docValues.docValueCount(); i++) {
+                final BytesRef value = docValues
+                        .lookupOrd(docValues.nextOrd());
+                final int length = MinHashSignatures.decode(value, bitString,
+                        buffer);
+                if (length == signature.length && MinHashSignatures
+                        .hammingDistance(signature, buffer,
+                                length) <= maxDistance) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public float matchCost() {
+            return signature.length * 2f;
+        }
+    }
+
+    private class ColumnTwoPhaseIterator extends TwoPhaseIterator {
+
+        private final SignatureColumn column;
+
+        private final long[] words;
+
+        ColumnTwoPhaseIterator(final DocIdSetIterator approximation,
+                final SignatureColumn column, final long[] words) {
+            super(approximation);
+            this.column = column;
+            this.words = words;
+        }
+
+        @Override
+        public boolean matches() throws IOException {
+            final int doc = approximation.docID();
+            return column.length() == signature.length && column.exists(doc)
+                    && column.hammingDistance(doc, words) <= maxDistance;
+        }
+
+        @Override
+        public float matchCost() {
+            return words.length;
+        }
+    }
+
+    @Override
+    public void visit(final QueryVisitor visitor) {
+        if (visitor.acceptField(field)) {
+            candidateQuery.visit(
+                    visitor.getSubVisitor(BooleanClause.Occur.MUST, this));
+        }
+    }
+
+    @Override
+    public String toString(final String defaultField) {
+        return "minhash_distance(" + field + ", max_distance=" + maxDistance
+                + ", candidates=" + candidateQuery.toString(defaultField)
+                + ")";
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (!sameClassAs(other)) {
+            return false;
+        }
+        final MinHashDistanceQuery that = (MinHashDistanceQuery) other;
+        return field.equals(that.field) && bitString == that.bitString
+                && maxDistance == that.maxDistance
+                && Arrays.equals(signature, that.signature)
+                && candidateQuery.equals(that.candidateQuery);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(classHash(), field, bitString, maxDistance,
+                Arrays.hashCode(signature), candidateQuery);
+    }
+}
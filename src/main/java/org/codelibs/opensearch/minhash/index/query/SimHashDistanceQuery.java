@@ -0,0 +1,176 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.index.query;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.ConstantScoreScorer;
+import org.apache.lucene.search.ConstantScoreWeight;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.ScorerSupplier;
+import org.apache.lucene.search.TwoPhaseIterator;
+import org.apache.lucene.search.Weight;
+
+/**
+ * Matches the candidates of a query whose 64-bit fingerprint in doc values
+ * is within a Hamming distance of the given fingerprint.
+ */
+public class SimHashDistanceQuery extends Query {
+
+    private final Query candidateQuery;
+
+    private final String field;
+
+    private final long fingerprint;
+
+    private final int maxDistance;
+
+    public SimHashDistanceQuery(final Query candidateQuery, final String field,
+            final long fingerprint, final int maxDistance) {
+        this.candidateQuery = candidateQuery;
+        this.field = field;
+        this.fingerprint = fingerprint;
+        this.maxDistance = maxDistance;
+    }
+
+    public Query getCandidateQuery() {
+        return candidateQuery;
+    }
+
+    @Override
+    public Query rewrite(final IndexSearcher searcher) throws IOException {
+        final Query rewritten = candidateQuery.rewrite(searcher);
+        if (rewritten != candidateQuery) {
+            return new SimHashDistanceQuery(rewritten, field, fingerprint,
+                    maxDistance);
+        }
+        return super.rewrite(searcher);
+    }
+
+    @Override
+    public Weight createWeight(final IndexSearcher searcher,
+            final ScoreMode scoreMode, final float boost) throws IOException {
+        final Weight candidateWeight = searcher.createWeight(candidateQuery,
+                ScoreMode.COMPLETE_NO_SCORES, 1f);
+        return new ConstantScoreWeight(this, boost) {
+            @Override
+            public ScorerSupplier scorerSupplier(
+                    final LeafReaderContext context) throws IOException {
+                final ScorerSupplier candidates = candidateWeight
+                        .scorerSupplier(context);
+                if (candidates == null) {
+                    return null;
+                }
+                final SortedNumericDocValues docValues = DocValues
+                        .getSortedNumeric(context.reader(), field);
+                final float score = score();
+                return new ScorerSupplier() {
+                    @Override
+                    public Scorer get(final long leadCost) throws IOException {
+                        final DocIdSetIterator approximation = candidates
+                                .get(leadCost).iterator();
+                        return new ConstantScoreScorer(score, scoreMode,
+                                new DistanceTwoPhaseIterator(approximation,
+                                        docValues));
+                    }
+
+                    @Override
+                    public long cost() {
+                        return candidates.cost();
+                    }
+                };
+            }
+
+            @Override
+            public boolean isCacheable(final LeafReaderContext ctx) {
+                return DocValues.isCacheable(ctx, field)
+                        && candidateWeight.isCacheable(ctx);
+            }
+        };
+    }
+
+    private class DistanceTwoPhaseIterator extends TwoPhaseIterator {
+
+        private final SortedNumericDocValues docValues;
+
+        DistanceTwoPhaseIterator(final DocIdSetIterator approximation,
+                final SortedNumericDocValues docValues) {
+            super(approximation);
+            this.docValues = docValues;
+        }
+
+        @Override
+        public boolean matches() throws IOException {
+            if (!docValues.advanceExact(approximation.docID())) {
+                return false;
+            }
+            for (int i = 0; i < docValues.docValueCount(); i++) {
+                if (Long.bitCount(
+                        docValues.nextValue() ^ fingerprint) <= maxDistance) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public float matchCost() {
+            return 2f;
+        }
+    }
+
+    @Override
+    public void visit(final QueryVisitor visitor) {
+        if (visitor.acceptField(field)) {
+            candidateQuery.visit(
+                    visitor.getSubVisitor(BooleanClause.Occur.MUST, this));
+        }
+    }
+
+    @Override
+    public String toString(final String defaultField) {
+        return "simhash_distance(" + field + ", max_distance=" + maxDistance
+                + ", candidates=" + candidateQuery.toString(defaultField)
+                + ")";
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (!sameClassAs(other)) {
+            return false;
+        }
+        final SimHashDistanceQuery that = (SimHashDistanceQuery) other;
+        return field.equals(that.field) && fingerprint == that.fingerprint
+                && maxDistance == that.maxDistance
+                && candidateQuery.equals(that.candidateQuery);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(classHash(), field, fingerprint, maxDistance,
+                candidateQuery);
+    }
+}
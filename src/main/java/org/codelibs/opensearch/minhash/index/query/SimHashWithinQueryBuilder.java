@@ -0,0 +1,264 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.index.query;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import org.apache.lucene.search.FieldExistsQuery;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermInSetQuery;
+import org.codelibs.opensearch.minhash.index.mapper.SimHashFieldMapper.SimHashFieldType;
+import org.codelibs.opensearch.minhash.util.MinHashSignatures;
+import org.opensearch.core.ParseField;
+import org.opensearch.core.common.ParsingException;
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.core.common.io.stream.StreamOutput;
+import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.core.xcontent.XContentParser;
+import org.opensearch.index.IndexSettings;
+import org.opensearch.index.mapper.MappedFieldType;
+import org.opensearch.index.query.AbstractQueryBuilder;
+import org.opensearch.index.query.QueryShardContext;
+import org.opensearch.index.query.QueryShardException;
+
+/**
+ * Finds every document whose simhash differs from the given fingerprint, or
+ * from the simhash of the given text, in at most {@code radius} bits. As in
+ * the source, a number is a fingerprint and a string is a text. With
+ * {@code blocks} on the field, one of the blocks differs in at most
+ * {@code radius / blocks} bits, so the candidates come from the block terms
+ * of those variants; otherwise all documents with a value are verified.
+ */
+public class SimHashWithinQueryBuilder
+        extends AbstractQueryBuilder<SimHashWithinQueryBuilder> {
+
+    public static final String NAME = "simhash_within";
+
+    private static final ParseField FIELD_FIELD = new ParseField("field");
+
+    private static final ParseField VALUE_FIELD = new ParseField("value");
+
+    private static final ParseField RADIUS_FIELD = new ParseField("radius");
+
+    private final String fieldName;
+
+    private final Object value;
+
+    private final int radius;
+
+    public SimHashWithinQueryBuilder(final String fieldName,
+            final String text, final int radius) {
+        this(fieldName, (Object) text, radius);
+    }
+
+    public SimHashWithinQueryBuilder(final String fieldName,
+            final long fingerprint, final int radius) {
+        this(fieldName, (Object) fingerprint, radius);
+    }
+
+    private SimHashWithinQueryBuilder(final String fieldName,
+            final Object value, final int radius) {
+        if (fieldName == null) {
+            throw new IllegalArgumentException(
+                    "[" + NAME + "] requires a field");
+        }
+        if (value == null) {
+            throw new IllegalArgumentException(
+                    "[" + NAME + "] requires a value");
+        }
+        if (radius < 0) {
+            throw new IllegalArgumentException(
+                    "[" + NAME + "] radius must not be negative: " + radius);
+        }
+        this.fieldName = fieldName;
+        this.value = value;
+        this.radius = radius;
+    }
+
+    public SimHashWithinQueryBuilder(final StreamInput in) throws IOException {
+        super(in);
+        fieldName = in.readString();
+        value = in.readGenericValue();
+        radius = in.readVInt();
+    }
+
+    @Override
+    protected void doWriteTo(final StreamOutput out) throws IOException {
+        out.writeString(fieldName);
+        out.writeGenericValue(value);
+        out.writeVInt(radius);
+    }
+
+    public String fieldName() {
+        return fieldName;
+    }
+
+    /**
+     * Returns the text, or the fingerprint as a {@link Long}.
+     */
+    public Object value() {
+        return value;
+    }
+
+    public int radius() {
+        return radius;
+    }
+
+    @Override
+    protected void doXContent(final XContentBuilder builder,
+            final Params params) throws IOException {
+        builder.startObject(NAME);
+        builder.field(FIELD_FIELD.getPreferredName(), fieldName);
+        builder.field(VALUE_FIELD.getPreferredName(), value);
+        builder.field(RADIUS_FIELD.getPreferredName(), radius);
+        printBoostAndQueryName(builder);
+        builder.endObject();
+    }
+
+    public static SimHashWithinQueryBuilder fromXContent(
+            final XContentParser parser) throws IOException {
+        String fieldName = null;
+        Object value = null;
+        int radius = 0;
+        float boost = AbstractQueryBuilder.DEFAULT_BOOST;
+        String queryName = null;
+
+        String currentFieldName = null;
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                currentFieldName = parser.currentName();
+            } else if (token.isValue()) {
+                if (FIELD_FIELD.match(currentFieldName,
+                        parser.getDeprecationHandler())) {
+                    fieldName = parser.text();
+                } else if (VALUE_FIELD.match(currentFieldName,
+                        parser.getDeprecationHandler())) {
+                    value = token == XContentParser.Token.VALUE_NUMBER
+                            ? (Object) parser.longValue()
+                            : parser.text();
+                } else if (RADIUS_FIELD.match(currentFieldName,
+                        parser.getDeprecationHandler())) {
+                    radius = parser.intValue();
+                } else if (AbstractQueryBuilder.BOOST_FIELD.match(
+                        currentFieldName, parser.getDeprecationHandler())) {
+                    boost = parser.floatValue();
+                } else if (AbstractQueryBuilder.NAME_FIELD.match(
+                        currentFieldName, parser.getDeprecationHandler())) {
+                    queryName = parser.text();
+                } else {
+                    throw new ParsingException(parser.getTokenLocation(),
+                            "[" + NAME + "] query does not support ["
+                                    + currentFieldName + "]");
+                }
+            } else {
+                throw new ParsingException(parser.getTokenLocation(),
+                        "[" + NAME + "] unknown token [" + token
+                                + "] after [" + currentFieldName + "]");
+            }
+        }
+
+        try {
+            return new SimHashWithinQueryBuilder(fieldName, value, radius)
+                    .boost(boost).queryName(queryName);
+        } catch (final IllegalArgumentException e) {
+            throw new ParsingException(parser.getTokenLocation(),
+                    e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected Query doToQuery(final QueryShardContext context)
+            throws IOException {
+        final MappedFieldType fieldType = context.fieldMapper(fieldName);
+        if (fieldType == null) {
+            return new MatchNoDocsQuery(
+                    "unmapped field [" + fieldName + "]");
+        }
+        if (!(fieldType instanceof SimHashFieldType)) {
+            throw new QueryShardException(context,
+                    "[" + NAME + "] field [" + fieldName
+                            + "] is not a simhash field");
+        }
+        final SimHashFieldType simhashFieldType = (SimHashFieldType) fieldType;
+        if (!simhashFieldType.hasDocValues()) {
+            throw new QueryShardException(context, "[" + NAME
+                    + "] field [" + fieldName + "] requires doc_values");
+        }
+
+        final long fingerprint;
+        try {
+            fingerprint = simhashFieldType.toFingerprint(value);
+        } catch (final IllegalArgumentException e) {
+            throw new QueryShardException(context,
+                    "[" + NAME + "] invalid value [" + value + "]", e);
+        }
+
+        final int blocks = simhashFieldType.getBlocks();
+        final Query candidateQuery;
+        if (blocks > 0) {
+            final int maxDistance = radius / blocks;
+            long numOfTerms = 0;
+            for (int i = 0; i < blocks; i++) {
+                numOfTerms += MinHashSignatures.countVariants(
+                        MinHashSignatures.substringStart(Long.SIZE, blocks,
+                                i + 1)
+                                - MinHashSignatures.substringStart(Long.SIZE,
+                                        blocks, i),
+                        maxDistance);
+            }
+            final int maxTermsCount = context.getIndexSettings()
+                    .getMaxTermsCount();
+            if (numOfTerms > maxTermsCount) {
+                throw new QueryShardException(context, "[" + NAME
+                        + "] radius [" + radius + "] needs " + numOfTerms
+                        + " block terms, more than the limit of "
+                        + maxTermsCount + " set by ["
+                        + IndexSettings.MAX_TERMS_COUNT_SETTING.getKey()
+                        + "]. Use more [blocks] on field [" + fieldName
+                        + "].");
+            }
+            candidateQuery = new TermInSetQuery(
+                    simhashFieldType.blocksFieldName(),
+                    MinHashSignatures.substringVariantTerms(
+                            MinHashSignatures.toBytes(fingerprint), blocks,
+                            maxDistance));
+        } else {
+            candidateQuery = new FieldExistsQuery(simhashFieldType.name());
+        }
+        return new SimHashDistanceQuery(candidateQuery,
+                simhashFieldType.name(), fingerprint, radius);
+    }
+
+    @Override
+    protected boolean doEquals(final SimHashWithinQueryBuilder other) {
+        return Objects.equals(fieldName, other.fieldName)
+                && Objects.equals(value, other.value)
+                && radius == other.radius;
+    }
+
+    @Override
+    protected int doHashCode() {
+        return Objects.hash(fieldName, value, radius);
+    }
+
+    @Override
+    public String getWriteableName() {
+        return NAME;
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.ingest;
+
+import static org.opensearch.ingest.ConfigurationUtils.newConfigurationException;
+import static org.opensearch.ingest.ConfigurationUtils.readBooleanProperty;
+import static org.opensearch.ingest.ConfigurationUtils.readIntProperty;
+import static org.opensearch.ingest.ConfigurationUtils.readStringProperty;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.codelibs.minhash.MinHash;
+import org.codelibs.opensearch.minhash.index.analysis.MurmurHashes;
+import org.codelibs.opensearch.minhash.index.analysis.MinHashAccumulator;
+import org.codelibs.opensearch.minhash.util.MinHashSignatures;
+import org.opensearch.common.UUIDs;
+import org.opensearch.common.unit.TimeValue;
+import org.opensearch.core.common.unit.ByteSizeValue;
+import org.opensearch.index.analysis.AnalysisRegistry;
+import org.opensearch.ingest.AbstractProcessor;
+import org.opensearch.ingest.IngestDocument;
+import org.opensearch.ingest.Processor;
+
+import com.google.common.hash.HashFunction;
+
+/**
+ * Looks up the minhash signature of a field in a {@link RecentSignatureTable}
+ * of the documents seen by this node in a rolling window, and tags, drops
+ * or fails the document if a near-duplicate was seen.
+ */
+public final class MinHashDuplicateProcessor extends AbstractProcessor {
+
+    public static final String TYPE = "minhash_duplicate";
+
+    private static final String ID_FIELD = IngestDocument.Metadata.ID
+            .getFieldName();
+
+    public enum OnDuplicate {
+        TAG, DROP, FAIL;
+
+        static OnDuplicate parse(final String tag, final String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (final IllegalArgumentException e) {
+                throw newConfigurationException(TYPE, tag, "on_duplicate",
+                        "must be one of [tag, drop, fail]: " + value);
+            }
+        }
+    }
+
+    private final String field;
+
+    private final String targetField;
+
+    private final String idField;
+
+    private final boolean ignoreMissing;
+
+    private final OnDuplicate onDuplicate;
+
+    private final Analyzer analyzer;
+
+    private final HashFunction[] hashFunctions;
+
+    private final long[] seeds;
+
+    private final int hashBit;
+
+    private final RecentSignatureTable table;
+
+    private final LongSupplier relativeTimeSupplier;
+
+    MinHashDuplicateProcessor(final String tag, final String description,
+            final String field, final String targetField,
+            final String idField, final boolean ignoreMissing,
+            final OnDuplicate onDuplicate, final Analyzer analyzer,
+            final HashFunction[] hashFunctions, final long[] seeds,
+            final int hashBit, final RecentSignatureTable table,
+            final LongSupplier relativeTimeSupplier) {
+        super(tag, description);
+        this.field = field;
+        this.targetField = targetField;
+        this.idField = idField;
+        this.ignoreMissing = ignoreMissing;
+        this.onDuplicate = onDuplicate;
+        this.analyzer = analyzer;
+        this.hashFunctions = hashFunctions;
+        this.seeds = seeds;
+        this.hashBit = hashBit;
+        this.table = table;
+        this.relativeTimeSupplier = relativeTimeSupplier;
+    }
+
+    @Override
+    public IngestDocument execute(final IngestDocument document)
+            throws Exception {
+        final Object value = document.getFieldValue(field, Object.class,
+                ignoreMissing);
+        if (value == null) {
+            if (ignoreMissing) {
+                return document;
+            }
+            throw new IllegalArgumentException(
+                    "field [" + field + "] is null, cannot detect duplicates");
+        }
+
+        final long[] signature = signature(analyzer, field, value,
+                hashFunctions, seeds, hashBit);
+
+        String id = idField == null ? null
+                : document.getFieldValue(idField, String.class, true);
+        if (id == null && onDuplicate == OnDuplicate.TAG
+                && ID_FIELD.equals(idField)) {
+            // an id is generated after the pipeline, but a tag needs the id
+            // of the matched document, so generate it here as OpenSearch does
+            id = UUIDs.base64UUID();
+            document.setFieldValue(ID_FIELD, id);
+        }
+        // a tag needs the id of the matched document
+        final boolean add = onDuplicate != OnDuplicate.TAG || id != null;
+        final RecentSignatureTable.Match match = table.findOrAdd(signature,
+                id, add, relativeTimeSupplier.getAsLong());
+        if (match == null) {
+            return document;
+        }
+
+        switch (onDuplicate) {
+        case DROP:
+            return null;
+        case FAIL:
+            throw new IllegalArgumentException("document is a near-duplicate"
+                    + (match.getId() == null ? ""
+                            : " of [" + match.getId() + "]"));
+        default:
+            document.setFieldValue(targetField, match.getId());
+            return document;
+        }
+    }
+
+    /**
+     * Returns the signature of a value, or of all elements of a list,
+     * packed by {@link MinHashSignatures#toLongs(byte[])}. The seeds are
+     * those of {@link MurmurHashes#seeds(HashFunction[])}, computed once
+     * per processor.
+     */
+    static long[] signature(final Analyzer analyzer, final String field,
+            final Object value, final HashFunction[] hashFunctions,
+            final long[] seeds, final int hashBit) throws IOException {
+        final MinHashAccumulator accumulator = new MinHashAccumulator(
+                hashFunctions, seeds, hashBit);
+        if (value instanceof List) {
+            for (final Object element : (List<?>) value) {
+                if (element != null) {
+                    accumulate(analyzer, field, element.toString(),
+                            accumulator);
+                }
+            }
+        } else {
+            accumulate(analyzer, field, value.toString(), accumulator);
+        }
+        return MinHashSignatures.toLongs(accumulator.toByteArray());
+    }
+
+    private static void accumulate(final Analyzer analyzer,
+            final String field, final String text,
+            final MinHashAccumulator accumulator) throws IOException {
+        try (TokenStream stream = analyzer.tokenStream(field,
+                new StringReader(text))) {
+            final CharTermAttribute termAtt = stream
+                    .addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                accumulator.add(termAtt);
+            }
+            stream.end();
+        }
+    }
+
+    RecentSignatureTable getTable() {
+        return table;
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    public static final class Factory implements Processor.Factory {
+
+        private final AnalysisRegistry analysisRegistry;
+
+        private final LongSupplier relativeTimeSupplier;
+
+        public Factory(final AnalysisRegistry analysisRegistry,
+                final LongSupplier relativeTimeSupplier) {
+            this.analysisRegistry = analysisRegistry;
+            this.relativeTimeSupplier = relativeTimeSupplier;
+        }
+
+        @Override
+        public MinHashDuplicateProcessor create(
+                final Map<String, Processor.Factory> registry,
+                final String tag, final String description,
+                final Map<String, Object> config) throws Exception {
+            final String field = readStringProperty(TYPE, tag, config,
+                    "field");
+            final String targetField = readStringProperty(TYPE, tag, config,
+                    "target_field", "minhash_duplicate_of");
+            final String idField = readStringProperty(TYPE, tag, config,
+                    "id_field", ID_FIELD);
+            final boolean ignoreMissing = readBooleanProperty(TYPE, tag,
+                    config, "ignore_missing", false);
+            final OnDuplicate onDuplicate = OnDuplicate.parse(tag,
+                    readStringProperty(TYPE, tag, config, "on_duplicate",
+                            "tag"));
+            final String analyzerName = readStringProperty(TYPE, tag, config,
+                    "analyzer", "standard");
+            final int seed = readIntProperty(TYPE, tag, config, "seed", 0);
+            final int hashBit = readIntProperty(TYPE, tag, config, "bit", 1);
+            final int size = readIntProperty(TYPE, tag, config, "size", 128);
+            final float threshold = readThreshold(TYPE, tag, config);
+            final int bands = readIntProperty(TYPE, tag, config, "bands",
+                    16);
+            final TimeValue window = TimeValue.parseTimeValue(
+                    readStringProperty(TYPE, tag, config, "window", "1h"),
+                    "window");
+            final ByteSizeValue maxMemory = ByteSizeValue.parseBytesSizeValue(
+                    readStringProperty(TYPE, tag, config, "max_memory",
+                            "64mb"),
+                    "max_memory");
+
+            if (hashBit < 1 || hashBit > 8) {
+                throw newConfigurationException(TYPE, tag, "bit",
+                        "must be between 1 and 8: " + hashBit);
+            }
+            if (size < 1 || size > 1024) {
+                throw newConfigurationException(TYPE, tag, "size",
+                        "must be between 1 and 1024: " + size);
+            }
+            final Analyzer analyzer = analysisRegistry
+                    .getAnalyzer(analyzerName);
+            if (analyzer == null) {
+                throw newConfigurationException(TYPE, tag, "analyzer",
+                        "unknown analyzer [" + analyzerName + "]");
+            }
+
+            final int numOfBits = hashBit * size;
+            final RecentSignatureTable table;
+            try {
+                table = new RecentSignatureTable(numOfBits, bands,
+                        (int) Math.floor((1.0f - threshold) * numOfBits),
+                        window.millis(), maxMemory.getBytes());
+            } catch (final IllegalArgumentException e) {
+                throw newConfigurationException(TYPE, tag, "bands",
+                        e.getMessage());
+            }
+            final HashFunction[] hashFunctions = MinHash
+                    .createHashFunctions(seed, size);
+            return new MinHashDuplicateProcessor(tag, description, field,
+                    targetField, idField, ignoreMissing, onDuplicate,
+                    analyzer, hashFunctions, MurmurHashes.seeds(hashFunctions),
+                    hashBit, table, relativeTimeSupplier);
+        }
+
+        static float readThreshold(final String type, final String tag,
+                final Map<String, Object> config) {
+            final Object value = config.remove("threshold");
+            if (value == null) {
+                return 0.9f;
+            }
+            final float threshold;
+            try {
+                threshold = value instanceof Number
+                        ? ((Number) value).floatValue()
+                        : Float.parseFloat(value.toString());
+            } catch (final NumberFormatException e) {
+                throw newConfigurationException(type, tag, "threshold",
+                        "must be a number: " + value);
+            }
+            if (threshold < 0.0f || threshold > 1.0f) {
+                throw newConfigurationException(type, tag, "threshold",
+                        "must be between 0 and 1: " + threshold);
+            }
+            return threshold;
+        }
+    }
+}
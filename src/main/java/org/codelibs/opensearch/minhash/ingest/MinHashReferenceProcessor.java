@@ -0,0 +1,224 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.ingest;
+
+import static org.opensearch.ingest.ConfigurationUtils.newConfigurationException;
+import static org.opensearch.ingest.ConfigurationUtils.readBooleanProperty;
+import static org.opensearch.ingest.ConfigurationUtils.readIntProperty;
+import static org.opensearch.ingest.ConfigurationUtils.readStringProperty;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.codelibs.minhash.MinHash;
+import org.codelibs.opensearch.minhash.index.analysis.MurmurHashes;
+import org.codelibs.opensearch.minhash.reference.MinHashReferenceService;
+import org.codelibs.opensearch.minhash.reference.MinHashReferenceTable;
+import org.opensearch.index.analysis.AnalysisRegistry;
+import org.opensearch.ingest.AbstractProcessor;
+import org.opensearch.ingest.IngestDocument;
+import org.opensearch.ingest.Processor;
+
+import com.google.common.hash.HashFunction;
+
+/**
+ * Looks up the minhash signature of a field in a reference set registered
+ * with {@code _minhash/reference}, and tags, drops or fails the document if
+ * it is a near duplicate of a reference.
+ */
+public final class MinHashReferenceProcessor extends AbstractProcessor {
+
+    public static final String TYPE = "minhash_reference";
+
+    public enum OnMatch {
+        TAG, DROP, FAIL;
+
+        static OnMatch parse(final String tag, final String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (final IllegalArgumentException e) {
+                throw newConfigurationException(TYPE, tag, "on_match",
+                        "must be one of [tag, drop, fail]: " + value);
+            }
+        }
+    }
+
+    private final String field;
+
+    private final String set;
+
+    private final String targetField;
+
+    private final boolean ignoreMissing;
+
+    private final boolean ignoreUnavailable;
+
+    private final OnMatch onMatch;
+
+    private final Analyzer analyzer;
+
+    private final HashFunction[] hashFunctions;
+
+    private final long[] seeds;
+
+    private final int hashBit;
+
+    private final int maxDistance;
+
+    private final Supplier<MinHashReferenceService> referenceService;
+
+    MinHashReferenceProcessor(final String tag, final String description,
+            final String field, final String set, final String targetField,
+            final boolean ignoreMissing, final boolean ignoreUnavailable,
+            final OnMatch onMatch, final Analyzer analyzer,
+            final HashFunction[] hashFunctions, final long[] seeds,
+            final int hashBit, final int maxDistance,
+            final Supplier<MinHashReferenceService> referenceService) {
+        super(tag, description);
+        this.field = field;
+        this.set = set;
+        this.targetField = targetField;
+        this.ignoreMissing = ignoreMissing;
+        this.ignoreUnavailable = ignoreUnavailable;
+        this.onMatch = onMatch;
+        this.analyzer = analyzer;
+        this.hashFunctions = hashFunctions;
+        this.seeds = seeds;
+        this.hashBit = hashBit;
+        this.maxDistance = maxDistance;
+        this.referenceService = referenceService;
+    }
+
+    @Override
+    public IngestDocument execute(final IngestDocument document)
+            throws Exception {
+        final Object value = document.getFieldValue(field, Object.class,
+                ignoreMissing);
+        if (value == null) {
+            if (ignoreMissing) {
+                return document;
+            }
+            throw new IllegalArgumentException("field [" + field
+                    + "] is null, cannot match references");
+        }
+
+        final MinHashReferenceService service = referenceService.get();
+        final MinHashReferenceTable table = service == null ? null
+                : service.getTable(set);
+        if (table == null) {
+            if (ignoreUnavailable) {
+                return document;
+            }
+            throw new IllegalStateException(
+                    "reference set [" + set + "] is not loaded");
+        }
+
+        if (table.getNumOfBits() != hashBit * hashFunctions.length) {
+            throw new IllegalArgumentException("reference set [" + set
+                    + "] has " + table.getNumOfBits()
+                    + "-bit signatures, the processor computes "
+                    + hashBit * hashFunctions.length);
+        }
+
+        final long[] signature = MinHashDuplicateProcessor.signature(analyzer,
+                field, value, hashFunctions, seeds, hashBit);
+        final MinHashReferenceTable.Match match = table.find(signature,
+                maxDistance);
+        if (match == null) {
+            return document;
+        }
+
+        switch (onMatch) {
+        case DROP:
+            return null;
+        case FAIL:
+            throw new IllegalArgumentException("document matches reference ["
+                    + match.getId() + "] of [" + set + "]");
+        default:
+            document.setFieldValue(targetField, match.getId());
+            return document;
+        }
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    public static final class Factory implements Processor.Factory {
+
+        private final AnalysisRegistry analysisRegistry;
+
+        private final Supplier<MinHashReferenceService> referenceService;
+
+        public Factory(final AnalysisRegistry analysisRegistry,
+                final Supplier<MinHashReferenceService> referenceService) {
+            this.analysisRegistry = analysisRegistry;
+            this.referenceService = referenceService;
+        }
+
+        @Override
+        public MinHashReferenceProcessor create(
+                final Map<String, Processor.Factory> registry,
+                final String tag, final String description,
+                final Map<String, Object> config) throws Exception {
+            final String field = readStringProperty(TYPE, tag, config,
+                    "field");
+            final String set = readStringProperty(TYPE, tag, config, "set");
+            final String targetField = readStringProperty(TYPE, tag, config,
+                    "target_field", "minhash_reference");
+            final boolean ignoreMissing = readBooleanProperty(TYPE, tag,
+                    config, "ignore_missing", false);
+            final boolean ignoreUnavailable = readBooleanProperty(TYPE, tag,
+                    config, "ignore_unavailable", false);
+            final OnMatch onMatch = OnMatch.parse(tag,
+                    readStringProperty(TYPE, tag, config, "on_match", "tag"));
+            final String analyzerName = readStringProperty(TYPE, tag, config,
+                    "analyzer", "standard");
+            final int seed = readIntProperty(TYPE, tag, config, "seed", 0);
+            final int hashBit = readIntProperty(TYPE, tag, config, "bit", 1);
+            final int size = readIntProperty(TYPE, tag, config, "size", 128);
+            final float threshold = MinHashDuplicateProcessor.Factory
+                    .readThreshold(TYPE, tag, config);
+
+            if (hashBit < 1 || hashBit > 8) {
+                throw newConfigurationException(TYPE, tag, "bit",
+                        "must be between 1 and 8: " + hashBit);
+            }
+            if (size < 1 || size > 1024) {
+                throw newConfigurationException(TYPE, tag, "size",
+                        "must be between 1 and 1024: " + size);
+            }
+            final Analyzer analyzer = analysisRegistry
+                    .getAnalyzer(analyzerName);
+            if (analyzer == null) {
+                throw newConfigurationException(TYPE, tag, "analyzer",
+                        "unknown analyzer [" + analyzerName + "]");
+            }
+
+            final int numOfBits = hashBit * size;
+            final HashFunction[] hashFunctions = MinHash
+                    .createHashFunctions(seed, size);
+            return new MinHashReferenceProcessor(tag, description, field, set,
+                    targetField, ignoreMissing, ignoreUnavailable, onMatch,
+                    analyzer, hashFunctions, MurmurHashes.seeds(hashFunctions),
+                    hashBit, (int) Math.floor((1.0f - threshold) * numOfBits),
+                    referenceService);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.ingest;
+
+import static org.opensearch.ingest.ConfigurationUtils.newConfigurationException;
+import static org.opensearch.ingest.ConfigurationUtils.readBooleanProperty;
+import static org.opensearch.ingest.ConfigurationUtils.readIntProperty;
+import static org.opensearch.ingest.ConfigurationUtils.readStringProperty;
+
+import java.util.Map;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.codelibs.minhash.MinHash;
+import org.codelibs.opensearch.minhash.index.analysis.MurmurHashes;
+import org.codelibs.opensearch.minhash.util.MinHashSignatures;
+import org.opensearch.index.analysis.AnalysisRegistry;
+import org.opensearch.ingest.AbstractProcessor;
+import org.opensearch.ingest.IngestDocument;
+import org.opensearch.ingest.Processor;
+
+import com.google.common.hash.HashFunction;
+
+/**
+ * Sets the {@code _routing} of a document to one band of the minhash
+ * signature of a field, so that near duplicates, which usually share the
+ * band, are indexed on the same shard.
+ */
+public final class MinHashRoutingProcessor extends AbstractProcessor {
+
+    public static final String TYPE = "minhash_routing";
+
+    private final String field;
+
+    private final boolean ignoreMissing;
+
+    private final Analyzer analyzer;
+
+    private final HashFunction[] hashFunctions;
+
+    private final long[] seeds;
+
+    private final int hashBit;
+
+    private final int bandStart;
+
+    private final int bandLength;
+
+    MinHashRoutingProcessor(final String tag, final String description,
+            final String field, final boolean ignoreMissing,
+            final Analyzer analyzer, final HashFunction[] hashFunctions,
+            final long[] seeds, final int hashBit, final int bandStart,
+            final int bandLength) {
+        super(tag, description);
+        this.field = field;
+        this.ignoreMissing = ignoreMissing;
+        this.analyzer = analyzer;
+        this.hashFunctions = hashFunctions;
+        this.seeds = seeds;
+        this.hashBit = hashBit;
+        this.bandStart = bandStart;
+        this.bandLength = bandLength;
+    }
+
+    @Override
+    public IngestDocument execute(final IngestDocument document)
+            throws Exception {
+        final Object value = document.getFieldValue(field, Object.class,
+                ignoreMissing);
+        if (value == null) {
+            if (ignoreMissing) {
+                return document;
+            }
+            throw new IllegalArgumentException("field [" + field
+                    + "] is null, cannot compute a routing key");
+        }
+
+        final long[] signature = MinHashDuplicateProcessor.signature(analyzer,
+                field, value, hashFunctions, seeds, hashBit);
+        document.setFieldValue(
+                IngestDocument.Metadata.ROUTING.getFieldName(),
+                routingKey(signature, bandStart, bandLength));
+        return document;
+    }
+
+    /**
+     * Returns the routing key of the given bits of a signature.
+     */
+    public static String routingKey(final long[] signature, final int start,
+            final int length) {
+        return Long.toHexString(
+                MinHashSignatures.bits(signature, start, length));
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    public static final class Factory implements Processor.Factory {
+
+        private final AnalysisRegistry analysisRegistry;
+
+        public Factory(final AnalysisRegistry analysisRegistry) {
+            this.analysisRegistry = analysisRegistry;
+        }
+
+        @Override
+        public MinHashRoutingProcessor create(
+                final Map<String, Processor.Factory> registry,
+                final String tag, final String description,
+                final Map<String, Object> config) throws Exception {
+            final String field = readStringProperty(TYPE, tag, config,
+                    "field");
+            final boolean ignoreMissing = readBooleanProperty(TYPE, tag,
+                    config, "ignore_missing", false);
+            final String analyzerName = readStringProperty(TYPE, tag, config,
+                    "analyzer", "standard");
+            final int seed = readIntProperty(TYPE, tag, config, "seed", 0);
+            final int hashBit = readIntProperty(TYPE, tag, config, "bit", 1);
+            final int size = readIntProperty(TYPE, tag, config, "size", 128);
+            final int bands = readIntProperty(TYPE, tag, config, "bands", 8);
+            final int band = readIntProperty(TYPE, tag, config, "band", 0);
+
+            if (hashBit < 1 || hashBit > 8) {
+                throw newConfigurationException(TYPE, tag, "bit",
+                        "must be between 1 and 8: " + hashBit);
+            }
+            if (size < 1 || size > 1024) {
+                throw newConfigurationException(TYPE, tag, "size",
+                        "must be between 1 and 1024: " + size);
+            }
+            final int numOfBits = hashBit * size;
+            if (bands < 1 || bands > numOfBits) {
+                throw newConfigurationException(TYPE, tag, "bands",
+                        "must be between 1 and " + numOfBits + ": " + bands);
+            }
+            if (band < 0 || band >= bands) {
+                throw newConfigurationException(TYPE, tag, "band",
+                        "must be between 0 and " + (bands - 1) + ": " + band);
+            }
+            final int bandStart = MinHashSignatures.substringStart(numOfBits,
+                    bands, band);
+            final int bandLength = MinHashSignatures.substringStart(numOfBits,
+                    bands, band + 1) - bandStart;
+            if (bandLength > Long.SIZE) {
+                throw newConfigurationException(TYPE, tag, "bands",
+                        "must be at least " + (numOfBits + Long.SIZE - 1)
+                                / Long.SIZE + " for bands of at most 64 bits: "
+                                + bands);
+            }
+            final Analyzer analyzer = analysisRegistry
+                    .getAnalyzer(analyzerName);
+            if (analyzer == null) {
+                throw newConfigurationException(TYPE, tag, "analyzer",
+                        "unknown analyzer [" + analyzerName + "]");
+            }
+
+            final HashFunction[] hashFunctions = MinHash
+                    .createHashFunctions(seed, size);
+            return new MinHashRoutingProcessor(tag, description, field,
+                    ignoreMissing, analyzer, hashFunctions,
+                    MurmurHashes.seeds(hashFunctions), hashBit, bandStart,
+                    bandLength);
+        }
+    }
+}
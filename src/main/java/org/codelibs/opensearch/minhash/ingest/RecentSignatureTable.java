@@ -0,0 +1,257 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.ingest;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.codelibs.opensearch.minhash.util.LongIntHashMap;
+import org.codelibs.opensearch.minhash.util.MinHashSignatures;
+
+/**
+ * An in-memory LSH table of the signatures seen in a rolling time window.
+ * The signatures are split into bands, and each band is a key of a
+ * primitive hash map per time bucket, which points to the chain of all
+ * signatures of the bucket with that band. Buckets older than the window are
+ * dropped, and the oldest buckets are also dropped when the estimated
+ * memory exceeds the limit.
+ */
+public class RecentSignatureTable {
+
+    static final int NUM_OF_BUCKETS = 16;
+
+    private final int numOfBits;
+
+    private final int numOfBands;
+
+    private final int maxDistance;
+
+    private final long windowMillis;
+
+    private final long bucketMillis;
+
+    private final long maxMemory;
+
+    private final ArrayDeque<Bucket> buckets = new ArrayDeque<>();
+
+    private long memory;
+
+    private long rejected;
+
+    public RecentSignatureTable(final int numOfBits, final int numOfBands,
+            final int maxDistance, final long windowMillis,
+            final long maxMemory) {
+        if (numOfBands <= 0 || numOfBands > numOfBits) {
+            throw new IllegalArgumentException("bands must be between 1 and "
+                    + numOfBits + ": " + numOfBands);
+        }
+        if ((numOfBits + numOfBands - 1) / numOfBands > 64) {
+            throw new IllegalArgumentException("bands must be at least "
+                    + (numOfBits + 63) / 64 + " for " + numOfBits + " bits: "
+                    + numOfBands);
+        }
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException(
+                    "window must be positive: " + windowMillis);
+        }
+        this.numOfBits = numOfBits;
+        this.numOfBands = numOfBands;
+        this.maxDistance = maxDistance;
+        this.windowMillis = windowMillis;
+        this.bucketMillis = Math.max(1, windowMillis / NUM_OF_BUCKETS);
+        this.maxMemory = maxMemory;
+    }
+
+    /**
+     * Returns the oldest signature within the maximum distance of the given
+     * one, or null if there is none. A signature without a match is added
+     * to the table if {@code add} is true.
+     */
+    public synchronized Match findOrAdd(final long[] signature,
+            final String id, final boolean add, final long now) {
+        expire(now);
+
+        final long[] keys = bandKeys(signature);
+        for (final Bucket bucket : buckets) {
+            for (int band = 0; band < numOfBands; band++) {
+                int index = bucket.table.get(keys[band]);
+                while (index >= 0) {
+                    final int distance = MinHashSignatures.hammingDistance(
+                            signature, bucket.signatures[index]);
+                    if (distance <= maxDistance) {
+                        return new Match(bucket.ids[index], distance);
+                    }
+                    index = bucket.next[index * numOfBands + band];
+                }
+            }
+        }
+
+        if (add) {
+            add(signature, id, keys, now);
+        }
+        return null;
+    }
+
+    private long[] bandKeys(final long[] signature) {
+        final long[] keys = new long[numOfBands];
+        for (int i = 0; i < numOfBands; i++) {
+            final int start = MinHashSignatures.substringStart(numOfBits,
+                    numOfBands, i);
+            final int end = MinHashSignatures.substringStart(numOfBits,
+                    numOfBands, i + 1);
+            final long value = MinHashSignatures.bits(signature, start,
+                    end - start);
+            keys[i] = LongIntHashMap
+                    .mix(value + (i + 1) * 0x9e3779b97f4a7c15L);
+        }
+        return keys;
+    }
+
+    private void add(final long[] signature, final String id,
+            final long[] keys, final long now) {
+        final long start = now - Math.floorMod(now, bucketMillis);
+        Bucket bucket = buckets.peekLast();
+        if (bucket == null || bucket.start != start) {
+            bucket = new Bucket(start, numOfBands);
+            buckets.addLast(bucket);
+            memory += bucket.ramBytesUsed();
+        }
+
+        final long before = bucket.ramBytesUsed();
+        bucket.add(signature, id, keys);
+        memory += bucket.ramBytesUsed() - before;
+
+        while (memory > maxMemory && buckets.size() > 1) {
+            memory -= buckets.removeFirst().ramBytesUsed();
+        }
+        if (memory > maxMemory) {
+            // a single bucket exceeds the limit, so start over
+            memory -= buckets.removeFirst().ramBytesUsed();
+            rejected++;
+        }
+    }
+
+    private void expire(final long now) {
+        final Iterator<Bucket> iterator = buckets.iterator();
+        while (iterator.hasNext()) {
+            final Bucket bucket = iterator.next();
+            if (bucket.start + bucketMillis > now - windowMillis) {
+                break;
+            }
+            memory -= bucket.ramBytesUsed();
+            iterator.remove();
+        }
+    }
+
+    public synchronized int size() {
+        int size = 0;
+        for (final Bucket bucket : buckets) {
+            size += bucket.size;
+        }
+        return size;
+    }
+
+    public synchronized long ramBytesUsed() {
+        return memory;
+    }
+
+    /**
+     * Returns how many times a bucket was dropped because it alone
+     * exceeded the memory limit.
+     */
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    public static final class Match {
+
+        private final String id;
+
+        private final int distance;
+
+        Match(final String id, final int distance) {
+            this.id = id;
+            this.distance = distance;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public int getDistance() {
+            return distance;
+        }
+    }
+
+    private static final class Bucket {
+
+        private static final long SHALLOW_SIZE = 64;
+
+        private final long start;
+
+        private final LongIntHashMap table = new LongIntHashMap();
+
+        private final int numOfBands;
+
+        private long[][] signatures = new long[16][];
+
+        private String[] ids = new String[16];
+
+        /**
+         * The previous signature with the same band value, per signature
+         * and band, or -1 at the end of a chain.
+         */
+        private int[] next;
+
+        private int size;
+
+        private long entryBytes;
+
+        Bucket(final long start, final int numOfBands) {
+            this.start = start;
+            this.numOfBands = numOfBands;
+            this.next = new int[signatures.length * numOfBands];
+        }
+
+        void add(final long[] signature, final String id,
+                final long[] keys) {
+            if (size == signatures.length) {
+                signatures = Arrays.copyOf(signatures, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+                next = Arrays.copyOf(next, size * 2 * numOfBands);
+            }
+            signatures[size] = signature;
+            ids[size] = id;
+            for (int band = 0; band < numOfBands; band++) {
+                // the latest signature is the head of the chain of its band
+                next[size * numOfBands + band] = table.get(keys[band]);
+                table.put(keys[band], size);
+            }
+            size++;
+            entryBytes += 16 + (long) signature.length * Long.BYTES;
+            if (id != null) {
+                entryBytes += 40 + (long) id.length() * Character.BYTES;
+            }
+        }
+
+        long ramBytesUsed() {
+            return SHALLOW_SIZE + table.ramBytesUsed()
+                    + (long) signatures.length * 2 * 8
+                    + (long) next.length * Integer.BYTES + entryBytes;
+        }
+    }
+}
@@ -0,0 +1,453 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.reference;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.opensearch.ExceptionsHelper;
+import org.opensearch.ResourceAlreadyExistsException;
+import org.opensearch.action.DocWriteRequest;
+import org.opensearch.action.admin.indices.create.CreateIndexRequest;
+import org.opensearch.action.admin.indices.mapping.put.PutMappingRequest;
+import org.opensearch.action.bulk.BulkRequest;
+import org.opensearch.action.index.IndexRequest;
+import org.opensearch.action.search.SearchResponse;
+import org.opensearch.action.support.ContextPreservingActionListener;
+import org.opensearch.action.support.WriteRequest;
+import org.opensearch.cluster.ClusterChangedEvent;
+import org.opensearch.cluster.ClusterStateListener;
+import org.opensearch.cluster.metadata.IndexMetadata;
+import org.opensearch.cluster.metadata.MappingMetadata;
+import org.opensearch.cluster.routing.IndexRoutingTable;
+import org.opensearch.cluster.service.ClusterService;
+import org.opensearch.common.CheckedConsumer;
+import org.opensearch.common.UUIDs;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.unit.TimeValue;
+import org.opensearch.common.util.concurrent.ThreadContext;
+import org.opensearch.common.xcontent.XContentFactory;
+import org.opensearch.core.action.ActionListener;
+import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.gateway.GatewayService;
+import org.opensearch.index.engine.VersionConflictEngineException;
+import org.opensearch.index.query.QueryBuilder;
+import org.opensearch.index.query.QueryBuilders;
+import org.opensearch.search.SearchHit;
+import org.opensearch.search.sort.FieldSortBuilder;
+import org.opensearch.search.sort.SortOrder;
+import org.opensearch.threadpool.ThreadPool;
+import org.opensearch.transport.client.Client;
+
+/**
+ * Keeps the reference sets of the {@value #INDEX_NAME} system index as
+ * memory-mapped {@link MinHashReferenceTable}s on each node. The signatures
+ * are the documents of the index, and the version, bits and bands of each
+ * set are kept in a document of their own. A registration changes the
+ * generation in the {@code _meta} of the mapping, so every node sees it in
+ * the cluster state, reads the sets and rebuilds the tables of the changed
+ * ones in the background. The tables are also rebuilt when the node starts.
+ */
+public class MinHashReferenceService implements ClusterStateListener {
+
+    private static final Logger logger = LogManager
+            .getLogger(MinHashReferenceService.class);
+
+    public static final String INDEX_NAME = ".minhash-references";
+
+    private static final String GENERATION_META = "generation";
+
+    // set names have no '#', so these ids differ from those of references
+    private static final String SET_ID_PREFIX = "#";
+
+    private static final String TABLE_SUFFIX = ".tbl";
+
+    private static final int BATCH_SIZE = 5000;
+
+    private static final TimeValue KEEP_ALIVE = TimeValue.timeValueMinutes(1);
+
+    private final Client client;
+
+    private final ClusterService clusterService;
+
+    private final ThreadPool threadPool;
+
+    private final Path path;
+
+    private final Map<String, MinHashReferenceTable> tables = new ConcurrentHashMap<>();
+
+    private final Map<String, String> versions = new ConcurrentHashMap<>();
+
+    private String generation;
+
+    public MinHashReferenceService(final Client client,
+            final ClusterService clusterService, final ThreadPool threadPool,
+            final Path path) {
+        this.client = client;
+        this.clusterService = clusterService;
+        this.threadPool = threadPool;
+        this.path = path;
+        try {
+            Files.createDirectories(path);
+            // the tables of a previous run are rebuilt from the index
+            try (DirectoryStream<Path> stream = Files
+                    .newDirectoryStream(path)) {
+                for (final Path file : stream) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(
+                    "failed to prepare the reference tables in " + path, e);
+        }
+        clusterService.addListener(this);
+    }
+
+    /**
+     * Returns the table of a reference set, or null if the set is unknown
+     * or not loaded yet.
+     */
+    public MinHashReferenceTable getTable(final String set) {
+        return tables.get(set);
+    }
+
+    /**
+     * Adds references to a set, replacing those with the same ids, and
+     * returns the new version of the set once it is written to the system
+     * index. The signatures must have as many bits as those of the set.
+     */
+    public void register(final String set, final int bands,
+            final Map<String, byte[]> references,
+            final ActionListener<String> listener) {
+        final int bits = references.values().iterator().next().length * 8;
+        final ThreadContext threadContext = threadPool.getThreadContext();
+        final ActionListener<String> restoring = new ContextPreservingActionListener<>(
+                threadContext.newRestorableContext(false), listener);
+        try (ThreadContext.StoredContext ignore = threadContext
+                .stashContext()) {
+            createIndex(ActionListener.wrap(
+                    created -> reserve(set, bits, ActionListener.wrap(
+                            reserved -> index(set, references,
+                                    ActionListener.wrap(
+                                            indexed -> updateVersion(set,
+                                                    bands, bits, restoring),
+                                            restoring::onFailure)),
+                            restoring::onFailure)),
+                    restoring::onFailure));
+        }
+    }
+
+    private void createIndex(final ActionListener<Void> listener) {
+        if (clusterService.state().metadata().hasIndex(INDEX_NAME)) {
+            listener.onResponse(null);
+            return;
+        }
+        final CreateIndexRequest request = new CreateIndexRequest(INDEX_NAME);
+        try {
+            request.settings(Settings.builder()
+                    .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1)
+                    .put(IndexMetadata.SETTING_AUTO_EXPAND_REPLICAS, "0-1")
+                    .put(IndexMetadata.SETTING_INDEX_HIDDEN, true).build());
+            request.mapping(mapping(UUIDs.randomBase64UUID()));
+        } catch (final IOException e) {
+            listener.onFailure(e);
+            return;
+        }
+        client.admin().indices().create(request,
+                ActionListener.wrap(response -> listener.onResponse(null),
+                        e -> {
+                            if (ExceptionsHelper.unwrapCause(
+                                    e) instanceof ResourceAlreadyExistsException) {
+                                listener.onResponse(null);
+                            } else {
+                                listener.onFailure(e);
+                            }
+                        }));
+    }
+
+    private static XContentBuilder mapping(final String generation)
+            throws IOException {
+        return XContentFactory.jsonBuilder().startObject()
+                .field("dynamic", "strict")
+                .startObject("_meta").field(GENERATION_META, generation)
+                .endObject()
+                .startObject("properties")
+                .startObject("set").field("type", "keyword").endObject()
+                .startObject("id").field("type", "keyword").endObject()
+                .startObject("signature").field("type", "binary").endObject()
+                .startObject("version").field("type", "keyword").endObject()
+                .startObject("bits").field("type", "integer").endObject()
+                .startObject("bands").field("type", "integer").endObject()
+                .endObject()
+                .endObject();
+    }
+
+    /**
+     * Creates the document of a set with the bits of its signatures, or
+     * checks that the signatures have as many bits as those of the set.
+     */
+    private void reserve(final String set, final int bits,
+            final ActionListener<Void> listener) {
+        client.prepareGet(INDEX_NAME, SET_ID_PREFIX + set)
+                .execute(ActionListener.wrap(response -> {
+                    if (response.isExists()) {
+                        final int numOfBits = ((Number) response.getSource()
+                                .get("bits")).intValue();
+                        if (numOfBits != bits) {
+                            listener.onFailure(new IllegalArgumentException(
+                                    "signatures have " + bits
+                                            + " bits, the set [" + set
+                                            + "] has " + numOfBits));
+                        } else {
+                            listener.onResponse(null);
+                        }
+                        return;
+                    }
+                    final Map<String, Object> source = new HashMap<>();
+                    source.put("set", set);
+                    source.put("bits", bits);
+                    client.index(new IndexRequest(INDEX_NAME)
+                            .id(SET_ID_PREFIX + set).source(source)
+                            .opType(DocWriteRequest.OpType.CREATE),
+                            ActionListener.wrap(
+                                    created -> listener.onResponse(null),
+                                    e -> {
+                                        if (ExceptionsHelper.unwrapCause(
+                                                e) instanceof VersionConflictEngineException) {
+                                            // registered concurrently
+                                            reserve(set, bits, listener);
+                                        } else {
+                                            listener.onFailure(e);
+                                        }
+                                    }));
+                }, listener::onFailure));
+    }
+
+    private void index(final String set, final Map<String, byte[]> references,
+            final ActionListener<Void> listener) {
+        final BulkRequest request = new BulkRequest();
+        for (final Map.Entry<String, byte[]> entry : references.entrySet()) {
+            final Map<String, Object> source = new HashMap<>();
+            source.put("set", set);
+            source.put("id", entry.getKey());
+            source.put("signature",
+                    Base64.getEncoder().encodeToString(entry.getValue()));
+            request.add(new IndexRequest(INDEX_NAME)
+                    .id(set + "#" + entry.getKey()).source(source));
+        }
+        request.setRefreshPolicy(WriteRequest.RefreshPolicy.IMMEDIATE);
+        client.bulk(request, ActionListener.wrap(response -> {
+            if (response.hasFailures()) {
+                listener.onFailure(new IllegalStateException(
+                        "failed to register references of [" + set + "]: "
+                                + response.buildFailureMessage()));
+            } else {
+                listener.onResponse(null);
+            }
+        }, listener::onFailure));
+    }
+
+    /**
+     * Writes a new version of a set to its document, and changes the
+     * generation so that the nodes read the sets again. Registrations of
+     * other sets only change their own documents, so none is lost.
+     */
+    private void updateVersion(final String set, final int bands,
+            final int bits, final ActionListener<String> listener) {
+        final String version = UUIDs.randomBase64UUID();
+        final Map<String, Object> source = new HashMap<>();
+        source.put("set", set);
+        source.put("version", version);
+        source.put("bits", bits);
+        source.put("bands", bands);
+        client.index(new IndexRequest(INDEX_NAME).id(SET_ID_PREFIX + set)
+                .source(source)
+                .setRefreshPolicy(WriteRequest.RefreshPolicy.IMMEDIATE),
+                ActionListener.wrap(indexed -> {
+                    final PutMappingRequest request = new PutMappingRequest(
+                            INDEX_NAME);
+                    request.source(mapping(UUIDs.randomBase64UUID()));
+                    client.admin().indices().putMapping(request,
+                            ActionListener.wrap(
+                                    response -> listener.onResponse(version),
+                                    listener::onFailure));
+                }, listener::onFailure));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String generation(final IndexMetadata indexMetadata) {
+        final MappingMetadata mapping = indexMetadata.mapping();
+        if (mapping == null) {
+            return null;
+        }
+        final Object meta = mapping.sourceAsMap().get("_meta");
+        if (!(meta instanceof Map)) {
+            return null;
+        }
+        final Object generation = ((Map<String, Object>) meta)
+                .get(GENERATION_META);
+        return generation instanceof String ? (String) generation : null;
+    }
+
+    @Override
+    public void clusterChanged(final ClusterChangedEvent event) {
+        if (event.state().blocks()
+                .hasGlobalBlock(GatewayService.STATE_NOT_RECOVERED_BLOCK)) {
+            return;
+        }
+        final IndexMetadata indexMetadata = event.state().metadata()
+                .index(INDEX_NAME);
+        if (indexMetadata == null) {
+            synchronized (this) {
+                generation = null;
+            }
+            for (final String set : versions.keySet()) {
+                versions.remove(set);
+                remove(set);
+            }
+            return;
+        }
+        final IndexRoutingTable routingTable = event.state().routingTable()
+                .index(INDEX_NAME);
+        if (routingTable == null || !routingTable.allPrimaryShardsActive()) {
+            return;
+        }
+        final String current = generation(indexMetadata);
+        synchronized (this) {
+            if (current == null || current.equals(generation)) {
+                return;
+            }
+            generation = current;
+        }
+        threadPool.generic().execute(() -> refresh(current));
+    }
+
+    /**
+     * Reads the sets of a generation and loads those with a new version.
+     */
+    private void refresh(final String current) {
+        final Map<String, Map<String, Object>> sets = new HashMap<>();
+        try (ThreadContext.StoredContext ignore = threadPool.getThreadContext()
+                .stashContext()) {
+            scroll(QueryBuilders.existsQuery("version"),
+                    source -> sets.put((String) source.get("set"), source));
+        } catch (final Exception e) {
+            logger.warn("Failed to read the reference sets.", e);
+            synchronized (this) {
+                // retried on the next cluster state change
+                if (current.equals(generation)) {
+                    generation = null;
+                }
+            }
+            return;
+        }
+        for (final String set : versions.keySet()) {
+            if (!sets.containsKey(set)) {
+                versions.remove(set);
+                remove(set);
+            }
+        }
+        for (final Map.Entry<String, Map<String, Object>> entry : sets
+                .entrySet()) {
+            final Map<String, Object> meta = entry.getValue();
+            final String set = entry.getKey();
+            final String version = (String) meta.get("version");
+            if (!version.equals(versions.put(set, version))) {
+                final int bits = ((Number) meta.get("bits")).intValue();
+                final int bands = ((Number) meta.get("bands")).intValue();
+                threadPool.generic()
+                        .execute(() -> load(set, version, bits, bands));
+            }
+        }
+    }
+
+    private void scroll(final QueryBuilder query,
+            final CheckedConsumer<Map<String, Object>, IOException> consumer)
+            throws IOException {
+        SearchResponse response = client.prepareSearch(INDEX_NAME)
+                .setQuery(query)
+                .addSort(FieldSortBuilder.DOC_FIELD_NAME, SortOrder.ASC)
+                .setScroll(KEEP_ALIVE).setSize(BATCH_SIZE).get();
+        try {
+            while (response.getHits().getHits().length > 0) {
+                for (final SearchHit hit : response.getHits().getHits()) {
+                    consumer.accept(hit.getSourceAsMap());
+                }
+                response = client.prepareSearchScroll(response.getScrollId())
+                        .setScroll(KEEP_ALIVE).get();
+            }
+        } finally {
+            client.prepareClearScroll().addScrollId(response.getScrollId())
+                    .get();
+        }
+    }
+
+    private void load(final String set, final String version, final int bits,
+            final int bands) {
+        final long startTime = System.nanoTime();
+        final Path file = path.resolve(set + "-" + version + TABLE_SUFFIX);
+        try (ThreadContext.StoredContext ignore = threadPool.getThreadContext()
+                .stashContext();
+                MinHashReferenceTable.Builder builder = new MinHashReferenceTable.Builder(
+                        file, bits, bands)) {
+            scroll(QueryBuilders.boolQuery()
+                    .filter(QueryBuilders.termQuery("set", set))
+                    .filter(QueryBuilders.existsQuery("id")),
+                    source -> builder.add((String) source.get("id"),
+                            Base64.getDecoder().decode(
+                                    (String) source.get("signature"))));
+            final MinHashReferenceTable table = builder.build();
+            synchronized (this) {
+                if (!version.equals(versions.get(set))) {
+                    // a newer version is loading
+                    Files.deleteIfExists(table.getPath());
+                    return;
+                }
+                final MinHashReferenceTable old = tables.put(set, table);
+                if (old != null) {
+                    Files.deleteIfExists(old.getPath());
+                }
+            }
+            logger.info("Loaded {} references of [{}] in {}ms.", table.size(),
+                    set, (System.nanoTime() - startTime) / 1000000);
+        } catch (final Exception e) {
+            logger.warn("Failed to load the references of [" + set + "].", e);
+            // retried on the next cluster state change
+            versions.remove(set, version);
+        }
+    }
+
+    private synchronized void remove(final String set) {
+        final MinHashReferenceTable table = tables.remove(set);
+        if (table != null) {
+            try {
+                // the mapping is released when the table is collected
+                Files.deleteIfExists(table.getPath());
+            } catch (final IOException e) {
+                logger.warn("Failed to delete " + table.getPath(), e);
+            }
+        }
+    }
+}
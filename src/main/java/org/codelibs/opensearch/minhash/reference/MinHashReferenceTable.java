@@ -0,0 +1,470 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.reference;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.apache.lucene.util.IntroSorter;
+import org.codelibs.opensearch.minhash.util.MinHashSignatures;
+
+/**
+ * A read-only LSH table of reference signatures in a memory-mapped file.
+ * The signatures are split into bands, and each band is a sorted array of
+ * band values with the signatures that have them, so a lookup is a binary
+ * search per band followed by a Hamming distance check of the candidates.
+ * Nothing but the mapped buffers is kept on the heap.
+ */
+public final class MinHashReferenceTable {
+
+    private static final int MAGIC = 0x4d485246;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 32;
+
+    private final Path path;
+
+    private final int numOfBits;
+
+    private final int numOfBands;
+
+    private final int numOfWords;
+
+    private final int count;
+
+    private final MappedByteBuffer signatures;
+
+    private final MappedByteBuffer idOffsets;
+
+    private final MappedByteBuffer ids;
+
+    private final MappedByteBuffer[] keys;
+
+    private final MappedByteBuffer[] docs;
+
+    private MinHashReferenceTable(final Path path, final FileChannel channel)
+            throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("truncated reference table: " + path);
+            }
+        }
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("not a reference table: " + path);
+        }
+        this.path = path;
+        numOfBits = header.getInt();
+        numOfBands = header.getInt();
+        count = header.getInt();
+        header.getInt();
+        final long idBytes = header.getLong();
+        numOfWords = (numOfBits + 63) / 64;
+
+        long offset = HEADER_BYTES;
+        signatures = map(channel, offset, (long) count * numOfWords * 8);
+        offset += (long) count * numOfWords * 8;
+        idOffsets = map(channel, offset, (count + 1L) * 8);
+        offset += (count + 1L) * 8;
+        ids = map(channel, offset, idBytes);
+        offset += align(idBytes);
+        keys = new MappedByteBuffer[numOfBands];
+        docs = new MappedByteBuffer[numOfBands];
+        for (int i = 0; i < numOfBands; i++) {
+            keys[i] = map(channel, offset, (long) count * 8);
+            offset += (long) count * 8;
+            docs[i] = map(channel, offset, (long) count * 4);
+            offset += align((long) count * 4);
+        }
+    }
+
+    private static MappedByteBuffer map(final FileChannel channel,
+            final long offset, final long length) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+    }
+
+    private static long align(final long length) {
+        return (length + 7) & ~7L;
+    }
+
+    /**
+     * Maps a table written by {@link Builder}.
+     */
+    public static MinHashReferenceTable open(final Path path)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.READ)) {
+            // the mappings stay valid after the channel is closed
+            return new MinHashReferenceTable(path, channel);
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int getNumOfBits() {
+        return numOfBits;
+    }
+
+    public int getNumOfBands() {
+        return numOfBands;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns the closest reference within the maximum distance of a
+     * signature packed by {@link MinHashSignatures#toLongs(byte[])}, or null
+     * if no reference shares a band with it or all are farther.
+     */
+    public Match find(final long[] signature, final int maxDistance) {
+        if (signature.length != numOfWords) {
+            throw new IllegalArgumentException("signature has "
+                    + signature.length * 64 + " bits, the references have "
+                    + numOfBits);
+        }
+        int bestDoc = -1;
+        int bestDistance = maxDistance + 1;
+        for (int band = 0; band < numOfBands; band++) {
+            final int start = MinHashSignatures.substringStart(numOfBits,
+                    numOfBands, band);
+            final int end = MinHashSignatures.substringStart(numOfBits,
+                    numOfBands, band + 1);
+            final long key = MinHashSignatures.bits(signature, start,
+                    end - start);
+            for (int i = lowerBound(keys[band], key); i < count
+                    && keys[band].getLong(i << 3) == key; i++) {
+                final int doc = docs[band].getInt(i << 2);
+                final int distance = distance(doc, signature,
+                        bestDistance - 1);
+                if (distance < bestDistance) {
+                    bestDoc = doc;
+                    bestDistance = distance;
+                    if (distance == 0) {
+                        return new Match(id(doc), 0);
+                    }
+                }
+            }
+        }
+        return bestDoc < 0 ? null : new Match(id(bestDoc), bestDistance);
+    }
+
+    private int lowerBound(final MappedByteBuffer values, final long key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (values.getLong(mid << 3) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int distance(final int doc, final long[] signature,
+            final int maxDistance) {
+        final long offset = (long) doc * numOfWords;
+        int distance = 0;
+        for (int i = 0; i < numOfWords && distance <= maxDistance; i++) {
+            distance += Long.bitCount(signatures
+                    .getLong((int) ((offset + i) << 3)) ^ signature[i]);
+        }
+        return distance;
+    }
+
+    private String id(final int doc) {
+        final int start = (int) idOffsets.getLong(doc << 3);
+        final int end = (int) idOffsets.getLong((doc + 1) << 3);
+        final byte[] bytes = new byte[end - start];
+        ids.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static final class Match {
+
+        private final String id;
+
+        private final int distance;
+
+        Match(final String id, final int distance) {
+            this.id = id;
+            this.distance = distance;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public int getDistance() {
+            return distance;
+        }
+    }
+
+    /**
+     * Writes the references to temporary files as they are added, and sorts
+     * one band at a time into the table file on {@link #build()}, so only
+     * the values of one band are on the heap while building.
+     */
+    public static final class Builder implements Closeable {
+
+        private final Path path;
+
+        private final int numOfBits;
+
+        private final int numOfBands;
+
+        private final int numOfWords;
+
+        private final Path signaturesPath;
+
+        private final Path idsPath;
+
+        private final DataOutputStream signatureOut;
+
+        private final DataOutputStream idOut;
+
+        private long[] idOffsets = new long[1024];
+
+        private int count;
+
+        private long idBytes;
+
+        public Builder(final Path path, final int numOfBits,
+                final int numOfBands) throws IOException {
+            if (numOfBits <= 0) {
+                throw new IllegalArgumentException(
+                        "bits must be positive: " + numOfBits);
+            }
+            if (numOfBands <= 0 || numOfBands > numOfBits) {
+                throw new IllegalArgumentException("bands must be between 1 and "
+                        + numOfBits + ": " + numOfBands);
+            }
+            if ((numOfBits + numOfBands - 1) / numOfBands > 64) {
+                throw new IllegalArgumentException("bands must be at least "
+                        + (numOfBits + 63) / 64 + " for " + numOfBits
+                        + " bits: " + numOfBands);
+            }
+            this.path = path;
+            this.numOfBits = numOfBits;
+            this.numOfBands = numOfBands;
+            this.numOfWords = (numOfBits + 63) / 64;
+            this.signaturesPath = path.resolveSibling(
+                    path.getFileName() + ".signatures.tmp");
+            this.idsPath = path.resolveSibling(
+                    path.getFileName() + ".ids.tmp");
+            this.signatureOut = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(signaturesPath)));
+            this.idOut = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(idsPath)));
+        }
+
+        public void add(final String id, final byte[] signature)
+                throws IOException {
+            if (signature.length * 8 != numOfBits) {
+                throw new IllegalArgumentException("signature of [" + id
+                        + "] has " + signature.length * 8
+                        + " bits, expected " + numOfBits);
+            }
+            if (count == Integer.MAX_VALUE / 8 / numOfWords) {
+                throw new IllegalArgumentException(
+                        "too many references: " + count);
+            }
+            for (final long word : MinHashSignatures.toLongs(signature)) {
+                signatureOut.writeLong(word);
+            }
+            final byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+            if (idBytes + bytes.length > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(
+                        "too many reference ids: " + count);
+            }
+            idOut.write(bytes);
+            if (count + 1 == idOffsets.length) {
+                idOffsets = Arrays.copyOf(idOffsets, idOffsets.length * 2);
+            }
+            idBytes += bytes.length;
+            idOffsets[++count] = idBytes;
+        }
+
+        public int size() {
+            return count;
+        }
+
+        public MinHashReferenceTable build() throws IOException {
+            signatureOut.close();
+            idOut.close();
+            try (FileChannel out = FileChannel.open(path,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                    FileChannel signatureIn = FileChannel.open(signaturesPath,
+                            StandardOpenOption.READ);
+                    FileChannel idIn = FileChannel.open(idsPath,
+                            StandardOpenOption.READ)) {
+                final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putInt(MAGIC).putInt(VERSION).putInt(numOfBits)
+                        .putInt(numOfBands).putInt(count).putInt(0)
+                        .putLong(idBytes).flip();
+                write(out, header);
+                transfer(signatureIn, out);
+
+                final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+                for (int i = 0; i <= count; i++) {
+                    putLong(out, buffer, idOffsets[i]);
+                }
+                flush(out, buffer);
+                transfer(idIn, out);
+                pad(out, buffer, idBytes);
+
+                final MappedByteBuffer signatures = signatureIn.map(
+                        FileChannel.MapMode.READ_ONLY, 0, signatureIn.size());
+                for (int band = 0; band < numOfBands; band++) {
+                    writeBand(out, buffer, signatures, band);
+                }
+                out.force(false);
+            } catch (final IOException | RuntimeException e) {
+                Files.deleteIfExists(path);
+                throw e;
+            } finally {
+                close();
+            }
+            return open(path);
+        }
+
+        private void writeBand(final FileChannel out, final ByteBuffer buffer,
+                final MappedByteBuffer signatures, final int band)
+                throws IOException {
+            final int start = MinHashSignatures.substringStart(numOfBits,
+                    numOfBands, band);
+            final int end = MinHashSignatures.substringStart(numOfBits,
+                    numOfBands, band + 1);
+            final long[] keys = new long[count];
+            final int[] docs = new int[count];
+            final long[] signature = new long[numOfWords];
+            for (int doc = 0; doc < count; doc++) {
+                for (int i = 0; i < numOfWords; i++) {
+                    signature[i] = signatures
+                            .getLong((doc * numOfWords + i) << 3);
+                }
+                keys[doc] = MinHashSignatures.bits(signature, start,
+                        end - start);
+                docs[doc] = doc;
+            }
+            new IntroSorter() {
+                private long pivot;
+
+                @Override
+                protected void setPivot(final int i) {
+                    pivot = keys[i];
+                }
+
+                @Override
+                protected int comparePivot(final int j) {
+                    return Long.compare(pivot, keys[j]);
+                }
+
+                @Override
+                protected int compare(final int i, final int j) {
+                    return Long.compare(keys[i], keys[j]);
+                }
+
+                @Override
+                protected void swap(final int i, final int j) {
+                    final long key = keys[i];
+                    keys[i] = keys[j];
+                    keys[j] = key;
+                    final int doc = docs[i];
+                    docs[i] = docs[j];
+                    docs[j] = doc;
+                }
+            }.sort(0, count);
+            for (final long key : keys) {
+                putLong(out, buffer, key);
+            }
+            for (final int doc : docs) {
+                if (buffer.remaining() < 4) {
+                    flush(out, buffer);
+                }
+                buffer.putInt(doc);
+            }
+            pad(out, buffer, (long) count * 4);
+        }
+
+        private static void putLong(final FileChannel out,
+                final ByteBuffer buffer, final long value) throws IOException {
+            if (buffer.remaining() < 8) {
+                flush(out, buffer);
+            }
+            buffer.putLong(value);
+        }
+
+        private static void pad(final FileChannel out, final ByteBuffer buffer,
+                final long length) throws IOException {
+            for (long i = length; i < align(length); i++) {
+                if (!buffer.hasRemaining()) {
+                    flush(out, buffer);
+                }
+                buffer.put((byte) 0);
+            }
+            flush(out, buffer);
+        }
+
+        private static void flush(final FileChannel out,
+                final ByteBuffer buffer) throws IOException {
+            buffer.flip();
+            write(out, buffer);
+            buffer.clear();
+        }
+
+        private static void write(final FileChannel out,
+                final ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+        }
+
+        private static void transfer(final FileChannel in,
+                final FileChannel out) throws IOException {
+            final long size = in.size();
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            signatureOut.close();
+            idOut.close();
+            Files.deleteIfExists(signaturesPath);
+            Files.deleteIfExists(idsPath);
+        }
+    }
+}
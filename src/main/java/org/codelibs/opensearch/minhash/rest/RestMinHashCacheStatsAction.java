@@ -0,0 +1,61 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.rest;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+import static org.opensearch.rest.RestRequest.Method.GET;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.codelibs.opensearch.minhash.action.MinHashCacheStatsAction;
+import org.codelibs.opensearch.minhash.action.MinHashCacheStatsRequest;
+import org.opensearch.core.common.Strings;
+import org.opensearch.rest.BaseRestHandler;
+import org.opensearch.rest.RestRequest;
+import org.opensearch.rest.action.RestActions;
+import org.opensearch.transport.client.node.NodeClient;
+
+/**
+ * {@code GET /_minhash/_cache/stats} and
+ * {@code GET /_minhash/_cache/stats/{nodeId}}.
+ */
+public class RestMinHashCacheStatsAction extends BaseRestHandler {
+
+    @Override
+    public String getName() {
+        return "minhash_cache_stats_action";
+    }
+
+    @Override
+    public List<Route> routes() {
+        return unmodifiableList(
+                asList(new Route(GET, "/_minhash/_cache/stats"),
+                        new Route(GET, "/_minhash/_cache/stats/{nodeId}")));
+    }
+
+    @Override
+    protected RestChannelConsumer prepareRequest(final RestRequest request,
+            final NodeClient client) throws IOException {
+        final MinHashCacheStatsRequest statsRequest = new MinHashCacheStatsRequest(
+                Strings.splitStringByCommaToArray(request.param("nodeId")));
+        statsRequest.timeout(request.param("timeout"));
+        return channel -> client.execute(MinHashCacheStatsAction.INSTANCE,
+                statsRequest,
+                new RestActions.NodesResponseRestListener<>(channel));
+    }
+}
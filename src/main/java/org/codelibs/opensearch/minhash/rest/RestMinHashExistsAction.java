@@ -0,0 +1,109 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.rest;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+import static org.opensearch.rest.RestRequest.Method.GET;
+import static org.opensearch.rest.RestRequest.Method.POST;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codelibs.opensearch.minhash.action.MinHashExistsAction;
+import org.codelibs.opensearch.minhash.action.MinHashExistsRequest;
+import org.opensearch.action.support.IndicesOptions;
+import org.opensearch.core.common.Strings;
+import org.opensearch.core.xcontent.XContentParser;
+import org.opensearch.rest.BaseRestHandler;
+import org.opensearch.rest.RestRequest;
+import org.opensearch.rest.action.RestToXContentListener;
+import org.opensearch.transport.client.node.NodeClient;
+
+/**
+ * {@code POST /{index}/_minhash/_exists} with a body of
+ * {@code {"field": ..., "values": [...], "fingerprints": [...]}}.
+ */
+public class RestMinHashExistsAction extends BaseRestHandler {
+
+    @Override
+    public String getName() {
+        return "minhash_exists_action";
+    }
+
+    @Override
+    public List<Route> routes() {
+        return unmodifiableList(
+                asList(new Route(GET, "/{index}/_minhash/_exists"),
+                        new Route(POST, "/{index}/_minhash/_exists")));
+    }
+
+    @Override
+    protected RestChannelConsumer prepareRequest(final RestRequest request,
+            final NodeClient client) throws IOException {
+        final MinHashExistsRequest existsRequest = new MinHashExistsRequest(
+                Strings.splitStringByCommaToArray(request.param("index")));
+        existsRequest.indicesOptions(IndicesOptions.fromRequest(request,
+                existsRequest.indicesOptions()));
+        existsRequest.field(request.param("field"));
+        request.withContentOrSourceParamParserOrNull(parser -> {
+            if (parser != null) {
+                parse(parser, existsRequest);
+            }
+        });
+        return channel -> client.execute(MinHashExistsAction.INSTANCE,
+                existsRequest, new RestToXContentListener<>(channel));
+    }
+
+    private static void parse(final XContentParser parser,
+            final MinHashExistsRequest request) throws IOException {
+        final List<String> values = new ArrayList<>();
+        final List<Long> fingerprints = new ArrayList<>();
+        String currentFieldName = null;
+        XContentParser.Token token = parser.nextToken();
+        if (token != XContentParser.Token.START_OBJECT) {
+            throw new IllegalArgumentException(
+                    "request body must be an object");
+        }
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                currentFieldName = parser.currentName();
+            } else if (token == XContentParser.Token.START_ARRAY) {
+                if ("values".equals(currentFieldName)) {
+                    while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+                        values.add(parser.text());
+                    }
+                } else if ("fingerprints".equals(currentFieldName)) {
+                    while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+                        fingerprints.add(parser.longValue());
+                    }
+                } else {
+                    throw new IllegalArgumentException(
+                            "unknown field [" + currentFieldName + "]");
+                }
+            } else if (token.isValue() && "field".equals(currentFieldName)) {
+                request.field(parser.text());
+            } else {
+                throw new IllegalArgumentException(
+                        "unknown field [" + currentFieldName + "]");
+            }
+        }
+        request.values(values.toArray(new String[0]));
+        request.fingerprints(
+                fingerprints.stream().mapToLong(Long::longValue).toArray());
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.rest;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+import static org.opensearch.rest.RestRequest.Method.GET;
+import static org.opensearch.rest.RestRequest.Method.POST;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.codelibs.opensearch.minhash.action.MinHashJoinAction;
+import org.codelibs.opensearch.minhash.action.MinHashJoinRequest;
+import org.opensearch.common.unit.TimeValue;
+import org.opensearch.core.xcontent.XContentParser;
+import org.opensearch.rest.BaseRestHandler;
+import org.opensearch.rest.RestRequest;
+import org.opensearch.rest.action.RestToXContentListener;
+import org.opensearch.transport.client.node.NodeClient;
+
+/**
+ * {@code POST /_minhash/_join} with a body of
+ * {@code {"left": ..., "right": ..., "field": ..., "threshold": ...}}, and
+ * then with {@code {"cursor": ...}} added for each next batch.
+ */
+public class RestMinHashJoinAction extends BaseRestHandler {
+
+    @Override
+    public String getName() {
+        return "minhash_join_action";
+    }
+
+    @Override
+    public List<Route> routes() {
+        return unmodifiableList(asList(new Route(GET, "/_minhash/_join"),
+                new Route(POST, "/_minhash/_join")));
+    }
+
+    @Override
+    protected RestChannelConsumer prepareRequest(final RestRequest request,
+            final NodeClient client) throws IOException {
+        final MinHashJoinRequest joinRequest = new MinHashJoinRequest();
+        joinRequest.left(request.param("left"));
+        joinRequest.right(request.param("right"));
+        joinRequest.field(request.param("field"));
+        joinRequest.cursor(request.param("cursor"));
+        request.withContentOrSourceParamParserOrNull(parser -> {
+            if (parser != null) {
+                parse(parser, joinRequest);
+            }
+        });
+        return channel -> client.execute(MinHashJoinAction.INSTANCE,
+                joinRequest, new RestToXContentListener<>(channel));
+    }
+
+    private static void parse(final XContentParser parser,
+            final MinHashJoinRequest request) throws IOException {
+        String currentFieldName = null;
+        XContentParser.Token token = parser.nextToken();
+        if (token != XContentParser.Token.START_OBJECT) {
+            throw new IllegalArgumentException(
+                    "request body must be an object");
+        }
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                currentFieldName = parser.currentName();
+            } else if (token.isValue()) {
+                if ("left".equals(currentFieldName)) {
+                    request.left(parser.text());
+                } else if ("right".equals(currentFieldName)) {
+                    request.right(parser.text());
+                } else if ("field".equals(currentFieldName)) {
+                    request.field(parser.text());
+                } else if ("threshold".equals(currentFieldName)) {
+                    request.threshold(parser.floatValue());
+                } else if ("batch_size".equals(currentFieldName)) {
+                    request.batchSize(parser.intValue());
+                } else if ("max_matches".equals(currentFieldName)) {
+                    request.maxMatches(parser.intValue());
+                } else if ("keep_alive".equals(currentFieldName)) {
+                    request.keepAlive(TimeValue.parseTimeValue(parser.text(),
+                            "keep_alive"));
+                } else if ("cursor".equals(currentFieldName)) {
+                    request.cursor(parser.text());
+                } else {
+                    throw new IllegalArgumentException(
+                            "unknown field [" + currentFieldName + "]");
+                }
+            } else {
+                throw new IllegalArgumentException(
+                        "unknown field [" + currentFieldName + "]");
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.rest;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+import static org.opensearch.rest.RestRequest.Method.POST;
+import static org.opensearch.rest.RestRequest.Method.PUT;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.codelibs.opensearch.minhash.action.MinHashRegisterAction;
+import org.codelibs.opensearch.minhash.action.MinHashRegisterRequest;
+import org.opensearch.core.xcontent.XContentParser;
+import org.opensearch.rest.BaseRestHandler;
+import org.opensearch.rest.RestRequest;
+import org.opensearch.rest.action.RestToXContentListener;
+import org.opensearch.transport.client.node.NodeClient;
+
+/**
+ * {@code POST /_minhash/reference/{set}} with a body of
+ * {@code {"bands": 16, "bit_string": false, "references": {id: signature, ...}}}.
+ */
+public class RestMinHashRegisterAction extends BaseRestHandler {
+
+    @Override
+    public String getName() {
+        return "minhash_register_action";
+    }
+
+    @Override
+    public List<Route> routes() {
+        return unmodifiableList(
+                asList(new Route(POST, "/_minhash/reference/{set}"),
+                        new Route(PUT, "/_minhash/reference/{set}")));
+    }
+
+    @Override
+    protected RestChannelConsumer prepareRequest(final RestRequest request,
+            final NodeClient client) throws IOException {
+        final MinHashRegisterRequest registerRequest = new MinHashRegisterRequest(
+                request.param("set"));
+        try (XContentParser parser = request.contentParser()) {
+            parse(parser, registerRequest);
+        }
+        return channel -> client.execute(MinHashRegisterAction.INSTANCE,
+                registerRequest, new RestToXContentListener<>(channel));
+    }
+
+    private static void parse(final XContentParser parser,
+            final MinHashRegisterRequest request) throws IOException {
+        String currentFieldName = null;
+        XContentParser.Token token = parser.nextToken();
+        if (token != XContentParser.Token.START_OBJECT) {
+            throw new IllegalArgumentException(
+                    "request body must be an object");
+        }
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                currentFieldName = parser.currentName();
+            } else if (token == XContentParser.Token.START_OBJECT
+                    && "references".equals(currentFieldName)) {
+                while ((token = parser
+                        .nextToken()) != XContentParser.Token.END_OBJECT) {
+                    if (token == XContentParser.Token.FIELD_NAME) {
+                        final String id = parser.currentName();
+                        parser.nextToken();
+                        request.reference(id, parser.text());
+                    }
+                }
+            } else if (token.isValue()) {
+                if ("bands".equals(currentFieldName)) {
+                    request.bands(parser.intValue());
+                } else if ("bit_string".equals(currentFieldName)) {
+                    request.bitString(parser.booleanValue());
+                } else {
+                    throw new IllegalArgumentException(
+                            "unknown field [" + currentFieldName + "]");
+                }
+            } else {
+                throw new IllegalArgumentException(
+                        "unknown field [" + currentFieldName + "]");
+            }
+        }
+    }
+}
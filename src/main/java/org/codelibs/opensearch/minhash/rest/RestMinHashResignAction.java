@@ -0,0 +1,165 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.rest;
+
+import static java.util.Collections.singletonList;
+import static org.opensearch.rest.RestRequest.Method.POST;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.codelibs.opensearch.minhash.action.MinHashResignAction;
+import org.codelibs.opensearch.minhash.action.MinHashResignRequest;
+import org.opensearch.core.common.Strings;
+import org.opensearch.core.rest.RestStatus;
+import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.core.xcontent.XContentParser;
+import org.opensearch.index.reindex.AbstractBulkByScrollRequest;
+import org.opensearch.index.reindex.BulkByScrollResponse;
+import org.opensearch.rest.BaseRestHandler;
+import org.opensearch.rest.BytesRestResponse;
+import org.opensearch.rest.RestRequest;
+import org.opensearch.rest.RestResponse;
+import org.opensearch.rest.action.RestBuilderListener;
+import org.opensearch.tasks.LoggingTaskListener;
+import org.opensearch.tasks.Task;
+import org.opensearch.transport.client.node.NodeClient;
+
+/**
+ * {@code POST /{index}/_minhash/_resign}. With
+ * {@code wait_for_completion=false} the task id is returned at once and the
+ * result is stored in the tasks index.
+ */
+public class RestMinHashResignAction extends BaseRestHandler {
+
+    @Override
+    public String getName() {
+        return "minhash_resign_action";
+    }
+
+    @Override
+    public List<Route> routes() {
+        return singletonList(new Route(POST, "/{index}/_minhash/_resign"));
+    }
+
+    @Override
+    protected RestChannelConsumer prepareRequest(final RestRequest request,
+            final NodeClient client) throws IOException {
+        final MinHashResignRequest resignRequest = new MinHashResignRequest(
+                Strings.splitStringByCommaToArray(request.param("index")));
+        try (XContentParser parser = request.contentParser()) {
+            parse(parser, resignRequest);
+        }
+        final String slices = request.param("slices");
+        if (slices != null) {
+            resignRequest.slices(parseSlices(slices));
+        }
+        final String requestsPerSecond = request.param("requests_per_second");
+        if (requestsPerSecond != null) {
+            resignRequest.requestsPerSecond(
+                    parseRequestsPerSecond(requestsPerSecond));
+        }
+
+        if (!request.paramAsBoolean("wait_for_completion", true)) {
+            resignRequest.setShouldStoreResult(true);
+            final Task task = client.executeLocally(
+                    MinHashResignAction.INSTANCE, resignRequest,
+                    LoggingTaskListener.instance());
+            return channel -> {
+                try (XContentBuilder builder = channel.newBuilder()) {
+                    builder.startObject();
+                    builder.field("task",
+                            client.getLocalNodeId() + ":" + task.getId());
+                    builder.endObject();
+                    channel.sendResponse(
+                            new BytesRestResponse(RestStatus.OK, builder));
+                }
+            };
+        }
+
+        return channel -> client.execute(MinHashResignAction.INSTANCE,
+                resignRequest, new RestBuilderListener<BulkByScrollResponse>(
+                        channel) {
+                    @Override
+                    public RestResponse buildResponse(
+                            final BulkByScrollResponse response,
+                            final XContentBuilder builder) throws Exception {
+                        builder.startObject();
+                        response.toXContent(builder, request);
+                        builder.endObject();
+                        return new BytesRestResponse(RestStatus.OK, builder);
+                    }
+                });
+    }
+
+    private static void parse(final XContentParser parser,
+            final MinHashResignRequest request) throws IOException {
+        String currentFieldName = null;
+        XContentParser.Token token = parser.nextToken();
+        if (token != XContentParser.Token.START_OBJECT) {
+            throw new IllegalArgumentException(
+                    "request body must be an object");
+        }
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                currentFieldName = parser.currentName();
+            } else if (token.isValue()) {
+                if ("field".equals(currentFieldName)) {
+                    request.field(parser.text());
+                } else if ("target".equals(currentFieldName)) {
+                    request.target(parser.text());
+                } else if ("minhash_analyzer".equals(currentFieldName)) {
+                    request.minhashAnalyzer(parser.text());
+                } else if ("bit_string".equals(currentFieldName)) {
+                    request.bitString(parser.booleanValue());
+                } else if ("size".equals(currentFieldName)) {
+                    request.size(parser.intValue());
+                } else if ("bit".equals(currentFieldName)) {
+                    request.bit(parser.intValue());
+                } else if ("seed".equals(currentFieldName)) {
+                    request.seed(parser.intValue());
+                } else if ("slices".equals(currentFieldName)) {
+                    request.slices(parseSlices(parser.text()));
+                } else if ("requests_per_second".equals(currentFieldName)) {
+                    request.requestsPerSecond(
+                            parseRequestsPerSecond(parser.text()));
+                } else if ("batch_size".equals(currentFieldName)) {
+                    request.batchSize(parser.intValue());
+                } else {
+                    throw new IllegalArgumentException(
+                            "unknown field [" + currentFieldName + "]");
+                }
+            } else {
+                throw new IllegalArgumentException(
+                        "unknown field [" + currentFieldName + "]");
+            }
+        }
+    }
+
+    private static int parseSlices(final String value) {
+        if ("auto".equals(value)) {
+            return AbstractBulkByScrollRequest.AUTO_SLICES;
+        }
+        return Integer.parseInt(value);
+    }
+
+    private static float parseRequestsPerSecond(final String value) {
+        if ("-1".equals(value)) {
+            return Float.POSITIVE_INFINITY;
+        }
+        return Float.parseFloat(value);
+    }
+}
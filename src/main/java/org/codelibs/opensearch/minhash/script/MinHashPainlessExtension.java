@@ -0,0 +1,59 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.script;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.opensearch.painless.spi.PainlessExtension;
+import org.opensearch.painless.spi.Whitelist;
+import org.opensearch.painless.spi.WhitelistLoader;
+import org.opensearch.script.ScoreScript;
+import org.opensearch.script.ScriptContext;
+import org.opensearch.script.ScriptModule;
+
+/**
+ * Whitelists the script doc values of minhash fields in all core contexts
+ * and {@code minhashSimilarity} in {@code script_score}.
+ */
+public class MinHashPainlessExtension implements PainlessExtension {
+
+    private static final Whitelist DOC_VALUES_WHITELIST = WhitelistLoader
+            .loadFromResourceFiles(MinHashPainlessExtension.class,
+                    "minhash_whitelist.txt");
+
+    private static final Whitelist SCORE_WHITELIST = WhitelistLoader
+            .loadFromResourceFiles(MinHashPainlessExtension.class,
+                    "minhash_score_whitelist.txt");
+
+    @Override
+    public Map<ScriptContext<?>, List<Whitelist>> getContextWhitelists() {
+        final Map<ScriptContext<?>, List<Whitelist>> whitelists = new HashMap<>();
+        for (final ScriptContext<?> context : ScriptModule.CORE_CONTEXTS
+                .values()) {
+            whitelists.put(context,
+                    Collections.singletonList(DOC_VALUES_WHITELIST));
+        }
+        final List<Whitelist> scoreWhitelists = new ArrayList<>();
+        scoreWhitelists.add(DOC_VALUES_WHITELIST);
+        scoreWhitelists.add(SCORE_WHITELIST);
+        whitelists.put(ScoreScript.CONTEXT, scoreWhitelists);
+        return whitelists;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.script;
+
+import org.apache.lucene.util.BytesRef;
+import org.codelibs.opensearch.minhash.index.fielddata.MinHashScriptDocValues;
+import org.codelibs.opensearch.minhash.util.MinHashSignatures;
+
+/**
+ * The Painless class binding of
+ * {@code minhashSimilarity(params.signature, doc['field'])}. An instance is
+ * created once per script instance, so the query signature is decoded once,
+ * and each document's values are compared on their doc values bytes.
+ */
+public class MinHashSimilarity {
+
+    private final String value;
+
+    private byte[] signature;
+
+    private byte[] buffer;
+
+    public MinHashSimilarity(final String value) {
+        this.value = value;
+    }
+
+    /**
+     * Returns the highest fraction of equal bits between the signature and
+     * the values of the document, or 0 if it has no comparable value.
+     */
+    public double minhashSimilarity(final MinHashScriptDocValues docValues) {
+        if (signature == null) {
+            signature = MinHashSignatures.decode(value,
+                    docValues.isBitString());
+            buffer = new byte[signature.length + 1];
+        }
+        final int numOfBits = signature.length * 8;
+        int minDistance = numOfBits;
+        boolean found = false;
+        for (int i = 0; i < docValues.size(); i++) {
+            final BytesRef bytes = docValues.getBytesRef(i);
+            final int length = MinHashSignatures.decode(bytes,
+                    docValues.isBitString(), buffer);
+            if (length != signature.length) {
+                continue;
+            }
+            found = true;
+            minDistance = Math.min(minDistance, MinHashSignatures
+                    .hammingDistance(signature, buffer, length));
+        }
+        if (!found || numOfBits == 0) {
+            return 0.0;
+        }
+        return 1.0 - (double) minDistance / numOfBits;
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.codelibs.opensearch.minhash.util.MinHashSignatures;
+import org.opensearch.action.ActionRequest;
+import org.opensearch.action.search.SearchAction;
+import org.opensearch.action.search.SearchRequest;
+import org.opensearch.action.search.SearchResponse;
+import org.opensearch.action.search.SearchResponseSections;
+import org.opensearch.action.support.ActionFilter;
+import org.opensearch.action.support.ActionFilterChain;
+import org.opensearch.common.document.DocumentField;
+import org.opensearch.core.action.ActionListener;
+import org.opensearch.core.action.ActionResponse;
+import org.opensearch.search.SearchExtBuilder;
+import org.opensearch.search.SearchHit;
+import org.opensearch.search.SearchHits;
+import org.opensearch.search.builder.SearchSourceBuilder;
+import org.opensearch.search.fetch.subphase.FieldAndFormat;
+import org.opensearch.search.profile.SearchProfileShardResults;
+import org.opensearch.tasks.Task;
+
+/**
+ * Applies {@link MinHashDiversifyExtBuilder} to search requests: the request
+ * fetches the whole window with the signatures as doc value fields, and the
+ * response keeps the requested page of the hits that are not near
+ * duplicates of a higher ranked hit. A doc value field added only for this
+ * is removed from the returned hits.
+ */
+public class MinHashDiversifyActionFilter implements ActionFilter {
+
+    private static final Logger logger = LogManager
+            .getLogger(MinHashDiversifyActionFilter.class);
+
+    @Override
+    public int order() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public <Request extends ActionRequest, Response extends ActionResponse> void apply(
+            final Task task, final String action, final Request request,
+            final ActionListener<Response> listener,
+            final ActionFilterChain<Request, Response> chain) {
+        if (!SearchAction.NAME.equals(action)
+                || !(request instanceof SearchRequest)) {
+            chain.proceed(task, action, request, listener);
+            return;
+        }
+
+        final SearchRequest searchRequest = (SearchRequest) request;
+        final SearchSourceBuilder source = searchRequest.source();
+        final MinHashDiversifyExtBuilder ext = findExtBuilder(source);
+        if (ext == null || searchRequest.scroll() != null
+                || source.size() == 0) {
+            chain.proceed(task, action, request, listener);
+            return;
+        }
+
+        final int from = source.from() < 0 ? 0 : source.from();
+        final int size = source.size() < 0 ? 10 : source.size();
+        source.from(0);
+        source.size(Math.max(ext.getWindow(), from + size));
+        final boolean addedField = !hasDocValueField(source, ext.getField());
+        if (addedField) {
+            source.docValueField(ext.getField());
+        }
+
+        chain.proceed(task, action, request,
+                ActionListener.map(listener, response -> {
+                    @SuppressWarnings("unchecked")
+                    final Response diversified = (Response) diversify(
+                            (SearchResponse) response, ext, from, size,
+                            addedField);
+                    return diversified;
+                }));
+    }
+
+    private static MinHashDiversifyExtBuilder findExtBuilder(
+            final SearchSourceBuilder source) {
+        if (source == null || source.ext() == null) {
+            return null;
+        }
+        for (final SearchExtBuilder ext : source.ext()) {
+            if (ext instanceof MinHashDiversifyExtBuilder) {
+                return (MinHashDiversifyExtBuilder) ext;
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasDocValueField(final SearchSourceBuilder source,
+            final String field) {
+        if (source.docValueFields() == null) {
+            return false;
+        }
+        for (final FieldAndFormat fieldAndFormat : source.docValueFields()) {
+            if (field.equals(fieldAndFormat.field)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static SearchResponse diversify(final SearchResponse response,
+            final MinHashDiversifyExtBuilder diversify, final int from,
+            final int size, final boolean addedField) {
+        final long startTime = System.nanoTime();
+        final SearchHits hits = response.getHits();
+        final SearchHit[] candidates = hits.getHits();
+        final List<SearchHit> selected = new ArrayList<>(
+                Math.min(candidates.length, from + size));
+        final List<long[]> signatures = new ArrayList<>();
+        for (final SearchHit hit : candidates) {
+            if (selected.size() >= from + size) {
+                break;
+            }
+            final byte[] value = signature(hit, diversify.getField());
+            if (value == null) {
+                selected.add(hit);
+                continue;
+            }
+            final long[] signature = MinHashSignatures.toLongs(value);
+            final int maxDistance = (int) Math.floor(
+                    (1.0f - diversify.getThreshold()) * value.length * 8);
+            boolean duplicate = false;
+            for (final long[] other : signatures) {
+                if (other.length == signature.length && MinHashSignatures
+                        .hammingDistance(signature, other) <= maxDistance) {
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (!duplicate) {
+                selected.add(hit);
+                signatures.add(signature);
+            }
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Diversified {} hits into {} by {}.",
+                    candidates.length, selected.size(), diversify.getField());
+        }
+
+        final SearchHit[] page = selected.size() <= from ? new SearchHit[0]
+                : selected.subList(from, selected.size())
+                        .toArray(new SearchHit[0]);
+        if (addedField) {
+            for (final SearchHit hit : page) {
+                hit.removeDocumentField(diversify.getField());
+            }
+        }
+        final SearchHits pageHits = new SearchHits(page, hits.getTotalHits(),
+                hits.getMaxScore(), hits.getSortFields(),
+                hits.getCollapseField(), hits.getCollapseValues());
+        final SearchResponseSections internalResponse = response
+                .getInternalResponse();
+        final SearchResponseSections sections = new SearchResponseSections(
+                pageHits, response.getAggregations(), response.getSuggest(),
+                response.isTimedOut(), response.isTerminatedEarly(),
+                response.getProfileResults().isEmpty() ? null
+                        : new SearchProfileShardResults(
+                                response.getProfileResults()),
+                response.getNumReducePhases(),
+                internalResponse.getSearchExtBuilders(),
+                internalResponse.getProcessorResult());
+        // the took of the response includes the re-ranking
+        final long tookInMillis = response.getTook().millis()
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        return new SearchResponse(sections, response.getScrollId(),
+                response.getTotalShards(), response.getSuccessfulShards(),
+                response.getSkippedShards(), tookInMillis,
+                response.getPhaseTook(), response.getShardFailures(),
+                response.getClusters(), response.pointInTimeId());
+    }
+
+    private static byte[] signature(final SearchHit hit, final String field) {
+        final DocumentField documentField = hit.field(field);
+        if (documentField == null || documentField.getValues().isEmpty()) {
+            return null;
+        }
+        final String value = documentField.getValues().get(0).toString();
+        try {
+            return MinHashSignatures.decode(value,
+                    MinHashSignatures.isBitString(value));
+        } catch (final IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
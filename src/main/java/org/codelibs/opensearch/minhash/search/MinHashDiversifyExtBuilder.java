@@ -0,0 +1,174 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.search;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import org.opensearch.core.ParseField;
+import org.opensearch.core.common.ParsingException;
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.core.common.io.stream.StreamOutput;
+import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.core.xcontent.XContentParser;
+import org.opensearch.search.SearchExtBuilder;
+
+/**
+ * The {@code minhash_diversify} search extension. Hits whose signature is
+ * at least {@code threshold} similar to a higher ranked hit are removed
+ * from the top {@code window} hits before the requested page is returned.
+ * The similarity is the fraction of equal signature bits, which is
+ * {@code (1 + J) / 2} for a Jaccard similarity {@code J}.
+ */
+public class MinHashDiversifyExtBuilder extends SearchExtBuilder {
+
+    public static final String NAME = "minhash_diversify";
+
+    public static final int DEFAULT_WINDOW = 100;
+
+    private static final ParseField FIELD_FIELD = new ParseField("field");
+
+    private static final ParseField THRESHOLD_FIELD = new ParseField(
+            "threshold");
+
+    private static final ParseField WINDOW_FIELD = new ParseField("window");
+
+    private final String field;
+
+    private final float threshold;
+
+    private final int window;
+
+    public MinHashDiversifyExtBuilder(final String field,
+            final float threshold, final int window) {
+        if (field == null) {
+            throw new IllegalArgumentException(
+                    "[" + NAME + "] requires a field");
+        }
+        if (threshold < 0.0f || threshold > 1.0f) {
+            throw new IllegalArgumentException("[" + NAME
+                    + "] threshold must be between 0 and 1: " + threshold);
+        }
+        if (window <= 0) {
+            throw new IllegalArgumentException(
+                    "[" + NAME + "] window must be positive: " + window);
+        }
+        this.field = field;
+        this.threshold = threshold;
+        this.window = window;
+    }
+
+    public MinHashDiversifyExtBuilder(final StreamInput in)
+            throws IOException {
+        field = in.readString();
+        threshold = in.readFloat();
+        window = in.readVInt();
+    }
+
+    @Override
+    public void writeTo(final StreamOutput out) throws IOException {
+        out.writeString(field);
+        out.writeFloat(threshold);
+        out.writeVInt(window);
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public float getThreshold() {
+        return threshold;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    @Override
+    public String getWriteableName() {
+        return NAME;
+    }
+
+    @Override
+    public XContentBuilder toXContent(final XContentBuilder builder,
+            final Params params) throws IOException {
+        builder.startObject(NAME);
+        builder.field(FIELD_FIELD.getPreferredName(), field);
+        builder.field(THRESHOLD_FIELD.getPreferredName(), threshold);
+        builder.field(WINDOW_FIELD.getPreferredName(), window);
+        builder.endObject();
+        return builder;
+    }
+
+    public static MinHashDiversifyExtBuilder fromXContent(
+            final XContentParser parser) throws IOException {
+        String field = null;
+        float threshold = 0.9f;
+        int window = DEFAULT_WINDOW;
+
+        String currentFieldName = null;
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                currentFieldName = parser.currentName();
+            } else if (token.isValue()) {
+                if (FIELD_FIELD.match(currentFieldName,
+                        parser.getDeprecationHandler())) {
+                    field = parser.text();
+                } else if (THRESHOLD_FIELD.match(currentFieldName,
+                        parser.getDeprecationHandler())) {
+                    threshold = parser.floatValue();
+                } else if (WINDOW_FIELD.match(currentFieldName,
+                        parser.getDeprecationHandler())) {
+                    window = parser.intValue();
+                } else {
+                    throw new ParsingException(parser.getTokenLocation(),
+                            "[" + NAME + "] does not support ["
+                                    + currentFieldName + "]");
+                }
+            } else {
+                throw new ParsingException(parser.getTokenLocation(),
+                        "[" + NAME + "] unknown token [" + token
+                                + "] after [" + currentFieldName + "]");
+            }
+        }
+
+        try {
+            return new MinHashDiversifyExtBuilder(field, threshold, window);
+        } catch (final IllegalArgumentException e) {
+            throw new ParsingException(parser.getTokenLocation(),
+                    e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final MinHashDiversifyExtBuilder other = (MinHashDiversifyExtBuilder) obj;
+        return Objects.equals(field, other.field)
+                && threshold == other.threshold && window == other.window;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(field, threshold, window);
+    }
+}
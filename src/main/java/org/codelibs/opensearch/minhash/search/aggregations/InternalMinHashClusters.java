@@ -0,0 +1,122 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.search.aggregations;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.core.common.io.stream.StreamOutput;
+import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.search.aggregations.InternalAggregation;
+import org.opensearch.search.aggregations.metrics.InternalNumericMetricsAggregation;
+
+/**
+ * The result of {@code minhash_clusters}, which keeps the sketch so that
+ * the results of shards, slices and buckets can be merged.
+ */
+public class InternalMinHashClusters
+        extends InternalNumericMetricsAggregation.SingleValue {
+
+    private final MinHashClusterSketch sketch;
+
+    InternalMinHashClusters(final String name,
+            final MinHashClusterSketch sketch,
+            final Map<String, Object> metadata) {
+        super(name, metadata);
+        this.sketch = sketch;
+    }
+
+    public InternalMinHashClusters(final StreamInput in) throws IOException {
+        super(in);
+        final int bands = in.readVInt();
+        final int precision = in.readVInt();
+        sketch = new MinHashClusterSketch(bands, precision,
+                in.readByteArray(), in.readVInt());
+    }
+
+    @Override
+    protected void doWriteTo(final StreamOutput out) throws IOException {
+        out.writeVInt(sketch.getBands());
+        out.writeVInt(sketch.getPrecision());
+        out.writeByteArray(sketch.getRegisters());
+        out.writeVInt(sketch.getNumOfBits());
+    }
+
+    @Override
+    public String getWriteableName() {
+        return MinHashClustersAggregationBuilder.NAME;
+    }
+
+    @Override
+    public double value() {
+        return sketch.estimate();
+    }
+
+    MinHashClusterSketch getSketch() {
+        return sketch;
+    }
+
+    @Override
+    public InternalAggregation reduce(
+            final List<InternalAggregation> aggregations,
+            final ReduceContext reduceContext) {
+        MinHashClusterSketch reduced = null;
+        for (final InternalAggregation aggregation : aggregations) {
+            final MinHashClusterSketch other = ((InternalMinHashClusters) aggregation).sketch;
+            if (reduced == null) {
+                reduced = other.copy();
+            } else {
+                reduced.merge(other);
+            }
+        }
+        return new InternalMinHashClusters(getName(), reduced, getMetadata());
+    }
+
+    @Override
+    public XContentBuilder doXContentBody(final XContentBuilder builder,
+            final Params params) throws IOException {
+        builder.field(CommonFields.VALUE.getPreferredName(), sketch.estimate());
+        return builder;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()
+                || !super.equals(obj)) {
+            return false;
+        }
+        final InternalMinHashClusters other = (InternalMinHashClusters) obj;
+        return sketch.getBands() == other.sketch.getBands()
+                && sketch.getPrecision() == other.sketch.getPrecision()
+                && sketch.getNumOfBits() == other.sketch.getNumOfBits()
+                && Arrays.equals(sketch.getRegisters(),
+                        other.sketch.getRegisters());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), sketch.getBands(),
+                sketch.getPrecision(), sketch.getNumOfBits(),
+                Arrays.hashCode(sketch.getRegisters()));
+    }
+}
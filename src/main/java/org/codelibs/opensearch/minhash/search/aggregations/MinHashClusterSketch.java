@@ -0,0 +1,247 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.search.aggregations;
+
+import org.codelibs.opensearch.minhash.util.MinHashSignatures;
+
+/**
+ * Estimates the number of near-duplicate clusters of signatures with
+ * HyperLogLog sketches of LSH band keys. Each signature is split into
+ * {@code bands} bands, and adjacent pairs and quadruples of bands form keys
+ * of two and four times the width. Signatures that agree on a key are
+ * counted once, so the distinct keys of a width count the clusters plus the
+ * members of a cluster that differ from the others within that width. The
+ * narrower the key, the fewer members differ, and the number of clusters is
+ * extrapolated from the three widths to a key of no width. Keys of
+ * different clusters that collide in a narrow band are corrected for. The
+ * memory is {@code (bands + bands / 2 + bands / 4) * 2^precision} bytes,
+ * and sketches are merged by taking the maximum of each register.
+ */
+public class MinHashClusterSketch {
+
+    private final int bands;
+
+    private final int precision;
+
+    private final byte[] registers;
+
+    private int numOfBits;
+
+    public MinHashClusterSketch(final int bands, final int precision) {
+        this(bands, precision, new byte[numOfKeys(bands) << precision], 0);
+    }
+
+    public MinHashClusterSketch(final int bands, final int precision,
+            final byte[] registers, final int numOfBits) {
+        if (registers.length != numOfKeys(bands) << precision) {
+            throw new IllegalArgumentException("expected "
+                    + (numOfKeys(bands) << precision)
+                    + " registers, but got " + registers.length);
+        }
+        this.bands = bands;
+        this.precision = precision;
+        this.registers = registers;
+        this.numOfBits = numOfBits;
+    }
+
+    private static int numOfKeys(final int bands) {
+        return bands + bands / 2 + bands / 4;
+    }
+
+    public int getBands() {
+        return bands;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public byte[] getRegisters() {
+        return registers;
+    }
+
+    /**
+     * Returns the number of bits of the signatures, or 0 if none was added.
+     */
+    public int getNumOfBits() {
+        return numOfBits;
+    }
+
+    public long ramBytesUsed() {
+        return 40 + registers.length;
+    }
+
+    /**
+     * Adds the band keys of the first {@code length} bytes of a signature.
+     */
+    public void add(final byte[] signature, final int length) {
+        final int numOfBits = length * 8;
+        this.numOfBits = Math.max(this.numOfBits, numOfBits);
+        long pair = 0;
+        long quadruple = 0;
+        for (int band = 0; band < bands; band++) {
+            final int start = MinHashSignatures.substringStart(numOfBits,
+                    bands, band);
+            final int end = MinHashSignatures.substringStart(numOfBits, bands,
+                    band + 1);
+            long hash = mix(((long) numOfBits << 32) | band);
+            long chunk = 0;
+            int n = 0;
+            for (int pos = start; pos < end; pos++) {
+                chunk |= (long) MinHashSignatures.bit(signature, pos) << n;
+                if (++n == 64) {
+                    hash = mix(hash ^ chunk);
+                    chunk = 0;
+                    n = 0;
+                }
+            }
+            hash = mix(hash ^ chunk);
+            addHash(band, hash);
+            pair = mix(pair * 0x9e3779b97f4a7c15L ^ hash);
+            if (band % 2 == 1) {
+                addHash(bands + band / 2, pair);
+                quadruple = mix(quadruple * 0x9e3779b97f4a7c15L ^ pair);
+                pair = 0;
+            }
+            if (band % 4 == 3) {
+                addHash(bands + bands / 2 + band / 4, quadruple);
+                quadruple = 0;
+            }
+        }
+    }
+
+    private void addHash(final int key, final long hash) {
+        final int index = (key << precision)
+                | (int) (hash >>> (64 - precision));
+        final int rank = Long.numberOfLeadingZeros(
+                (hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    public void merge(final MinHashClusterSketch other) {
+        if (other.bands != bands || other.precision != precision) {
+            throw new IllegalArgumentException("cannot merge a sketch of "
+                    + other.bands + " bands and precision " + other.precision
+                    + " into one of " + bands + " bands and precision "
+                    + precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+        numOfBits = Math.max(numOfBits, other.numOfBits);
+    }
+
+    public MinHashClusterSketch copy() {
+        return new MinHashClusterSketch(bands, precision, registers.clone(),
+                numOfBits);
+    }
+
+    /**
+     * Returns the estimated number of clusters.
+     */
+    public long estimate() {
+        if (numOfBits == 0) {
+            return 0;
+        }
+        final double narrow = distinctKeys(0, bands, 1);
+        double clusters = narrow;
+        if (bands >= 4) {
+            // a quadratic in the width through widths of one, two and four
+            // bands, evaluated at zero
+            final double pairs = Math.max(distinctKeys(bands, bands / 2, 2),
+                    narrow);
+            final double quadruples = Math.max(
+                    distinctKeys(bands + bands / 2, bands / 4, 4), pairs);
+            clusters = (8 * narrow - 6 * pairs + quadruples) / 3;
+        } else if (bands >= 2) {
+            final double pairs = Math.max(distinctKeys(bands, bands / 2, 2),
+                    narrow);
+            clusters = 2 * narrow - pairs;
+        }
+        return Math.max(1, Math.round(Math.min(clusters, narrow)));
+    }
+
+    /**
+     * Returns the mean distinct keys of the sketches of keys of the given
+     * number of bands, corrected for the keys of different clusters that
+     * collide within the bits of a key.
+     */
+    private double distinctKeys(final int offset, final int numOfKeys,
+            final int width) {
+        double sum = 0;
+        for (int i = 0; i < numOfKeys; i++) {
+            final int bits = MinHashSignatures.substringStart(numOfBits,
+                    bands, (i + 1) * width)
+                    - MinHashSignatures.substringStart(numOfBits, bands,
+                            i * width);
+            final double estimate = estimate(offset + i);
+            if (bits >= 52) {
+                sum += estimate;
+            } else {
+                final double space = Math.pow(2, bits);
+                sum += -space * Math.log(
+                        1 - Math.min(estimate, space - 1) / space);
+            }
+        }
+        return sum / numOfKeys;
+    }
+
+    private double estimate(final int key) {
+        final int m = 1 << precision;
+        final int offset = key << precision;
+        double sum = 0;
+        int zeros = 0;
+        for (int i = offset; i < offset + m; i++) {
+            sum += 1.0 / (1L << registers[i]);
+            if (registers[i] == 0) {
+                zeros++;
+            }
+        }
+        final double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            // linear counting for small cardinalities
+            return m * Math.log((double) m / zeros);
+        }
+        return estimate;
+    }
+
+    private static double alpha(final int m) {
+        switch (m) {
+        case 16:
+            return 0.673;
+        case 32:
+            return 0.697;
+        case 64:
+            return 0.709;
+        default:
+            return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    private static long mix(long h) {
+        // the finalizer of MurmurHash3
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.search.aggregations;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+
+import org.codelibs.opensearch.minhash.index.mapper.MinHashFieldMapper.MinHashFieldType;
+import org.opensearch.core.ParseField;
+import org.opensearch.core.common.ParsingException;
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.core.common.io.stream.StreamOutput;
+import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.core.xcontent.XContentParser;
+import org.opensearch.index.mapper.MappedFieldType;
+import org.opensearch.index.query.QueryShardContext;
+import org.opensearch.search.aggregations.AbstractAggregationBuilder;
+import org.opensearch.search.aggregations.AggregationBuilder;
+import org.opensearch.search.aggregations.AggregatorFactories;
+import org.opensearch.search.aggregations.AggregatorFactory;
+
+/**
+ * The {@code minhash_clusters} aggregation, which estimates the number of
+ * near-duplicate clusters of the signatures in a minhash field with
+ * {@link MinHashClusterSketch}.
+ */
+public class MinHashClustersAggregationBuilder
+        extends AbstractAggregationBuilder<MinHashClustersAggregationBuilder> {
+
+    public static final String NAME = "minhash_clusters";
+
+    public static final int DEFAULT_BANDS = 8;
+
+    public static final int DEFAULT_PRECISION = 12;
+
+    private static final ParseField FIELD_FIELD = new ParseField("field");
+
+    private static final ParseField BANDS_FIELD = new ParseField("bands");
+
+    private static final ParseField PRECISION_FIELD = new ParseField(
+            "precision");
+
+    private String field;
+
+    private int bands = DEFAULT_BANDS;
+
+    private int precision = DEFAULT_PRECISION;
+
+    public MinHashClustersAggregationBuilder(final String name) {
+        super(name);
+    }
+
+    protected MinHashClustersAggregationBuilder(
+            final MinHashClustersAggregationBuilder clone,
+            final AggregatorFactories.Builder factoriesBuilder,
+            final Map<String, Object> metadata) {
+        super(clone, factoriesBuilder, metadata);
+        this.field = clone.field;
+        this.bands = clone.bands;
+        this.precision = clone.precision;
+    }
+
+    public MinHashClustersAggregationBuilder(final StreamInput in)
+            throws IOException {
+        super(in);
+        field = in.readString();
+        bands = in.readVInt();
+        precision = in.readVInt();
+    }
+
+    @Override
+    protected void doWriteTo(final StreamOutput out) throws IOException {
+        out.writeString(field);
+        out.writeVInt(bands);
+        out.writeVInt(precision);
+    }
+
+    public MinHashClustersAggregationBuilder field(final String field) {
+        if (field == null) {
+            throw new IllegalArgumentException(
+                    "[" + NAME + "] requires a field");
+        }
+        this.field = field;
+        return this;
+    }
+
+    public String field() {
+        return field;
+    }
+
+    public MinHashClustersAggregationBuilder bands(final int bands) {
+        if (bands < 1 || bands > 64) {
+            throw new IllegalArgumentException(
+                    "[" + NAME + "] bands must be between 1 and 64: " + bands);
+        }
+        this.bands = bands;
+        return this;
+    }
+
+    public int bands() {
+        return bands;
+    }
+
+    public MinHashClustersAggregationBuilder precision(final int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("[" + NAME
+                    + "] precision must be between 4 and 16: " + precision);
+        }
+        this.precision = precision;
+        return this;
+    }
+
+    public int precision() {
+        return precision;
+    }
+
+    @Override
+    protected AggregationBuilder shallowCopy(
+            final AggregatorFactories.Builder factoriesBuilder,
+            final Map<String, Object> metadata) {
+        return new MinHashClustersAggregationBuilder(this, factoriesBuilder,
+                metadata);
+    }
+
+    @Override
+    public BucketCardinality bucketCardinality() {
+        return BucketCardinality.NONE;
+    }
+
+    @Override
+    public String getType() {
+        return NAME;
+    }
+
+    @Override
+    protected AggregatorFactory doBuild(
+            final QueryShardContext queryShardContext,
+            final AggregatorFactory parent,
+            final AggregatorFactories.Builder subFactoriesBuilder)
+            throws IOException {
+        final MappedFieldType fieldType = queryShardContext
+                .fieldMapper(field);
+        if (fieldType != null) {
+            if (!(fieldType instanceof MinHashFieldType)) {
+                throw new IllegalArgumentException("[" + NAME + "] field ["
+                        + field + "] is not a minhash field");
+            }
+            if (!fieldType.hasDocValues()) {
+                throw new IllegalArgumentException("[" + NAME + "] field ["
+                        + field + "] requires doc_values");
+            }
+        }
+        return new MinHashClustersAggregatorFactory(name, queryShardContext,
+                parent, subFactoriesBuilder, metadata,
+                (MinHashFieldType) fieldType, bands, precision);
+    }
+
+    @Override
+    protected XContentBuilder internalXContent(final XContentBuilder builder,
+            final Params params) throws IOException {
+        builder.startObject();
+        builder.field(FIELD_FIELD.getPreferredName(), field);
+        builder.field(BANDS_FIELD.getPreferredName(), bands);
+        builder.field(PRECISION_FIELD.getPreferredName(), precision);
+        builder.endObject();
+        return builder;
+    }
+
+    public static MinHashClustersAggregationBuilder parse(
+            final XContentParser parser, final String aggregationName)
+            throws IOException {
+        final MinHashClustersAggregationBuilder builder = new MinHashClustersAggregationBuilder(
+                aggregationName);
+        String currentFieldName = null;
+        XContentParser.Token token;
+        try {
+            while ((token = parser
+                    .nextToken()) != XContentParser.Token.END_OBJECT) {
+                if (token == XContentParser.Token.FIELD_NAME) {
+                    currentFieldName = parser.currentName();
+                } else if (token.isValue()) {
+                    if (FIELD_FIELD.match(currentFieldName,
+                            parser.getDeprecationHandler())) {
+                        builder.field(parser.text());
+                    } else if (BANDS_FIELD.match(currentFieldName,
+                            parser.getDeprecationHandler())) {
+                        builder.bands(parser.intValue());
+                    } else if (PRECISION_FIELD.match(currentFieldName,
+                            parser.getDeprecationHandler())) {
+                        builder.precision(parser.intValue());
+                    } else {
+                        throw new ParsingException(parser.getTokenLocation(),
+                                "[" + NAME + "] does not support ["
+                                        + currentFieldName + "]");
+                    }
+                } else {
+                    throw new ParsingException(parser.getTokenLocation(),
+                            "[" + NAME + "] unknown token [" + token
+                                    + "] after [" + currentFieldName + "]");
+                }
+            }
+        } catch (final IllegalArgumentException e) {
+            throw new ParsingException(parser.getTokenLocation(),
+                    e.getMessage(), e);
+        }
+        if (builder.field == null) {
+            throw new ParsingException(parser.getTokenLocation(),
+                    "[" + NAME + "] requires a field");
+        }
+        return builder;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()
+                || !super.equals(obj)) {
+            return false;
+        }
+        final MinHashClustersAggregationBuilder other = (MinHashClustersAggregationBuilder) obj;
+        return Objects.equals(field, other.field) && bands == other.bands
+                && precision == other.precision;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), field, bands, precision);
+    }
+}
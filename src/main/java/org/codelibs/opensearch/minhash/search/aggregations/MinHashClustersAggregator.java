@@ -0,0 +1,145 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.search.aggregations;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.util.BytesRef;
+import org.codelibs.opensearch.minhash.index.mapper.MinHashFieldMapper.MinHashFieldType;
+import org.codelibs.opensearch.minhash.util.MinHashSignatures;
+import org.opensearch.common.lease.Releasables;
+import org.opensearch.common.util.ObjectArray;
+import org.opensearch.search.aggregations.Aggregator;
+import org.opensearch.search.aggregations.InternalAggregation;
+import org.opensearch.search.aggregations.LeafBucketCollector;
+import org.opensearch.search.aggregations.LeafBucketCollectorBase;
+import org.opensearch.search.aggregations.metrics.NumericMetricsAggregator;
+import org.opensearch.search.internal.SearchContext;
+
+/**
+ * Adds the band keys of the signatures in doc values to one
+ * {@link MinHashClusterSketch} per bucket, in one pass.
+ */
+public class MinHashClustersAggregator
+        extends NumericMetricsAggregator.SingleValue {
+
+    private final MinHashFieldType fieldType;
+
+    private final int bands;
+
+    private final int precision;
+
+    private ObjectArray<MinHashClusterSketch> sketches;
+
+    private byte[] buffer = new byte[64];
+
+    MinHashClustersAggregator(final String name, final SearchContext context,
+            final Aggregator parent, final Map<String, Object> metadata,
+            final MinHashFieldType fieldType, final int bands,
+            final int precision) throws IOException {
+        super(name, context, parent, metadata);
+        this.fieldType = fieldType;
+        this.bands = bands;
+        this.precision = precision;
+        this.sketches = context.bigArrays().newObjectArray(1);
+    }
+
+    @Override
+    public ScoreMode scoreMode() {
+        return ScoreMode.COMPLETE_NO_SCORES;
+    }
+
+    @Override
+    protected LeafBucketCollector getLeafCollector(final LeafReaderContext ctx,
+            final LeafBucketCollector sub) throws IOException {
+        if (fieldType == null) {
+            return LeafBucketCollector.NO_OP_COLLECTOR;
+        }
+        final SortedSetDocValues values = DocValues.getSortedSet(ctx.reader(),
+                fieldType.name());
+        final boolean bitString = fieldType.isBitString();
+        return new LeafBucketCollectorBase(sub, values) {
+            @Override
+            public void collect(final int doc, final long bucket)
+                    throws IOException {
+                if (!values.advanceExact(doc)) {
+                    return;
+                }
+                final MinHashClusterSketch sketch = sketch(bucket);
+                for (int i = 0; i < values.docValueCount(); i++) {
+                    final BytesRef value = values
+                            .lookupOrd(values.nextOrd());
+                    if (buffer.length < value.length) {
+                        // a decoded signature is never longer than its text
+                        buffer = new byte[value.length];
+                    }
+                    final int length = MinHashSignatures.decode(value,
+                            bitString, buffer);
+                    if (length > 0) {
+                        sketch.add(buffer, length);
+                    }
+                }
+            }
+        };
+    }
+
+    private MinHashClusterSketch sketch(final long bucket) {
+        sketches = context.bigArrays().grow(sketches, bucket + 1);
+        MinHashClusterSketch sketch = sketches.get(bucket);
+        if (sketch == null) {
+            sketch = new MinHashClusterSketch(bands, precision);
+            addRequestCircuitBreakerBytes(sketch.ramBytesUsed());
+            sketches.set(bucket, sketch);
+        }
+        return sketch;
+    }
+
+    @Override
+    public double metric(final long owningBucketOrd) {
+        if (owningBucketOrd >= sketches.size()
+                || sketches.get(owningBucketOrd) == null) {
+            return 0;
+        }
+        return sketches.get(owningBucketOrd).estimate();
+    }
+
+    @Override
+    public InternalAggregation buildAggregation(final long owningBucketOrd)
+            throws IOException {
+        if (owningBucketOrd >= sketches.size()
+                || sketches.get(owningBucketOrd) == null) {
+            return buildEmptyAggregation();
+        }
+        return new InternalMinHashClusters(name,
+                sketches.get(owningBucketOrd), metadata());
+    }
+
+    @Override
+    public InternalAggregation buildEmptyAggregation() {
+        return new InternalMinHashClusters(name,
+                new MinHashClusterSketch(bands, precision), metadata());
+    }
+
+    @Override
+    protected void doClose() {
+        Releasables.close(sketches);
+    }
+}
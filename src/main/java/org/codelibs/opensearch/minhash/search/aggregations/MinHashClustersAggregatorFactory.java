@@ -0,0 +1,69 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.search.aggregations;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.codelibs.opensearch.minhash.index.mapper.MinHashFieldMapper.MinHashFieldType;
+import org.opensearch.index.query.QueryShardContext;
+import org.opensearch.search.aggregations.Aggregator;
+import org.opensearch.search.aggregations.AggregatorFactories;
+import org.opensearch.search.aggregations.AggregatorFactory;
+import org.opensearch.search.aggregations.CardinalityUpperBound;
+import org.opensearch.search.internal.SearchContext;
+
+/**
+ * Creates {@link MinHashClustersAggregator}s.
+ */
+public class MinHashClustersAggregatorFactory extends AggregatorFactory {
+
+    private final MinHashFieldType fieldType;
+
+    private final int bands;
+
+    private final int precision;
+
+    MinHashClustersAggregatorFactory(final String name,
+            final QueryShardContext queryShardContext,
+            final AggregatorFactory parent,
+            final AggregatorFactories.Builder subFactoriesBuilder,
+            final Map<String, Object> metadata,
+            final MinHashFieldType fieldType, final int bands,
+            final int precision) throws IOException {
+        super(name, queryShardContext, parent, subFactoriesBuilder, metadata);
+        this.fieldType = fieldType;
+        this.bands = bands;
+        this.precision = precision;
+    }
+
+    @Override
+    protected Aggregator createInternal(final SearchContext searchContext,
+            final Aggregator parent, final CardinalityUpperBound cardinality,
+            final Map<String, Object> metadata) throws IOException {
+        return new MinHashClustersAggregator(name, searchContext, parent,
+                metadata, fieldType, bands, precision);
+    }
+
+    /**
+     * All state is per bucket and the sketches of the slices are merged on
+     * reduce.
+     */
+    @Override
+    public boolean supportsConcurrentSegmentSearch() {
+        return true;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.util;
+
+import java.util.Arrays;
+
+/**
+ * A Bloom filter of long values, sized by the expected number of values
+ * and the false positive probability.
+ */
+public class LongBloomFilter {
+
+    private final long[] bits;
+
+    private final long mask;
+
+    private final int numOfHashFunctions;
+
+    public LongBloomFilter(final long expectedInsertions, final double fpp) {
+        final long n = Math.max(1, expectedInsertions);
+        final long numOfBits = numOfBits(n, fpp);
+        if (numOfBits / 64 > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException(
+                    "too many values for a bloom filter: " + n);
+        }
+        this.bits = new long[(int) (numOfBits / 64)];
+        this.mask = numOfBits - 1;
+        this.numOfHashFunctions = (int) Math.max(1, Math.min(16,
+                Math.round((double) numOfBits / n * Math.log(2))));
+    }
+
+    /**
+     * Returns a filter that contains every value.
+     */
+    public static LongBloomFilter matchAll() {
+        final LongBloomFilter filter = new LongBloomFilter(1, 0.5);
+        Arrays.fill(filter.bits, -1L);
+        return filter;
+    }
+
+    private static long numOfBits(final long n, final double fpp) {
+        final long optimalBits = (long) (-n * Math.log(fpp)
+                / (Math.log(2) * Math.log(2)));
+        return Long.highestOneBit(Math.max(64, optimalBits) * 2 - 1);
+    }
+
+    /**
+     * Returns the memory of a filter of the given size, before it is built.
+     */
+    public static long ramBytesUsed(final long expectedInsertions,
+            final double fpp) {
+        return 16L + numOfBits(Math.max(1, expectedInsertions), fpp) / 8;
+    }
+
+    public void add(final long value) {
+        final long hash1 = LongIntHashMap.mix(value);
+        final long hash2 = LongIntHashMap.mix(hash1) | 1L;
+        long hash = hash1;
+        for (int i = 0; i < numOfHashFunctions; i++) {
+            final long pos = hash & mask;
+            bits[(int) (pos >>> 6)] |= 1L << pos;
+            hash += hash2;
+        }
+    }
+
+    public boolean mightContain(final long value) {
+        final long hash1 = LongIntHashMap.mix(value);
+        final long hash2 = LongIntHashMap.mix(hash1) | 1L;
+        long hash = hash1;
+        for (int i = 0; i < numOfHashFunctions; i++) {
+            final long pos = hash & mask;
+            if ((bits[(int) (pos >>> 6)] & (1L << pos)) == 0) {
+                return false;
+            }
+            hash += hash2;
+        }
+        return true;
+    }
+
+    public long ramBytesUsed() {
+        return 16L + (long) bits.length * Long.BYTES;
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import org.apache.lucene.util.BytesRef;
+import org.codelibs.minhash.MinHash;
+
+/**
+ * Helpers for the encoded signatures of minhash fields.
+ */
+public final class MinHashSignatures {
+
+    private static final byte[] BASE64_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(BASE64_VALUES, (byte) -1);
+        final String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < chars.length(); i++) {
+            BASE64_VALUES[chars.charAt(i)] = (byte) i;
+        }
+    }
+
+    private MinHashSignatures() {
+        // nothing
+    }
+
+    /**
+     * Returns whether an encoded signature is a bit string rather than
+     * base64, for values whose field mapping is not at hand.
+     */
+    public static boolean isBitString(final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c != '0' && c != '1') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encodes a signature in base64 or as a bit string, as the values of a
+     * field with or without {@code bit_string}.
+     */
+    public static String encode(final byte[] signature,
+            final boolean bitString) {
+        if (bitString) {
+            return MinHash.toBinaryString(signature);
+        }
+        return Base64.getEncoder().encodeToString(signature);
+    }
+
+    /**
+     * Decodes a signature encoded in base64 or as a bit string, whose bits
+     * are listed from the lowest bit of each byte as written by
+     * {@code MinHash.toBinaryString}.
+     */
+    public static byte[] decode(final String value, final boolean bitString) {
+        if (bitString) {
+            final byte[] bytes = new byte[(value.length() + 7) / 8];
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                if (c == '1') {
+                    bytes[i / 8] |= (byte) (1 << (i % 8));
+                } else if (c != '0') {
+                    throw new IllegalArgumentException(
+                            "Invalid bit string: " + value);
+                }
+            }
+            return bytes;
+        }
+        return Base64.getDecoder().decode(value);
+    }
+
+    /**
+     * Decodes an encoded signature into the given buffer without allocating
+     * and returns the number of bytes, or -1 if the buffer is too small or
+     * the value is malformed.
+     */
+    public static int decode(final BytesRef value, final boolean bitString,
+            final byte[] dest) {
+        final byte[] bytes = value.bytes;
+        final int end = value.offset + value.length;
+        if (bitString) {
+            final int length = (value.length + 7) / 8;
+            if (length > dest.length) {
+                return -1;
+            }
+            Arrays.fill(dest, 0, length, (byte) 0);
+            for (int i = value.offset; i < end; i++) {
+                final int pos = i - value.offset;
+                if (bytes[i] == '1') {
+                    dest[pos / 8] |= (byte) (1 << (pos % 8));
+                } else if (bytes[i] != '0') {
+                    return -1;
+                }
+            }
+            return length;
+        }
+
+        int length = 0;
+        int buffer = 0;
+        int bits = 0;
+        for (int i = value.offset; i < end; i++) {
+            final int c = bytes[i];
+            if (c == '=') {
+                break;
+            }
+            if (c < 0 || BASE64_VALUES[c] < 0) {
+                return -1;
+            }
+            buffer = (buffer << 6) | BASE64_VALUES[c];
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                if (length >= dest.length) {
+                    return -1;
+                }
+                dest[length++] = (byte) (buffer >>> bits);
+            }
+        }
+        return length;
+    }
+
+    public static int hammingDistance(final byte[] signature1,
+            final byte[] signature2, final int length) {
+        int distance = 0;
+        for (int i = 0; i < length; i++) {
+            distance += Integer
+                    .bitCount((signature1[i] ^ signature2[i]) & 0xff);
+        }
+        return distance;
+    }
+
+    /**
+     * Packs a signature into longs so that it can be compared a word at a
+     * time with {@link #hammingDistance(long[], long[])}.
+     */
+    public static long[] toLongs(final byte[] signature) {
+        final long[] words = new long[(signature.length + 7) / 8];
+        for (int i = 0; i < signature.length; i++) {
+            words[i >>> 3] |= (signature[i] & 0xffL) << ((i & 7) << 3);
+        }
+        return words;
+    }
+
+    public static int hammingDistance(final long[] signature1,
+            final long[] signature2) {
+        int distance = 0;
+        for (int i = 0; i < signature1.length; i++) {
+            distance += Long.bitCount(signature1[i] ^ signature2[i]);
+        }
+        return distance;
+    }
+
+    /**
+     * Returns up to 64 bits of a signature packed by
+     * {@link #toLongs(byte[])}, starting at the given bit position.
+     */
+    public static long bits(final long[] signature, final int start,
+            final int length) {
+        final int word = start >>> 6;
+        final int shift = start & 63;
+        long value = signature[word] >>> shift;
+        if (shift + length > 64 && word + 1 < signature.length) {
+            value |= signature[word + 1] << (64 - shift);
+        }
+        return length == 64 ? value : value & ((1L << length) - 1);
+    }
+
+    /**
+     * Returns a 64-bit fingerprint as a signature of 8 bytes, so that bit
+     * {@code i} of the signature is bit {@code i} of the fingerprint.
+     */
+    public static byte[] toBytes(final long fingerprint) {
+        final byte[] bytes = new byte[Long.BYTES];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (fingerprint >>> (i * 8));
+        }
+        return bytes;
+    }
+
+    public static int bit(final byte[] signature, final int pos) {
+        return (signature[pos >>> 3] >>> (pos & 7)) & 1;
+    }
+
+    public static int substringStart(final int numOfBits,
+            final int numOfSubstrings, final int index) {
+        return (int) ((long) index * numOfBits / numOfSubstrings);
+    }
+
+    /**
+     * Returns the index terms of the substrings of a signature for
+     * multi-index hashing. Each term is the substring index followed by the
+     * bits of the substring.
+     */
+    public static BytesRef[] substringTerms(final byte[] signature,
+            final int numOfSubstrings) {
+        final int numOfBits = signature.length * 8;
+        final BytesRef[] terms = new BytesRef[numOfSubstrings];
+        for (int i = 0; i < numOfSubstrings; i++) {
+            final int start = substringStart(numOfBits, numOfSubstrings, i);
+            final int end = substringStart(numOfBits, numOfSubstrings, i + 1);
+            terms[i] = new BytesRef(substringTerm(signature, i, start, end));
+        }
+        return terms;
+    }
+
+    private static byte[] substringTerm(final byte[] signature,
+            final int index, final int start, final int end) {
+        final byte[] term = new byte[1 + (end - start + 7) / 8];
+        term[0] = (byte) index;
+        for (int pos = start; pos < end; pos++) {
+            if (bit(signature, pos) == 1) {
+                final int t = pos - start;
+                term[1 + t / 8] |= (byte) (1 << (t % 8));
+            }
+        }
+        return term;
+    }
+
+    /**
+     * Returns the index term of the first bits of a signature, which are
+     * the bits of its first hash functions. The term is a zero byte
+     * followed by the bits.
+     */
+    public static BytesRef prefixTerm(final byte[] signature,
+            final int numOfBits) {
+        return new BytesRef(substringTerm(signature, 0, 0, numOfBits));
+    }
+
+    /**
+     * Returns the index terms of every prefix within the given Hamming
+     * distance of the prefix of a signature.
+     */
+    public static List<BytesRef> prefixVariantTerms(final byte[] signature,
+            final int numOfBits, final int maxDistance) {
+        final List<BytesRef> terms = new ArrayList<>();
+        addVariants(substringTerm(signature, 0, 0, numOfBits), numOfBits, 0,
+                maxDistance, terms);
+        return terms;
+    }
+
+    /**
+     * Returns a long whose signed order is the lexicographic order of the
+     * first 64 bits of a signature, so that sorting by it puts signatures
+     * sharing their first hash functions next to each other.
+     */
+    public static long sortKey(final byte[] signature) {
+        final int numOfBits = Math.min(Long.SIZE, signature.length * 8);
+        long key = 0;
+        for (int pos = 0; pos < numOfBits; pos++) {
+            key |= (long) bit(signature, pos) << (Long.SIZE - 1 - pos);
+        }
+        return key ^ Long.MIN_VALUE;
+    }
+
+    public static long countVariants(final int numOfBits,
+            final int maxDistance) {
+        long count = 0;
+        long binomial = 1;
+        for (int i = 0; i <= Math.min(maxDistance, numOfBits); i++) {
+            count += binomial;
+            binomial = binomial * (numOfBits - i) / (i + 1);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the index terms of every substring variant within the given
+     * Hamming distance of the substrings of a signature.
+     */
+    public static List<BytesRef> substringVariantTerms(final byte[] signature,
+            final int numOfSubstrings, final int maxDistance) {
+        final int numOfBits = signature.length * 8;
+        final List<BytesRef> terms = new ArrayList<>();
+        for (int i = 0; i < numOfSubstrings; i++) {
+            final int start = substringStart(numOfBits, numOfSubstrings, i);
+            final int end = substringStart(numOfBits, numOfSubstrings, i + 1);
+            final byte[] term = substringTerm(signature, i, start, end);
+            addVariants(term, end - start, 0, maxDistance, terms);
+        }
+        return terms;
+    }
+
+    private static void addVariants(final byte[] term, final int numOfBits,
+            final int from, final int flips, final List<BytesRef> terms) {
+        terms.add(new BytesRef(term.clone()));
+        if (flips == 0) {
+            return;
+        }
+        for (int t = from; t < numOfBits; t++) {
+            term[1 + t / 8] ^= (byte) (1 << (t % 8));
+            addVariants(term, numOfBits, t + 1, flips - 1, terms);
+            term[1 + t / 8] ^= (byte) (1 << (t % 8));
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.action;
+
+import static org.codelibs.opensearch.runner.OpenSearchRunner.newConfigs;
+
+import java.util.Base64;
+
+import org.codelibs.opensearch.minhash.index.cache.CacheStats;
+import org.codelibs.opensearch.minhash.index.mapper.MinHashFieldMapper;
+import org.codelibs.opensearch.minhash.util.MinHashSignatures;
+import org.codelibs.opensearch.runner.OpenSearchRunner;
+import org.opensearch.action.get.GetResponse;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.settings.Settings.Builder;
+import org.opensearch.common.xcontent.XContentFactory;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.core.xcontent.XContentBuilder;
+
+import junit.framework.TestCase;
+
+public class MinHashExistsActionTest extends TestCase {
+
+    private OpenSearchRunner runner;
+    private String clusterName;
+
+    @Override
+    protected void setUp() throws Exception {
+        clusterName = "es-minhash-exists-test-" + System.currentTimeMillis();
+        runner = new OpenSearchRunner();
+        runner.onBuild(new OpenSearchRunner.Builder() {
+            @Override
+            public void build(final int number, final Builder settingsBuilder) {
+                settingsBuilder.put("http.cors.enabled", true);
+                settingsBuilder.put("http.cors.allow-origin", "*");
+                settingsBuilder.put("discovery.type", "single-node");
+            }
+        }).build(newConfigs().clusterName(clusterName).numOfNode(1)
+                .pluginTypes("org.codelibs.opensearch.minhash.MinHashPlugin"));
+        runner.ensureYellow();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        runner.close();
+        runner.clean();
+    }
+
+    public void test_exists() throws Exception {
+        final String index = "test_exists";
+
+        final String indexSettings = "{\"index\":{\"number_of_shards\":3,\"analysis\":{" +
+                "\"analyzer\":{\"minhash_analyzer\":{\"type\":\"custom\",\"tokenizer\":\"standard\",\"filter\":[\"minhash\"]}}}}}";
+
+        runner.createIndex(index, Settings.builder()
+                .loadFromSource(indexSettings, XContentType.JSON).build());
+        runner.ensureYellow(index);
+
+        final XContentBuilder mappingBuilder = XContentFactory.jsonBuilder()
+                .startObject()
+                .startObject("properties")
+                .startObject("content")
+                .field("type", "text")
+                .field("copy_to", "minhash_value")
+                .endObject()
+                .startObject("minhash_value")
+                .field("type", "minhash")
+                .field("store", true)
+                .field("minhash_analyzer", "minhash_analyzer")
+                .field("fingerprint", true)
+                .endObject()
+                .endObject()
+                .endObject();
+
+        runner.createMapping(index, mappingBuilder);
+
+        for (int i = 1; i <= 20; i++) {
+            runner.insert(index, String.valueOf(i), "{\"content\":\"page " + i + " of the crawl\"}");
+        }
+        runner.refresh();
+
+        final String value1 = (String) get(index, "1").getField("minhash_value").getValue();
+        final String value2 = (String) get(index, "2").getField("minhash_value").getValue();
+        final String unknown = Base64.getEncoder().encodeToString(new byte[16]);
+        final long fingerprint3 = MinHashFieldMapper.fingerprint(Base64.getDecoder()
+                .decode((String) get(index, "3").getField("minhash_value").getValue()));
+
+        MinHashExistsResponse response = runner.client().execute(MinHashExistsAction.INSTANCE,
+                new MinHashExistsRequest(index).field("minhash_value").values(value1, unknown, value2)
+                        .fingerprints(fingerprint3, 12345L))
+                .actionGet();
+        assertEquals(0, response.getFailedShards());
+        assertEquals(5, response.exists().length);
+        assertTrue(response.exists()[0]);
+        assertFalse(response.exists()[1]);
+        assertTrue(response.exists()[2]);
+        assertTrue(response.exists()[3]);
+        assertFalse(response.exists()[4]);
+
+        // the filters are accounted in the cache stats
+        final CacheStats stats = runner.client().execute(MinHashCacheStatsAction.INSTANCE, new MinHashCacheStatsRequest())
+                .actionGet().getNodes().get(0).getFingerprintFilterCacheStats();
+        assertTrue(stats.getEntries() > 0);
+        assertTrue(stats.getMemorySize() > 0);
+        assertTrue(stats.getMemorySize() <= stats.getLimit());
+
+        // deleted documents are not reported
+        runner.delete(index, "1");
+        runner.refresh();
+        response = runner.client().execute(MinHashExistsAction.INSTANCE,
+                new MinHashExistsRequest(index).field("minhash_value").values(value1, value2))
+                .actionGet();
+        assertFalse(response.exists()[0]);
+        assertTrue(response.exists()[1]);
+    }
+
+    public void test_exists_bitString() throws Exception {
+        final String index = "test_exists_bits";
+
+        final String indexSettings = "{\"index\":{\"number_of_shards\":2,\"analysis\":{" +
+                "\"analyzer\":{\"minhash_analyzer\":{\"type\":\"custom\",\"tokenizer\":\"standard\",\"filter\":[\"minhash\"]}}}}}";
+
+        runner.createIndex(index, Settings.builder()
+                .loadFromSource(indexSettings, XContentType.JSON).build());
+        runner.ensureYellow(index);
+
+        final XContentBuilder mappingBuilder = XContentFactory.jsonBuilder()
+                .startObject()
+                .startObject("properties")
+                .startObject("content")
+                .field("type", "text")
+                .field("copy_to", "minhash_value")
+                .endObject()
+                .startObject("minhash_value")
+                .field("type", "minhash")
+                .field("store", true)
+                .field("minhash_analyzer", "minhash_analyzer")
+                .field("bit_string", true)
+                .field("fingerprint", true)
+                .endObject()
+                .endObject()
+                .endObject();
+
+        runner.createMapping(index, mappingBuilder);
+
+        for (int i = 1; i <= 10; i++) {
+            runner.insert(index, String.valueOf(i), "{\"content\":\"page " + i + " of the crawl\"}");
+        }
+        runner.refresh();
+
+        // the values are hashed as the signatures the mapper indexed
+        final String value1 = (String) get(index, "1").getField("minhash_value").getValue();
+        final String unknown = value1.replace('1', '0');
+        final long fingerprint2 = MinHashFieldMapper.fingerprint(MinHashSignatures
+                .decode((String) get(index, "2").getField("minhash_value").getValue(), true));
+
+        final MinHashExistsResponse response = runner.client().execute(MinHashExistsAction.INSTANCE,
+                new MinHashExistsRequest(index).field("minhash_value").values(value1, unknown)
+                        .fingerprints(fingerprint2))
+                .actionGet();
+        assertEquals(0, response.getFailedShards());
+        assertTrue(response.exists()[0]);
+        assertFalse(response.exists()[1]);
+        assertTrue(response.exists()[2]);
+    }
+
+    private GetResponse get(final String index, final String id) {
+        return runner.client().prepareGet(index, id).setStoredFields("minhash_value")
+                .execute().actionGet();
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.action;
+
+import static org.codelibs.opensearch.runner.OpenSearchRunner.newConfigs;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.codelibs.opensearch.runner.OpenSearchRunner;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.settings.Settings.Builder;
+import org.opensearch.common.xcontent.XContentFactory;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.core.xcontent.XContentBuilder;
+
+import junit.framework.TestCase;
+
+public class MinHashJoinActionTest extends TestCase {
+
+    private OpenSearchRunner runner;
+    private String clusterName;
+
+    @Override
+    protected void setUp() throws Exception {
+        clusterName = "es-minhash-join-test-" + System.currentTimeMillis();
+        runner = new OpenSearchRunner();
+        runner.onBuild(new OpenSearchRunner.Builder() {
+            @Override
+            public void build(final int number, final Builder settingsBuilder) {
+                settingsBuilder.put("http.cors.enabled", true);
+                settingsBuilder.put("http.cors.allow-origin", "*");
+                settingsBuilder.put("discovery.type", "single-node");
+            }
+        }).build(newConfigs().clusterName(clusterName).numOfNode(1)
+                .pluginTypes("org.codelibs.opensearch.minhash.MinHashPlugin"));
+        runner.ensureYellow();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        runner.close();
+        runner.clean();
+    }
+
+    public void test_join() throws Exception {
+        createIndex("canonical", 8);
+        createIndex("partner", 0);
+
+        for (int i = 0; i < 30; i++) {
+            runner.insert("canonical", "c" + i, "{\"content\":\"" + text(i) + "\"}");
+        }
+        runner.insert("partner", "p1", "{\"content\":\"" + text(1) + "\"}");
+        runner.insert("partner", "p5", "{\"content\":\"" + text(5) + "\"}");
+        runner.insert("partner", "p9", "{\"content\":\"" + text(9) + "\"}");
+        runner.insert("partner", "p100", "{\"content\":\"" + text(100) + "\"}");
+        runner.insert("partner", "p101", "{\"content\":\"" + text(101) + "\"}");
+        runner.refresh();
+
+        final Set<String> pairs = new HashSet<>();
+        int numOfResponses = 0;
+        int numOfDocs = 0;
+        String cursor = null;
+        do {
+            final MinHashJoinResponse response = runner.client().execute(MinHashJoinAction.INSTANCE,
+                    new MinHashJoinRequest().left("canonical").right("partner").field("minhash_value")
+                            .threshold(0.9f).batchSize(2).cursor(cursor))
+                    .actionGet();
+            for (final MinHashJoinResponse.Pair pair : response.getPairs()) {
+                // the smaller index is read, but pairs keep the requested sides
+                assertEquals("canonical", pair.getLeftIndex());
+                assertEquals("partner", pair.getRightIndex());
+                assertTrue(pair.getSimilarity() >= 0.9f);
+                pairs.add(pair.getLeftId() + "=" + pair.getRightId());
+            }
+            assertTrue(response.getTruncated().isEmpty());
+            numOfDocs += response.getNumOfDocs();
+            cursor = response.getCursor();
+            numOfResponses++;
+        } while (cursor != null && numOfResponses < 10);
+
+        assertNull(cursor);
+        assertEquals(5, numOfDocs);
+        assertEquals(3, numOfResponses);
+        final Set<String> expected = new HashSet<>();
+        expected.add("c1=p1");
+        expected.add("c5=p5");
+        expected.add("c9=p9");
+        assertEquals(expected, pairs);
+    }
+
+    public void test_truncated() throws Exception {
+        createIndex("canonical", 8);
+        createIndex("partner", 0);
+
+        for (int i = 0; i < 3; i++) {
+            runner.insert("canonical", "c" + i, "{\"content\":\"" + text(1) + "\"}");
+        }
+        runner.insert("canonical", "c3", "{\"content\":\"" + text(3) + "\"}");
+        runner.insert("partner", "p1", "{\"content\":\"" + text(1) + "\"}");
+        runner.refresh();
+
+        final MinHashJoinResponse response = runner.client().execute(MinHashJoinAction.INSTANCE,
+                new MinHashJoinRequest().left("canonical").right("partner").field("minhash_value")
+                        .threshold(0.9f).maxMatches(2))
+                .actionGet();
+        assertNull(response.getCursor());
+        assertEquals(2, response.getPairs().size());
+        assertEquals(1, response.getTruncated().size());
+        final MinHashJoinResponse.Truncated truncated = response.getTruncated().get(0);
+        assertEquals("partner", truncated.getIndex());
+        assertEquals("p1", truncated.getId());
+        assertEquals(3, truncated.getNumOfMatches());
+    }
+
+    public void test_bitString() throws Exception {
+        createIndex("canonical", 8, true, 0);
+        createIndex("partner", 0, false, 0);
+
+        for (int i = 0; i < 3; i++) {
+            runner.insert("canonical", "c" + i, "{\"content\":\"" + text(i) + "\"}");
+        }
+        runner.insert("partner", "p1", "{\"content\":\"" + text(1) + "\"}");
+        runner.refresh();
+
+        // the signatures read as base64 are probed as bit strings
+        final MinHashJoinResponse response = runner.client().execute(MinHashJoinAction.INSTANCE,
+                new MinHashJoinRequest().left("canonical").right("partner").field("minhash_value")
+                        .threshold(0.9f))
+                .actionGet();
+        assertEquals(1, response.getPairs().size());
+        final MinHashJoinResponse.Pair pair = response.getPairs().get(0);
+        assertEquals("c1", pair.getLeftId());
+        assertEquals("p1", pair.getRightId());
+        assertEquals(1.0f, pair.getSimilarity(), 0.0f);
+    }
+
+    public void test_window() throws Exception {
+        createIndex("canonical", 8, false, 20);
+        createIndex("partner", 8, false, 20);
+
+        for (int i = 0; i < 3; i++) {
+            runner.insert("canonical", "c" + i, "{\"content\":\"" + text(i) + "\"}");
+        }
+        // only one of the windows of the partner is shared
+        runner.insert("partner", "p2", "{\"content\":\"" + text(7) + " " + text(8) + " " + text(2)
+                + " " + text(9) + "\"}");
+        runner.refresh();
+
+        final MinHashJoinResponse response = runner.client().execute(MinHashJoinAction.INSTANCE,
+                new MinHashJoinRequest().left("canonical").right("partner").field("minhash_value")
+                        .threshold(0.9f))
+                .actionGet();
+        assertEquals(1, response.getPairs().size());
+        final MinHashJoinResponse.Pair pair = response.getPairs().get(0);
+        assertEquals("c2", pair.getLeftId());
+        assertEquals("p2", pair.getRightId());
+        assertEquals(1.0f, pair.getSimilarity(), 0.0f);
+    }
+
+    public void test_noSubstrings() throws Exception {
+        createIndex("canonical", 0);
+        createIndex("partner", 0);
+
+        runner.insert("canonical", "c1", "{\"content\":\"" + text(1) + "\"}");
+        runner.insert("partner", "p1", "{\"content\":\"" + text(1) + "\"}");
+        runner.refresh();
+
+        try {
+            runner.client().execute(MinHashJoinAction.INSTANCE,
+                    new MinHashJoinRequest().left("canonical").right("partner").field("minhash_value")
+                            .threshold(0.9f))
+                    .actionGet();
+            fail("a join without mih_substrings should be rejected");
+        } catch (final Exception e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("mih_substrings"));
+        }
+    }
+
+    private void createIndex(final String index, final int mihSubstrings) throws Exception {
+        createIndex(index, mihSubstrings, false, 0);
+    }
+
+    private void createIndex(final String index, final int mihSubstrings, final boolean bitString,
+            final int window) throws Exception {
+        final String indexSettings = "{\"index\":{\"number_of_shards\":2,\"analysis\":{" +
+                "\"analyzer\":{\"minhash_analyzer\":{\"type\":\"custom\",\"tokenizer\":\"standard\",\"filter\":[\"minhash\"]}}}}}";
+
+        runner.createIndex(index, Settings.builder()
+                .loadFromSource(indexSettings, XContentType.JSON).build());
+        runner.ensureYellow(index);
+
+        final XContentBuilder mappingBuilder = XContentFactory.jsonBuilder()
+                .startObject()
+                .startObject("properties")
+                .startObject("content")
+                .field("type", "text")
+                .field("copy_to", "minhash_value")
+                .endObject()
+                .startObject("minhash_value")
+                .field("type", "minhash")
+                .field("minhash_analyzer", "minhash_analyzer")
+                .field("mih_substrings", mihSubstrings)
+                .field("bit_string", bitString)
+                .field("window", window)
+                .endObject()
+                .endObject()
+                .endObject();
+
+        runner.createMapping(index, mappingBuilder);
+    }
+
+    private static String text(final int id) {
+        final StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            buf.append("w").append(id).append('x').append(i).append(' ');
+        }
+        return buf.toString().trim();
+    }
+}
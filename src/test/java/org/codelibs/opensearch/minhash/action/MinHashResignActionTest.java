@@ -0,0 +1,185 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.action;
+
+import static org.codelibs.opensearch.runner.OpenSearchRunner.newConfigs;
+
+import java.util.Base64;
+
+import org.codelibs.opensearch.runner.OpenSearchRunner;
+import org.opensearch.action.search.SearchResponse;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.settings.Settings.Builder;
+import org.opensearch.common.xcontent.XContentFactory;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.index.query.QueryBuilders;
+import org.opensearch.index.reindex.BulkByScrollResponse;
+
+import junit.framework.TestCase;
+
+public class MinHashResignActionTest extends TestCase {
+
+    private OpenSearchRunner runner;
+    private String clusterName;
+
+    @Override
+    protected void setUp() throws Exception {
+        clusterName = "es-minhash-resign-test-" + System.currentTimeMillis();
+        runner = new OpenSearchRunner();
+        runner.onBuild(new OpenSearchRunner.Builder() {
+            @Override
+            public void build(final int number, final Builder settingsBuilder) {
+                settingsBuilder.put("http.cors.enabled", true);
+                settingsBuilder.put("http.cors.allow-origin", "*");
+                settingsBuilder.put("discovery.type", "single-node");
+            }
+        }).build(newConfigs().clusterName(clusterName).numOfNode(1)
+                .pluginTypes("org.codelibs.opensearch.minhash.MinHashPlugin"));
+        runner.ensureYellow();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        runner.close();
+        runner.clean();
+    }
+
+    public void test_resign() throws Exception {
+        final String index = "test_resign";
+
+        final String indexSettings = "{\"index\":{\"number_of_shards\":2,\"analysis\":{"
+                + "\"filter\":{\"minhash_64\":{\"type\":\"minhash\",\"seed\":100,\"bit\":1,\"size\":64}},"
+                + "\"analyzer\":{"
+                + "\"minhash_analyzer\":{\"type\":\"custom\",\"tokenizer\":\"standard\",\"filter\":[\"minhash\"]},"
+                + "\"minhash_analyzer_64\":{\"type\":\"custom\",\"tokenizer\":\"standard\",\"filter\":[\"minhash_64\"]}"
+                + "}}}}";
+
+        runner.createIndex(index, Settings.builder()
+                .loadFromSource(indexSettings, XContentType.JSON).build());
+        runner.ensureYellow(index);
+
+        final XContentBuilder mappingBuilder = XContentFactory.jsonBuilder()
+                .startObject()
+                .startObject("properties")
+                .startObject("content")
+                .field("type", "text")
+                .field("copy_to", "content_minhash")
+                .endObject()
+                .startObject("content_minhash")
+                .field("type", "minhash")
+                .field("minhash_analyzer", "minhash_analyzer")
+                .endObject()
+                .endObject()
+                .endObject();
+
+        runner.createMapping(index, mappingBuilder);
+
+        for (int i = 1; i <= 50; i++) {
+            runner.insert(index, String.valueOf(i), "{\"content\":\"document " + i + " to be signed again\"}");
+        }
+        runner.refresh();
+
+        final MinHashResignRequest request = new MinHashResignRequest(index).field("content")
+                .target("minhash_64").minhashAnalyzer("minhash_analyzer_64").slices(2)
+                .requestsPerSecond(1000);
+        BulkByScrollResponse response = runner.client().execute(MinHashResignAction.INSTANCE, request)
+                .actionGet();
+        assertEquals(50, response.getUpdated());
+        assertTrue(response.getBulkFailures().isEmpty());
+        runner.refresh();
+
+        final SearchResponse searchResponse = runner.client().prepareSearch(index)
+                .setQuery(QueryBuilders.existsQuery("content.minhash_64"))
+                .addDocValueField("content.minhash_64").setSize(50).execute().actionGet();
+        assertEquals(50, searchResponse.getHits().getTotalHits().value());
+        final String value = (String) searchResponse.getHits().getHits()[0].field("content.minhash_64").getValue();
+        assertEquals(8, Base64.getDecoder().decode(value).length);
+
+        // documents that have the sub-field are skipped
+        response = runner.client().execute(MinHashResignAction.INSTANCE, request).actionGet();
+        assertEquals(0, response.getUpdated());
+    }
+
+    public void test_resignVariant() throws Exception {
+        final String index = "test_resign_variant";
+
+        runner.createIndex(index, Settings.builder().put("index.number_of_shards", 2).build());
+        runner.ensureYellow(index);
+
+        final XContentBuilder mappingBuilder = XContentFactory.jsonBuilder()
+                .startObject()
+                .startObject("properties")
+                .startObject("content")
+                .field("type", "text")
+                .field("copy_to", "content_minhash")
+                .endObject()
+                .startObject("content_minhash")
+                .field("type", "minhash")
+                .field("minhash_analyzer", "minhash_analyzer")
+                .endObject()
+                .endObject()
+                .endObject();
+
+        runner.createMapping(index, mappingBuilder);
+
+        for (int i = 1; i <= 50; i++) {
+            runner.insert(index, String.valueOf(i), "{\"content\":\"document " + i + " to be signed again\"}");
+        }
+        runner.refresh();
+
+        // no analyzer is needed for new size, bit or seed
+        final MinHashResignRequest request = new MinHashResignRequest(index).field("content_minhash")
+                .target("minhash_64").size(64).seed(100);
+        BulkByScrollResponse response = runner.client().execute(MinHashResignAction.INSTANCE, request)
+                .actionGet();
+        assertEquals(50, response.getUpdated());
+        runner.refresh();
+
+        final SearchResponse searchResponse = runner.client().prepareSearch(index)
+                .setQuery(QueryBuilders.existsQuery("content_minhash.minhash_64"))
+                .addDocValueField("content_minhash.minhash_64").setSize(50).execute().actionGet();
+        assertEquals(50, searchResponse.getHits().getTotalHits().value());
+        final String value = (String) searchResponse.getHits().getHits()[0].field("content_minhash.minhash_64")
+                .getValue();
+        assertEquals(8, Base64.getDecoder().decode(value).length);
+
+        response = runner.client().execute(MinHashResignAction.INSTANCE, request).actionGet();
+        assertEquals(0, response.getUpdated());
+
+        // the same target with other parameters
+        try {
+            runner.client().execute(MinHashResignAction.INSTANCE,
+                    new MinHashResignRequest(index).field("content_minhash").target("minhash_64").size(32))
+                    .actionGet();
+            fail();
+        } catch (final IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("other parameters"));
+        }
+
+        // more than one index
+        runner.createIndex(index + "_2", Settings.builder().build());
+        runner.ensureYellow(index + "_2");
+        try {
+            runner.client().execute(MinHashResignAction.INSTANCE,
+                    new MinHashResignRequest(index, index + "_2").field("content_minhash").target("minhash_32").size(32))
+                    .actionGet();
+            fail();
+        } catch (final IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("single index"));
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.benchmark;
+
+import static org.codelibs.opensearch.runner.OpenSearchRunner.newConfigs;
+
+import java.util.Random;
+
+import org.codelibs.opensearch.minhash.index.query.MinHashWithinQueryBuilder;
+import org.codelibs.opensearch.runner.OpenSearchRunner;
+import org.opensearch.action.bulk.BulkRequestBuilder;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.settings.Settings.Builder;
+import org.opensearch.common.xcontent.XContentFactory;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.index.query.QueryBuilders;
+
+/**
+ * Compares the latency of {@code minhash_within} doc values scans with
+ * concurrent segment search off and on.
+ *
+ * <pre>
+ * ConcurrentSearchBenchmark [numOfDocs] [numOfSegments] [numOfQueries]
+ * </pre>
+ */
+public class ConcurrentSearchBenchmark {
+
+    private static final String INDEX = "benchmark";
+
+    private static final String FIELD = "minhash_value";
+
+    public static void main(final String[] args) throws Exception {
+        final int numOfDocs = args.length > 0 ? Integer.parseInt(args[0])
+                : 200000;
+        final int numOfSegments = args.length > 1 ? Integer.parseInt(args[1])
+                : 16;
+        final int numOfQueries = args.length > 2 ? Integer.parseInt(args[2])
+                : 50;
+
+        final OpenSearchRunner runner = new OpenSearchRunner();
+        try {
+            runner.onBuild(new OpenSearchRunner.Builder() {
+                @Override
+                public void build(final int number,
+                        final Builder settingsBuilder) {
+                    settingsBuilder.put("discovery.type", "single-node");
+                }
+            }).build(newConfigs()
+                    .clusterName("minhash-benchmark-"
+                            + System.currentTimeMillis())
+                    .numOfNode(1).pluginTypes(
+                            "org.codelibs.opensearch.minhash.MinHashPlugin"));
+            runner.ensureYellow();
+
+            createIndex(runner);
+            final String[] signatures = index(runner, numOfDocs,
+                    numOfSegments);
+
+            for (final String mode : new String[] { "none", "all", "none",
+                    "all" }) {
+                runner.client().admin().indices().prepareUpdateSettings(INDEX)
+                        .setSettings(Settings.builder().put(
+                                "index.search.concurrent_segment_search.mode",
+                                mode))
+                        .execute().actionGet();
+                final Latencies latencies = search(runner, signatures,
+                        numOfQueries);
+                System.out.println(String.format(
+                        "mode=%s docs=%d segments=%d p50=%.2fms p90=%.2fms p99=%.2fms",
+                        mode, numOfDocs, numOfSegments,
+                        latencies.percentile(0.5), latencies.percentile(0.9),
+                        latencies.percentile(0.99)));
+            }
+        } finally {
+            runner.close();
+            runner.clean();
+        }
+    }
+
+    private static void createIndex(final OpenSearchRunner runner)
+            throws Exception {
+        final String indexSettings = "{\"index\":{\"number_of_shards\":1,"
+                + "\"number_of_replicas\":0,\"refresh_interval\":-1,"
+                + "\"merge.policy.segments_per_tier\":1000,"
+                + "\"analysis\":{\"analyzer\":{\"minhash_analyzer\":{"
+                + "\"type\":\"custom\",\"tokenizer\":\"standard\","
+                + "\"filter\":[\"minhash\"]}}}}}";
+        runner.createIndex(INDEX, Settings.builder()
+                .loadFromSource(indexSettings, XContentType.JSON).build());
+        runner.ensureYellow(INDEX);
+
+        final XContentBuilder mappingBuilder = XContentFactory.jsonBuilder()
+                .startObject().startObject("properties").startObject(FIELD)
+                .field("type", "minhash")
+                .field("minhash_analyzer", "minhash_analyzer").endObject()
+                .endObject().endObject();
+        runner.createMapping(INDEX, mappingBuilder);
+    }
+
+    private static String[] index(final OpenSearchRunner runner,
+            final int numOfDocs, final int numOfSegments) {
+        final Random random = new Random(1);
+        final int docsPerSegment = Math.max(1, numOfDocs / numOfSegments);
+        final String[] texts = new String[10];
+        BulkRequestBuilder bulk = runner.client().prepareBulk();
+        for (int i = 0; i < numOfDocs; i++) {
+            final StringBuilder text = new StringBuilder();
+            for (int j = 0; j < 50; j++) {
+                text.append("w").append(random.nextInt(5000)).append(' ');
+            }
+            if (i < texts.length) {
+                texts[i] = text.toString();
+            }
+            bulk.add(runner.client().prepareIndex(INDEX)
+                    .setId(String.valueOf(i))
+                    .setSource(FIELD, text.toString()));
+            if (bulk.numberOfActions() >= 1000 || i == numOfDocs - 1) {
+                bulk.execute().actionGet();
+                bulk = runner.client().prepareBulk();
+            }
+            if ((i + 1) % docsPerSegment == 0) {
+                runner.refresh();
+            }
+        }
+        runner.refresh();
+
+        final String[] signatures = new String[texts.length];
+        for (int i = 0; i < texts.length; i++) {
+            signatures[i] = (String) runner.client().prepareSearch(INDEX)
+                    .setSize(1).addDocValueField(FIELD)
+                    .setQuery(QueryBuilders
+                            .idsQuery().addIds(String.valueOf(i)))
+                    .execute().actionGet().getHits().getAt(0).field(FIELD)
+                    .getValue();
+        }
+        return signatures;
+    }
+
+    private static Latencies search(final OpenSearchRunner runner,
+            final String[] signatures, final int numOfQueries) {
+        // warm up
+        for (int i = 0; i < 5; i++) {
+            query(runner, signatures[i % signatures.length]);
+        }
+        final Latencies latencies = new Latencies(numOfQueries);
+        for (int i = 0; i < numOfQueries; i++) {
+            final long start = System.nanoTime();
+            query(runner, signatures[i % signatures.length]);
+            latencies.add(System.nanoTime() - start);
+        }
+        return latencies;
+    }
+
+    private static void query(final OpenSearchRunner runner,
+            final String signature) {
+        // a field without mih_substrings verifies every document
+        runner.client().prepareSearch(INDEX)
+                .setQuery(new MinHashWithinQueryBuilder(FIELD, signature, 24))
+                .setRequestCache(false).setTrackTotalHits(true).execute()
+                .actionGet();
+    }
+}
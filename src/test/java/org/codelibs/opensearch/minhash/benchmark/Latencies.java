@@ -0,0 +1,55 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Latencies in nanoseconds of a benchmark run.
+ */
+class Latencies {
+
+    private final long[] values;
+
+    private int count;
+
+    Latencies(final int capacity) {
+        values = new long[capacity];
+    }
+
+    void add(final long nanos) {
+        values[count++] = nanos;
+    }
+
+    /**
+     * Returns the percentile in milliseconds.
+     */
+    double percentile(final double percentile) {
+        final long[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        final int index = Math.min(sorted.length - 1,
+                (int) Math.ceil(percentile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1000000.0;
+    }
+
+    double mean() {
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += values[i];
+        }
+        return count == 0 ? 0 : sum / 1000000.0 / count;
+    }
+}
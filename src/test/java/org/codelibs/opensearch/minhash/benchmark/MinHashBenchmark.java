@@ -0,0 +1,346 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.benchmark;
+
+import static org.codelibs.opensearch.runner.OpenSearchRunner.newConfigs;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.codelibs.opensearch.minhash.index.query.MinHashWithinQueryBuilder;
+import org.codelibs.opensearch.runner.OpenSearchRunner;
+import org.opensearch.Version;
+import org.opensearch.action.admin.indices.stats.CommonStats;
+import org.opensearch.action.bulk.BulkRequestBuilder;
+import org.opensearch.action.bulk.BulkResponse;
+import org.opensearch.action.search.SearchRequestBuilder;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.settings.Settings.Builder;
+import org.opensearch.common.xcontent.XContentFactory;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.index.query.QueryBuilders;
+import org.opensearch.search.aggregations.AggregationBuilders;
+import org.opensearch.search.collapse.CollapseBuilder;
+
+/**
+ * Measures bulk indexing throughput, index size and the latency of the
+ * dedup aggregations of the README on a synthetic corpus, for an index
+ * without minhash fields and for each {@code size:bit} variant, and writes
+ * a JSON report. Each variant is also run with the index sorted by its
+ * {@code sort_key} sub-field, which puts near duplicates next to each other,
+ * to compare the store size and the latency of a doc values scan. Run it
+ * with
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dbenchmark.docs=100000 -Dbenchmark.variants=32:1,128:1,256:2
+ * </pre>
+ *
+ * <ul>
+ * <li>{@code benchmark.docs}: number of documents (default 50000)</li>
+ * <li>{@code benchmark.words}: words per document (default 200)</li>
+ * <li>{@code benchmark.duplicates}: fraction of exact and near duplicates
+ * (default 0.1)</li>
+ * <li>{@code benchmark.variants}: comma-separated {@code size:bit} variants
+ * (default 32:1,128:1,256:1,128:2)</li>
+ * <li>{@code benchmark.index_sort}: also run each variant with the index
+ * sorted by the sort key (default true)</li>
+ * <li>{@code benchmark.queries}: runs per query (default 50)</li>
+ * <li>{@code benchmark.label}: label of the report, such as the plugin
+ * version</li>
+ * <li>{@code benchmark.output}: report directory (default
+ * target/benchmark)</li>
+ * </ul>
+ */
+public class MinHashBenchmark {
+
+    private static final int BULK_SIZE = 1000;
+
+    private static final int WARM_UP = 5;
+
+    public static void main(final String[] args) throws Exception {
+        final int numOfDocs = Integer.getInteger("benchmark.docs", 50000);
+        final int numOfWords = Integer.getInteger("benchmark.words", 200);
+        final double duplicates = Double.parseDouble(
+                System.getProperty("benchmark.duplicates", "0.1"));
+        final String[] variants = System
+                .getProperty("benchmark.variants", "32:1,128:1,256:1,128:2")
+                .split(",");
+        final boolean indexSort = Boolean.parseBoolean(
+                System.getProperty("benchmark.index_sort", "true"));
+        final int numOfQueries = Integer.getInteger("benchmark.queries", 50);
+        final String label = System.getProperty("benchmark.label", "");
+        final Path output = Paths
+                .get(System.getProperty("benchmark.output", "target/benchmark"));
+
+        final List<String> corpus = corpus(numOfDocs, numOfWords, duplicates);
+        final List<Map<String, Object>> results = new ArrayList<>();
+
+        final OpenSearchRunner runner = new OpenSearchRunner();
+        try {
+            runner.onBuild(new OpenSearchRunner.Builder() {
+                @Override
+                public void build(final int number,
+                        final Builder settingsBuilder) {
+                    settingsBuilder.put("discovery.type", "single-node");
+                }
+            }).build(newConfigs()
+                    .clusterName("minhash-benchmark-"
+                            + System.currentTimeMillis())
+                    .numOfNode(1).pluginTypes(
+                            "org.codelibs.opensearch.minhash.MinHashPlugin"));
+            runner.ensureYellow();
+
+            results.add(run(runner, "baseline", 0, 0, false, corpus,
+                    numOfQueries));
+            for (final String variant : variants) {
+                final String[] values = variant.trim().split(":");
+                final int size = Integer.parseInt(values[0]);
+                final int bit = Integer.parseInt(values[1]);
+                final String name = "size" + size + "_bit" + bit;
+                results.add(run(runner, name, size, bit, false, corpus,
+                        numOfQueries));
+                if (indexSort) {
+                    results.add(run(runner, name + "_sorted", size, bit,
+                            true, corpus, numOfQueries));
+                }
+            }
+        } finally {
+            runner.close();
+            runner.clean();
+        }
+
+        Files.createDirectories(output);
+        final ZonedDateTime now = ZonedDateTime.now();
+        final Path report = output.resolve("minhash-benchmark-"
+                + now.format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"))
+                + ".json");
+        try (OutputStream out = Files.newOutputStream(report);
+                XContentBuilder builder = XContentFactory.jsonBuilder(out)) {
+            builder.prettyPrint();
+            builder.startObject();
+            builder.field("timestamp",
+                    now.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
+            builder.field("label", label);
+            builder.field("opensearch_version", Version.CURRENT.toString());
+            builder.field("java_version", System.getProperty("java.version"));
+            builder.startObject("corpus");
+            builder.field("docs", numOfDocs);
+            builder.field("words", numOfWords);
+            builder.field("duplicates", duplicates);
+            builder.endObject();
+            builder.field("queries", numOfQueries);
+            builder.field("results", results);
+            builder.endObject();
+        }
+        System.out.println("Report: " + report.toAbsolutePath());
+    }
+
+    private static Map<String, Object> run(final OpenSearchRunner runner,
+            final String name, final int size, final int bit,
+            final boolean indexSort, final List<String> corpus,
+            final int numOfQueries) throws Exception {
+        final String index = "benchmark_" + name;
+        createIndex(runner, index, size, bit, indexSort);
+
+        final long start = System.nanoTime();
+        BulkRequestBuilder bulk = runner.client().prepareBulk();
+        for (int i = 0; i < corpus.size(); i++) {
+            bulk.add(runner.client().prepareIndex(index)
+                    .setId(String.valueOf(i))
+                    .setSource("content", corpus.get(i)));
+            if (bulk.numberOfActions() >= BULK_SIZE
+                    || i == corpus.size() - 1) {
+                final BulkResponse response = bulk.execute().actionGet();
+                if (response.hasFailures()) {
+                    throw new IllegalStateException(
+                            response.buildFailureMessage());
+                }
+                bulk = runner.client().prepareBulk();
+            }
+        }
+        final long indexingNanos = System.nanoTime() - start;
+        runner.client().admin().indices().prepareRefresh(index).execute()
+                .actionGet();
+        runner.client().admin().indices().prepareFlush(index).execute()
+                .actionGet();
+
+        final Map<String, Object> result = new LinkedHashMap<>();
+        result.put("name", name);
+        result.put("size", size);
+        result.put("bit", bit);
+        result.put("index_sort", indexSort);
+        final Map<String, Object> indexing = new LinkedHashMap<>();
+        indexing.put("millis", indexingNanos / 1000000);
+        indexing.put("docs_per_second",
+                corpus.size() * 1000000000.0 / indexingNanos);
+        result.put("indexing", indexing);
+
+        if (size > 0) {
+            final Map<String, Object> queries = new LinkedHashMap<>();
+            queries.put("terms_signature", measure(numOfQueries,
+                    runner.client().prepareSearch(index).setSize(0)
+                            .setRequestCache(false)
+                            .addAggregation(AggregationBuilders
+                                    .terms("duplicates")
+                                    .field("content_minhash")
+                                    .minDocCount(2).size(100))));
+            queries.put("terms_fingerprint", measure(numOfQueries,
+                    runner.client().prepareSearch(index).setSize(0)
+                            .setRequestCache(false)
+                            .addAggregation(AggregationBuilders
+                                    .terms("duplicates")
+                                    .field("content_minhash.fingerprint")
+                                    .minDocCount(2).size(100))));
+            queries.put("collapse_fingerprint", measure(numOfQueries,
+                    runner.client().prepareSearch(index).setSize(10)
+                            .setRequestCache(false)
+                            .setQuery(QueryBuilders.matchQuery("content",
+                                    corpus.get(0).substring(0, 20)))
+                            .setCollapse(new CollapseBuilder(
+                                    "content_minhash.fingerprint"))));
+            // verifies every signature against doc values, so it reads
+            // them all in index order
+            final String signature = runner.client().prepareSearch(index)
+                    .setQuery(QueryBuilders.idsQuery().addIds("0"))
+                    .addDocValueField("content_minhash").execute()
+                    .actionGet().getHits().getAt(0).field("content_minhash")
+                    .getValue();
+            queries.put("scan_within", measure(numOfQueries,
+                    runner.client().prepareSearch(index).setSize(0)
+                            .setRequestCache(false)
+                            .setQuery(new MinHashWithinQueryBuilder(
+                                    "content_minhash", signature,
+                                    size * bit / 8))));
+            result.put("queries", queries);
+        }
+
+        final CommonStats stats = runner.client().admin().indices()
+                .prepareStats(index).setStore(true).setSegments(true)
+                .setFieldData(true).execute().actionGet().getTotal();
+        result.put("store_size_bytes", stats.getStore().getSizeInBytes());
+        result.put("segments", stats.getSegments().getCount());
+        // doc values are off heap, the heap part is the global ordinals
+        // built by the terms aggregation on the signatures
+        result.put("fielddata_memory_bytes",
+                stats.getFieldData().getMemorySizeInBytes());
+
+        System.out.println(name + ": " + result);
+        runner.client().admin().indices().prepareDelete(index).execute()
+                .actionGet();
+        return result;
+    }
+
+    private static Map<String, Object> measure(final int numOfQueries,
+            final SearchRequestBuilder request) {
+        for (int i = 0; i < WARM_UP; i++) {
+            request.execute().actionGet();
+        }
+        final Latencies latencies = new Latencies(numOfQueries);
+        for (int i = 0; i < numOfQueries; i++) {
+            final long start = System.nanoTime();
+            request.execute().actionGet();
+            latencies.add(System.nanoTime() - start);
+        }
+        final Map<String, Object> result = new LinkedHashMap<>();
+        result.put("mean_ms", latencies.mean());
+        result.put("p50_ms", latencies.percentile(0.5));
+        result.put("p90_ms", latencies.percentile(0.9));
+        result.put("p99_ms", latencies.percentile(0.99));
+        return result;
+    }
+
+    private static void createIndex(final OpenSearchRunner runner,
+            final String index, final int size, final int bit,
+            final boolean indexSort) throws Exception {
+        final String indexSettings = "{\"index\":{\"number_of_shards\":1,"
+                + "\"number_of_replicas\":0,\"refresh_interval\":\"30s\","
+                + (indexSort
+                        ? "\"sort\":{\"field\":\"content_minhash.sort_key\"},"
+                        : "")
+                + "\"analysis\":{\"filter\":{\"benchmark_minhash\":{"
+                + "\"type\":\"minhash\",\"seed\":0,\"bit\":"
+                + Math.max(bit, 1) + ",\"size\":" + Math.max(size, 1)
+                + "}},\"analyzer\":{\"minhash_analyzer\":{"
+                + "\"type\":\"custom\",\"tokenizer\":\"standard\","
+                + "\"filter\":[\"benchmark_minhash\"]}}}}}";
+        final XContentBuilder mappingBuilder = XContentFactory.jsonBuilder()
+                .startObject().startObject("properties")
+                .startObject("content").field("type", "text");
+        if (size > 0) {
+            mappingBuilder.field("copy_to", "content_minhash");
+        }
+        mappingBuilder.endObject();
+        if (size > 0) {
+            mappingBuilder.startObject("content_minhash")
+                    .field("type", "minhash")
+                    .field("minhash_analyzer", "minhash_analyzer")
+                    .field("fingerprint", true).field("sort_key", true)
+                    .endObject();
+        }
+        mappingBuilder.endObject().endObject();
+        // the index sort is checked against the mapping of the create
+        // request
+        runner.client().admin().indices().prepareCreate(index)
+                .setSettings(Settings.builder()
+                        .loadFromSource(indexSettings, XContentType.JSON)
+                        .build())
+                .setMapping(mappingBuilder).execute().actionGet();
+        runner.ensureYellow(index);
+    }
+
+    /**
+     * Returns documents of random words with Zipf-like frequencies, of which
+     * the given fraction are copies of an earlier document, half of them
+     * with one word changed.
+     */
+    static List<String> corpus(final int numOfDocs,
+            final int numOfWords, final double duplicates) {
+        final Random random = new Random(1);
+        final List<String> corpus = new ArrayList<>(numOfDocs);
+        for (int i = 0; i < numOfDocs; i++) {
+            if (i > 0 && random.nextDouble() < duplicates) {
+                final String original = corpus.get(random.nextInt(i));
+                if (random.nextBoolean()) {
+                    corpus.add(original);
+                } else {
+                    corpus.add(original.replaceFirst("\\S+",
+                            "w" + random.nextInt(100000)));
+                }
+                continue;
+            }
+            final StringBuilder buf = new StringBuilder(numOfWords * 6);
+            for (int j = 0; j < numOfWords; j++) {
+                if (j > 0) {
+                    buf.append(' ');
+                }
+                final double u = random.nextDouble();
+                buf.append('w').append((int) (Math.pow(50000, u) - 1));
+            }
+            corpus.add(buf.toString());
+        }
+        return corpus;
+    }
+}
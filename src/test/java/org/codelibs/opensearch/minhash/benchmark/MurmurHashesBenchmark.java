@@ -0,0 +1,116 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.codelibs.minhash.MinHash;
+import org.codelibs.opensearch.minhash.index.analysis.MurmurHashes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.hash.HashFunction;
+
+/**
+ * Compares the time to fold one token into the minimum hash values of
+ * {@code size} murmur3 functions: with the Guava hash functions one by one,
+ * and with {@link MurmurHashes} in a scalar loop and in vector lanes. Run
+ * it with
+ *
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main MurmurHashesBenchmark"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class MurmurHashesBenchmark {
+
+    @Param({ "32", "128", "256" })
+    public int size;
+
+    private HashFunction[] hashFunctions;
+
+    private MurmurHashes scalar;
+
+    private MurmurHashes vector;
+
+    private long[] minValues;
+
+    private String[] terms;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        hashFunctions = MinHash.createHashFunctions(0, size);
+        final long[] seeds = MurmurHashes.seeds(hashFunctions);
+        scalar = MurmurHashes.create(seeds, false);
+        vector = MurmurHashes.create(seeds, true);
+        minValues = new long[size];
+        Arrays.fill(minValues, Long.MAX_VALUE);
+        // words with Zipf-like frequencies, as in MinHashBenchmark
+        final Random random = new Random(1);
+        terms = new String[4096];
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = "w" + (int) (Math.pow(50000, random.nextDouble()) - 1);
+        }
+    }
+
+    private String nextTerm() {
+        return terms[next++ & (terms.length - 1)];
+    }
+
+    @Benchmark
+    public long[] guava() {
+        final String term = nextTerm();
+        for (int i = 0; i < hashFunctions.length; i++) {
+            final long value = hashFunctions[i].hashUnencodedChars(term)
+                    .asLong();
+            if (value < minValues[i]) {
+                minValues[i] = value;
+            }
+        }
+        return minValues;
+    }
+
+    @Benchmark
+    public long[] scalar() {
+        scalar.min(nextTerm(), minValues);
+        return minValues;
+    }
+
+    @Benchmark
+    public long[] vector() {
+        vector.min(nextTerm(), minValues);
+        return minValues;
+    }
+}
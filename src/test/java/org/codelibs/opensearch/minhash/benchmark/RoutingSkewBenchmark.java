@@ -0,0 +1,199 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.codelibs.minhash.MinHash;
+import org.codelibs.opensearch.minhash.index.analysis.MinHashAccumulator;
+import org.codelibs.opensearch.minhash.ingest.MinHashRoutingProcessor;
+import org.codelibs.opensearch.minhash.util.MinHashSignatures;
+import org.opensearch.Version;
+import org.opensearch.cluster.metadata.IndexMetadata;
+import org.opensearch.cluster.metadata.MetadataCreateIndexService;
+import org.opensearch.cluster.routing.OperationRouting;
+import org.opensearch.common.settings.Settings;
+
+/**
+ * Measures the shard skew of {@code minhash_routing} and how often near
+ * duplicates land on the same shard, for bands of different widths,
+ * against the default routing by {@code _id}. The routing key of each
+ * document is computed as the processor does with the default signature of
+ * 128 bits, and is mapped to a shard by {@link OperationRouting} for a new
+ * index of the given number of shards, so no cluster is needed.
+ *
+ * <pre>
+ * RoutingSkewBenchmark [numOfDocs] [numOfShards] [bands,...]
+ * </pre>
+ *
+ * Fewer, wider bands spread the documents over more routing keys but are
+ * less often shared by near duplicates.
+ */
+public class RoutingSkewBenchmark {
+
+    private static final String FIELD = "content";
+
+    private static final int SIZE = 128;
+
+    public static void main(final String[] args) throws Exception {
+        final int numOfDocs = args.length > 0 ? Integer.parseInt(args[0])
+                : 100000;
+        final int numOfShards = args.length > 1 ? Integer.parseInt(args[1])
+                : 60;
+        final String[] bandsList = (args.length > 2 ? args[2] : "32,16,8,4,2")
+                .split(",");
+
+        final List<String> corpus = new ArrayList<>(numOfDocs);
+        final int[] originals = corpus(numOfDocs, corpus);
+        final long[][] signatures = signatures(corpus);
+
+        final IndexMetadata indexMetadata = IndexMetadata.builder("routing")
+                .settings(Settings.builder().put(
+                        IndexMetadata.SETTING_VERSION_CREATED,
+                        Version.CURRENT))
+                .numberOfShards(numOfShards).numberOfReplicas(0)
+                .setRoutingNumShards(MetadataCreateIndexService
+                        .calculateNumRoutingShards(numOfShards,
+                                Version.CURRENT))
+                .build();
+        System.out.println("docs=" + numOfDocs + " shards=" + numOfShards
+                + " routing_shards=" + indexMetadata.getRoutingNumShards());
+
+        final int[] shards = new int[numOfDocs];
+        for (int i = 0; i < numOfDocs; i++) {
+            shards[i] = OperationRouting.generateShardId(indexMetadata,
+                    String.valueOf(i), null);
+        }
+        report("_id", numOfShards, originals, shards);
+        for (final String value : bandsList) {
+            final int bands = Integer.parseInt(value.trim());
+            // band 0, as the processor routes by default
+            final int length = MinHashSignatures.substringStart(SIZE, bands,
+                    1);
+            for (int i = 0; i < numOfDocs; i++) {
+                shards[i] = OperationRouting.generateShardId(indexMetadata,
+                        String.valueOf(i), MinHashRoutingProcessor
+                                .routingKey(signatures[i], 0, length));
+            }
+            report("bands=" + bands + " (" + length + " bits)", numOfShards,
+                    originals, shards);
+        }
+    }
+
+    /**
+     * Returns the signature of each document as the processor computes it
+     * with the {@code standard} analyzer.
+     */
+    private static long[][] signatures(final List<String> corpus)
+            throws IOException {
+        final MinHashAccumulator accumulator = new MinHashAccumulator(
+                MinHash.createHashFunctions(0, SIZE), 1);
+        final long[][] signatures = new long[corpus.size()][];
+        try (Analyzer analyzer = new StandardAnalyzer()) {
+            for (int i = 0; i < corpus.size(); i++) {
+                accumulator.reset();
+                try (TokenStream stream = analyzer.tokenStream(FIELD,
+                        new StringReader(corpus.get(i)))) {
+                    final CharTermAttribute termAtt = stream
+                            .addAttribute(CharTermAttribute.class);
+                    stream.reset();
+                    while (stream.incrementToken()) {
+                        accumulator.add(termAtt);
+                    }
+                    stream.end();
+                }
+                signatures[i] = MinHashSignatures
+                        .toLongs(accumulator.toByteArray());
+            }
+        }
+        return signatures;
+    }
+
+    private static void report(final String name, final int numOfShards,
+            final int[] originals, final int[] shards) {
+        final long[] counts = new long[numOfShards];
+        for (final int shard : shards) {
+            counts[shard]++;
+        }
+        final double mean = (double) shards.length / numOfShards;
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        double variance = 0;
+        for (final long count : counts) {
+            min = Math.min(min, count);
+            max = Math.max(max, count);
+            variance += (count - mean) * (count - mean);
+        }
+        int pairs = 0;
+        int colocated = 0;
+        for (int i = 0; i < originals.length; i++) {
+            if (originals[i] >= 0) {
+                pairs++;
+                if (shards[i] == shards[originals[i]]) {
+                    colocated++;
+                }
+            }
+        }
+        System.out.println(String.format(
+                "%s: min=%d max=%d max/mean=%.2f cv=%.3f near-duplicates colocated=%.1f%%",
+                name, min, max, max / mean,
+                Math.sqrt(variance / numOfShards) / mean,
+                pairs == 0 ? 0.0 : colocated * 100.0 / pairs));
+        System.out.println("  per shard: " + Arrays.toString(counts));
+    }
+
+    /**
+     * Fills the corpus with documents of 200 random words, of which 10%
+     * are copies of an earlier document with 5 words changed, and returns
+     * the original of each document, or -1.
+     */
+    private static int[] corpus(final int numOfDocs,
+            final List<String> corpus) {
+        final Random random = new Random(1);
+        final int[] originals = new int[numOfDocs];
+        for (int i = 0; i < numOfDocs; i++) {
+            originals[i] = -1;
+            if (i > 0 && random.nextDouble() < 0.1) {
+                originals[i] = random.nextInt(i);
+                final String[] words = corpus.get(originals[i]).split(" ");
+                for (int j = 0; j < 5; j++) {
+                    words[random.nextInt(words.length)] = "w"
+                            + random.nextInt(100000);
+                }
+                corpus.add(String.join(" ", words));
+                continue;
+            }
+            final StringBuilder buf = new StringBuilder(1200);
+            for (int j = 0; j < 200; j++) {
+                if (j > 0) {
+                    buf.append(' ');
+                }
+                buf.append('w').append(random.nextInt(50000));
+            }
+            corpus.add(buf.toString());
+        }
+        return originals;
+    }
+}
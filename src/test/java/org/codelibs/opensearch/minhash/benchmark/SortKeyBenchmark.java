@@ -0,0 +1,221 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.codelibs.minhash.MinHash;
+import org.codelibs.opensearch.minhash.index.analysis.MinHashAccumulator;
+import org.codelibs.opensearch.minhash.util.MinHashSignatures;
+
+import com.google.common.hash.HashFunction;
+
+/**
+ * Measures what sorting by the {@code sort_key} sub-field does to the size
+ * of the index and to a {@code minhash_within} doc values scan, with Lucene
+ * alone. Each document has the fields a minhash field with
+ * {@code sort_key: true} adds, and its text as the stored source. The
+ * corpus is the one of {@link MinHashBenchmark}. Each index is merged into
+ * one segment, and the scan decodes every signature and counts those within
+ * {@code size * bit / 8} bits of the first one.
+ *
+ * <pre>
+ * SortKeyBenchmark [numOfDocs] [size:bit,...] [numOfQueries]
+ * </pre>
+ */
+public class SortKeyBenchmark {
+
+    private static final String FIELD = "content_minhash";
+
+    private static final String SORT_KEY_FIELD = FIELD + ".sort_key";
+
+    private static final int WARM_UP = 5;
+
+    public static void main(final String[] args) throws Exception {
+        final int numOfDocs = args.length > 0 ? Integer.parseInt(args[0])
+                : 100000;
+        final String[] variants = (args.length > 1 ? args[1]
+                : "32:1,128:1,256:2").split(",");
+        final int numOfQueries = args.length > 2 ? Integer.parseInt(args[2])
+                : 50;
+
+        final List<String> corpus = MinHashBenchmark.corpus(numOfDocs, 200,
+                0.1);
+        System.out.println("docs=" + numOfDocs + " cpus="
+                + Runtime.getRuntime().availableProcessors() + " java="
+                + System.getProperty("java.version"));
+        for (final String variant : variants) {
+            final String[] values = variant.trim().split(":");
+            final int size = Integer.parseInt(values[0]);
+            final int bit = Integer.parseInt(values[1]);
+            final byte[][] signatures = signatures(corpus, size, bit);
+            for (final boolean indexSort : new boolean[] { false, true }) {
+                final Path dir = Files.createTempDirectory("sort-key");
+                try (Directory directory = FSDirectory.open(dir)) {
+                    index(directory, corpus, signatures, indexSort);
+                    final Map<String, Long> sizes = sizes(directory);
+                    final Latencies latencies = scan(directory,
+                            signatures[0], size * bit / 8, numOfQueries);
+                    System.out.printf(
+                            "%d:%d sorted=%s total=%d doc_values=%d"
+                                    + " stored=%d terms=%d points=%d"
+                                    + " scan_p50=%.2fms scan_p90=%.2fms%n",
+                            size, bit, indexSort, sizes.get("total"),
+                            sizes.get("dvd"), sizes.get("fdt"),
+                            sizes.get("tim") + sizes.get("doc"),
+                            sizes.get("kdd"), latencies.percentile(0.5),
+                            latencies.percentile(0.9));
+                } finally {
+                    try (DirectoryStream<Path> files = Files
+                            .newDirectoryStream(dir)) {
+                        for (final Path file : files) {
+                            Files.delete(file);
+                        }
+                    }
+                    Files.delete(dir);
+                }
+            }
+        }
+    }
+
+    private static byte[][] signatures(final List<String> corpus,
+            final int size, final int bit) {
+        final HashFunction[] hashFunctions = MinHash.createHashFunctions(0,
+                size);
+        final MinHashAccumulator accumulator = new MinHashAccumulator(
+                hashFunctions, bit);
+        final byte[][] signatures = new byte[corpus.size()][];
+        for (int i = 0; i < corpus.size(); i++) {
+            accumulator.reset();
+            for (final String token : corpus.get(i).split(" ")) {
+                accumulator.add(token);
+            }
+            signatures[i] = accumulator.toByteArray();
+        }
+        return signatures;
+    }
+
+    private static void index(final Directory directory,
+            final List<String> corpus, final byte[][] signatures,
+            final boolean indexSort) throws IOException {
+        // file sizes are reported by extension
+        final IndexWriterConfig config = new IndexWriterConfig()
+                .setUseCompoundFile(false);
+        if (indexSort) {
+            config.setIndexSort(new Sort(new SortedNumericSortField(
+                    SORT_KEY_FIELD, SortField.Type.LONG)));
+        }
+        try (IndexWriter writer = new IndexWriter(directory, config)) {
+            for (int i = 0; i < corpus.size(); i++) {
+                final BytesRef value = new BytesRef(
+                        Base64.getEncoder().encode(signatures[i]));
+                final long sortKey = MinHashSignatures.sortKey(signatures[i]);
+                final Document doc = new Document();
+                doc.add(new StoredField("_source",
+                        ("{\"content\":\"" + corpus.get(i) + "\"}")
+                                .getBytes(StandardCharsets.UTF_8)));
+                doc.add(new StringField(FIELD, value, Field.Store.NO));
+                doc.add(new SortedSetDocValuesField(FIELD, value));
+                doc.add(new LongPoint(SORT_KEY_FIELD, sortKey));
+                doc.add(new SortedNumericDocValuesField(SORT_KEY_FIELD,
+                        sortKey));
+                writer.addDocument(doc);
+            }
+            writer.forceMerge(1);
+        }
+    }
+
+    /**
+     * Returns the bytes of the files by extension, and their total.
+     */
+    private static Map<String, Long> sizes(final Directory directory)
+            throws IOException {
+        final Map<String, Long> sizes = new TreeMap<>();
+        for (final String ext : new String[] { "total", "dvd", "fdt", "tim",
+                "doc", "kdd" }) {
+            sizes.put(ext, 0L);
+        }
+        for (final String file : directory.listAll()) {
+            final long length = directory.fileLength(file);
+            sizes.merge("total", length, Long::sum);
+            final int dot = file.lastIndexOf('.');
+            if (dot >= 0) {
+                sizes.merge(file.substring(dot + 1), length, Long::sum);
+            }
+        }
+        return sizes;
+    }
+
+    private static Latencies scan(final Directory directory,
+            final byte[] query, final int maxDistance, final int numOfQueries)
+            throws IOException {
+        final Latencies latencies = new Latencies(numOfQueries);
+        final byte[] buffer = new byte[query.length];
+        try (DirectoryReader reader = DirectoryReader.open(directory)) {
+            for (int n = -WARM_UP; n < numOfQueries; n++) {
+                final long start = System.nanoTime();
+                int count = 0;
+                for (final LeafReaderContext context : reader.leaves()) {
+                    final SortedSetDocValues values = context.reader()
+                            .getSortedSetDocValues(FIELD);
+                    while (values.nextDoc() != DocIdSetIterator.NO_MORE_DOCS) {
+                        MinHashSignatures.decode(
+                                values.lookupOrd(values.nextOrd()), false,
+                                buffer);
+                        if (MinHashSignatures.hammingDistance(query, buffer,
+                                query.length) <= maxDistance) {
+                            count++;
+                        }
+                    }
+                }
+                if (count == 0) {
+                    throw new IllegalStateException("no match");
+                }
+                if (n >= 0) {
+                    latencies.add(System.nanoTime() - start);
+                }
+            }
+        }
+        return latencies;
+    }
+}
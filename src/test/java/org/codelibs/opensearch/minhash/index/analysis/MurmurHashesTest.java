@@ -0,0 +1,85 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.index.analysis;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.codelibs.minhash.MinHash;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import junit.framework.TestCase;
+
+public class MurmurHashesTest extends TestCase {
+
+    public void test_sameAsGuava() {
+        final HashFunction[] hashFunctions = MinHash.createHashFunctions(-5, 131);
+        final long[] seeds = MurmurHashes.seeds(hashFunctions);
+        assertNotNull(seeds);
+        assertNull(MurmurHashes.seeds(new HashFunction[] { Hashing.sha256() }));
+
+        final MurmurHashes scalar = MurmurHashes.create(seeds, false);
+        final MurmurHashes vector = MurmurHashes.isVectorEnabled() ? MurmurHashes.create(seeds, true) : null;
+        final long[] values = new long[seeds.length];
+        final Random random = new Random(1);
+        for (int n = 0; n < 2000; n++) {
+            // terms of every length around the 8-char blocks, with surrogates
+            final StringBuilder term = new StringBuilder();
+            final int length = random.nextInt(40);
+            for (int i = 0; i < length; i++) {
+                term.append(random.nextBoolean() ? (char) ('a' + random.nextInt(26))
+                        : (char) random.nextInt(Character.MAX_VALUE + 1));
+            }
+            scalar.hash(term, values);
+            for (int i = 0; i < hashFunctions.length; i++) {
+                assertEquals(hashFunctions[i].hashUnencodedChars(term).asLong(), values[i]);
+            }
+            if (vector != null) {
+                Arrays.fill(values, 0L);
+                vector.hash(term, values);
+                for (int i = 0; i < hashFunctions.length; i++) {
+                    assertEquals(hashFunctions[i].hashUnencodedChars(term).asLong(), values[i]);
+                }
+            }
+        }
+    }
+
+    public void test_accumulator() {
+        final HashFunction[] hashFunctions = MinHash.createHashFunctions(0, 128);
+        final Random random = new Random(2);
+        for (int n = 0; n < 50; n++) {
+            final MinHashAccumulator accumulator = new MinHashAccumulator(hashFunctions, 2);
+            // without seeds, the functions are computed one by one by Guava
+            final MinHashAccumulator guava = new MinHashAccumulator(hashFunctions, null, 2);
+            if (n % 2 == 0) {
+                accumulator.enableSampling(0.3);
+                guava.enableSampling(0.3);
+            }
+            for (int i = 0; i < 300; i++) {
+                if (n % 2 == 0 && i == 150) {
+                    accumulator.sampleOnly();
+                    guava.sampleOnly();
+                }
+                final String term = "w" + random.nextInt(100000);
+                accumulator.add(term);
+                guava.add(term);
+            }
+            assertTrue(Arrays.equals(guava.toByteArray(), accumulator.toByteArray()));
+        }
+    }
+}
@@ -20,16 +20,27 @@ import static org.codelibs.opensearch.runner.OpenSearchRunner.newConfigs;
 import java.util.Base64;
 import java.util.Map;
 
+import org.codelibs.opensearch.minhash.index.query.MinHashWithinQueryBuilder;
+import org.codelibs.opensearch.minhash.util.MinHashSignatures;
 import org.codelibs.opensearch.runner.OpenSearchRunner;
 import org.opensearch.action.DocWriteResponse.Result;
+import org.opensearch.action.admin.indices.mapping.get.GetMappingsResponse;
 import org.opensearch.action.get.GetResponse;
 import org.opensearch.action.index.IndexResponse;
+import org.opensearch.action.search.SearchResponse;
 import org.opensearch.common.document.DocumentField;
 import org.opensearch.common.settings.Settings;
 import org.opensearch.common.settings.Settings.Builder;
 import org.opensearch.common.xcontent.XContentFactory;
 import org.opensearch.common.xcontent.XContentType;
 import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.index.query.QueryBuilder;
+import org.opensearch.index.query.QueryBuilders;
+import org.opensearch.search.SearchHit;
+import org.opensearch.search.aggregations.AggregationBuilders;
+import org.opensearch.search.aggregations.bucket.terms.Terms;
+import org.opensearch.search.collapse.CollapseBuilder;
+import org.opensearch.search.sort.SortOrder;
 
 import com.google.common.collect.Lists;
 
@@ -588,6 +599,533 @@ public class MinHashFieldMapperTest extends TestCase {
         assertFalse(hash1.equals(hash2));
     }
 
+    public void test_multiValueModes() throws Exception {
+        final String index = "test_multi_value";
+
+        final String indexSettings = "{\"index\":{\"analysis\":{" +
+                "\"analyzer\":{\"minhash_analyzer\":{\"type\":\"custom\",\"tokenizer\":\"standard\",\"filter\":[\"minhash\"]}}}}}";
+
+        runner.createIndex(index, Settings.builder()
+                .loadFromSource(indexSettings, XContentType.JSON).build());
+        runner.ensureYellow(index);
+
+        final XContentBuilder mappingBuilder = XContentFactory.jsonBuilder()
+                .startObject()
+                .startObject("properties")
+                .startObject("content")
+                .field("type", "text")
+                .field("copy_to", Lists.newArrayList("per_value_minhash", "union_minhash"))
+                .endObject()
+                .startObject("per_value_minhash")
+                .field("type", "minhash")
+                .field("store", true)
+                .field("minhash_analyzer", "minhash_analyzer")
+                .field("multi_value", "per_value")
+                .endObject()
+                .startObject("union_minhash")
+                .field("type", "minhash")
+                .field("store", true)
+                .field("minhash_analyzer", "minhash_analyzer")
+                .field("multi_value", "union")
+                .endObject()
+                .endObject()
+                .endObject();
+
+        runner.createMapping(index, mappingBuilder);
+
+        runner.insert(index, "1", "{\"content\":[\"The quick brown fox\",\"jumps over the lazy dog\"]}");
+        runner.insert(index, "2", "{\"content\":\"The quick brown fox jumps over the lazy dog\"}");
+        runner.insert(index, "3", "{\"content\":\"The quick brown fox\"}");
+        runner.refresh();
+
+        final GetResponse response1 = runner.client().prepareGet(index, "1")
+                .setStoredFields("per_value_minhash", "union_minhash").execute().actionGet();
+        final GetResponse response2 = runner.client().prepareGet(index, "2")
+                .setStoredFields("per_value_minhash", "union_minhash").execute().actionGet();
+        final GetResponse response3 = runner.client().prepareGet(index, "3")
+                .setStoredFields("per_value_minhash", "union_minhash").execute().actionGet();
+
+        // One signature per element
+        assertEquals(2, response1.getField("per_value_minhash").getValues().size());
+        // One signature over all elements
+        assertEquals(1, response1.getField("union_minhash").getValues().size());
+
+        // The union of the elements hashes like the concatenated text
+        assertEquals(response2.getField("union_minhash").getValue(),
+                response1.getField("union_minhash").getValue());
+
+        // A single value hashes the same in both modes
+        assertEquals(response3.getField("per_value_minhash").getValue(),
+                response3.getField("union_minhash").getValue());
+    }
+
+    public void test_largeValue() throws Exception {
+        final String index = "test_large_value";
+
+        final String indexSettings = "{\"index\":{\"analysis\":{" +
+                "\"analyzer\":{\"minhash_analyzer\":{\"type\":\"custom\",\"tokenizer\":\"standard\",\"filter\":[\"minhash\"]}}}}}";
+
+        runner.createIndex(index, Settings.builder()
+                .loadFromSource(indexSettings, XContentType.JSON).build());
+        runner.ensureYellow(index);
+
+        final XContentBuilder mappingBuilder = XContentFactory.jsonBuilder()
+                .startObject()
+                .startObject("properties")
+                .startObject("minhash_value")
+                .field("type", "minhash")
+                .field("store", true)
+                .field("minhash_analyzer", "minhash_analyzer")
+                .endObject()
+                .endObject()
+                .endObject();
+
+        runner.createMapping(index, mappingBuilder);
+
+        // about 2MB of text with the same token set as the small document
+        final StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            buf.append("alpha beta gamma ");
+        }
+        runner.insert(index, "1", "{\"minhash_value\":\"" + buf + "\"}");
+        runner.insert(index, "2", "{\"minhash_value\":\"alpha beta gamma\"}");
+        runner.refresh();
+
+        final GetResponse response1 = runner.client().prepareGet(index, "1")
+                .setStoredFields("minhash_value").execute().actionGet();
+        final GetResponse response2 = runner.client().prepareGet(index, "2")
+                .setStoredFields("minhash_value").execute().actionGet();
+
+        assertEquals(response2.getField("minhash_value").getValue(),
+                response1.getField("minhash_value").getValue());
+    }
+
+    @SuppressWarnings("unchecked")
+    public void test_fingerprint() throws Exception {
+        final String index = "test_fingerprint";
+
+        final String indexSettings = "{\"index\":{\"analysis\":{" +
+                "\"analyzer\":{\"minhash_analyzer\":{\"type\":\"custom\",\"tokenizer\":\"standard\",\"filter\":[\"minhash\"]}}}}}";
+
+        runner.createIndex(index, Settings.builder()
+                .loadFromSource(indexSettings, XContentType.JSON).build());
+        runner.ensureYellow(index);
+
+        final XContentBuilder mappingBuilder = XContentFactory.jsonBuilder()
+                .startObject()
+                .startObject("properties")
+                .startObject("content")
+                .field("type", "text")
+                .field("copy_to", "minhash_value")
+                .endObject()
+                .startObject("minhash_value")
+                .field("type", "minhash")
+                .field("store", true)
+                .field("minhash_analyzer", "minhash_analyzer")
+                .field("fingerprint", true)
+                .endObject()
+                .endObject()
+                .endObject();
+
+        runner.createMapping(index, mappingBuilder);
+
+        runner.insert(index, "1", "{\"content\":\"Identical content for testing\"}");
+        runner.insert(index, "2", "{\"content\":\"Identical content for testing\"}");
+        runner.insert(index, "3", "{\"content\":\"Something else entirely\"}");
+        runner.refresh();
+
+        final GetResponse response = runner.client().prepareGet(index, "1")
+                .setStoredFields("minhash_value").execute().actionGet();
+        final long fingerprint = MinHashFieldMapper.fingerprint(Base64.getDecoder()
+                .decode((String) response.getField("minhash_value").getValue()));
+
+        final SearchResponse termsResponse = runner.client().prepareSearch(index)
+                .setSize(0)
+                .addAggregation(AggregationBuilders.terms("duplicates")
+                        .field("minhash_value.fingerprint").minDocCount(2))
+                .execute().actionGet();
+        final Terms terms = termsResponse.getAggregations().get("duplicates");
+        assertEquals(1, terms.getBuckets().size());
+        assertEquals(fingerprint, terms.getBuckets().get(0).getKeyAsNumber().longValue());
+        assertEquals(2, terms.getBuckets().get(0).getDocCount());
+
+        final SearchResponse collapseResponse = runner.client().prepareSearch(index)
+                .setQuery(QueryBuilders.matchAllQuery())
+                .setCollapse(new CollapseBuilder("minhash_value.fingerprint"))
+                .execute().actionGet();
+        assertEquals(2, collapseResponse.getHits().getHits().length);
+
+        // the mapping does not expose the sub-field as a separate property
+        final GetMappingsResponse mappingsResponse = runner.client().admin().indices()
+                .prepareGetMappings(index).execute().actionGet();
+        final Map<String, Object> properties = (Map<String, Object>) mappingsResponse
+                .getMappings().get(index).getSourceAsMap().get("properties");
+        final Map<String, Object> minhashMapping = (Map<String, Object>) properties.get("minhash_value");
+        assertEquals(Boolean.TRUE, minhashMapping.get("fingerprint"));
+        assertNull(minhashMapping.get("fields"));
+    }
+
+    public void test_sortKey() throws Exception {
+        final String index = "test_sort_key";
+
+        final String indexSettings = "{\"index\":{\"number_of_shards\":1," +
+                "\"sort\":{\"field\":\"minhash_value.sort_key\"},\"analysis\":{" +
+                "\"analyzer\":{\"minhash_analyzer\":{\"type\":\"custom\",\"tokenizer\":\"standard\",\"filter\":[\"minhash\"]}}}}}";
+
+        final XContentBuilder mappingBuilder = XContentFactory.jsonBuilder()
+                .startObject()
+                .startObject("properties")
+                .startObject("content")
+                .field("type", "text")
+                .field("copy_to", "minhash_value")
+                .endObject()
+                .startObject("minhash_value")
+                .field("type", "minhash")
+                .field("store", true)
+                .field("minhash_analyzer", "minhash_analyzer")
+                .field("sort_key", true)
+                .endObject()
+                .endObject()
+                .endObject();
+
+        // the index sort is checked against the mapping of the create request
+        runner.client().admin().indices().prepareCreate(index)
+                .setSettings(Settings.builder()
+                        .loadFromSource(indexSettings, XContentType.JSON).build())
+                .setMapping(mappingBuilder).execute().actionGet();
+        runner.ensureYellow(index);
+
+        for (int i = 1; i <= 20; i++) {
+            runner.insert(index, String.valueOf(i), "{\"content\":\"sorted story number " + i % 5
+                    + " about the market\"}");
+        }
+        runner.refresh();
+
+        final SearchResponse response = runner.client().prepareSearch(index)
+                .setQuery(QueryBuilders.matchAllQuery())
+                .addSort("minhash_value.sort_key", SortOrder.ASC)
+                .addStoredField("minhash_value").setSize(20)
+                .execute().actionGet();
+        assertEquals(20, response.getHits().getHits().length);
+        long previous = Long.MIN_VALUE;
+        for (final SearchHit hit : response.getHits().getHits()) {
+            final long key = ((Number) hit.getSortValues()[0]).longValue();
+            assertEquals(MinHashSignatures.sortKey(Base64.getDecoder()
+                    .decode((String) hit.field("minhash_value").getValue())), key);
+            assertTrue(previous <= key);
+            previous = key;
+        }
+
+        final GetMappingsResponse mappingsResponse = runner.client().admin().indices()
+                .prepareGetMappings(index).execute().actionGet();
+        final Map<String, Object> properties = (Map<String, Object>) mappingsResponse
+                .getMappings().get(index).getSourceAsMap().get("properties");
+        final Map<String, Object> minhashMapping = (Map<String, Object>) properties.get("minhash_value");
+        assertEquals(Boolean.TRUE, minhashMapping.get("sort_key"));
+    }
+
+    public void test_termQueryWithText() throws Exception {
+        final String index = "test_term_text";
+
+        final String indexSettings = "{\"index\":{\"analysis\":{" +
+                "\"analyzer\":{\"minhash_analyzer\":{\"type\":\"custom\",\"tokenizer\":\"standard\",\"filter\":[\"minhash\"]}}}}}";
+
+        runner.createIndex(index, Settings.builder()
+                .loadFromSource(indexSettings, XContentType.JSON).build());
+        runner.ensureYellow(index);
+
+        final XContentBuilder mappingBuilder = XContentFactory.jsonBuilder()
+                .startObject()
+                .startObject("properties")
+                .startObject("signature_value")
+                .field("type", "minhash")
+                .field("store", true)
+                .field("minhash_analyzer", "minhash_analyzer")
+                .endObject()
+                .startObject("minhash_value")
+                .field("type", "minhash")
+                .field("query_value", "text")
+                .field("minhash_analyzer", "minhash_analyzer")
+                .endObject()
+                .startObject("bits_value")
+                .field("type", "minhash")
+                .field("bit_string", true)
+                .field("query_value", "text")
+                .field("minhash_analyzer", "minhash_analyzer")
+                .endObject()
+                .endObject()
+                .endObject();
+
+        runner.createMapping(index, mappingBuilder);
+
+        runner.insert(index, "1", "{\"signature_value\":\"This is a test\",\"minhash_value\":\"This is a test\","
+                + "\"bits_value\":\"This is a test\"}");
+        runner.insert(index, "2", "{\"signature_value\":\"Something else\",\"minhash_value\":\"Something else\","
+                + "\"bits_value\":\"Something else\"}");
+        runner.refresh();
+
+        final String signature = (String) runner.client().prepareGet(index, "1")
+                .setStoredFields("signature_value").execute().actionGet()
+                .getField("signature_value").getValue();
+
+        // by default, a value is an encoded signature and is used as is
+        assertHit(index, QueryBuilders.termQuery("signature_value", signature), "1");
+        assertEquals(0, runner.client().prepareSearch(index)
+                .setQuery(QueryBuilders.termQuery("signature_value", "This is a test"))
+                .execute().actionGet().getHits().getTotalHits().value());
+        // with query_value: text, a value is always hashed, even one that
+        // looks like a signature
+        assertEquals(0, runner.client().prepareSearch(index)
+                .setQuery(QueryBuilders.termQuery("minhash_value", signature))
+                .execute().actionGet().getHits().getTotalHits().value());
+        assertHit(index, QueryBuilders.termQuery("minhash_value", "This is a test"), "1");
+        assertHit(index, QueryBuilders.matchQuery("minhash_value", "This is a test"), "1");
+        assertHit(index, QueryBuilders.termQuery("bits_value", "This is a test"), "1");
+        final SearchResponse termsResponse = runner.client().prepareSearch(index)
+                .setQuery(QueryBuilders.termsQuery("minhash_value", "This is a test", "Something else"))
+                .execute().actionGet();
+        assertEquals(2, termsResponse.getHits().getTotalHits().value());
+    }
+
+    private void assertHit(final String index, final QueryBuilder query, final String id) {
+        final SearchResponse response = runner.client().prepareSearch(index)
+                .setQuery(query).execute().actionGet();
+        assertEquals(1, response.getHits().getTotalHits().value());
+        assertEquals(id, response.getHits().getAt(0).getId());
+    }
+
+    public void test_limits() throws Exception {
+        final String index = "test_limits";
+
+        final String indexSettings = "{\"index\":{\"analysis\":{" +
+                "\"analyzer\":{\"minhash_analyzer\":{\"type\":\"custom\",\"tokenizer\":\"standard\",\"filter\":[\"minhash\"]}}}}}";
+
+        runner.createIndex(index, Settings.builder()
+                .loadFromSource(indexSettings, XContentType.JSON).build());
+        runner.ensureYellow(index);
+
+        final XContentBuilder mappingBuilder = XContentFactory.jsonBuilder()
+                .startObject()
+                .startObject("properties")
+                .startObject("rejected_value")
+                .field("type", "minhash")
+                .field("store", true)
+                .field("minhash_analyzer", "minhash_analyzer")
+                .field("max_tokens", 1000)
+                .endObject()
+                .startObject("sampled_value")
+                .field("type", "minhash")
+                .field("store", true)
+                .field("minhash_analyzer", "minhash_analyzer")
+                .field("max_tokens", 1000)
+                .field("on_limit", "sample")
+                .field("sample_rate", 0.05)
+                .field("query_value", "text")
+                .endObject()
+                .endObject()
+                .endObject();
+
+        runner.createMapping(index, mappingBuilder);
+
+        final StringBuilder small = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            small.append("word").append(i).append(' ');
+        }
+        final IndexResponse smallResponse = runner.insert(index, "1",
+                "{\"rejected_value\":\"" + small + "\"}");
+        assertEquals(Result.CREATED, smallResponse.getResult());
+
+        final StringBuilder large1 = new StringBuilder();
+        final StringBuilder large2 = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            large1.append("word").append(i).append(' ');
+            large2.append("word").append(i == 10 ? 99999 : i).append(' ');
+        }
+        try {
+            runner.insert(index, "2", "{\"rejected_value\":\"" + large1 + "\"}");
+            fail("a value over max_tokens should be rejected");
+        } catch (final Exception e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("max_tokens")
+                    || (e.getCause() != null && e.getCause().getMessage().contains("max_tokens")));
+        }
+
+        // the sampled signatures of near duplicates stay comparable
+        runner.insert(index, "3", "{\"sampled_value\":\"" + large1 + "\"}");
+        runner.insert(index, "4", "{\"sampled_value\":\"" + large2 + "\"}");
+        runner.insert(index, "5", "{\"sampled_value\":\"" + small + "\"}");
+        runner.refresh();
+
+        // sampled signatures are indexed only in the sampled sub-field
+        final GetResponse getResponse3 = runner.client().prepareGet(index, "3")
+                .setStoredFields("sampled_value", "sampled_value.sampled")
+                .execute().actionGet();
+        assertNull(getResponse3.getField("sampled_value"));
+        final String value3 = (String) getResponse3
+                .getField("sampled_value.sampled").getValue();
+        final String value4 = (String) runner.client().prepareGet(index, "4")
+                .setStoredFields("sampled_value.sampled").execute()
+                .actionGet().getField("sampled_value.sampled").getValue();
+        final GetResponse getResponse5 = runner.client().prepareGet(index, "5")
+                .setStoredFields("sampled_value", "sampled_value.sampled")
+                .execute().actionGet();
+        assertNotNull(getResponse5.getField("sampled_value"));
+        assertNull(getResponse5.getField("sampled_value.sampled"));
+
+        // a radius of all bits matches every signature of the field, so a
+        // sampled and a full signature are never compared
+        final SearchResponse fullResponse = runner.client().prepareSearch(index)
+                .setQuery(new MinHashWithinQueryBuilder("sampled_value",
+                        value3, 128))
+                .execute().actionGet();
+        assertEquals(1, fullResponse.getHits().getTotalHits().value());
+        assertEquals("5", fullResponse.getHits().getHits()[0].getId());
+        final SearchResponse sampledResponse = runner.client()
+                .prepareSearch(index)
+                .setQuery(new MinHashWithinQueryBuilder(
+                        "sampled_value.sampled", value3, 128))
+                .execute().actionGet();
+        assertEquals(2, sampledResponse.getHits().getTotalHits().value());
+
+        // a text is hashed like the values of the field it is compared with
+        final SearchResponse textResponse = runner.client().prepareSearch(index)
+                .setQuery(QueryBuilders.termQuery("sampled_value.sampled",
+                        large1.toString()))
+                .execute().actionGet();
+        assertEquals(1, textResponse.getHits().getTotalHits().value());
+        assertEquals("3", textResponse.getHits().getHits()[0].getId());
+        final byte[] bytes3 = Base64.getDecoder().decode(value3);
+        final byte[] bytes4 = Base64.getDecoder().decode(value4);
+        int distance = 0;
+        for (int i = 0; i < bytes3.length; i++) {
+            distance += Integer.bitCount((bytes3[i] ^ bytes4[i]) & 0xff);
+        }
+        assertTrue("distance: " + distance, distance <= 8);
+    }
+
+    public void test_variants() throws Exception {
+        final String index = "test_variants";
+
+        final String indexSettings = "{\"index\":{\"analysis\":{"
+                + "\"filter\":{\"fast_minhash\":{\"type\":\"minhash\",\"size\":32},"
+                + "\"precise_minhash\":{\"type\":\"minhash\",\"size\":256,\"bit\":2,\"seed\":5}},"
+                + "\"analyzer\":{\"minhash_analyzer\":{\"type\":\"custom\",\"tokenizer\":\"standard\",\"filter\":[\"minhash\"]},"
+                + "\"fast_analyzer\":{\"type\":\"custom\",\"tokenizer\":\"standard\",\"filter\":[\"fast_minhash\"]},"
+                + "\"precise_analyzer\":{\"type\":\"custom\",\"tokenizer\":\"standard\",\"filter\":[\"precise_minhash\"]}}}}}";
+
+        runner.createIndex(index, Settings.builder()
+                .loadFromSource(indexSettings, XContentType.JSON).build());
+        runner.ensureYellow(index);
+
+        final XContentBuilder mappingBuilder = XContentFactory.jsonBuilder()
+                .startObject()
+                .startObject("properties")
+                .startObject("content")
+                .field("type", "text")
+                .field("copy_to", Lists.newArrayList("content_minhash", "fast_minhash", "precise_minhash"))
+                .endObject()
+                .startObject("content_minhash")
+                .field("type", "minhash")
+                .field("store", true)
+                .field("minhash_analyzer", "minhash_analyzer")
+                .startObject("variants")
+                .startObject("fast").field("size", 32).endObject()
+                .startObject("precise").field("size", 256).field("bit", 2).field("seed", 5).endObject()
+                .endObject()
+                .endObject()
+                .startObject("fast_minhash")
+                .field("type", "minhash")
+                .field("store", true)
+                .field("minhash_analyzer", "fast_analyzer")
+                .endObject()
+                .startObject("precise_minhash")
+                .field("type", "minhash")
+                .field("store", true)
+                .field("minhash_analyzer", "precise_analyzer")
+                .endObject()
+                .endObject()
+                .endObject();
+
+        runner.createMapping(index, mappingBuilder);
+
+        runner.insert(index, "1", "{\"content\":\"This is a test of several signatures\"}");
+        runner.insert(index, "2", "{\"content\":\"Something else\"}");
+        runner.refresh();
+
+        // the variants equal the signatures of separate minhash fields
+        final GetResponse response = runner.client().prepareGet(index, "1")
+                .setStoredFields("content_minhash.fast", "content_minhash.precise", "fast_minhash", "precise_minhash")
+                .execute().actionGet();
+        assertEquals(response.getField("fast_minhash").getValue(),
+                response.getField("content_minhash.fast").getValue());
+        assertEquals(response.getField("precise_minhash").getValue(),
+                response.getField("content_minhash.precise").getValue());
+
+        assertHit(index, QueryBuilders.termQuery("content_minhash.fast",
+                response.getField("fast_minhash").getValue()), "1");
+        assertHit(index, QueryBuilders.termQuery("content_minhash.precise", "This is a test of several signatures"), "1");
+    }
+
+    public void test_window() throws Exception {
+        final String index = "test_window";
+
+        final String indexSettings = "{\"index\":{\"analysis\":{" +
+                "\"analyzer\":{\"minhash_analyzer\":{\"type\":\"custom\",\"tokenizer\":\"standard\",\"filter\":[\"minhash\"]}}}}}";
+
+        runner.createIndex(index, Settings.builder()
+                .loadFromSource(indexSettings, XContentType.JSON).build());
+        runner.ensureYellow(index);
+
+        final XContentBuilder mappingBuilder = XContentFactory.jsonBuilder()
+                .startObject()
+                .startObject("properties")
+                .startObject("minhash_value")
+                .field("type", "minhash")
+                .field("store", true)
+                .field("minhash_analyzer", "minhash_analyzer")
+                .field("window", 20)
+                .field("window_stride", 5)
+                .endObject()
+                .endObject()
+                .endObject();
+
+        runner.createMapping(index, mappingBuilder);
+
+        final StringBuilder report = new StringBuilder();
+        final StringBuilder copy = new StringBuilder();
+        final StringBuilder other = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            report.append("report").append(i).append(' ');
+            other.append("other").append(i).append(' ');
+        }
+        // a passage of the report between other text
+        for (int i = 0; i < 50; i++) {
+            copy.append("copy").append(i).append(' ');
+        }
+        for (int i = 100; i < 140; i++) {
+            copy.append("report").append(i).append(' ');
+        }
+        for (int i = 50; i < 100; i++) {
+            copy.append("copy").append(i).append(' ');
+        }
+        runner.insert(index, "1", "{\"minhash_value\":\"" + report + "\"}");
+        runner.insert(index, "2", "{\"minhash_value\":\"" + copy + "\"}");
+        runner.insert(index, "3", "{\"minhash_value\":\"" + other + "\"}");
+        runner.refresh();
+
+        final DocumentField field = runner.client().prepareGet(index, "2")
+                .setStoredFields("minhash_value").execute().actionGet()
+                .getField("minhash_value");
+        // one signature per window of 20 tokens every 5 tokens
+        assertEquals(25, field.getValues().size());
+
+        final SearchResponse response = runner.client().prepareSearch(index)
+                .setQuery(QueryBuilders.termsQuery("minhash_value", field.getValues()))
+                .execute().actionGet();
+        assertEquals(2, response.getHits().getTotalHits().value());
+        assertFalse("3".equals(response.getHits().getAt(0).getId()));
+        assertFalse("3".equals(response.getHits().getAt(1).getId()));
+    }
+
     public void test_parseCopyBitsFieldsSingle() {
         // Test parsing single value
         final String singleValue = "target_field";
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.index.mapper;
+
+import static org.codelibs.opensearch.runner.OpenSearchRunner.newConfigs;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.codelibs.opensearch.minhash.index.query.SimHashWithinQueryBuilder;
+import org.codelibs.opensearch.runner.OpenSearchRunner;
+import org.opensearch.action.search.SearchResponse;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.settings.Settings.Builder;
+import org.opensearch.common.xcontent.XContentFactory;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.index.query.QueryBuilders;
+import org.opensearch.search.SearchHit;
+
+import com.google.common.collect.Lists;
+
+import junit.framework.TestCase;
+
+public class SimHashFieldMapperTest extends TestCase {
+
+    private OpenSearchRunner runner;
+
+    private String clusterName;
+
+    @Override
+    protected void setUp() throws Exception {
+        clusterName = "es-simhash-test-" + System.currentTimeMillis();
+        runner = new OpenSearchRunner();
+        runner.onBuild(new OpenSearchRunner.Builder() {
+            @Override
+            public void build(final int number, final Builder settingsBuilder) {
+                settingsBuilder.put("http.cors.enabled", true);
+                settingsBuilder.put("http.cors.allow-origin", "*");
+                settingsBuilder.put("discovery.type", "single-node");
+            }
+        }).build(newConfigs().clusterName(clusterName).numOfNode(1)
+                .pluginTypes("org.codelibs.opensearch.minhash.MinHashPlugin"));
+        runner.ensureYellow();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        runner.close();
+        runner.clean();
+    }
+
+    public void test_simhash() throws Exception {
+        final String index = "test_simhash";
+
+        final String indexSettings = "{\"index\":{\"analysis\":{" +
+                "\"analyzer\":{\"simhash_analyzer\":{\"type\":\"custom\",\"tokenizer\":\"standard\",\"filter\":[\"lowercase\",\"simhash\"]}}}}}";
+
+        runner.createIndex(index, Settings.builder()
+                .loadFromSource(indexSettings, XContentType.JSON).build());
+        runner.ensureYellow(index);
+
+        final XContentBuilder mappingBuilder = XContentFactory.jsonBuilder()
+                .startObject()
+                .startObject("properties")
+                .startObject("content")
+                .field("type", "text")
+                .field("copy_to", Lists.newArrayList("block_simhash", "scan_simhash"))
+                .endObject()
+                .startObject("block_simhash")
+                .field("type", "simhash")
+                .field("simhash_analyzer", "simhash_analyzer")
+                .field("blocks", 8)
+                .endObject()
+                .startObject("scan_simhash")
+                .field("type", "simhash")
+                .field("simhash_analyzer", "simhash_analyzer")
+                .field("blocks", 0)
+                .endObject()
+                .endObject()
+                .endObject();
+
+        runner.createMapping(index, mappingBuilder);
+
+        for (int i = 1; i <= 100; i++) {
+            runner.insert(index, String.valueOf(i), "{\"content\":\"news story number " + i % 10
+                    + " about the market and the economy " + i % 7 + "\"}");
+        }
+        runner.refresh();
+
+        final String text = "news story number 1 about the market and the economy 1";
+
+        // the same text has the same fingerprint
+        final SearchResponse exact = runner.client().prepareSearch(index)
+                .setQuery(QueryBuilders.termQuery("block_simhash", text))
+                .setSize(100).execute().actionGet();
+        assertTrue(exact.getHits().getTotalHits().value() > 0);
+        final SearchResponse within = runner.client().prepareSearch(index)
+                .setQuery(new SimHashWithinQueryBuilder("block_simhash", text, 0))
+                .setSize(100).execute().actionGet();
+        assertEquals(ids(exact), ids(within));
+
+        // the block terms return the same documents as a full scan
+        for (final int radius : new int[] { 0, 3, 8, 16 }) {
+            final SearchResponse blocks = runner.client().prepareSearch(index)
+                    .setQuery(new SimHashWithinQueryBuilder("block_simhash", text, radius))
+                    .setSize(100).execute().actionGet();
+            final SearchResponse scan = runner.client().prepareSearch(index)
+                    .setQuery(new SimHashWithinQueryBuilder("scan_simhash", text, radius))
+                    .setSize(100).execute().actionGet();
+            assertEquals(ids(scan), ids(blocks));
+        }
+
+        // a numeric value is a precomputed fingerprint
+        runner.insert(index, "101", "{\"block_simhash\":42}");
+        runner.refresh();
+        final SearchResponse fingerprint = runner.client().prepareSearch(index)
+                .setQuery(new SimHashWithinQueryBuilder("block_simhash", 43L, 1))
+                .execute().actionGet();
+        assertEquals(1, fingerprint.getHits().getTotalHits().value());
+        assertEquals("101", fingerprint.getHits().getAt(0).getId());
+        final SearchResponse term = runner.client().prepareSearch(index)
+                .setQuery(QueryBuilders.termQuery("block_simhash", 42L))
+                .execute().actionGet();
+        assertEquals(1, term.getHits().getTotalHits().value());
+
+        // a numeric string is a text, as in the source
+        runner.insert(index, "102", "{\"block_simhash\":\"42\"}");
+        runner.refresh();
+        final SearchResponse text42 = runner.client().prepareSearch(index)
+                .setQuery(QueryBuilders.termQuery("block_simhash", "42"))
+                .execute().actionGet();
+        assertEquals(1, text42.getHits().getTotalHits().value());
+        assertEquals("102", text42.getHits().getAt(0).getId());
+        final SearchResponse within42 = runner.client().prepareSearch(index)
+                .setQuery(new SimHashWithinQueryBuilder("block_simhash", "42", 0))
+                .execute().actionGet();
+        assertEquals(ids(text42), ids(within42));
+    }
+
+    private Set<String> ids(final SearchResponse response) {
+        final Set<String> ids = new HashSet<>();
+        for (final SearchHit hit : response.getHits().getHits()) {
+            ids.add(hit.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.index.query;
+
+import static org.codelibs.opensearch.runner.OpenSearchRunner.newConfigs;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.codelibs.opensearch.runner.OpenSearchRunner;
+import org.opensearch.action.search.SearchResponse;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.settings.Settings.Builder;
+import org.opensearch.common.xcontent.XContentFactory;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.index.query.QueryBuilder;
+import org.opensearch.search.SearchHit;
+
+import junit.framework.TestCase;
+
+public class MinHashCascadeQueryBuilderTest extends TestCase {
+
+    private OpenSearchRunner runner;
+    private String clusterName;
+
+    @Override
+    protected void setUp() throws Exception {
+        clusterName = "es-minhash-cascade-test-" + System.currentTimeMillis();
+        runner = new OpenSearchRunner();
+        runner.onBuild(new OpenSearchRunner.Builder() {
+            @Override
+            public void build(final int number, final Builder settingsBuilder) {
+                settingsBuilder.put("http.cors.enabled", true);
+                settingsBuilder.put("http.cors.allow-origin", "*");
+                settingsBuilder.put("discovery.type", "single-node");
+            }
+        }).build(newConfigs().clusterName(clusterName).numOfNode(1)
+                .pluginTypes("org.codelibs.opensearch.minhash.MinHashPlugin"));
+        runner.ensureYellow();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        runner.close();
+        runner.clean();
+    }
+
+    public void test_minhashCascade() throws Exception {
+        assertCascade("test_cascade", false);
+    }
+
+    public void test_minhashCascade_bitString() throws Exception {
+        // the prefix terms of the query are decoded from the bit string
+        assertCascade("test_cascade_bits", true);
+    }
+
+    private void assertCascade(final String index, final boolean bitString) throws Exception {
+        final String indexSettings = "{\"index\":{\"analysis\":{" +
+                "\"analyzer\":{\"minhash_analyzer\":{\"type\":\"custom\",\"tokenizer\":\"standard\",\"filter\":[\"minhash\"]}}}}}";
+
+        runner.createIndex(index, Settings.builder()
+                .loadFromSource(indexSettings, XContentType.JSON).build());
+        runner.ensureYellow(index);
+
+        final XContentBuilder mappingBuilder = XContentFactory.jsonBuilder()
+                .startObject()
+                .startObject("properties")
+                .startObject("minhash_value")
+                .field("type", "minhash")
+                .field("store", true)
+                .field("minhash_analyzer", "minhash_analyzer")
+                .field("prefix_size", 32)
+                .field("bit_string", bitString)
+                .endObject()
+                .endObject()
+                .endObject();
+
+        runner.createMapping(index, mappingBuilder);
+
+        for (int i = 1; i <= 100; i++) {
+            runner.insert(index, String.valueOf(i), "{\"minhash_value\":\"news story number " + i % 10
+                    + " about the market and the economy " + i % 7 + "\"}");
+        }
+        runner.refresh();
+
+        final String signature = (String) runner.client().prepareGet(index, "1")
+                .setStoredFields("minhash_value").execute().actionGet()
+                .getField("minhash_value").getValue();
+
+        for (final int radius : new int[] { 0, 2, 4 }) {
+            final Set<String> within = ids(index, new MinHashWithinQueryBuilder("minhash_value", signature, radius));
+            // a prefix differs in at most as many bits as the signature
+            assertEquals(within, ids(index, new MinHashCascadeQueryBuilder("minhash_value", signature, radius, radius)));
+            // an exact prefix match is a subset
+            final Set<String> exactPrefix = ids(index,
+                    new MinHashCascadeQueryBuilder("minhash_value", signature, 0, radius));
+            assertTrue(within.containsAll(exactPrefix));
+            assertTrue(exactPrefix.contains("1"));
+        }
+    }
+
+    private Set<String> ids(final String index, final QueryBuilder query) {
+        final SearchResponse response = runner.client().prepareSearch(index)
+                .setQuery(query).setSize(100).execute().actionGet();
+        final Set<String> ids = new HashSet<>();
+        for (final SearchHit hit : response.getHits().getHits()) {
+            ids.add(hit.getId());
+        }
+        return ids;
+    }
+}
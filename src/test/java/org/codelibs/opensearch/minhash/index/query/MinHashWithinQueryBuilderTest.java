@@ -0,0 +1,266 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.index.query;
+
+import static org.codelibs.opensearch.runner.OpenSearchRunner.newConfigs;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.codelibs.opensearch.minhash.action.MinHashCacheStatsAction;
+import org.codelibs.opensearch.minhash.action.MinHashCacheStatsRequest;
+import org.codelibs.opensearch.minhash.index.cache.CacheStats;
+import org.codelibs.opensearch.runner.OpenSearchRunner;
+import org.opensearch.action.get.GetResponse;
+import org.opensearch.action.search.SearchResponse;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.settings.Settings.Builder;
+import org.opensearch.common.xcontent.XContentFactory;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.search.SearchHit;
+import org.opensearch.search.profile.ProfileResult;
+import org.opensearch.search.profile.ProfileShardResult;
+
+import com.google.common.collect.Lists;
+
+import junit.framework.TestCase;
+
+public class MinHashWithinQueryBuilderTest extends TestCase {
+
+    private OpenSearchRunner runner;
+    private String clusterName;
+
+    @Override
+    protected void setUp() throws Exception {
+        clusterName = "es-minhash-query-test-" + System.currentTimeMillis();
+        runner = new OpenSearchRunner();
+        runner.onBuild(new OpenSearchRunner.Builder() {
+            @Override
+            public void build(final int number, final Builder settingsBuilder) {
+                settingsBuilder.put("http.cors.enabled", true);
+                settingsBuilder.put("http.cors.allow-origin", "*");
+                settingsBuilder.put("discovery.type", "single-node");
+            }
+        }).build(newConfigs().clusterName(clusterName).numOfNode(1)
+                .pluginTypes("org.codelibs.opensearch.minhash.MinHashPlugin"));
+        runner.ensureYellow();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        runner.close();
+        runner.clean();
+    }
+
+    public void test_minhashWithin() throws Exception {
+        final String index = "test_within";
+
+        final String indexSettings = "{\"index\":{\"analysis\":{" +
+                "\"analyzer\":{\"minhash_analyzer\":{\"type\":\"custom\",\"tokenizer\":\"standard\",\"filter\":[\"minhash\"]}}}}}";
+
+        runner.createIndex(index, Settings.builder()
+                .loadFromSource(indexSettings, XContentType.JSON).build());
+        runner.ensureYellow(index);
+
+        final XContentBuilder mappingBuilder = XContentFactory.jsonBuilder()
+                .startObject()
+                .startObject("properties")
+                .startObject("content")
+                .field("type", "text")
+                .field("copy_to", Lists.newArrayList("mih_minhash", "scan_minhash"))
+                .endObject()
+                .startObject("mih_minhash")
+                .field("type", "minhash")
+                .field("store", true)
+                .field("minhash_analyzer", "minhash_analyzer")
+                .field("mih_substrings", 8)
+                .endObject()
+                .startObject("scan_minhash")
+                .field("type", "minhash")
+                .field("minhash_analyzer", "minhash_analyzer")
+                .endObject()
+                .endObject()
+                .endObject();
+
+        runner.createMapping(index, mappingBuilder);
+
+        for (int i = 1; i <= 100; i++) {
+            runner.insert(index, String.valueOf(i), "{\"content\":\"news story number " + i % 10
+                    + " about the market and the economy " + i % 7 + "\"}");
+        }
+        runner.refresh();
+
+        final GetResponse response = runner.client().prepareGet(index, "1")
+                .setStoredFields("mih_minhash").execute().actionGet();
+        final String signature = (String) response.getField("mih_minhash").getValue();
+
+        // exact duplicates only
+        final SearchResponse exact = runner.client().prepareSearch(index)
+                .setQuery(new MinHashWithinQueryBuilder("mih_minhash", signature, 0))
+                .setSize(100).execute().actionGet();
+        assertTrue(exact.getHits().getTotalHits().value() > 0);
+
+        // the substring index returns the same documents as a full scan
+        for (final int radius : new int[] { 0, 4, 8, 16 }) {
+            final SearchResponse mih = runner.client().prepareSearch(index)
+                    .setQuery(new MinHashWithinQueryBuilder("mih_minhash", signature, radius))
+                    .setSize(100).execute().actionGet();
+            final SearchResponse scan = runner.client().prepareSearch(index)
+                    .setQuery(new MinHashWithinQueryBuilder("scan_minhash", signature, radius))
+                    .setSize(100).execute().actionGet();
+            assertEquals(ids(scan), ids(mih));
+        }
+    }
+
+    public void test_profile() throws Exception {
+        final String index = "test_within_profile";
+
+        final String indexSettings = "{\"index\":{\"number_of_shards\":1,\"analysis\":{" +
+                "\"analyzer\":{\"minhash_analyzer\":{\"type\":\"custom\",\"tokenizer\":\"standard\",\"filter\":[\"minhash\"]}}}}}";
+
+        runner.createIndex(index, Settings.builder()
+                .loadFromSource(indexSettings, XContentType.JSON).build());
+        runner.ensureYellow(index);
+
+        final XContentBuilder mappingBuilder = XContentFactory.jsonBuilder()
+                .startObject()
+                .startObject("properties")
+                .startObject("minhash_value")
+                .field("type", "minhash")
+                .field("store", true)
+                .field("minhash_analyzer", "minhash_analyzer")
+                .field("mih_substrings", 8)
+                .endObject()
+                .endObject()
+                .endObject();
+
+        runner.createMapping(index, mappingBuilder);
+
+        for (int i = 1; i <= 20; i++) {
+            runner.insert(index, String.valueOf(i), "{\"minhash_value\":\"profile test " + i % 3 + "\"}");
+        }
+        runner.refresh();
+
+        final String signature = (String) runner.client().prepareGet(index, "1")
+                .setStoredFields("minhash_value").execute().actionGet()
+                .getField("minhash_value").getValue();
+
+        final SearchResponse response = runner.client().prepareSearch(index)
+                .setQuery(new MinHashWithinQueryBuilder("minhash_value", signature, 8))
+                .setProfile(true).execute().actionGet();
+        final ProfileShardResult shardResult = response.getProfileResults().values().iterator().next();
+        final ProfileResult result = shardResult.getQueryProfileResults().get(0).getQueryResults().get(0);
+
+        // verification is timed as match, candidate generation as the child query
+        assertEquals("MinHashDistanceQuery", result.getQueryName());
+        assertTrue(result.getTimeBreakdown().get("match_count") > 0);
+        assertEquals(1, result.getProfiledChildren().size());
+    }
+
+    public void test_signatureCache() throws Exception {
+        final String index = "test_within_cache";
+
+        final String indexSettings = "{\"index\":{\"number_of_shards\":1,\"analysis\":{" +
+                "\"analyzer\":{\"minhash_analyzer\":{\"type\":\"custom\",\"tokenizer\":\"standard\",\"filter\":[\"minhash\"]}}}}}";
+
+        runner.createIndex(index, Settings.builder()
+                .loadFromSource(indexSettings, XContentType.JSON).build());
+        runner.ensureYellow(index);
+
+        final XContentBuilder mappingBuilder = XContentFactory.jsonBuilder()
+                .startObject()
+                .startObject("properties")
+                .startObject("content")
+                .field("type", "text")
+                .field("copy_to", Lists.newArrayList("cached_minhash", "scan_minhash"))
+                .endObject()
+                .startObject("cached_minhash")
+                .field("type", "minhash")
+                .field("store", true)
+                .field("minhash_analyzer", "minhash_analyzer")
+                .field("signature_cache", true)
+                .endObject()
+                .startObject("scan_minhash")
+                .field("type", "minhash")
+                .field("minhash_analyzer", "minhash_analyzer")
+                .endObject()
+                .endObject()
+                .endObject();
+
+        runner.createMapping(index, mappingBuilder);
+
+        for (int i = 1; i <= 100; i++) {
+            runner.insert(index, String.valueOf(i), "{\"content\":\"news story number " + i % 10
+                    + " about the market and the economy " + i % 7 + "\"}");
+            if (i % 25 == 0) {
+                runner.refresh();
+            }
+        }
+        runner.refresh();
+
+        final String signature = (String) runner.client().prepareGet(index, "1")
+                .setStoredFields("cached_minhash").execute().actionGet()
+                .getField("cached_minhash").getValue();
+
+        // the cached columns return the same documents as the doc values
+        for (final int radius : new int[] { 0, 4, 8, 16 }) {
+            final SearchResponse cached = runner.client().prepareSearch(index)
+                    .setQuery(new MinHashWithinQueryBuilder("cached_minhash", signature, radius))
+                    .setSize(100).execute().actionGet();
+            final SearchResponse scan = runner.client().prepareSearch(index)
+                    .setQuery(new MinHashWithinQueryBuilder("scan_minhash", signature, radius))
+                    .setSize(100).execute().actionGet();
+            assertEquals(ids(scan), ids(cached));
+        }
+
+        CacheStats stats = cacheStats();
+        assertTrue(stats.getEntries() > 0);
+        assertTrue(stats.getMemorySize() > 0);
+        assertTrue(stats.getMisses() > 0);
+        assertTrue(stats.getHits() > 0);
+        final long memorySize = stats.getMemorySize();
+
+        // merged segments are loaded again and the old columns are released
+        runner.client().admin().indices().prepareForceMerge(index)
+                .setMaxNumSegments(1).execute().actionGet();
+        runner.refresh();
+        final SearchResponse merged = runner.client().prepareSearch(index)
+                .setQuery(new MinHashWithinQueryBuilder("cached_minhash", signature, 8))
+                .setSize(100).execute().actionGet();
+        final SearchResponse scan = runner.client().prepareSearch(index)
+                .setQuery(new MinHashWithinQueryBuilder("scan_minhash", signature, 8))
+                .setSize(100).execute().actionGet();
+        assertEquals(ids(scan), ids(merged));
+        stats = cacheStats();
+        assertEquals(1, stats.getEntries());
+        // the columns of the closed segments are freed, not left to be evicted
+        assertTrue(stats.getMemorySize() < memorySize);
+    }
+
+    private CacheStats cacheStats() {
+        return runner.client().execute(MinHashCacheStatsAction.INSTANCE, new MinHashCacheStatsRequest())
+                .actionGet().getNodes().get(0).getSignatureCacheStats();
+    }
+
+    private Set<String> ids(final SearchResponse response) {
+        final Set<String> ids = new HashSet<>();
+        for (final SearchHit hit : response.getHits().getHits()) {
+            ids.add(hit.getId());
+        }
+        return ids;
+    }
+}
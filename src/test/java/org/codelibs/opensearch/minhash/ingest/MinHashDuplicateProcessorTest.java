@@ -0,0 +1,165 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.ingest;
+
+import static org.codelibs.opensearch.runner.OpenSearchRunner.newConfigs;
+
+import java.util.Random;
+
+import org.codelibs.opensearch.minhash.util.MinHashSignatures;
+import org.codelibs.opensearch.runner.OpenSearchRunner;
+import org.opensearch.action.get.GetResponse;
+import org.opensearch.action.search.SearchResponse;
+import org.opensearch.action.support.WriteRequest.RefreshPolicy;
+import org.opensearch.common.settings.Settings.Builder;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.core.common.bytes.BytesArray;
+import org.opensearch.index.query.QueryBuilders;
+
+import junit.framework.TestCase;
+
+public class MinHashDuplicateProcessorTest extends TestCase {
+
+    private OpenSearchRunner runner;
+    private String clusterName;
+
+    @Override
+    protected void setUp() throws Exception {
+        clusterName = "es-minhash-ingest-test-" + System.currentTimeMillis();
+        runner = new OpenSearchRunner();
+        runner.onBuild(new OpenSearchRunner.Builder() {
+            @Override
+            public void build(final int number, final Builder settingsBuilder) {
+                settingsBuilder.put("http.cors.enabled", true);
+                settingsBuilder.put("http.cors.allow-origin", "*");
+                settingsBuilder.put("discovery.type", "single-node");
+            }
+        }).build(newConfigs().clusterName(clusterName).numOfNode(1)
+                .pluginTypes("org.codelibs.opensearch.minhash.MinHashPlugin"));
+        runner.ensureYellow();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        runner.close();
+        runner.clean();
+    }
+
+    public void test_tagAndDrop() throws Exception {
+        runner.client().admin().cluster().preparePutPipeline("tag_duplicates",
+                new BytesArray("{\"processors\":[{\"minhash_duplicate\":{\"field\":\"content\",\"threshold\":0.9}}]}"),
+                XContentType.JSON).execute().actionGet();
+        runner.client().admin().cluster().preparePutPipeline("drop_duplicates",
+                new BytesArray("{\"processors\":[{\"minhash_duplicate\":{\"field\":\"content\",\"on_duplicate\":\"drop\"}}]}"),
+                XContentType.JSON).execute().actionGet();
+
+        final String story = "The central bank raised interest rates by a quarter point on Tuesday"
+                + " citing persistent inflation in services and a tight labor market";
+
+        index("tagged", "1", story, "tag_duplicates");
+        index("tagged", "2", story + " officials said", "tag_duplicates");
+        index("tagged", "3", "A new species of frog was discovered in the rainforest of Borneo", "tag_duplicates");
+
+        assertNull(get("tagged", "1").getSource().get("minhash_duplicate_of"));
+        assertEquals("1", get("tagged", "2").getSource().get("minhash_duplicate_of"));
+        assertNull(get("tagged", "3").getSource().get("minhash_duplicate_of"));
+
+        // documents without an id get one, so that their duplicates are tagged
+        final String first = index("auto", story, "tag_duplicates");
+        final String second = index("auto", story + " officials said", "tag_duplicates");
+        assertNull(get("auto", first).getSource().get("minhash_duplicate_of"));
+        assertEquals(first, get("auto", second).getSource().get("minhash_duplicate_of"));
+
+        index("dropped", "1", story, "drop_duplicates");
+        index("dropped", "2", story, "drop_duplicates");
+        index("dropped", "3", "A new species of frog was discovered in the rainforest of Borneo", "drop_duplicates");
+        runner.refresh();
+
+        final SearchResponse response = runner.client().prepareSearch("dropped")
+                .setQuery(QueryBuilders.matchAllQuery()).execute().actionGet();
+        assertEquals(2, response.getHits().getTotalHits().value());
+        assertFalse(get("dropped", "2").isExists());
+    }
+
+    public void test_window() {
+        final RecentSignatureTable table = new RecentSignatureTable(128, 16, 12,
+                60_000L, 1024 * 1024);
+        final long[] signature = MinHashSignatures.toLongs(new byte[16]);
+        final long[] other = signature.clone();
+        other[0] = 0xffL;
+
+        assertNull(table.findOrAdd(signature, "1", true, 0L));
+        assertEquals("1", table.findOrAdd(other, "2", true, 30_000L).getId());
+        assertEquals(8, table.findOrAdd(other, "2", true, 30_000L).getDistance());
+        // the first signature has expired
+        assertNull(table.findOrAdd(other, "3", true, 70_000L));
+        assertEquals("3", table.findOrAdd(signature, "4", true, 80_000L).getId());
+        assertEquals(1, table.size());
+    }
+
+    public void test_sharedBands() {
+        final RecentSignatureTable table = new RecentSignatureTable(128, 16, 12,
+                3_600_000L, 64 * 1024 * 1024);
+        final Random random = new Random(1);
+        final long[][] signatures = new long[5000][];
+        for (int i = 0; i < signatures.length; i++) {
+            signatures[i] = new long[] { random.nextLong(), random.nextLong() };
+            assertNull(table.findOrAdd(signatures[i], String.valueOf(i), true, i));
+        }
+        // signatures that share band values with later ones are still found
+        for (int i = 0; i < 100; i++) {
+            final long[] nearDuplicate = signatures[i].clone();
+            for (int j = 0; j < 12; j++) {
+                final int bit = random.nextInt(128);
+                nearDuplicate[bit >>> 6] ^= 1L << (bit & 63);
+            }
+            final RecentSignatureTable.Match match = table.findOrAdd(nearDuplicate, "near", false, 6000L);
+            assertNotNull(match);
+            assertTrue(match.getDistance() <= 12);
+        }
+    }
+
+    public void test_maxMemory() {
+        final RecentSignatureTable table = new RecentSignatureTable(128, 16, 0,
+                60_000L, 16 * 1024);
+        for (int i = 0; i < 1000; i++) {
+            final long[] signature = new long[] { i, ~i };
+            table.findOrAdd(signature, String.valueOf(i), true, i * 1000L);
+            assertTrue(table.ramBytesUsed() <= 16 * 1024);
+        }
+        // the window alone would keep about 60 signatures
+        assertTrue(table.size() > 0);
+        assertTrue(table.size() < 60);
+    }
+
+    private void index(final String index, final String id, final String content, final String pipeline) {
+        runner.client().prepareIndex(index).setId(id)
+                .setSource("{\"content\":\"" + content + "\"}", XContentType.JSON)
+                .setPipeline(pipeline).setRefreshPolicy(RefreshPolicy.IMMEDIATE)
+                .execute().actionGet();
+    }
+
+    private String index(final String index, final String content, final String pipeline) {
+        return runner.client().prepareIndex(index)
+                .setSource("{\"content\":\"" + content + "\"}", XContentType.JSON)
+                .setPipeline(pipeline).setRefreshPolicy(RefreshPolicy.IMMEDIATE)
+                .execute().actionGet().getId();
+    }
+
+    private GetResponse get(final String index, final String id) {
+        return runner.client().prepareGet(index, id).execute().actionGet();
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.ingest;
+
+import static org.codelibs.opensearch.runner.OpenSearchRunner.newConfigs;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codelibs.opensearch.minhash.action.MinHashRegisterAction;
+import org.codelibs.opensearch.minhash.action.MinHashRegisterRequest;
+import org.codelibs.opensearch.minhash.action.MinHashRegisterResponse;
+import org.codelibs.opensearch.minhash.reference.MinHashReferenceTable;
+import org.codelibs.opensearch.minhash.util.MinHashSignatures;
+import org.codelibs.opensearch.runner.OpenSearchRunner;
+import org.opensearch.common.action.ActionFuture;
+import org.opensearch.action.get.GetResponse;
+import org.opensearch.action.support.WriteRequest.RefreshPolicy;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.settings.Settings.Builder;
+import org.opensearch.common.xcontent.XContentFactory;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.core.common.bytes.BytesArray;
+import org.opensearch.core.xcontent.XContentBuilder;
+
+import junit.framework.TestCase;
+
+public class MinHashReferenceProcessorTest extends TestCase {
+
+    private OpenSearchRunner runner;
+    private String clusterName;
+
+    @Override
+    protected void setUp() throws Exception {
+        clusterName = "es-minhash-reference-test-" + System.currentTimeMillis();
+        runner = new OpenSearchRunner();
+        runner.onBuild(new OpenSearchRunner.Builder() {
+            @Override
+            public void build(final int number, final Builder settingsBuilder) {
+                settingsBuilder.put("http.cors.enabled", true);
+                settingsBuilder.put("http.cors.allow-origin", "*");
+                settingsBuilder.put("discovery.type", "single-node");
+            }
+        }).build(newConfigs().clusterName(clusterName).numOfNode(1)
+                .pluginTypes("org.codelibs.opensearch.minhash.MinHashPlugin"));
+        runner.ensureYellow();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        runner.close();
+        runner.clean();
+    }
+
+    public void test_reference() throws Exception {
+        final String index = "blocklist";
+        final String indexSettings = "{\"index\":{\"analysis\":{" +
+                "\"analyzer\":{\"minhash_analyzer\":{\"type\":\"custom\",\"tokenizer\":\"standard\",\"filter\":[\"lowercase\",\"minhash\"]}}}}}";
+        runner.createIndex(index, Settings.builder()
+                .loadFromSource(indexSettings, XContentType.JSON).build());
+        runner.ensureYellow(index);
+        final XContentBuilder mappingBuilder = XContentFactory.jsonBuilder()
+                .startObject()
+                .startObject("properties")
+                .startObject("content_minhash")
+                .field("type", "minhash")
+                .field("minhash_analyzer", "minhash_analyzer")
+                .endObject()
+                .endObject()
+                .endObject();
+        runner.createMapping(index, mappingBuilder);
+
+        final String spam = "Congratulations you have won a free cruise to the Bahamas"
+                + " call now to claim your prize before the offer expires";
+        final String lyrics = "Somewhere over the rainbow way up high there is a land"
+                + " that I heard of once in a lullaby";
+        runner.insert(index, "spam", "{\"content_minhash\":\"" + spam + "\"}");
+        runner.insert(index, "lyrics", "{\"content_minhash\":\"" + lyrics + "\"}");
+        runner.refresh();
+
+        final MinHashRegisterResponse response = runner.client().execute(MinHashRegisterAction.INSTANCE,
+                new MinHashRegisterRequest("blocklist").reference("spam", signature(index, "spam"))
+                        .reference("lyrics", signature(index, "lyrics")))
+                .actionGet();
+        assertEquals(2, response.registered());
+
+        runner.client().admin().cluster().preparePutPipeline("tag_references",
+                new BytesArray("{\"processors\":[{\"minhash_reference\":{\"field\":\"content\",\"set\":\"blocklist\",\"threshold\":0.8}}]}"),
+                XContentType.JSON).execute().actionGet();
+        runner.client().admin().cluster().preparePutPipeline("drop_references",
+                new BytesArray("{\"processors\":[{\"minhash_reference\":{\"field\":\"content\",\"set\":\"blocklist\",\"on_match\":\"drop\"}}]}"),
+                XContentType.JSON).execute().actionGet();
+
+        // the set is loaded in the background
+        for (int i = 0; i < 100; i++) {
+            try {
+                index("docs", "1", spam + " today", "tag_references");
+                break;
+            } catch (final Exception e) {
+                Thread.sleep(100);
+            }
+        }
+        index("docs", "2", "A new species of frog was discovered in the rainforest of Borneo", "tag_references");
+        index("docs", "3", lyrics, "drop_references");
+
+        assertEquals("spam", get("docs", "1").getSource().get("minhash_reference"));
+        assertNull(get("docs", "2").getSource().get("minhash_reference"));
+        assertFalse(get("docs", "3").isExists());
+
+        // sets registered at the same time are all kept
+        final List<ActionFuture<MinHashRegisterResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(runner.client().execute(MinHashRegisterAction.INSTANCE,
+                    new MinHashRegisterRequest("set" + i).reference("spam", signature(index, "spam"))));
+        }
+        for (final ActionFuture<MinHashRegisterResponse> future : futures) {
+            assertEquals(1, future.actionGet().registered());
+        }
+        for (int i = 0; i < 5; i++) {
+            runner.client().admin().cluster().preparePutPipeline("tag_set" + i,
+                    new BytesArray("{\"processors\":[{\"minhash_reference\":{\"field\":\"content\",\"set\":\"set" + i
+                            + "\",\"threshold\":0.8}}]}"),
+                    XContentType.JSON).execute().actionGet();
+            for (int j = 0; j < 100; j++) {
+                try {
+                    index("docs", "set" + i, spam + " today", "tag_set" + i);
+                    break;
+                } catch (final Exception e) {
+                    Thread.sleep(100);
+                }
+            }
+            assertEquals("spam", get("docs", "set" + i).getSource().get("minhash_reference"));
+        }
+
+        // a set keeps the bits of its signatures
+        try {
+            runner.client().execute(MinHashRegisterAction.INSTANCE,
+                    new MinHashRegisterRequest("set0").reference("short", "AAAAAA==")).actionGet();
+            fail();
+        } catch (final IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("the set [set0] has 128"));
+        }
+    }
+
+    public void test_reference_bitString() throws Exception {
+        final String index = "blocklist_bits";
+        final String indexSettings = "{\"index\":{\"analysis\":{" +
+                "\"analyzer\":{\"minhash_analyzer\":{\"type\":\"custom\",\"tokenizer\":\"standard\",\"filter\":[\"lowercase\",\"minhash\"]}}}}}";
+        runner.createIndex(index, Settings.builder()
+                .loadFromSource(indexSettings, XContentType.JSON).build());
+        runner.ensureYellow(index);
+        final XContentBuilder mappingBuilder = XContentFactory.jsonBuilder()
+                .startObject()
+                .startObject("properties")
+                .startObject("content_minhash")
+                .field("type", "minhash")
+                .field("minhash_analyzer", "minhash_analyzer")
+                .field("bit_string", true)
+                .endObject()
+                .endObject()
+                .endObject();
+        runner.createMapping(index, mappingBuilder);
+
+        final String spam = "Congratulations you have won a free cruise to the Bahamas"
+                + " call now to claim your prize before the offer expires";
+        runner.insert(index, "spam", "{\"content_minhash\":\"" + spam + "\"}");
+        runner.refresh();
+
+        // bit strings are registered as the signatures the processor computes
+        final MinHashRegisterResponse response = runner.client().execute(MinHashRegisterAction.INSTANCE,
+                new MinHashRegisterRequest("bits").reference("spam", signature(index, "spam")).bitString(true))
+                .actionGet();
+        assertEquals(1, response.registered());
+
+        runner.client().admin().cluster().preparePutPipeline("tag_bits",
+                new BytesArray("{\"processors\":[{\"minhash_reference\":{\"field\":\"content\",\"set\":\"bits\",\"threshold\":0.8}}]}"),
+                XContentType.JSON).execute().actionGet();
+        for (int i = 0; i < 100; i++) {
+            try {
+                index("docs", "1", spam + " today", "tag_bits");
+                break;
+            } catch (final Exception e) {
+                Thread.sleep(100);
+            }
+        }
+        index("docs", "2", "A new species of frog was discovered in the rainforest of Borneo", "tag_bits");
+
+        assertEquals("spam", get("docs", "1").getSource().get("minhash_reference"));
+        assertNull(get("docs", "2").getSource().get("minhash_reference"));
+    }
+
+    public void test_table() throws Exception {
+        final Path dir = Files.createTempDirectory("minhash-reference");
+        final byte[] signature = new byte[16];
+        final byte[] other = new byte[16];
+        other[0] = (byte) 0xff;
+        final MinHashReferenceTable table;
+        try (MinHashReferenceTable.Builder builder = new MinHashReferenceTable.Builder(dir.resolve("test.tbl"), 128, 16)) {
+            builder.add("zero", signature);
+            builder.add("other", other);
+            table = builder.build();
+        }
+        assertEquals(2, table.size());
+
+        final byte[] query = signature.clone();
+        query[15] = 1;
+        final MinHashReferenceTable.Match match = table.find(MinHashSignatures.toLongs(query), 4);
+        assertEquals("zero", match.getId());
+        assertEquals(1, match.getDistance());
+        assertEquals("other", table.find(MinHashSignatures.toLongs(other), 0).getId());
+        query[14] = (byte) 0xff;
+        assertNull(table.find(MinHashSignatures.toLongs(query), 4));
+    }
+
+    private String signature(final String index, final String id) {
+        return (String) runner.client().prepareGet(index, id).setStoredFields("content_minhash")
+                .execute().actionGet().getField("content_minhash").getValue();
+    }
+
+    private void index(final String index, final String id, final String content, final String pipeline) {
+        runner.client().prepareIndex(index).setId(id)
+                .setSource("{\"content\":\"" + content + "\"}", XContentType.JSON)
+                .setPipeline(pipeline).setRefreshPolicy(RefreshPolicy.IMMEDIATE)
+                .execute().actionGet();
+    }
+
+    private GetResponse get(final String index, final String id) {
+        return runner.client().prepareGet(index, id).execute().actionGet();
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.ingest;
+
+import static org.codelibs.opensearch.runner.OpenSearchRunner.newConfigs;
+
+import org.codelibs.opensearch.runner.OpenSearchRunner;
+import org.opensearch.action.index.IndexResponse;
+import org.opensearch.action.search.SearchResponse;
+import org.opensearch.action.support.WriteRequest.RefreshPolicy;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.settings.Settings.Builder;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.core.common.bytes.BytesArray;
+import org.opensearch.index.query.QueryBuilders;
+
+import junit.framework.TestCase;
+
+public class MinHashRoutingProcessorTest extends TestCase {
+
+    private OpenSearchRunner runner;
+    private String clusterName;
+
+    @Override
+    protected void setUp() throws Exception {
+        clusterName = "es-minhash-routing-test-" + System.currentTimeMillis();
+        runner = new OpenSearchRunner();
+        runner.onBuild(new OpenSearchRunner.Builder() {
+            @Override
+            public void build(final int number, final Builder settingsBuilder) {
+                settingsBuilder.put("http.cors.enabled", true);
+                settingsBuilder.put("http.cors.allow-origin", "*");
+                settingsBuilder.put("discovery.type", "single-node");
+            }
+        }).build(newConfigs().clusterName(clusterName).numOfNode(1)
+                .pluginTypes("org.codelibs.opensearch.minhash.MinHashPlugin"));
+        runner.ensureYellow();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        runner.close();
+        runner.clean();
+    }
+
+    public void test_routing() throws Exception {
+        final String index = "routed";
+        runner.createIndex(index, Settings.builder()
+                .put("index.number_of_shards", 8)
+                .put("index.number_of_replicas", 0).build());
+        runner.ensureYellow(index);
+
+        runner.client().admin().cluster().preparePutPipeline("band_routing",
+                new BytesArray("{\"processors\":[{\"minhash_routing\":{\"field\":\"content\",\"bands\":8,\"band\":2}}]}"),
+                XContentType.JSON).execute().actionGet();
+
+        final String story = "The central bank raised interest rates by a quarter point on Tuesday"
+                + " citing persistent inflation in housing and services";
+        final IndexResponse first = index(index, "1", story);
+        final IndexResponse second = index(index, "2", story);
+        index(index, "3", "A new species of frog was discovered in the rainforest of Borneo");
+
+        // duplicates have the same routing key, so they are on the same shard
+        final String routing = routing(index, "1");
+        assertEquals(routing, routing(index, "2"));
+        assertEquals(first.getShardId(), second.getShardId());
+
+        final SearchResponse response = runner.client().prepareSearch(index)
+                .setRouting(routing).setQuery(QueryBuilders.matchAllQuery())
+                .execute().actionGet();
+        assertEquals(1, response.getTotalShards());
+        assertTrue(response.getHits().getTotalHits().value() >= 2);
+
+        // a band wider than 64 bits is rejected
+        try {
+            runner.client().admin().cluster().preparePutPipeline("wide_band",
+                    new BytesArray("{\"processors\":[{\"minhash_routing\":{\"field\":\"content\",\"bands\":1}}]}"),
+                    XContentType.JSON).execute().actionGet();
+            fail();
+        } catch (final Exception e) {
+            // expected
+        }
+    }
+
+    private IndexResponse index(final String index, final String id, final String content) {
+        return runner.client().prepareIndex(index).setId(id)
+                .setSource("{\"content\":\"" + content + "\"}", XContentType.JSON)
+                .setPipeline("band_routing").setRefreshPolicy(RefreshPolicy.IMMEDIATE)
+                .execute().actionGet();
+    }
+
+    private String routing(final String index, final String id) {
+        final SearchResponse response = runner.client().prepareSearch(index)
+                .setQuery(QueryBuilders.idsQuery().addIds(id)).execute().actionGet();
+        return response.getHits().getAt(0).field("_routing").getValue();
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.script;
+
+import static org.codelibs.opensearch.runner.OpenSearchRunner.newConfigs;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.codelibs.opensearch.runner.OpenSearchRunner;
+import org.opensearch.action.search.SearchPhaseExecutionException;
+import org.opensearch.action.search.SearchResponse;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.settings.Settings.Builder;
+import org.opensearch.common.xcontent.XContentFactory;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.index.query.QueryBuilders;
+import org.opensearch.index.query.functionscore.ScriptScoreQueryBuilder;
+import org.opensearch.script.Script;
+import org.opensearch.script.ScriptType;
+import org.opensearch.search.SearchHit;
+
+import junit.framework.TestCase;
+
+public class MinHashSimilarityTest extends TestCase {
+
+    private OpenSearchRunner runner;
+    private String clusterName;
+
+    @Override
+    protected void setUp() throws Exception {
+        clusterName = "es-minhash-script-test-" + System.currentTimeMillis();
+        runner = new OpenSearchRunner();
+        runner.onBuild(new OpenSearchRunner.Builder() {
+            @Override
+            public void build(final int number, final Builder settingsBuilder) {
+                settingsBuilder.put("http.cors.enabled", true);
+                settingsBuilder.put("http.cors.allow-origin", "*");
+                settingsBuilder.put("discovery.type", "single-node");
+            }
+        }).build(newConfigs().clusterName(clusterName).numOfNode(1)
+                .pluginTypes("org.codelibs.opensearch.minhash.MinHashPlugin"));
+        runner.ensureYellow();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        runner.close();
+        runner.clean();
+    }
+
+    public void test_minhashSimilarity() throws Exception {
+        final String index = "test_script";
+
+        final String indexSettings = "{\"index\":{\"analysis\":{" +
+                "\"analyzer\":{\"minhash_analyzer\":{\"type\":\"custom\",\"tokenizer\":\"standard\",\"filter\":[\"minhash\"]}}}}}";
+
+        runner.createIndex(index, Settings.builder()
+                .loadFromSource(indexSettings, XContentType.JSON).build());
+        runner.ensureYellow(index);
+
+        final XContentBuilder mappingBuilder = XContentFactory.jsonBuilder()
+                .startObject()
+                .startObject("properties")
+                .startObject("minhash_value")
+                .field("type", "minhash")
+                .field("store", true)
+                .field("minhash_analyzer", "minhash_analyzer")
+                .endObject()
+                .endObject()
+                .endObject();
+
+        runner.createMapping(index, mappingBuilder);
+
+        runner.insert(index, "1", "{\"minhash_value\":\"the quick brown fox jumps over the lazy dog\"}");
+        runner.insert(index, "2", "{\"minhash_value\":\"the quick brown fox jumps over the lazy cat\"}");
+        runner.insert(index, "3", "{\"minhash_value\":\"an entirely different sentence about markets\"}");
+        runner.insert(index, "4", "{}");
+        runner.refresh();
+
+        final String signature = (String) runner.client().prepareGet(index, "1")
+                .setStoredFields("minhash_value").execute().actionGet()
+                .getField("minhash_value").getValue();
+
+        final Map<String, Object> params = Collections.singletonMap("signature", signature);
+        final SearchResponse response = runner.client().prepareSearch(index)
+                .setQuery(new ScriptScoreQueryBuilder(QueryBuilders.matchAllQuery(),
+                        new Script(ScriptType.INLINE, "painless",
+                                "minhashSimilarity(params.signature, doc['minhash_value'])", params)))
+                .execute().actionGet();
+        final SearchHit[] hits = response.getHits().getHits();
+        assertEquals(4, hits.length);
+        assertEquals("1", hits[0].getId());
+        assertEquals(1.0f, hits[0].getScore());
+        assertEquals("2", hits[1].getId());
+        assertTrue(hits[1].getScore() > hits[2].getScore());
+        assertEquals(0.0f, hits[3].getScore());
+
+        // the string values are still available to scripts
+        final SearchResponse fieldResponse = runner.client().prepareSearch(index)
+                .setQuery(QueryBuilders.idsQuery().addIds("1"))
+                .addScriptField("value", new Script("doc['minhash_value'].value"))
+                .execute().actionGet();
+        assertEquals(signature, fieldResponse.getHits().getAt(0).field("value").getValue());
+
+        // a missing value fails like other fields
+        try {
+            runner.client().prepareSearch(index)
+                    .setQuery(QueryBuilders.idsQuery().addIds("4"))
+                    .addScriptField("value", new Script("doc['minhash_value'].value"))
+                    .execute().actionGet();
+            fail();
+        } catch (final SearchPhaseExecutionException e) {
+            // expected
+        }
+    }
+}
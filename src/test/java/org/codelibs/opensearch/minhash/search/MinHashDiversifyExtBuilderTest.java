@@ -0,0 +1,134 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.search;
+
+import static org.codelibs.opensearch.runner.OpenSearchRunner.newConfigs;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.codelibs.opensearch.runner.OpenSearchRunner;
+import org.opensearch.action.search.SearchRequestBuilder;
+import org.opensearch.action.search.SearchResponse;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.settings.Settings.Builder;
+import org.opensearch.common.xcontent.XContentFactory;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.index.query.QueryBuilders;
+import org.opensearch.search.SearchHit;
+
+import junit.framework.TestCase;
+
+public class MinHashDiversifyExtBuilderTest extends TestCase {
+
+    private OpenSearchRunner runner;
+    private String clusterName;
+
+    @Override
+    protected void setUp() throws Exception {
+        clusterName = "es-minhash-diversify-test-" + System.currentTimeMillis();
+        runner = new OpenSearchRunner();
+        runner.onBuild(new OpenSearchRunner.Builder() {
+            @Override
+            public void build(final int number, final Builder settingsBuilder) {
+                settingsBuilder.put("http.cors.enabled", true);
+                settingsBuilder.put("http.cors.allow-origin", "*");
+                settingsBuilder.put("discovery.type", "single-node");
+            }
+        }).build(newConfigs().clusterName(clusterName).numOfNode(1)
+                .pluginTypes("org.codelibs.opensearch.minhash.MinHashPlugin"));
+        runner.ensureYellow();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        runner.close();
+        runner.clean();
+    }
+
+    public void test_diversify() throws Exception {
+        final String index = "test_diversify";
+
+        final String indexSettings = "{\"index\":{\"analysis\":{" +
+                "\"analyzer\":{\"minhash_analyzer\":{\"type\":\"custom\",\"tokenizer\":\"standard\",\"filter\":[\"minhash\"]}}}}}";
+
+        runner.createIndex(index, Settings.builder()
+                .loadFromSource(indexSettings, XContentType.JSON).build());
+        runner.ensureYellow(index);
+
+        final XContentBuilder mappingBuilder = XContentFactory.jsonBuilder()
+                .startObject()
+                .startObject("properties")
+                .startObject("content")
+                .field("type", "text")
+                .field("copy_to", "content_minhash")
+                .endObject()
+                .startObject("content_minhash")
+                .field("type", "minhash")
+                .field("minhash_analyzer", "minhash_analyzer")
+                .endObject()
+                .endObject()
+                .endObject();
+
+        runner.createMapping(index, mappingBuilder);
+
+        // 5 stories with 10 copies each
+        for (int i = 1; i <= 50; i++) {
+            runner.insert(index, String.valueOf(i), "{\"content\":\"press release " + i % 5
+                    + " announces quarterly results for the company\"}");
+        }
+        runner.refresh();
+
+        final SearchResponse response = runner.client().prepareSearch(index)
+                .setQuery(QueryBuilders.matchAllQuery())
+                .setSize(10)
+                .addDocValueField("content_minhash")
+                .setExt(Collections.singletonList(new MinHashDiversifyExtBuilder("content_minhash", 0.9f, 100)))
+                .execute().actionGet();
+
+        assertEquals(50, response.getHits().getTotalHits().value());
+        assertEquals(5, response.getHits().getHits().length);
+        final Set<Object> signatures = new HashSet<>();
+        for (final SearchHit hit : response.getHits().getHits()) {
+            assertTrue(signatures.add(hit.field("content_minhash").getValue()));
+        }
+
+        final SearchResponse page = runner.client().prepareSearch(index)
+                .setQuery(QueryBuilders.matchAllQuery())
+                .setFrom(3)
+                .setSize(10)
+                .setExt(Collections.singletonList(new MinHashDiversifyExtBuilder("content_minhash", 0.9f, 100)))
+                .execute().actionGet();
+        assertEquals(2, page.getHits().getHits().length);
+        // the signatures fetched for diversification are not returned
+        for (final SearchHit hit : page.getHits().getHits()) {
+            assertNull(hit.field("content_minhash"));
+        }
+
+        // the phase took of the search is kept
+        final SearchRequestBuilder phaseTook = runner.client().prepareSearch(index)
+                .setQuery(QueryBuilders.matchAllQuery())
+                .setSize(10)
+                .setExt(Collections.singletonList(new MinHashDiversifyExtBuilder("content_minhash", 0.9f, 100)));
+        phaseTook.request().setPhaseTook(true);
+        final SearchResponse timed = phaseTook.execute().actionGet();
+        assertEquals(5, timed.getHits().getHits().length);
+        assertNotNull(timed.getPhaseTook());
+        assertFalse(timed.getPhaseTook().getPhaseTookMap().isEmpty());
+    }
+}
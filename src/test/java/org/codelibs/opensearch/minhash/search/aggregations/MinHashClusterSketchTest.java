@@ -0,0 +1,64 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.search.aggregations;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class MinHashClusterSketchTest extends TestCase {
+
+    public void test_nearDuplicateClusters() {
+        for (final int numOfClusters : new int[] { 100, 1000, 10000 }) {
+            for (final double flip : new double[] { 0.0, 0.01, 0.02 }) {
+                final Random random = new Random(numOfClusters);
+                final MinHashClusterSketch sketch = newSketch();
+                final MinHashClusterSketch left = newSketch();
+                final MinHashClusterSketch right = newSketch();
+                final byte[] center = new byte[16];
+                final byte[] member = new byte[16];
+                for (int i = 0; i < numOfClusters; i++) {
+                    // 1 to 20 copies of a random signature with flipped bits
+                    random.nextBytes(center);
+                    final int size = 1 + random.nextInt(20);
+                    for (int j = 0; j < size; j++) {
+                        System.arraycopy(center, 0, member, 0, center.length);
+                        for (int b = 0; j > 0 && b < 128; b++) {
+                            if (random.nextDouble() < flip) {
+                                member[b / 8] ^= 1 << b % 8;
+                            }
+                        }
+                        sketch.add(member, member.length);
+                        (j % 2 == 0 ? left : right).add(member, member.length);
+                    }
+                }
+                final String message = numOfClusters + " clusters, flip " + flip;
+                assertEquals(message, numOfClusters, sketch.estimate(), numOfClusters * 0.2d);
+                left.merge(right);
+                assertEquals(message, sketch.estimate(), left.estimate());
+            }
+        }
+    }
+
+    public void test_empty() {
+        assertEquals(0L, newSketch().estimate());
+    }
+
+    private static MinHashClusterSketch newSketch() {
+        return new MinHashClusterSketch(MinHashClustersAggregationBuilder.DEFAULT_BANDS,
+                MinHashClustersAggregationBuilder.DEFAULT_PRECISION);
+    }
+}
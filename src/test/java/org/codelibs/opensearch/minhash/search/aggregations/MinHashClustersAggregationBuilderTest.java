@@ -0,0 +1,119 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.search.aggregations;
+
+import static org.codelibs.opensearch.runner.OpenSearchRunner.newConfigs;
+
+import org.codelibs.opensearch.runner.OpenSearchRunner;
+import org.opensearch.action.search.SearchResponse;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.settings.Settings.Builder;
+import org.opensearch.common.xcontent.XContentFactory;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.search.aggregations.AggregationBuilders;
+import org.opensearch.search.aggregations.bucket.terms.Terms;
+import org.opensearch.search.aggregations.metrics.NumericMetricsAggregation;
+
+import junit.framework.TestCase;
+
+public class MinHashClustersAggregationBuilderTest extends TestCase {
+
+    private OpenSearchRunner runner;
+    private String clusterName;
+
+    @Override
+    protected void setUp() throws Exception {
+        clusterName = "es-minhash-clusters-test-" + System.currentTimeMillis();
+        runner = new OpenSearchRunner();
+        runner.onBuild(new OpenSearchRunner.Builder() {
+            @Override
+            public void build(final int number, final Builder settingsBuilder) {
+                settingsBuilder.put("http.cors.enabled", true);
+                settingsBuilder.put("http.cors.allow-origin", "*");
+                settingsBuilder.put("discovery.type", "single-node");
+            }
+        }).build(newConfigs().clusterName(clusterName).numOfNode(1)
+                .pluginTypes("org.codelibs.opensearch.minhash.MinHashPlugin"));
+        runner.ensureYellow();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        runner.close();
+        runner.clean();
+    }
+
+    private static final String[] STORIES = { "central bank raises interest rates again",
+            "storm floods coastal towns overnight", "local team wins championship final",
+            "new smartphone released with folding screen", "city council approves housing budget",
+            "scientists discover water on distant moon", "airline cancels flights after strike",
+            "museum opens exhibition of ancient coins", "farmers report record wheat harvest",
+            "election results delayed by recount" };
+
+    public void test_minhashClusters() throws Exception {
+        final String index = "test_clusters";
+
+        final String indexSettings = "{\"index\":{\"number_of_shards\":2,\"analysis\":{" +
+                "\"analyzer\":{\"minhash_analyzer\":{\"type\":\"custom\",\"tokenizer\":\"standard\",\"filter\":[\"minhash\"]}}}}}";
+
+        runner.createIndex(index, Settings.builder()
+                .loadFromSource(indexSettings, XContentType.JSON).build());
+        runner.ensureYellow(index);
+
+        final XContentBuilder mappingBuilder = XContentFactory.jsonBuilder()
+                .startObject()
+                .startObject("properties")
+                .startObject("day")
+                .field("type", "keyword")
+                .endObject()
+                .startObject("content")
+                .field("type", "text")
+                .field("copy_to", "content_minhash")
+                .endObject()
+                .startObject("content_minhash")
+                .field("type", "minhash")
+                .field("minhash_analyzer", "minhash_analyzer")
+                .endObject()
+                .endObject()
+                .endObject();
+
+        runner.createMapping(index, mappingBuilder);
+
+        // 10 stories, 5 of them on each day
+        for (int i = 1; i <= 100; i++) {
+            runner.insert(index, String.valueOf(i), "{\"day\":\"day" + i % 2
+                    + "\",\"content\":\"" + STORIES[i % 10] + "\"}");
+        }
+        runner.refresh();
+
+        final SearchResponse response = runner.client().prepareSearch(index).setSize(0)
+                .addAggregation(new MinHashClustersAggregationBuilder("stories").field("content_minhash"))
+                .addAggregation(AggregationBuilders.terms("days").field("day")
+                        .subAggregation(new MinHashClustersAggregationBuilder("stories").field("content_minhash")))
+                .execute().actionGet();
+
+        final NumericMetricsAggregation.SingleValue stories = response.getAggregations().get("stories");
+        assertEquals(10.0, stories.value(), 1.0);
+
+        final Terms days = response.getAggregations().get("days");
+        assertEquals(2, days.getBuckets().size());
+        for (final Terms.Bucket bucket : days.getBuckets()) {
+            final NumericMetricsAggregation.SingleValue dayStories = bucket.getAggregations().get("stories");
+            assertEquals(5.0, dayStories.value(), 1.0);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.opensearch.minhash.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+
+import org.apache.lucene.util.BytesRef;
+import org.codelibs.minhash.MinHash;
+
+import junit.framework.TestCase;
+
+public class MinHashSignaturesTest extends TestCase {
+
+    public void test_decode() {
+        final Random random = new Random(1);
+        for (int n = 0; n < 100; n++) {
+            final byte[] signature = new byte[1 + random.nextInt(40)];
+            random.nextBytes(signature);
+
+            final String bitString = MinHash.toBinaryString(signature);
+            assertTrue(Arrays.equals(signature, MinHashSignatures.decode(bitString, true)));
+            final String base64 = Base64.getEncoder().encodeToString(signature);
+            assertTrue(Arrays.equals(signature, MinHashSignatures.decode(base64, false)));
+            assertEquals(bitString, MinHashSignatures.encode(signature, true));
+            assertEquals(base64, MinHashSignatures.encode(signature, false));
+
+            final byte[] buffer = new byte[signature.length + 1];
+            assertEquals(signature.length, MinHashSignatures.decode(
+                    new BytesRef(bitString.getBytes(StandardCharsets.US_ASCII)), true, buffer));
+            assertTrue(Arrays.equals(signature, Arrays.copyOf(buffer, signature.length)));
+            assertEquals(signature.length, MinHashSignatures.decode(
+                    new BytesRef(base64.getBytes(StandardCharsets.US_ASCII)), false, buffer));
+            assertTrue(Arrays.equals(signature, Arrays.copyOf(buffer, signature.length)));
+
+            // bit i of the string is the bit read at position i
+            for (int i = 0; i < signature.length * 8; i++) {
+                assertEquals(bitString.charAt(i) - '0', MinHashSignatures.bit(signature, i));
+            }
+        }
+    }
+}